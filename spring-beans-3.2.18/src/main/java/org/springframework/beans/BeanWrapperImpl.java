@@ -18,6 +18,7 @@ package org.springframework.beans;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyDescriptor;
+import java.beans.PropertyEditor;
 import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -31,9 +32,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -91,6 +94,38 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 	 */
 	private static final Log logger = LogFactory.getLog(BeanWrapperImpl.class);
 
+	/**
+	 * Maximum number of parsed property paths to keep in the shared cache.
+	 * The least recently parsed paths get evicted beyond that limit.
+	 */
+	private static final int PROPERTY_PATH_CACHE_LIMIT = 4096;
+
+	/**
+	 * Fast access cache of parsed property paths: property path String -> tokens
+	 * for each nested property in the path, followed by the final property.
+	 */
+	private static final Map<String, PropertyTokenHolder[]> propertyPathAccessCache =
+			new ConcurrentHashMap<String, PropertyTokenHolder[]>(PROPERTY_PATH_CACHE_LIMIT);
+
+	/**
+	 * Map from property path to parsed tokens, synchronized for path parsing
+	 * and in charge of evicting paths from the access cache beyond the limit.
+	 */
+	@SuppressWarnings("serial")
+	private static final Map<String, PropertyTokenHolder[]> propertyPathCreationCache =
+			new LinkedHashMap<String, PropertyTokenHolder[]>(PROPERTY_PATH_CACHE_LIMIT, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, PropertyTokenHolder[]> eldest) {
+					if (size() > PROPERTY_PATH_CACHE_LIMIT) {
+						propertyPathAccessCache.remove(eldest.getKey());
+						return true;
+					}
+					else {
+						return false;
+					}
+				}
+			};
+
 
 	/** The wrapped object */
 	private Object object;
@@ -181,11 +216,7 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 	 */
 	private BeanWrapperImpl(Object object, String nestedPath, BeanWrapperImpl superBw) {
 		setWrappedInstance(object, nestedPath, superBw.getWrappedInstance());
-		setExtractOldValueForEditor(superBw.isExtractOldValueForEditor());
-		setAutoGrowNestedPaths(superBw.isAutoGrowNestedPaths());
-		setAutoGrowCollectionLimit(superBw.getAutoGrowCollectionLimit());
-		setConversionService(superBw.getConversionService());
-		setSecurityContext(superBw.acc);
+		superBw.inheritSettings(this);
 	}
 
 
@@ -211,10 +242,15 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 	 */
 	public void setWrappedInstance(Object object, String nestedPath, Object rootObject) {
 		Assert.notNull(object, "Bean object must not be null");
+		String newNestedPath = (nestedPath != null ? nestedPath : "");
+		if (this.object == null || this.object.getClass() != object.getClass() ||
+				!newNestedPath.equals(this.nestedPath)) {
+			// Nested BeanWrappers for an object of the same class are retargeted on access.
+			this.nestedBeanWrappers = null;
+		}
 		this.object = object;
-		this.nestedPath = (nestedPath != null ? nestedPath : "");
+		this.nestedPath = newNestedPath;
 		this.rootObject = (!"".equals(this.nestedPath) ? rootObject : object);
-		this.nestedBeanWrappers = null;
 		this.typeConverterDelegate = new TypeConverterDelegate(this, object);
 		setIntrospectionClass(object.getClass());
 	}
@@ -299,6 +335,26 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 		return this.acc;
 	}
 
+	/**
+	 * Overridden to drop cached nested BeanWrappers,
+	 * which need to be recreated with the new editor.
+	 */
+	@Override
+	public void registerCustomEditor(Class<?> requiredType, String propertyPath, PropertyEditor propertyEditor) {
+		super.registerCustomEditor(requiredType, propertyPath, propertyEditor);
+		this.nestedBeanWrappers = null;
+	}
+
+	/**
+	 * Overridden to drop cached nested BeanWrappers,
+	 * which need to be recreated with the new editor.
+	 */
+	@Override
+	public void overrideDefaultEditor(Class<?> requiredType, PropertyEditor propertyEditor) {
+		super.overrideDefaultEditor(requiredType, propertyEditor);
+		this.nestedBeanWrappers = null;
+	}
+
 	/**
 	 * Set the class to introspect.
 	 * Needs to be called when the target object changes.
@@ -381,8 +437,7 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 	public TypeDescriptor getPropertyTypeDescriptor(String propertyName) throws BeansException {
 		try {
 			BeanWrapperImpl nestedBw = getBeanWrapperForPropertyPath(propertyName);
-			String finalPath = getFinalPath(nestedBw, propertyName);
-			PropertyTokenHolder tokens = getPropertyNameTokens(finalPath);
+			PropertyTokenHolder tokens = getFinalPropertyTokens(propertyName);
 			PropertyDescriptor pd = nestedBw.getCachedIntrospectionResults().getPropertyDescriptor(tokens.actualName);
 			if (pd != null) {
 				if (tokens.keys != null) {
@@ -392,7 +447,7 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 				}
 				else {
 					if (pd.getReadMethod() != null || pd.getWriteMethod() != null) {
-						return new TypeDescriptor(property(pd));
+						return nestedBw.getTypeDescriptor(pd);
 					}
 				}
 			}
@@ -486,7 +541,7 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 			throw new InvalidPropertyException(getRootClass(), this.nestedPath + propertyName,
 					"No property '" + propertyName + "' found");
 		}
-		return convertForProperty(propertyName, null, value, new TypeDescriptor(property(pd)));
+		return convertForProperty(propertyName, null, value, getTypeDescriptor(pd));
 	}
 
 	private Object convertForProperty(String propertyName, Object oldValue, Object newValue, TypeDescriptor td)
@@ -495,6 +550,19 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 		return convertIfNecessary(propertyName, oldValue, newValue, td.getType(), td);
 	}
 
+	/**
+	 * Obtain the TypeDescriptor for the given property, cached
+	 * along with the introspection results for the bean class.
+	 */
+	private TypeDescriptor getTypeDescriptor(PropertyDescriptor pd) {
+		CachedIntrospectionResults cachedIntrospectionResults = getCachedIntrospectionResults();
+		TypeDescriptor td = cachedIntrospectionResults.getTypeDescriptor(pd);
+		if (td == null) {
+			td = cachedIntrospectionResults.addTypeDescriptor(pd, new TypeDescriptor(property(pd)));
+		}
+		return td;
+	}
+
 	private Property property(PropertyDescriptor pd) {
 		GenericTypeAwarePropertyDescriptor typeAware = (GenericTypeAwarePropertyDescriptor) pd;
 		return new Property(typeAware.getBeanClass(), typeAware.getReadMethod(), typeAware.getWriteMethod(), typeAware.getName());
@@ -524,17 +592,12 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 	 * @return a BeanWrapper for the target bean
 	 */
 	protected BeanWrapperImpl getBeanWrapperForPropertyPath(String propertyPath) {
-		int pos = PropertyAccessorUtils.getFirstNestedPropertySeparatorIndex(propertyPath);
-		// Handle nested properties recursively.
-		if (pos > -1) {
-			String nestedProperty = propertyPath.substring(0, pos);
-			String nestedPath = propertyPath.substring(pos + 1);
-			BeanWrapperImpl nestedBw = getNestedBeanWrapper(nestedProperty);
-			return nestedBw.getBeanWrapperForPropertyPath(nestedPath);
-		}
-		else {
-			return this;
+		PropertyTokenHolder[] pathTokens = getPropertyPathTokens(propertyPath);
+		BeanWrapperImpl nestedBw = this;
+		for (int i = 0; i < pathTokens.length - 1; i++) {
+			nestedBw = nestedBw.getNestedBeanWrapper(pathTokens[i]);
 		}
+		return nestedBw;
 	}
 
 	/**
@@ -542,15 +605,17 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 	 * Create a new one if not found in the cache.
 	 * <p>Note: Caching nested BeanWrappers is necessary now,
 	 * to keep registered custom editors for nested properties.
-	 * @param nestedProperty property to create the BeanWrapper for
+	 * <p>A cached BeanWrapper for a different object of the same class
+	 * gets retargeted rather than recreated, so that the same chain of
+	 * nested BeanWrappers can be reused when binding many objects.
+	 * @param tokens the parsed property to create the BeanWrapper for
 	 * @return the BeanWrapper instance, either cached or newly created
 	 */
-	private BeanWrapperImpl getNestedBeanWrapper(String nestedProperty) {
+	private BeanWrapperImpl getNestedBeanWrapper(PropertyTokenHolder tokens) {
 		if (this.nestedBeanWrappers == null) {
 			this.nestedBeanWrappers = new HashMap<String, BeanWrapperImpl>();
 		}
 		// Get value of bean property.
-		PropertyTokenHolder tokens = getPropertyNameTokens(nestedProperty);
 		String canonicalName = tokens.canonicalName;
 		Object propertyValue = getPropertyValue(tokens);
 		if (propertyValue == null) {
@@ -564,7 +629,15 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 
 		// Lookup cached sub-BeanWrapper, create new one if not found.
 		BeanWrapperImpl nestedBw = this.nestedBeanWrappers.get(canonicalName);
-		if (nestedBw == null || nestedBw.getWrappedInstance() != propertyValue) {
+		if (nestedBw != null && nestedBw.getWrappedInstance() != propertyValue &&
+				nestedBw.getWrappedClass() == propertyValue.getClass()) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Retargeting cached nested BeanWrapper for property '" + canonicalName + "'");
+			}
+			nestedBw.setWrappedInstance(propertyValue, nestedBw.getNestedPath(), getWrappedInstance());
+			inheritSettings(nestedBw);
+		}
+		else if (nestedBw == null || nestedBw.getWrappedInstance() != propertyValue) {
 			if (logger.isTraceEnabled()) {
 				logger.trace("Creating new nested BeanWrapper for property '" + canonicalName + "'");
 			}
@@ -582,6 +655,17 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 		return nestedBw;
 	}
 
+	/**
+	 * Apply this BeanWrapper's settings to the given nested BeanWrapper.
+	 */
+	private void inheritSettings(BeanWrapperImpl nestedBw) {
+		nestedBw.setExtractOldValueForEditor(isExtractOldValueForEditor());
+		nestedBw.setAutoGrowNestedPaths(isAutoGrowNestedPaths());
+		nestedBw.setAutoGrowCollectionLimit(getAutoGrowCollectionLimit());
+		nestedBw.setConversionService(getConversionService());
+		nestedBw.setSecurityContext(this.acc);
+	}
+
 	private Object setDefaultValue(String propertyName) {
 		PropertyTokenHolder tokens = new PropertyTokenHolder();
 		tokens.actualName = propertyName;
@@ -648,12 +732,58 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 		return new BeanWrapperImpl(object, nestedPath, this);
 	}
 
+	/**
+	 * Obtain the parsed tokens for the given property path: one for each
+	 * nested property in the path, followed by one for the final property.
+	 * <p>Parsed paths are shared across BeanWrapper instances, with at most
+	 * {@link #PROPERTY_PATH_CACHE_LIMIT} paths kept. Lookups of cached paths
+	 * do not lock; parsing a new path evicts the least recently parsed one
+	 * once the limit has been reached.
+	 * @param propertyPath the property path to parse
+	 * @return the tokens for the elements of the path (never empty)
+	 */
+	private static PropertyTokenHolder[] getPropertyPathTokens(String propertyPath) {
+		PropertyTokenHolder[] pathTokens = propertyPathAccessCache.get(propertyPath);
+		if (pathTokens != null) {
+			return pathTokens;
+		}
+		synchronized (propertyPathCreationCache) {
+			pathTokens = propertyPathCreationCache.get(propertyPath);
+			if (pathTokens != null) {
+				return pathTokens;
+			}
+			List<PropertyTokenHolder> tokenList = new ArrayList<PropertyTokenHolder>(4);
+			String remainingPath = propertyPath;
+			int pos = PropertyAccessorUtils.getFirstNestedPropertySeparatorIndex(remainingPath);
+			while (pos > -1) {
+				tokenList.add(getPropertyNameTokens(remainingPath.substring(0, pos)));
+				remainingPath = remainingPath.substring(pos + 1);
+				pos = PropertyAccessorUtils.getFirstNestedPropertySeparatorIndex(remainingPath);
+			}
+			tokenList.add(getPropertyNameTokens(remainingPath));
+			pathTokens = tokenList.toArray(new PropertyTokenHolder[tokenList.size()]);
+			propertyPathAccessCache.put(propertyPath, pathTokens);
+			propertyPathCreationCache.put(propertyPath, pathTokens);
+			return pathTokens;
+		}
+	}
+
+	/**
+	 * Obtain the parsed tokens for the final property in the given property path.
+	 * @param propertyPath the property path to parse
+	 * @return the tokens for the last element of the path
+	 */
+	private static PropertyTokenHolder getFinalPropertyTokens(String propertyPath) {
+		PropertyTokenHolder[] pathTokens = getPropertyPathTokens(propertyPath);
+		return pathTokens[pathTokens.length - 1];
+	}
+
 	/**
 	 * Parse the given property name into the corresponding property name tokens.
 	 * @param propertyName the property name to parse
 	 * @return representation of the parsed property tokens
 	 */
-	private PropertyTokenHolder getPropertyNameTokens(String propertyName) {
+	private static PropertyTokenHolder getPropertyNameTokens(String propertyName) {
 		PropertyTokenHolder tokens = new PropertyTokenHolder();
 		String actualName = null;
 		List<String> keys = new ArrayList<String>(2);
@@ -696,7 +826,7 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 	@Override
 	public Object getPropertyValue(String propertyName) throws BeansException {
 		BeanWrapperImpl nestedBw = getBeanWrapperForPropertyPath(propertyName);
-		PropertyTokenHolder tokens = getPropertyNameTokens(getFinalPath(nestedBw, propertyName));
+		PropertyTokenHolder tokens = getFinalPropertyTokens(propertyName);
 		return nestedBw.getPropertyValue(tokens);
 	}
 
@@ -880,7 +1010,7 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 			throw new NotWritablePropertyException(getRootClass(), this.nestedPath + propertyName,
 					"Nested property in path '" + propertyName + "' does not exist", ex);
 		}
-		PropertyTokenHolder tokens = getPropertyNameTokens(getFinalPath(nestedBw, propertyName));
+		PropertyTokenHolder tokens = getFinalPropertyTokens(propertyName);
 		nestedBw.setPropertyValue(tokens, new PropertyValue(propertyName, value));
 	}
 
@@ -897,7 +1027,7 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 				throw new NotWritablePropertyException(getRootClass(), this.nestedPath + propertyName,
 						"Nested property in path '" + propertyName + "' does not exist", ex);
 			}
-			tokens = getPropertyNameTokens(getFinalPath(nestedBw, propertyName));
+			tokens = getFinalPropertyTokens(propertyName);
 			if (nestedBw == this) {
 				pv.getOriginalPropertyValue().resolvedTokens = tokens;
 			}
@@ -1097,7 +1227,7 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 							}
 						}
 						valueToApply = convertForProperty(
-								propertyName, oldValue, originalValue, new TypeDescriptor(property(pd)));
+								propertyName, oldValue, originalValue, getTypeDescriptor(pd));
 					}
 					pv.getOriginalPropertyValue().conversionNecessary = (valueToApply != originalValue);
 				}
@@ -20,22 +20,24 @@ import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
-import java.lang.ref.Reference;
-import java.lang.ref.SoftReference;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.springframework.core.SpringProperties;
+import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.core.io.support.SpringFactoriesLoader;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.StringUtils;
 
 /**
@@ -105,14 +107,30 @@ public class CachedIntrospectionResults {
 	 * Set of ClassLoaders that this CachedIntrospectionResults class will always
 	 * accept classes from, even if the classes do not qualify as cache-safe.
 	 */
-	static final Set<ClassLoader> acceptedClassLoaders = new HashSet<ClassLoader>();
+	static final Set<ClassLoader> acceptedClassLoaders =
+			Collections.newSetFromMap(new ConcurrentHashMap<ClassLoader, Boolean>(16));
 
 	/**
-	 * Map keyed by class containing CachedIntrospectionResults.
-	 * Needs to be a WeakHashMap with WeakReferences as values to allow
+	 * Map keyed by class containing CachedIntrospectionResults, strongly held.
+	 * This variant is being used for cache-safe bean classes as well as for
+	 * classes from accepted ClassLoaders, which get cleared explicitly.
+	 */
+	static final ConcurrentMap<Class<?>, CachedIntrospectionResults> strongClassCache =
+			new ConcurrentHashMap<Class<?>, CachedIntrospectionResults>(64);
+
+	/**
+	 * Map keyed by class containing CachedIntrospectionResults, softly held.
+	 * This variant is being used for non-cache-safe bean classes, allowing
 	 * for proper garbage collection in case of multiple class loaders.
 	 */
-	static final Map<Class<?>, Object> classCache = new WeakHashMap<Class<?>, Object>();
+	static final ConcurrentMap<Class<?>, CachedIntrospectionResults> softClassCache =
+			new EvictionCountingReferenceHashMap<Class<?>, CachedIntrospectionResults>(64);
+
+	private static final LongAdder hitCount = new LongAdder();
+
+	private static final LongAdder missCount = new LongAdder();
+
+	private static final LongAdder evictionCount = new LongAdder();
 
 
 	/**
@@ -129,9 +147,7 @@ public class CachedIntrospectionResults {
 	 */
 	public static void acceptClassLoader(ClassLoader classLoader) {
 		if (classLoader != null) {
-			synchronized (acceptedClassLoaders) {
-				acceptedClassLoaders.add(classLoader);
-			}
+			acceptedClassLoaders.add(classLoader);
 		}
 	}
 
@@ -142,62 +158,84 @@ public class CachedIntrospectionResults {
 	 * @param classLoader the ClassLoader to clear the cache for
 	 */
 	public static void clearClassLoader(ClassLoader classLoader) {
-		synchronized (classCache) {
-			for (Iterator<Class<?>> it = classCache.keySet().iterator(); it.hasNext();) {
-				Class<?> beanClass = it.next();
-				if (isUnderneathClassLoader(beanClass.getClassLoader(), classLoader)) {
-					it.remove();
-				}
+		clearClassCache(strongClassCache, classLoader);
+		clearClassCache(softClassCache, classLoader);
+		for (Iterator<ClassLoader> it = acceptedClassLoaders.iterator(); it.hasNext();) {
+			ClassLoader registeredLoader = it.next();
+			if (isUnderneathClassLoader(registeredLoader, classLoader)) {
+				it.remove();
 			}
 		}
-		synchronized (acceptedClassLoaders) {
-			for (Iterator<ClassLoader> it = acceptedClassLoaders.iterator(); it.hasNext();) {
-				ClassLoader registeredLoader = it.next();
-				if (isUnderneathClassLoader(registeredLoader, classLoader)) {
-					it.remove();
-				}
+	}
+
+	private static void clearClassCache(Map<Class<?>, CachedIntrospectionResults> classCache, ClassLoader classLoader) {
+		for (Iterator<Class<?>> it = classCache.keySet().iterator(); it.hasNext();) {
+			Class<?> beanClass = it.next();
+			if (isUnderneathClassLoader(beanClass.getClassLoader(), classLoader)) {
+				it.remove();
+				evictionCount.increment();
 			}
 		}
 	}
 
+	/**
+	 * Return the number of {@link #forClass} calls that have been served from the cache,
+	 * including calls whose own introspection lost out to a concurrent call.
+	 */
+	public static long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/**
+	 * Return the number of {@link #forClass} calls that introspected the given
+	 * class and stored the results in the cache.
+	 */
+	public static long getMissCount() {
+		return missCount.sum();
+	}
+
+	/**
+	 * Return the number of cache entries that have been removed, either through
+	 * {@link #clearClassLoader} or by the garbage collector.
+	 */
+	public static long getEvictionCount() {
+		return evictionCount.sum();
+	}
+
 	/**
 	 * Create CachedIntrospectionResults for the given bean class.
 	 * @param beanClass the bean class to analyze
 	 * @return the corresponding CachedIntrospectionResults
 	 * @throws BeansException in case of introspection failure
 	 */
-	@SuppressWarnings("unchecked")
 	static CachedIntrospectionResults forClass(Class<?> beanClass) throws BeansException {
-		CachedIntrospectionResults results;
-		Object value;
-		synchronized (classCache) {
-			value = classCache.get(beanClass);
+		CachedIntrospectionResults results = strongClassCache.get(beanClass);
+		if (results == null) {
+			results = softClassCache.get(beanClass);
 		}
-		if (value instanceof Reference) {
-			Reference<CachedIntrospectionResults> ref = (Reference<CachedIntrospectionResults>) value;
-			results = ref.get();
+		if (results != null) {
+			hitCount.increment();
+			return results;
 		}
-		else {
-			results = (CachedIntrospectionResults) value;
+
+		results = new CachedIntrospectionResults(beanClass);
+		ConcurrentMap<Class<?>, CachedIntrospectionResults> classCacheToUse;
+		if (ClassUtils.isCacheSafe(beanClass, CachedIntrospectionResults.class.getClassLoader()) ||
+				isClassLoaderAccepted(beanClass.getClassLoader())) {
+			classCacheToUse = strongClassCache;
 		}
-		if (results == null) {
-			if (ClassUtils.isCacheSafe(beanClass, CachedIntrospectionResults.class.getClassLoader()) ||
-					isClassLoaderAccepted(beanClass.getClassLoader())) {
-				results = new CachedIntrospectionResults(beanClass);
-				synchronized (classCache) {
-					classCache.put(beanClass, results);
-				}
-			}
-			else {
-				if (logger.isDebugEnabled()) {
-					logger.debug("Not strongly caching class [" + beanClass.getName() + "] because it is not cache-safe");
-				}
-				results = new CachedIntrospectionResults(beanClass);
-				synchronized (classCache) {
-					classCache.put(beanClass, new SoftReference<CachedIntrospectionResults>(results));
-				}
+		else {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Not strongly caching class [" + beanClass.getName() + "] because it is not cache-safe");
 			}
+			classCacheToUse = softClassCache;
+		}
+		CachedIntrospectionResults existing = classCacheToUse.putIfAbsent(beanClass, results);
+		if (existing != null) {
+			hitCount.increment();
+			return existing;
 		}
+		missCount.increment();
 		return results;
 	}
 
@@ -209,13 +247,7 @@ public class CachedIntrospectionResults {
 	 * @see #acceptClassLoader
 	 */
 	private static boolean isClassLoaderAccepted(ClassLoader classLoader) {
-		// Iterate over array copy in order to avoid synchronization for the entire
-		// ClassLoader check (avoiding a synchronized acceptedClassLoaders Iterator).
-		ClassLoader[] acceptedLoaderArray;
-		synchronized (acceptedClassLoaders) {
-			acceptedLoaderArray = acceptedClassLoaders.toArray(new ClassLoader[acceptedClassLoaders.size()]);
-		}
-		for (ClassLoader acceptedLoader : acceptedLoaderArray) {
+		for (ClassLoader acceptedLoader : acceptedClassLoaders) {
 			if (isUnderneathClassLoader(classLoader, acceptedLoader)) {
 				return true;
 			}
@@ -253,6 +285,10 @@ public class CachedIntrospectionResults {
 	/** PropertyDescriptor objects keyed by property name String */
 	private final Map<String, PropertyDescriptor> propertyDescriptorCache;
 
+	/** TypeDescriptor objects keyed by PropertyDescriptor */
+	private final ConcurrentMap<PropertyDescriptor, TypeDescriptor> typeDescriptorCache =
+			new ConcurrentHashMap<PropertyDescriptor, TypeDescriptor>();
+
 
 	/**
 	 * Create a new CachedIntrospectionResults instance for the given class.
@@ -354,6 +390,15 @@ public class CachedIntrospectionResults {
 		return pds;
 	}
 
+	TypeDescriptor addTypeDescriptor(PropertyDescriptor pd, TypeDescriptor td) {
+		TypeDescriptor existing = this.typeDescriptorCache.putIfAbsent(pd, td);
+		return (existing != null ? existing : td);
+	}
+
+	TypeDescriptor getTypeDescriptor(PropertyDescriptor pd) {
+		return this.typeDescriptorCache.get(pd);
+	}
+
 	private PropertyDescriptor buildGenericTypeAwarePropertyDescriptor(Class<?> beanClass, PropertyDescriptor pd) {
 		try {
 			return new GenericTypeAwarePropertyDescriptor(beanClass, pd.getName(), pd.getReadMethod(),
@@ -364,4 +409,30 @@ public class CachedIntrospectionResults {
 		}
 	}
 
+
+	/**
+	 * Soft-referencing ConcurrentReferenceHashMap that counts the entries
+	 * purged after having been reclaimed by the garbage collector.
+	 */
+	private static class EvictionCountingReferenceHashMap<K, V> extends ConcurrentReferenceHashMap<K, V> {
+
+		public EvictionCountingReferenceHashMap(int initialCapacity) {
+			super(initialCapacity, ReferenceType.SOFT);
+		}
+
+		@Override
+		protected ReferenceManager createReferenceManager() {
+			return new ReferenceManager() {
+				@Override
+				public Reference<K, V> pollForPurge() {
+					Reference<K, V> reference = super.pollForPurge();
+					if (reference != null) {
+						evictionCount.increment();
+					}
+					return reference;
+				}
+			};
+		}
+	}
+
 }
@@ -17,10 +17,13 @@
 package org.springframework.beans;
 
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 import java.util.Set;
 
 import org.springframework.util.StringUtils;
@@ -30,6 +33,13 @@ import org.springframework.util.StringUtils;
  * Allows simple manipulation of properties, and provides constructors
  * to support deep copy and construction from a Map.
  *
+ * <p>Property values are kept in insertion order. Lookups by property name
+ * are backed by a hash index once the number of property values exceeds a
+ * handful, so that adding and looking up property values remains linear in
+ * the overall number of properties, even for beans with hundreds of them.
+ * The index is maintained for modifications through
+ * {@link #getPropertyValueList()} as well.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @author Rob Harrop
@@ -51,7 +61,7 @@ public class MutablePropertyValues implements PropertyValues, Serializable {
 	 * @see #add(String, Object)
 	 */
 	public MutablePropertyValues() {
-		this.propertyValueList = new ArrayList<PropertyValue>(0);
+		this.propertyValueList = new PropertyValueList(0);
 	}
 
 	/**
@@ -66,13 +76,13 @@ public class MutablePropertyValues implements PropertyValues, Serializable {
 		// There is no replacement of existing property values.
 		if (original != null) {
 			PropertyValue[] pvs = original.getPropertyValues();
-			this.propertyValueList = new ArrayList<PropertyValue>(pvs.length);
+			this.propertyValueList = new PropertyValueList(pvs.length);
 			for (PropertyValue pv : pvs) {
 				this.propertyValueList.add(new PropertyValue(pv));
 			}
 		}
 		else {
-			this.propertyValueList = new ArrayList<PropertyValue>(0);
+			this.propertyValueList = new PropertyValueList(0);
 		}
 	}
 
@@ -85,13 +95,13 @@ public class MutablePropertyValues implements PropertyValues, Serializable {
 		// We can optimize this because it's all new:
 		// There is no replacement of existing property values.
 		if (original != null) {
-			this.propertyValueList = new ArrayList<PropertyValue>(original.size());
+			this.propertyValueList = new PropertyValueList(original.size());
 			for (Map.Entry<?, ?> entry : original.entrySet()) {
 				this.propertyValueList.add(new PropertyValue(entry.getKey().toString(), entry.getValue()));
 			}
 		}
 		else {
-			this.propertyValueList = new ArrayList<PropertyValue>(0);
+			this.propertyValueList = new PropertyValueList(0);
 		}
 	}
 
@@ -99,7 +109,8 @@ public class MutablePropertyValues implements PropertyValues, Serializable {
 	 * Construct a new MutablePropertyValues object using the given List of
 	 * PropertyValue objects as-is.
 	 * <p>This is a constructor for advanced usage scenarios.
-	 * It is not intended for typical programmatic use.
+	 * It is not intended for typical programmatic use. Note that lookups
+	 * by property name are not indexed for a List given this way.
 	 * @param propertyValueList List of PropertyValue objects
 	 */
 	public MutablePropertyValues(List<PropertyValue> propertyValueList) {
@@ -164,13 +175,11 @@ public class MutablePropertyValues implements PropertyValues, Serializable {
 	 * @return this in order to allow for adding multiple property values in a chain
 	 */
 	public MutablePropertyValues addPropertyValue(PropertyValue pv) {
-		for (int i = 0; i < this.propertyValueList.size(); i++) {
-			PropertyValue currentPv = this.propertyValueList.get(i);
-			if (currentPv.getName().equals(pv.getName())) {
-				pv = mergeIfRequired(pv, currentPv);
-				setPropertyValueAt(pv, i);
-				return this;
-			}
+		int index = indexOf(pv.getName());
+		if (index >= 0) {
+			pv = mergeIfRequired(pv, this.propertyValueList.get(index));
+			setPropertyValueAt(pv, index);
+			return this;
 		}
 		this.propertyValueList.add(pv);
 		return this;
@@ -240,7 +249,26 @@ public class MutablePropertyValues implements PropertyValues, Serializable {
 	 * @see #removePropertyValue(PropertyValue)
 	 */
 	public void removePropertyValue(String propertyName) {
-		this.propertyValueList.remove(getPropertyValue(propertyName));
+		int index = indexOf(propertyName);
+		if (index >= 0) {
+			this.propertyValueList.remove(index);
+		}
+	}
+
+	/**
+	 * Return the position of the first PropertyValue for the given property,
+	 * or -1 if none.
+	 */
+	private int indexOf(String propertyName) {
+		if (this.propertyValueList instanceof PropertyValueList) {
+			return ((PropertyValueList) this.propertyValueList).indexOf(propertyName);
+		}
+		for (int i = 0; i < this.propertyValueList.size(); i++) {
+			if (this.propertyValueList.get(i).getName().equals(propertyName)) {
+				return i;
+			}
+		}
+		return -1;
 	}
 
 
@@ -249,12 +277,8 @@ public class MutablePropertyValues implements PropertyValues, Serializable {
 	}
 
 	public PropertyValue getPropertyValue(String propertyName) {
-		for (PropertyValue pv : this.propertyValueList) {
-			if (pv.getName().equals(propertyName)) {
-				return pv;
-			}
-		}
-		return null;
+		int index = indexOf(propertyName);
+		return (index >= 0 ? this.propertyValueList.get(index) : null);
 	}
 
 	public PropertyValues changesSince(PropertyValues old) {
@@ -357,4 +381,131 @@ public class MutablePropertyValues implements PropertyValues, Serializable {
 		return sb.toString();
 	}
 
+
+	/**
+	 * List of PropertyValue objects backed by an array, with an index from
+	 * property name to the position of the first PropertyValue for that name.
+	 * The index is only built for lists with more than a few elements, and
+	 * is rebuilt on demand after removals and insertions in the middle.
+	 */
+	@SuppressWarnings("serial")
+	private static class PropertyValueList extends AbstractList<PropertyValue> implements RandomAccess, Serializable {
+
+		/** Minimum number of elements for lookups to go through the index */
+		private static final int INDEX_THRESHOLD = 8;
+
+		private PropertyValue[] elements;
+
+		private int size;
+
+		/**
+		 * Property name --> position of first PropertyValue, or {@code null} if to be rebuilt.
+		 * Volatile since it may be built lazily by concurrent readers.
+		 */
+		private transient volatile Map<String, Integer> index;
+
+		public PropertyValueList(int initialCapacity) {
+			this.elements = new PropertyValue[initialCapacity];
+		}
+
+		@Override
+		public PropertyValue get(int i) {
+			checkIndex(i, this.size);
+			return this.elements[i];
+		}
+
+		@Override
+		public int size() {
+			return this.size;
+		}
+
+		@Override
+		public PropertyValue set(int i, PropertyValue pv) {
+			checkIndex(i, this.size);
+			PropertyValue oldPv = this.elements[i];
+			this.elements[i] = pv;
+			if (this.index != null && !oldPv.getName().equals(pv.getName())) {
+				this.index = null;
+			}
+			return oldPv;
+		}
+
+		@Override
+		public void add(int i, PropertyValue pv) {
+			checkIndex(i, this.size + 1);
+			if (this.size == this.elements.length) {
+				PropertyValue[] newElements = new PropertyValue[Math.max(4, this.size + (this.size >> 1))];
+				System.arraycopy(this.elements, 0, newElements, 0, this.size);
+				this.elements = newElements;
+			}
+			System.arraycopy(this.elements, i, this.elements, i + 1, this.size - i);
+			this.elements[i] = pv;
+			this.size++;
+			this.modCount++;
+			Map<String, Integer> index = this.index;
+			if (index != null) {
+				if (i == this.size - 1) {
+					if (!index.containsKey(pv.getName())) {
+						index.put(pv.getName(), i);
+					}
+				}
+				else {
+					this.index = null;
+				}
+			}
+		}
+
+		@Override
+		public PropertyValue remove(int i) {
+			checkIndex(i, this.size);
+			PropertyValue oldPv = this.elements[i];
+			System.arraycopy(this.elements, i + 1, this.elements, i, this.size - i - 1);
+			this.elements[--this.size] = null;
+			this.modCount++;
+			this.index = null;
+			return oldPv;
+		}
+
+		@Override
+		public void clear() {
+			for (int i = 0; i < this.size; i++) {
+				this.elements[i] = null;
+			}
+			this.size = 0;
+			this.modCount++;
+			this.index = null;
+		}
+
+		/**
+		 * Return the position of the first PropertyValue for the given property,
+		 * or -1 if none.
+		 */
+		public int indexOf(String propertyName) {
+			if (this.size < INDEX_THRESHOLD) {
+				for (int i = 0; i < this.size; i++) {
+					if (this.elements[i].getName().equals(propertyName)) {
+						return i;
+					}
+				}
+				return -1;
+			}
+			Map<String, Integer> index = this.index;
+			if (index == null) {
+				index = new HashMap<String, Integer>((int) (this.size / 0.75f) + 1);
+				for (int i = this.size - 1; i >= 0; i--) {
+					index.put(this.elements[i].getName(), i);
+				}
+				this.index = index;
+			}
+			Integer i = index.get(propertyName);
+			return (i != null ? i : -1);
+		}
+
+		private void checkIndex(int i, int bound) {
+			if (i < 0 || i >= bound) {
+				throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + this.size);
+			}
+		}
+	}
+
 }
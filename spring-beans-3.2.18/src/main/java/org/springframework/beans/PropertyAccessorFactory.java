@@ -48,4 +48,17 @@ public abstract class PropertyAccessorFactory {
 		return new DirectFieldAccessor(target);
 	}
 
+	/**
+	 * Obtain a PropertyAccessor for the given target object,
+	 * accessing properties in JavaBeans style through generated
+	 * property invokers instead of reflection.
+	 * @param target the target object to wrap
+	 * @return the property accessor
+	 * @since 3.2.18
+	 * @see GeneratedPropertyAccessor
+	 */
+	public static ConfigurablePropertyAccessor forGeneratedPropertyAccess(Object target) {
+		return new GeneratedPropertyAccessor(target);
+	}
+
 }
@@ -159,6 +159,23 @@ public class PropertyEditorRegistrySupport implements PropertyEditorRegistry {
 		this.overriddenDefaultEditors.put(requiredType, propertyEditor);
 	}
 
+	/**
+	 * Return whether the default editors are active for this registry instance.
+	 * @see #registerDefaultEditors
+	 */
+	boolean isDefaultEditorsActive() {
+		return this.defaultEditorsActive;
+	}
+
+	/**
+	 * Determine whether the default editor for the given type has been overridden.
+	 * @param requiredType type of the property
+	 * @see #overrideDefaultEditor
+	 */
+	boolean isDefaultEditorOverridden(Class<?> requiredType) {
+		return (this.overriddenDefaultEditors != null && this.overriddenDefaultEditors.containsKey(requiredType));
+	}
+
 	/**
 	 * Retrieve the default editor for the given property type, if any.
 	 * <p>Lazily registers the default editors, if they are active.
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.util.Map;
+
+/**
+ * Base class for the property invokers that are generated at runtime for
+ * {@link GeneratedPropertyAccessor}, calling the read and write methods of
+ * the properties of a specific bean class directly instead of reflectively.
+ *
+ * <p>Only public for the generated subclasses, which are defined in a
+ * ClassLoader of their own. Not intended for use by application code.
+ *
+ * @since 3.2.18
+ * @see PropertyInvokerGenerator
+ */
+public abstract class PropertyInvoker {
+
+	private Map<String, Integer> readMethodIndexes;
+
+	private Map<String, Integer> writeMethodIndexes;
+
+
+	/**
+	 * Constructor for use by generated subclasses.
+	 */
+	protected PropertyInvoker() {
+	}
+
+
+	/**
+	 * Register the indexes that the read and write methods of the
+	 * supported properties are being dispatched on, keyed by property name.
+	 */
+	void setMethodIndexes(Map<String, Integer> readMethodIndexes, Map<String, Integer> writeMethodIndexes) {
+		this.readMethodIndexes = readMethodIndexes;
+		this.writeMethodIndexes = writeMethodIndexes;
+	}
+
+	/**
+	 * Return the index of the read method for the given property,
+	 * or -1 if it needs to be invoked reflectively.
+	 */
+	int getReadMethodIndex(String propertyName) {
+		Integer index = this.readMethodIndexes.get(propertyName);
+		return (index != null ? index : -1);
+	}
+
+	/**
+	 * Return the index of the write method for the given property,
+	 * or -1 if it needs to be invoked reflectively.
+	 */
+	int getWriteMethodIndex(String propertyName) {
+		Integer index = this.writeMethodIndexes.get(propertyName);
+		return (index != null ? index : -1);
+	}
+
+	/**
+	 * Invoke the read method with the given index on the given target.
+	 * @param target the bean instance
+	 * @param index the index of the read method
+	 * @return the property value, with primitive values wrapped
+	 */
+	public abstract Object invokeReadMethod(Object target, int index);
+
+	/**
+	 * Invoke the write method with the given index on the given target.
+	 * @param target the bean instance
+	 * @param index the index of the write method
+	 * @param value the property value, of the exact parameter type
+	 * (with primitive values wrapped and not {@code null})
+	 */
+	public abstract void invokeWriteMethod(Object target, int index, Object value);
+
+}
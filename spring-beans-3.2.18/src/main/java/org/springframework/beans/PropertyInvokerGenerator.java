@@ -0,0 +1,301 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Generates {@link PropertyInvoker} subclasses with ASM, dispatching on a
+ * method index to direct {@code invokevirtual} calls of the property read
+ * and write methods of a given bean class.
+ *
+ * <p>Each generated class is defined in a ClassLoader of its own, as a child
+ * of the bean class's ClassLoader, which allows for unloading it together with
+ * the bean class and does not require access to {@code ClassLoader.defineClass}.
+ * As a consequence, only public methods of public bean classes with public
+ * property types can be invoked that way; any other property accessors
+ * (as well as classes from the bootstrap ClassLoader and the {@code java.*}
+ * packages) are left to reflection.
+ *
+ * <p>Invokers are cached per bean class, softly referenced.
+ *
+ * @since 3.2.18
+ * @see GeneratedPropertyAccessor
+ */
+abstract class PropertyInvokerGenerator {
+
+	private static final String INVOKER_NAME_INFIX = "$$PropertyInvoker$$";
+
+	private static final String INVOKER_SUPERCLASS = Type.getInternalName(PropertyInvoker.class);
+
+	private static final String ILLEGAL_ARGUMENT_EXCEPTION = Type.getInternalName(IllegalArgumentException.class);
+
+	private static final Object NO_INVOKER = new Object();
+
+	private static final Log logger = LogFactory.getLog(PropertyInvokerGenerator.class);
+
+	private static final Map<Class<?>, Object> invokerCache = new ConcurrentReferenceHashMap<Class<?>, Object>(64);
+
+	private static final AtomicInteger invokerClassCount = new AtomicInteger();
+
+
+	/**
+	 * Return the generated PropertyInvoker for the given bean class.
+	 * @param beanClass the bean class to invoke property methods on
+	 * @param pds the property descriptors of the bean class
+	 * @return the PropertyInvoker, or {@code null} if none could be generated
+	 * for the given class (e.g. since it is not public)
+	 */
+	public static PropertyInvoker getPropertyInvoker(Class<?> beanClass, PropertyDescriptor[] pds) {
+		Object invoker = invokerCache.get(beanClass);
+		if (invoker == null) {
+			invoker = generatePropertyInvoker(beanClass, pds);
+			if (invoker == null) {
+				invoker = NO_INVOKER;
+			}
+			invokerCache.put(beanClass, invoker);
+		}
+		return (invoker != NO_INVOKER ? (PropertyInvoker) invoker : null);
+	}
+
+	private static PropertyInvoker generatePropertyInvoker(Class<?> beanClass, PropertyDescriptor[] pds) {
+		ClassLoader classLoader = beanClass.getClassLoader();
+		if (classLoader == null || !Modifier.isPublic(beanClass.getModifiers()) || beanClass.getName().startsWith("java.")) {
+			return null;
+		}
+
+		List<Method> readMethods = new ArrayList<Method>();
+		List<Method> writeMethods = new ArrayList<Method>();
+		Map<String, Integer> readMethodIndexes = new HashMap<String, Integer>();
+		Map<String, Integer> writeMethodIndexes = new HashMap<String, Integer>();
+		for (PropertyDescriptor pd : pds) {
+			Method readMethod = pd.getReadMethod();
+			if (readMethod != null && isInvokable(readMethod, classLoader)) {
+				readMethodIndexes.put(pd.getName(), readMethods.size());
+				readMethods.add(readMethod);
+			}
+			Method writeMethod = (pd instanceof GenericTypeAwarePropertyDescriptor ?
+					((GenericTypeAwarePropertyDescriptor) pd).getWriteMethodForActualAccess() : pd.getWriteMethod());
+			if (writeMethod != null && isInvokable(writeMethod, classLoader)) {
+				writeMethodIndexes.put(pd.getName(), writeMethods.size());
+				writeMethods.add(writeMethod);
+			}
+		}
+		if (readMethods.isEmpty() && writeMethods.isEmpty()) {
+			return null;
+		}
+
+		String className = beanClass.getName() + INVOKER_NAME_INFIX + invokerClassCount.incrementAndGet();
+		try {
+			byte[] bytes = generateClass(className.replace('.', '/'), Type.getInternalName(beanClass),
+					readMethods, writeMethods);
+			Class<?> invokerClass = new InvokerClassLoader(classLoader).defineClass(className, bytes);
+			PropertyInvoker invoker = BeanUtils.instantiateClass(invokerClass, PropertyInvoker.class);
+			invoker.setMethodIndexes(readMethodIndexes, writeMethodIndexes);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Generated property invoker for class [" + beanClass.getName() + "] with " +
+						readMethods.size() + " read methods and " + writeMethods.size() + " write methods");
+			}
+			return invoker;
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Could not generate property invoker for class [" + beanClass.getName() +
+						"] - falling back to reflection", ex);
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Check whether the given method can be invoked from generated code in
+	 * a child of the given ClassLoader, with the bean class as call target.
+	 */
+	private static boolean isInvokable(Method method, ClassLoader classLoader) {
+		int modifiers = method.getModifiers();
+		Class<?> returnType = method.getReturnType();
+		if (!Modifier.isPublic(modifiers) || Modifier.isStatic(modifiers) ||
+				(!returnType.isPrimitive() && !ClassUtils.isVisible(returnType, classLoader))) {
+			return false;
+		}
+		for (Class<?> paramType : method.getParameterTypes()) {
+			Class<?> typeToCheck = paramType;
+			while (typeToCheck.isArray()) {
+				typeToCheck = typeToCheck.getComponentType();
+			}
+			if (!typeToCheck.isPrimitive() &&
+					(!Modifier.isPublic(typeToCheck.getModifiers()) || !ClassUtils.isVisible(typeToCheck, classLoader))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static byte[] generateClass(String className, String beanType,
+			List<Method> readMethods, List<Method> writeMethods) {
+
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		cw.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER | Opcodes.ACC_SYNTHETIC,
+				className, null, INVOKER_SUPERCLASS, null);
+
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, INVOKER_SUPERCLASS, "<init>", "()V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// Object invokeReadMethod(Object target, int index)
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "invokeReadMethod", "(Ljava/lang/Object;I)Ljava/lang/Object;", null, null);
+		mv.visitCode();
+		Label[] labels = visitIndexSwitch(mv, readMethods.size());
+		for (int i = 0; i < readMethods.size(); i++) {
+			Method readMethod = readMethods.get(i);
+			mv.visitLabel(labels[i]);
+			mv.visitVarInsn(Opcodes.ALOAD, 1);
+			mv.visitTypeInsn(Opcodes.CHECKCAST, beanType);
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, beanType, readMethod.getName(),
+					Type.getMethodDescriptor(readMethod), false);
+			visitBoxing(mv, readMethod.getReturnType());
+			mv.visitInsn(Opcodes.ARETURN);
+		}
+		visitIllegalIndex(mv, labels);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// void invokeWriteMethod(Object target, int index, Object value)
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "invokeWriteMethod", "(Ljava/lang/Object;ILjava/lang/Object;)V", null, null);
+		mv.visitCode();
+		labels = visitIndexSwitch(mv, writeMethods.size());
+		for (int i = 0; i < writeMethods.size(); i++) {
+			Method writeMethod = writeMethods.get(i);
+			mv.visitLabel(labels[i]);
+			mv.visitVarInsn(Opcodes.ALOAD, 1);
+			mv.visitTypeInsn(Opcodes.CHECKCAST, beanType);
+			mv.visitVarInsn(Opcodes.ALOAD, 3);
+			visitUnboxing(mv, writeMethod.getParameterTypes()[0]);
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, beanType, writeMethod.getName(),
+					Type.getMethodDescriptor(writeMethod), false);
+			Class<?> returnType = writeMethod.getReturnType();
+			if (returnType == long.class || returnType == double.class) {
+				mv.visitInsn(Opcodes.POP2);
+			}
+			else if (returnType != void.class) {
+				// Chained setter
+				mv.visitInsn(Opcodes.POP);
+			}
+			mv.visitInsn(Opcodes.RETURN);
+		}
+		visitIllegalIndex(mv, labels);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	/**
+	 * Switch on the index argument, returning one label per index
+	 * plus a trailing label for the default case.
+	 */
+	private static Label[] visitIndexSwitch(MethodVisitor mv, int count) {
+		Label[] labels = new Label[count + 1];
+		for (int i = 0; i < labels.length; i++) {
+			labels[i] = new Label();
+		}
+		if (count > 0) {
+			Label[] caseLabels = new Label[count];
+			System.arraycopy(labels, 0, caseLabels, 0, count);
+			mv.visitVarInsn(Opcodes.ILOAD, 2);
+			mv.visitTableSwitchInsn(0, count - 1, labels[count], caseLabels);
+		}
+		return labels;
+	}
+
+	private static void visitIllegalIndex(MethodVisitor mv, Label[] labels) {
+		mv.visitLabel(labels[labels.length - 1]);
+		mv.visitTypeInsn(Opcodes.NEW, ILLEGAL_ARGUMENT_EXCEPTION);
+		mv.visitInsn(Opcodes.DUP);
+		mv.visitLdcInsn("Invalid property method index");
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, ILLEGAL_ARGUMENT_EXCEPTION, "<init>", "(Ljava/lang/String;)V", false);
+		mv.visitInsn(Opcodes.ATHROW);
+	}
+
+	private static void visitBoxing(MethodVisitor mv, Class<?> type) {
+		if (type.isPrimitive()) {
+			Class<?> wrapperType = ClassUtils.resolvePrimitiveIfNecessary(type);
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(wrapperType), "valueOf",
+					"(" + Type.getDescriptor(type) + ")" + Type.getDescriptor(wrapperType), false);
+		}
+	}
+
+	private static void visitUnboxing(MethodVisitor mv, Class<?> type) {
+		if (type.isPrimitive()) {
+			String wrapperType = Type.getInternalName(ClassUtils.resolvePrimitiveIfNecessary(type));
+			mv.visitTypeInsn(Opcodes.CHECKCAST, wrapperType);
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, wrapperType, type.getName() + "Value",
+					"()" + Type.getDescriptor(type), false);
+		}
+		else if (type != Object.class) {
+			mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(type));
+		}
+	}
+
+
+	/**
+	 * ClassLoader for a generated invoker class, seeing the classes of the
+	 * bean's ClassLoader as well as the {@link PropertyInvoker} base class.
+	 */
+	private static class InvokerClassLoader extends ClassLoader {
+
+		public InvokerClassLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if (PropertyInvoker.class.getName().equals(name)) {
+				return PropertyInvoker.class;
+			}
+			return super.loadClass(name, resolve);
+		}
+
+		public Class<?> defineClass(String name, byte[] bytes) {
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+
+}
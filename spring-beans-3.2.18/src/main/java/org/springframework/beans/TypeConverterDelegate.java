@@ -21,19 +21,27 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.beans.propertyeditors.DefaultEditorConverters;
 import org.springframework.core.CollectionFactory;
 import org.springframework.core.MethodParameter;
 import org.springframework.core.convert.ConversionFailedException;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.converter.Converter;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.NumberUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -53,6 +61,37 @@ class TypeConverterDelegate {
 
 	private static final Log logger = LogFactory.getLog(TypeConverterDelegate.class);
 
+	/** Number types covered by the default CustomNumberEditors */
+	private static final Set<Class<?>> defaultEditorNumberTypes = new HashSet<Class<?>>(8);
+
+	/** Marker for a combination of types that does not qualify for the fast path */
+	private static final FastPathConverter NO_FAST_PATH = new FastPathConverter() {
+		@Override
+		public boolean usesDefaultEditor() {
+			return false;
+		}
+		@Override
+		public Object convert(Object value) {
+			return null;
+		}
+	};
+
+	/** Cache of resolved fast path converters, keyed by source and target type */
+	private static final Map<ConverterCacheKey, FastPathConverter> fastPathConverterCache =
+			new ConcurrentReferenceHashMap<ConverterCacheKey, FastPathConverter>(64);
+
+	static {
+		defaultEditorNumberTypes.add(Byte.class);
+		defaultEditorNumberTypes.add(Short.class);
+		defaultEditorNumberTypes.add(Integer.class);
+		defaultEditorNumberTypes.add(Long.class);
+		defaultEditorNumberTypes.add(Float.class);
+		defaultEditorNumberTypes.add(Double.class);
+		defaultEditorNumberTypes.add(BigDecimal.class);
+		defaultEditorNumberTypes.add(BigInteger.class);
+	}
+
+
 	private final PropertyEditorRegistrySupport propertyEditorRegistry;
 
 	private final Object targetObject;
@@ -153,6 +192,14 @@ class TypeConverterDelegate {
 
 		// No custom editor but custom ConversionService specified?
 		ConversionService conversionService = this.propertyEditorRegistry.getConversionService();
+		if (editor == null && conversionService == null && convertedValue != null && requiredType != null &&
+				!ClassUtils.isAssignableValue(requiredType, convertedValue)) {
+			// Simple value that the default conversion rules always convert the same way?
+			Object fastPathValue = convertByFastPath(convertedValue, requiredType);
+			if (fastPathValue != null) {
+				return (T) fastPathValue;
+			}
+		}
 		if (editor == null && conversionService != null && convertedValue != null && typeDescriptor != null) {
 			TypeDescriptor sourceTypeDesc = TypeDescriptor.forObject(newValue);
 			TypeDescriptor targetTypeDesc = typeDescriptor;
@@ -280,6 +327,52 @@ class TypeConverterDelegate {
 		return (T) convertedValue;
 	}
 
+	/**
+	 * Convert the given value through a cached stateless converter that is
+	 * equivalent to the default editor or enum lookup for the required type,
+	 * avoiding editor lookup and stateful editor calls for hot conversions
+	 * such as String to int or String to enum.
+	 * @see DefaultEditorConverters
+	 * @param value the value to convert (not {@code null})
+	 * @param requiredType the type we must convert to
+	 * @return the converted value, or {@code null} if the fast path does not
+	 * apply, in which case the regular conversion algorithm needs to be used
+	 */
+	private Object convertByFastPath(Object value, Class<?> requiredType) {
+		ConverterCacheKey key = new ConverterCacheKey(value.getClass(), requiredType);
+		FastPathConverter converter = fastPathConverterCache.get(key);
+		if (converter == null) {
+			converter = resolveFastPathConverter(value.getClass(), requiredType);
+			fastPathConverterCache.put(key, converter);
+		}
+		if (converter == NO_FAST_PATH) {
+			return null;
+		}
+		boolean defaultEditorsActive = this.propertyEditorRegistry.isDefaultEditorsActive();
+		if ((converter.usesDefaultEditor() && !defaultEditorsActive) ||
+				(defaultEditorsActive && this.propertyEditorRegistry.isDefaultEditorOverridden(requiredType))) {
+			return null;
+		}
+		return converter.convert(value);
+	}
+
+	private FastPathConverter resolveFastPathConverter(Class<?> sourceType, Class<?> requiredType) {
+		Class<?> targetType = ClassUtils.resolvePrimitiveIfNecessary(requiredType);
+		if (defaultEditorNumberTypes.contains(targetType) && Number.class.isAssignableFrom(sourceType)) {
+			return new NumberFastPathConverter(targetType.asSubclass(Number.class));
+		}
+		if (String.class.equals(sourceType)) {
+			Converter<String, ?> defaultConverter = DefaultEditorConverters.getConverter(requiredType);
+			if (defaultConverter != null) {
+				return new DefaultEditorFastPathConverter(requiredType, defaultConverter);
+			}
+			if (requiredType.isEnum() && BeanUtils.findEditorByConvention(requiredType) == null) {
+				return new EnumFastPathConverter(requiredType);
+			}
+		}
+		return NO_FAST_PATH;
+	}
+
 	private Object attemptToConvertStringToEnum(Class<?> requiredType, String trimmedValue, Object currentConvertedValue) {
 		Object convertedValue = currentConvertedValue;
 
@@ -679,4 +772,155 @@ class TypeConverterDelegate {
 				Modifier.isPublic(requiredType.getModifiers()) && ClassUtils.hasConstructor(requiredType));
 	}
 
+
+	/**
+	 * Key for the fast path converter cache.
+	 */
+	private static final class ConverterCacheKey {
+
+		private final Class<?> sourceType;
+
+		private final Class<?> targetType;
+
+		public ConverterCacheKey(Class<?> sourceType, Class<?> targetType) {
+			this.sourceType = sourceType;
+			this.targetType = targetType;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof ConverterCacheKey)) {
+				return false;
+			}
+			ConverterCacheKey otherKey = (ConverterCacheKey) other;
+			return (this.sourceType == otherKey.sourceType && this.targetType == otherKey.targetType);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.sourceType.hashCode() * 29 + this.targetType.hashCode();
+		}
+	}
+
+
+	/**
+	 * Stateless conversion function for the fast path, to be shared
+	 * across threads. Returns {@code null} for any value that it cannot
+	 * convert in exactly the same way as the regular conversion algorithm.
+	 */
+	private static abstract class FastPathConverter {
+
+		/**
+		 * Return whether this converter stands in for a default editor,
+		 * only to be used if the default editors are active and not overridden.
+		 */
+		public abstract boolean usesDefaultEditor();
+
+		public abstract Object convert(Object value);
+	}
+
+
+	/**
+	 * Equivalent of the default {@code CustomNumberEditor}'s
+	 * {@code setValue} conversion for Number values.
+	 */
+	private static class NumberFastPathConverter extends FastPathConverter {
+
+		private final Class<? extends Number> numberClass;
+
+		public NumberFastPathConverter(Class<? extends Number> numberClass) {
+			this.numberClass = numberClass;
+		}
+
+		@Override
+		public boolean usesDefaultEditor() {
+			return true;
+		}
+
+		@Override
+		public Object convert(Object value) {
+			try {
+				return NumberUtils.convertNumberToTargetClass((Number) value, this.numberClass);
+			}
+			catch (IllegalArgumentException ex) {
+				// Let the regular conversion algorithm report the failure.
+				return null;
+			}
+		}
+	}
+
+
+	/**
+	 * Adapter for a shared converter from {@link DefaultEditorConverters},
+	 * standing in for the default editor for a String value.
+	 */
+	private static class DefaultEditorFastPathConverter extends FastPathConverter {
+
+		private final Class<?> requiredType;
+
+		private final Converter<String, ?> converter;
+
+		public DefaultEditorFastPathConverter(Class<?> requiredType, Converter<String, ?> converter) {
+			this.requiredType = requiredType;
+			this.converter = converter;
+		}
+
+		@Override
+		public boolean usesDefaultEditor() {
+			return true;
+		}
+
+		@Override
+		public Object convert(Object value) {
+			try {
+				Object convertedValue = this.converter.convert((String) value);
+				return (ClassUtils.isAssignableValue(this.requiredType, convertedValue) ? convertedValue : null);
+			}
+			catch (IllegalArgumentException ex) {
+				// Let the regular conversion algorithm report the failure.
+				return null;
+			}
+		}
+	}
+
+
+	/**
+	 * Equivalent of the enum constant lookup for String values,
+	 * only applying to enum types without any default editor.
+	 */
+	private static class EnumFastPathConverter extends FastPathConverter {
+
+		@SuppressWarnings("rawtypes")
+		private final Class<? extends Enum> enumType;
+
+		@SuppressWarnings({"rawtypes", "unchecked"})
+		public EnumFastPathConverter(Class<?> enumType) {
+			this.enumType = (Class<? extends Enum>) enumType;
+		}
+
+		@Override
+		public boolean usesDefaultEditor() {
+			return false;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public Object convert(Object value) {
+			String trimmedValue = ((String) value).trim();
+			if (trimmedValue.length() == 0) {
+				return null;
+			}
+			try {
+				return Enum.valueOf(this.enumType, trimmedValue);
+			}
+			catch (IllegalArgumentException ex) {
+				// Not a constant name - let the regular field lookup handle it.
+				return null;
+			}
+		}
+	}
+
 }
@@ -454,6 +454,18 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 		}
 	}
 
+	/**
+	 * Create a cacheable reference to the given autowired bean: for a singleton,
+	 * a reference that holds on to the resolved instance, so that subsequent
+	 * injections (e.g. into prototype instances) do not need a full bean lookup.
+	 */
+	private Object createBeanReference(String autowiredBeanName) {
+		if (this.beanFactory.isSingleton(autowiredBeanName)) {
+			return new SingletonReference(autowiredBeanName);
+		}
+		return new RuntimeBeanReference(autowiredBeanName);
+	}
+
 	/**
 	 * Resolve the specified cached method argument or field value.
 	 */
@@ -463,6 +475,9 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 			TypeConverter typeConverter = this.beanFactory.getTypeConverter();
 			return this.beanFactory.resolveDependency(descriptor, beanName, null, typeConverter);
 		}
+		else if (cachedArgument instanceof SingletonReference) {
+			return ((SingletonReference) cachedArgument).resolve(this.beanFactory);
+		}
 		else if (cachedArgument instanceof RuntimeBeanReference) {
 			return this.beanFactory.getBean(((RuntimeBeanReference) cachedArgument).getBeanName());
 		}
@@ -510,7 +525,7 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 									String autowiredBeanName = autowiredBeanNames.iterator().next();
 									if (beanFactory.containsBean(autowiredBeanName)) {
 										if (beanFactory.isTypeMatch(autowiredBeanName, field.getType())) {
-											this.cachedFieldValue = new RuntimeBeanReference(autowiredBeanName);
+											this.cachedFieldValue = createBeanReference(autowiredBeanName);
 										}
 									}
 								}
@@ -593,7 +608,7 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 										String autowiredBeanName = it.next();
 										if (beanFactory.containsBean(autowiredBeanName)) {
 											if (beanFactory.isTypeMatch(autowiredBeanName, paramTypes[i])) {
-												this.cachedMethodArguments[i] = new RuntimeBeanReference(autowiredBeanName);
+												this.cachedMethodArguments[i] = createBeanReference(autowiredBeanName);
 											}
 										}
 									}
@@ -631,4 +646,56 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 		}
 	}
 
+
+	/**
+	 * Cached reference to an autowired singleton bean, pre-resolving the
+	 * bean instance once the singleton has been fully created. The resolved
+	 * instance is only reused as long as the very same singleton object is
+	 * registered, i.e. not after the singleton has been destroyed or replaced.
+	 */
+	private static class SingletonReference {
+
+		private final String beanName;
+
+		private final String singletonName;
+
+		private volatile ResolvedSingleton resolvedSingleton;
+
+		public SingletonReference(String beanName) {
+			this.beanName = beanName;
+			this.singletonName = BeanFactoryUtils.transformedBeanName(beanName);
+		}
+
+		public Object resolve(ConfigurableListableBeanFactory beanFactory) {
+			ResolvedSingleton resolved = this.resolvedSingleton;
+			if (resolved != null && beanFactory.getSingleton(this.singletonName) == resolved.singletonObject) {
+				return resolved.beanInstance;
+			}
+			Object beanInstance = beanFactory.getBean(this.beanName);
+			if (!beanFactory.isCurrentlyInCreation(this.singletonName)) {
+				Object singletonObject = beanFactory.getSingleton(this.singletonName);
+				this.resolvedSingleton = (singletonObject != null ?
+						new ResolvedSingleton(singletonObject, beanInstance) : null);
+			}
+			return beanInstance;
+		}
+	}
+
+
+	/**
+	 * Holder for a registered singleton object and the bean instance
+	 * exposed for it (the same object unless it is a FactoryBean).
+	 */
+	private static class ResolvedSingleton {
+
+		public final Object singletonObject;
+
+		public final Object beanInstance;
+
+		public ResolvedSingleton(Object singletonObject, Object beanInstance) {
+			this.singletonObject = singletonObject;
+			this.beanInstance = beanInstance;
+		}
+	}
+
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.config;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.util.StringValueResolver;
+
+/**
+ * StringValueResolver decorator for resolving placeholders in a large number of
+ * bean definitions: Strings without the placeholder prefix are returned as-is
+ * without being parsed, and the resolved values of all others are cached by
+ * raw String, since the same placeholders tend to occur in many definitions.
+ * Counts the Strings passed in, resolved and served from the cache.
+ *
+ * <p>Only to be used for a single processing run, since resolved values are
+ * assumed not to change. Thread-safe if the target resolver is.
+ *
+ * @since 3.2.18
+ * @see PlaceholderConfigurerSupport#getBeanDefinitionValueResolver
+ */
+class CachingStringValueResolver implements StringValueResolver {
+
+	private static final Object NULL_VALUE = new Object();
+
+
+	private final StringValueResolver targetResolver;
+
+	private final String placeholderPrefix;
+
+	private final String nullValue;
+
+	private final ConcurrentMap<String, Object> resolvedValueCache = new ConcurrentHashMap<String, Object>(256);
+
+	private final AtomicInteger scannedCount = new AtomicInteger();
+
+	private final AtomicInteger resolvedCount = new AtomicInteger();
+
+	private final AtomicInteger cachedCount = new AtomicInteger();
+
+
+	/**
+	 * Create a new CachingStringValueResolver.
+	 * @param targetResolver the resolver to delegate to for Strings
+	 * that may contain placeholders
+	 * @param placeholderPrefix the prefix that a placeholder starts with
+	 * @param nullValue the value that the target resolver turns into
+	 * {@code null} (may be {@code null})
+	 */
+	public CachingStringValueResolver(StringValueResolver targetResolver, String placeholderPrefix, String nullValue) {
+		this.targetResolver = targetResolver;
+		this.placeholderPrefix = placeholderPrefix;
+		this.nullValue = nullValue;
+	}
+
+
+	public String resolveStringValue(String strVal) {
+		this.scannedCount.incrementAndGet();
+		if (!strVal.contains(this.placeholderPrefix) && !strVal.equals(this.nullValue)) {
+			return strVal;
+		}
+		Object cachedValue = this.resolvedValueCache.get(strVal);
+		if (cachedValue != null) {
+			this.cachedCount.incrementAndGet();
+			return (cachedValue != NULL_VALUE ? (String) cachedValue : null);
+		}
+		String resolvedValue = this.targetResolver.resolveStringValue(strVal);
+		this.resolvedCount.incrementAndGet();
+		this.resolvedValueCache.putIfAbsent(strVal, (resolvedValue != null ? resolvedValue : NULL_VALUE));
+		return resolvedValue;
+	}
+
+	/**
+	 * Return the number of Strings passed in so far.
+	 */
+	public int getScannedCount() {
+		return this.scannedCount.get();
+	}
+
+	/**
+	 * Return the number of Strings passed on to the target resolver so far.
+	 */
+	public int getResolvedCount() {
+		return this.resolvedCount.get();
+	}
+
+	/**
+	 * Return the number of Strings served from the cache so far.
+	 */
+	public int getCachedCount() {
+		return this.cachedCount.get();
+	}
+
+}
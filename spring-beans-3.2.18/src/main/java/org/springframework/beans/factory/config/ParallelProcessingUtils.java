@@ -0,0 +1,151 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.FatalBeanException;
+import org.springframework.util.CustomizableThreadCreator;
+
+/**
+ * Utility methods for processing beans and bean definitions on multiple threads,
+ * shared by the parallel variants of bean factory operations.
+ *
+ * <p>All threads created here use the context class loader of the thread that
+ * created the pool or factory, so that bean classes and resources are resolved
+ * exactly as they would be on the calling thread.
+ *
+ * <p>For internal use within the framework only: this class lives in the
+ * {@code config} package merely so that both the configurers here and the
+ * bean factory support classes can share it, and may change without notice.
+ *
+ * @since 3.2.18
+ */
+public abstract class ParallelProcessingUtils {
+
+	/**
+	 * Run the given tasks on a new pool of the given parallelism and wait for
+	 * all of them to complete, shutting down the pool afterwards.
+	 * <p>The pool has terminated once this method returns or throws: tasks still
+	 * running after a failure get interrupted and waited for, so that no task
+	 * keeps working on the bean factory in the background.
+	 * <p>If tasks fail, the failure of the first failed task in the given order
+	 * is rethrown as-is if unchecked, or wrapped in a FatalBeanException otherwise.
+	 * @param parallelism the parallelism level of the pool
+	 * @param tasks the tasks to run
+	 * @param description a description of the work performed by the tasks,
+	 * for use in exception messages (e.g. "post-processing bean definitions")
+	 * @throws FatalBeanException if interrupted while waiting, or if a task
+	 * threw a checked exception
+	 */
+	public static void invokeAll(int parallelism, List<? extends Runnable> tasks, String description) {
+		ForkJoinPool pool = createForkJoinPool(parallelism);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>(tasks.size());
+			for (Runnable task : tasks) {
+				futures.add(pool.submit(task));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new FatalBeanException("Interrupted while " + description, ex);
+		}
+		catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new FatalBeanException("Failure while " + description, cause);
+		}
+		finally {
+			shutdownAndAwaitTermination(pool);
+		}
+	}
+
+	/**
+	 * Shut down the given pool, interrupting running tasks, and wait for it
+	 * to terminate, even if the calling thread has been interrupted (in which
+	 * case its interrupt status gets restored afterwards).
+	 */
+	private static void shutdownAndAwaitTermination(ExecutorService pool) {
+		pool.shutdownNow();
+		boolean interrupted = Thread.interrupted();
+		while (!pool.isTerminated()) {
+			try {
+				pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			}
+			catch (InterruptedException ex) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Create a {@link ForkJoinPool} with the given parallelism, whose worker
+	 * threads use the calling thread's context class loader.
+	 * @param parallelism the parallelism level of the pool
+	 * @return the new pool, to be shut down by the caller
+	 */
+	public static ForkJoinPool createForkJoinPool(int parallelism) {
+		final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		return new ForkJoinPool(parallelism, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+			public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+				ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				thread.setContextClassLoader(classLoader);
+				return thread;
+			}
+		}, null, false);
+	}
+
+	/**
+	 * Create a {@link ThreadFactory} for daemon threads in the calling thread's
+	 * thread group, using the calling thread's context class loader.
+	 * @param threadNamePrefix the prefix for the names of the created threads
+	 * @return the new thread factory
+	 */
+	public static ThreadFactory createThreadFactory(String threadNamePrefix) {
+		final CustomizableThreadCreator threadCreator = new CustomizableThreadCreator(threadNamePrefix);
+		threadCreator.setDaemon(true);
+		threadCreator.setThreadGroup(Thread.currentThread().getThreadGroup());
+		final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		return new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = threadCreator.createThread(runnable);
+				thread.setContextClassLoader(classLoader);
+				return thread;
+			}
+		};
+	}
+
+}
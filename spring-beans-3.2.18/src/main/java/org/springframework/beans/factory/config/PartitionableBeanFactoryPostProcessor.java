@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.config;
+
+import org.springframework.beans.BeansException;
+
+/**
+ * Extension of the {@link BeanFactoryPostProcessor} interface for post-processors
+ * whose work on bean definitions can be split up by bean definition: each bean
+ * definition is processed on its own, reading and modifying just that definition,
+ * so that different definitions may be processed concurrently.
+ *
+ * <p>If {@link #isPartitionable()} returns {@code true}, the processing consists
+ * of three phases, in addition to the regular {@link #postProcessBeanFactory}
+ * method, which is still used for sequential processing:
+ * {@link #beginBeanDefinitionProcessing} for any preparation such as loading
+ * properties, returning a {@link BeanDefinitionProcessing} that holds the state of
+ * the run; {@link BeanDefinitionProcessing#postProcessBeanDefinition} for each
+ * bean definition returned by {@link BeanDefinitionProcessing#getBeanNamesToProcess};
+ * and {@link BeanDefinitionProcessing#endBeanDefinitionProcessing} for any
+ * factory-wide work left.
+ *
+ * <p>Consecutive post-processors of this kind may be applied in a single pass over
+ * the bean definitions: they need to be prepared to have their preparation phase
+ * executed before the bean definitions have been processed by the previous ones.
+ *
+ * @since 3.2.18
+ * @see org.springframework.beans.factory.support.BeanFactoryPostProcessorPipeline
+ */
+public interface PartitionableBeanFactoryPostProcessor extends BeanFactoryPostProcessor {
+
+	/**
+	 * Return whether this post-processor's work is to be split up by bean
+	 * definition. If not, it gets invoked through {@link #postProcessBeanFactory}
+	 * on its own, after all post-processors before it have been applied.
+	 */
+	boolean isPartitionable();
+
+	/**
+	 * Prepare for processing individual bean definitions of the given bean factory.
+	 * Called on the calling thread before any bean definition gets processed.
+	 * @param beanFactory the bean factory used by the application context
+	 * @return the state of this processing run, for processing the bean definitions
+	 * and completing the run
+	 * @throws org.springframework.beans.BeansException in case of errors
+	 */
+	BeanDefinitionProcessing beginBeanDefinitionProcessing(ConfigurableListableBeanFactory beanFactory)
+			throws BeansException;
+
+
+	/**
+	 * A single run of processing the bean definitions of a bean factory,
+	 * as prepared by {@link #beginBeanDefinitionProcessing}.
+	 */
+	interface BeanDefinitionProcessing {
+
+		/**
+		 * Return the names of the bean definitions to process, in case of processing
+		 * just some of them. Names of bean definitions that do not exist are ignored.
+		 * @return the names of the bean definitions to process (possibly empty),
+		 * or {@code null} to process all bean definitions
+		 */
+		String[] getBeanNamesToProcess();
+
+		/**
+		 * Process the given bean definition. May be called concurrently for
+		 * different bean definitions, but never for the same one.
+		 * @param beanName the name of the bean definition
+		 * @param beanDefinition the bean definition to read and modify
+		 * @throws org.springframework.beans.BeansException in case of errors
+		 */
+		void postProcessBeanDefinition(String beanName, BeanDefinition beanDefinition) throws BeansException;
+
+		/**
+		 * Complete the processing of the given bean factory. Called on the calling
+		 * thread once all bean definitions have been processed successfully.
+		 * @param beanFactory the bean factory used by the application context
+		 * @throws org.springframework.beans.BeansException in case of errors
+		 */
+		void endBeanDefinitionProcessing(ConfigurableListableBeanFactory beanFactory) throws BeansException;
+	}
+
+}
@@ -16,10 +16,14 @@
 
 package org.springframework.beans.factory.config;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.beans.factory.BeanDefinitionStoreException;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.util.Assert;
 import org.springframework.util.StringValueResolver;
 
 /**
@@ -111,6 +115,8 @@ public abstract class PlaceholderConfigurerSupport extends PropertyResourceConfi
 
 	protected String nullValue;
 
+	private int processingParallelism = 1;
+
 	private BeanFactory beanFactory;
 
 	private String beanName;
@@ -166,6 +172,27 @@ public abstract class PlaceholderConfigurerSupport extends PropertyResourceConfi
 		this.ignoreUnresolvablePlaceholders = ignoreUnresolvablePlaceholders;
 	}
 
+	/**
+	 * Set the number of threads to use for resolving placeholders in bean definitions.
+	 * <p>Default is 1, processing all bean definitions sequentially on the calling
+	 * thread. A higher value processes independent bean definitions concurrently,
+	 * which requires placeholder resolution to be thread-safe: only to be turned on
+	 * for subclasses that do not keep state across {@code resolvePlaceholder} calls.
+	 * @since 3.2.18
+	 */
+	public void setProcessingParallelism(int processingParallelism) {
+		Assert.isTrue(processingParallelism > 0, "Processing parallelism must be at least 1");
+		this.processingParallelism = processingParallelism;
+	}
+
+	/**
+	 * Return the number of threads to use for resolving placeholders in bean definitions.
+	 * @since 3.2.18
+	 */
+	public int getProcessingParallelism() {
+		return this.processingParallelism;
+	}
+
 	/**
 	 * Only necessary to check that we're not parsing our own bean definition,
 	 * to avoid failing on unresolvable placeholders in properties file locations.
@@ -191,26 +218,69 @@ public abstract class PlaceholderConfigurerSupport extends PropertyResourceConfi
 	}
 
 
+	/**
+	 * Resolve placeholders in all bean definitions of the given bean factory,
+	 * as well as in aliases, and register the given resolver for embedded values.
+	 * <p>Bean definition Strings are passed to the resolver as returned by
+	 * {@link #getBeanDefinitionValueResolver} for the given resolver.
+	 * @param beanFactoryToProcess the bean factory to process
+	 * @param valueResolver the resolver for placeholders in String values
+	 * @see #setProcessingParallelism
+	 */
 	protected void doProcessProperties(ConfigurableListableBeanFactory beanFactoryToProcess,
 			StringValueResolver valueResolver) {
 
-		BeanDefinitionVisitor visitor = new BeanDefinitionVisitor(valueResolver);
+		StringValueResolver beanDefinitionResolver = getBeanDefinitionValueResolver(valueResolver);
+		BeanDefinitionVisitor visitor = new BeanDefinitionVisitor(beanDefinitionResolver);
+
+		List<String> beanNamesToProcess = getBeanNamesToProcess(beanFactoryToProcess);
+		long startTime = System.currentTimeMillis();
+		if (this.processingParallelism > 1 && beanNamesToProcess.size() > 1) {
+			visitBeanDefinitionsInParallel(beanFactoryToProcess, beanNamesToProcess, visitor);
+		}
+		else {
+			for (String curName : beanNamesToProcess) {
+				visitBeanDefinition(curName, beanFactoryToProcess.getBeanDefinition(curName), visitor);
+			}
+		}
+		logProcessingStatistics(beanNamesToProcess.size(), startTime, beanDefinitionResolver);
+		completeProcessing(beanFactoryToProcess, valueResolver);
+	}
 
+	/**
+	 * Return the resolver to resolve bean definition Strings with for a single
+	 * processing run with the given resolver.
+	 * <p>The default implementation returns the given resolver itself, which
+	 * gets to see every String: an arbitrary resolver may transform Strings that
+	 * do not contain the placeholder prefix as well.
+	 * @param valueResolver the resolver passed to {@link #doProcessProperties}
+	 * @since 3.2.18
+	 */
+	StringValueResolver getBeanDefinitionValueResolver(StringValueResolver valueResolver) {
+		return valueResolver;
+	}
+
+	/**
+	 * Return the names of all bean definitions but this configurer's own, which is
+	 * not to be parsed to avoid failing on unresolvable placeholders in properties
+	 * file locations.
+	 */
+	List<String> getBeanNamesToProcess(ConfigurableListableBeanFactory beanFactoryToProcess) {
 		String[] beanNames = beanFactoryToProcess.getBeanDefinitionNames();
+		List<String> beanNamesToProcess = new ArrayList<String>(beanNames.length);
 		for (String curName : beanNames) {
-			// Check that we're not parsing our own bean definition,
-			// to avoid failing on unresolvable placeholders in properties file locations.
 			if (!(curName.equals(this.beanName) && beanFactoryToProcess.equals(this.beanFactory))) {
-				BeanDefinition bd = beanFactoryToProcess.getBeanDefinition(curName);
-				try {
-					visitor.visitBeanDefinition(bd);
-				}
-				catch (Exception ex) {
-					throw new BeanDefinitionStoreException(bd.getResourceDescription(), curName, ex.getMessage(), ex);
-				}
+				beanNamesToProcess.add(curName);
 			}
 		}
+		return beanNamesToProcess;
+	}
 
+	/**
+	 * Resolve placeholders in aliases and register the given resolver for embedded values,
+	 * once all bean definitions have been processed.
+	 */
+	void completeProcessing(ConfigurableListableBeanFactory beanFactoryToProcess, StringValueResolver valueResolver) {
 		// New in Spring 2.5: resolve placeholders in alias target names and aliases as well.
 		beanFactoryToProcess.resolveAliases(valueResolver);
 
@@ -218,4 +288,48 @@ public abstract class PlaceholderConfigurerSupport extends PropertyResourceConfi
 		beanFactoryToProcess.addEmbeddedValueResolver(valueResolver);
 	}
 
+	void logProcessingStatistics(int beanDefinitionCount, long startTime, StringValueResolver beanDefinitionResolver) {
+		if (logger.isInfoEnabled()) {
+			if (beanDefinitionResolver instanceof CachingStringValueResolver) {
+				CachingStringValueResolver cachingResolver = (CachingStringValueResolver) beanDefinitionResolver;
+				logger.info(String.format("Resolved placeholders in %d bean definitions within %d ms: " +
+						"%d Strings scanned, %d resolved, %d taken from cache", beanDefinitionCount,
+						System.currentTimeMillis() - startTime, cachingResolver.getScannedCount(),
+						cachingResolver.getResolvedCount(), cachingResolver.getCachedCount()));
+			}
+			else {
+				logger.info(String.format("Resolved placeholders in %d bean definitions within %d ms",
+						beanDefinitionCount, System.currentTimeMillis() - startTime));
+			}
+		}
+	}
+
+	void visitBeanDefinition(String beanName, BeanDefinition bd, BeanDefinitionVisitor visitor) {
+		try {
+			visitor.visitBeanDefinition(bd);
+		}
+		catch (Exception ex) {
+			throw new BeanDefinitionStoreException(bd.getResourceDescription(), beanName, ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Visit the given bean definitions on a pool of {@link #setProcessingParallelism}
+	 * threads, throwing the failure for the first bean definition in registration order.
+	 */
+	private void visitBeanDefinitionsInParallel(final ConfigurableListableBeanFactory beanFactoryToProcess,
+			List<String> beanNames, final BeanDefinitionVisitor visitor) {
+
+		List<Runnable> tasks = new ArrayList<Runnable>(beanNames.size());
+		for (final String beanName : beanNames) {
+			tasks.add(new Runnable() {
+				public void run() {
+					visitBeanDefinition(beanName, beanFactoryToProcess.getBeanDefinition(beanName), visitor);
+				}
+			});
+		}
+		ParallelProcessingUtils.invokeAll(this.processingParallelism, tasks,
+				"resolving placeholders in bean definitions");
+	}
+
 }
@@ -16,10 +16,13 @@
 
 package org.springframework.beans.factory.config;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanInitializationException;
 import org.springframework.core.Constants;
 import org.springframework.core.SpringProperties;
 import org.springframework.core.env.AbstractEnvironment;
@@ -54,6 +57,11 @@ import org.springframework.util.StringValueResolver;
  * registration of {@code PropertyPlaceholderConfigurer} through the namespace, even if using Spring 3.1;
  * simply do not update your {@code xsi:schemaLocation} and continue using the 3.0 XSD.
  *
+ * <p>As of Spring 3.2.18, this configurer is a {@link PartitionableBeanFactoryPostProcessor},
+ * allowing placeholders to be resolved in many bean definitions concurrently when invoked
+ * through a {@link org.springframework.beans.factory.support.BeanFactoryPostProcessorPipeline}.
+ * Subclasses need to opt in to this through {@link #isPartitionable()}.
+ *
  * @author Juergen Hoeller
  * @author Chris Beams
  * @since 02.10.2003
@@ -62,7 +70,8 @@ import org.springframework.util.StringValueResolver;
  * @see PropertyOverrideConfigurer
  * @see org.springframework.context.support.PropertySourcesPlaceholderConfigurer
  */
-public class PropertyPlaceholderConfigurer extends PlaceholderConfigurerSupport {
+public class PropertyPlaceholderConfigurer extends PlaceholderConfigurerSupport
+		implements PartitionableBeanFactoryPostProcessor {
 
 	/** Never check system properties. */
 	public static final int SYSTEM_PROPERTIES_MODE_NEVER = 0;
@@ -222,6 +231,55 @@ public class PropertyPlaceholderConfigurer extends PlaceholderConfigurerSupport
 		doProcessProperties(beanFactoryToProcess, valueResolver);
 	}
 
+	/**
+	 * Skip Strings without placeholder prefix and cache resolved values
+	 * when resolving bean definitions with this configurer's own resolver:
+	 * only for PropertyPlaceholderConfigurer itself, since subclasses
+	 * may customize {@link #resolvePlaceholder} to return a different value
+	 * on every call.
+	 */
+	@Override
+	StringValueResolver getBeanDefinitionValueResolver(StringValueResolver valueResolver) {
+		if (getClass() == PropertyPlaceholderConfigurer.class &&
+				valueResolver instanceof PlaceholderResolvingStringValueResolver) {
+			return new CachingStringValueResolver(valueResolver, this.placeholderPrefix, this.nullValue);
+		}
+		return valueResolver;
+	}
+
+	/**
+	 * Return whether placeholders are to be resolved in individual bean definitions
+	 * when invoked through a pipeline: by default only for PropertyPlaceholderConfigurer
+	 * itself, since subclasses may customize {@link #processProperties},
+	 * {@link #doProcessProperties} or {@code postProcessBeanFactory}. Subclasses that
+	 * just customize the resolution of individual placeholders in a thread-safe
+	 * manner may override this to return {@code true}.
+	 * @since 3.2.18
+	 */
+	public boolean isPartitionable() {
+		return (getClass() == PropertyPlaceholderConfigurer.class);
+	}
+
+	/**
+	 * Load and convert the properties, preparing for placeholders to be resolved
+	 * in individual bean definitions.
+	 * @since 3.2.18
+	 */
+	public BeanDefinitionProcessing beginBeanDefinitionProcessing(ConfigurableListableBeanFactory beanFactory)
+			throws BeansException {
+
+		long startTime = System.currentTimeMillis();
+		try {
+			Properties mergedProps = mergeProperties();
+			convertProperties(mergedProps);
+			return new PlaceholderResolvingBeanDefinitionProcessing(
+					new PlaceholderResolvingStringValueResolver(mergedProps), beanFactory, startTime);
+		}
+		catch (IOException ex) {
+			throw new BeanInitializationException("Could not load properties", ex);
+		}
+	}
+
 	/**
 	 * Parse the given String value for placeholder resolution.
 	 * @param strVal the String value to parse
@@ -260,6 +318,48 @@ public class PropertyPlaceholderConfigurer extends PlaceholderConfigurerSupport
 	}
 
 
+	/**
+	 * A run of resolving placeholders in individual bean definitions,
+	 * as started by {@link #beginBeanDefinitionProcessing}.
+	 */
+	private class PlaceholderResolvingBeanDefinitionProcessing implements BeanDefinitionProcessing {
+
+		private final StringValueResolver valueResolver;
+
+		private final StringValueResolver beanDefinitionResolver;
+
+		private final BeanDefinitionVisitor visitor;
+
+		private final String[] beanNamesToProcess;
+
+		private final long startTime;
+
+		public PlaceholderResolvingBeanDefinitionProcessing(StringValueResolver valueResolver,
+				ConfigurableListableBeanFactory beanFactory, long startTime) {
+
+			this.valueResolver = valueResolver;
+			this.beanDefinitionResolver = getBeanDefinitionValueResolver(valueResolver);
+			this.visitor = new BeanDefinitionVisitor(this.beanDefinitionResolver);
+			List<String> beanNames = PropertyPlaceholderConfigurer.this.getBeanNamesToProcess(beanFactory);
+			this.beanNamesToProcess = beanNames.toArray(new String[beanNames.size()]);
+			this.startTime = startTime;
+		}
+
+		public String[] getBeanNamesToProcess() {
+			return this.beanNamesToProcess;
+		}
+
+		public void postProcessBeanDefinition(String beanName, BeanDefinition beanDefinition) {
+			visitBeanDefinition(beanName, beanDefinition, this.visitor);
+		}
+
+		public void endBeanDefinitionProcessing(ConfigurableListableBeanFactory beanFactory) {
+			logProcessingStatistics(this.beanNamesToProcess.length, this.startTime, this.beanDefinitionResolver);
+			completeProcessing(beanFactory, this.valueResolver);
+		}
+	}
+
+
 	private class PropertyPlaceholderConfigurerResolver implements PlaceholderResolver {
 
 		private final Properties props;
@@ -151,6 +151,12 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	private final Map<Class<?>, PropertyDescriptor[]> filteredPropertyDescriptorsCache =
 			new ConcurrentHashMap<Class<?>, PropertyDescriptor[]>(64);
 
+	/** Profiler for bean creation phases, if any */
+	private volatile BeanCreationProfiler beanCreationProfiler;
+
+	/** Cache of candidate constructors and factory methods, shared across bean definitions */
+	private final ConstructorResolutionCache constructorResolutionCache = new ConstructorResolutionCache();
+
 
 	/**
 	 * Create a new AbstractAutowireCapableBeanFactory.
@@ -188,6 +194,13 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		return this.instantiationStrategy;
 	}
 
+	/**
+	 * Return the cache for constructor and factory method resolution.
+	 */
+	ConstructorResolutionCache getConstructorResolutionCache() {
+		return this.constructorResolutionCache;
+	}
+
 	/**
 	 * Set the ParameterNameDiscoverer to use for resolving method parameter
 	 * names if needed (e.g. for constructor names).
@@ -240,6 +253,25 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		this.allowRawInjectionDespiteWrapping = allowRawInjectionDespiteWrapping;
 	}
 
+	/**
+	 * Set a profiler that records the time spent in each phase of bean creation:
+	 * instantiation, property population, BeanPostProcessor callbacks and
+	 * init methods, with dependent bean creations nested accordingly.
+	 * <p>Default is none, with no measurable overhead for bean creation.
+	 * @see BeanCreationProfiler#writeTrace
+	 * @see BeanCreationProfiler#getSummary
+	 */
+	public void setBeanCreationProfiler(BeanCreationProfiler beanCreationProfiler) {
+		this.beanCreationProfiler = beanCreationProfiler;
+	}
+
+	/**
+	 * Return the profiler for bean creation phases, if any.
+	 */
+	public BeanCreationProfiler getBeanCreationProfiler() {
+		return this.beanCreationProfiler;
+	}
+
 	/**
 	 * Ignore the given dependency type for autowiring:
 	 * for example, String. Default is none.
@@ -270,6 +302,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 					(AbstractAutowireCapableBeanFactory) otherFactory;
 			this.instantiationStrategy = otherAutowireFactory.instantiationStrategy;
 			this.allowCircularReferences = otherAutowireFactory.allowCircularReferences;
+			this.beanCreationProfiler = otherAutowireFactory.beanCreationProfiler;
 			this.ignoredDependencyTypes.addAll(otherAutowireFactory.ignoredDependencyTypes);
 			this.ignoredDependencyInterfaces.addAll(otherAutowireFactory.ignoredDependencyInterfaces);
 		}
@@ -426,38 +459,49 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	 */
 	@Override
 	protected Object createBean(String beanName, RootBeanDefinition mbd, Object[] args) throws BeanCreationException {
-		if (logger.isDebugEnabled()) {
-			logger.debug("Creating instance of bean '" + beanName + "'");
+		BeanCreationProfiler profiler = this.beanCreationProfiler;
+		if (profiler != null) {
+			profiler.beginBean(beanName);
 		}
-		// Make sure bean class is actually resolved at this point.
-		resolveBeanClass(mbd, beanName);
-
-		// Prepare method overrides.
 		try {
-			mbd.prepareMethodOverrides();
-		}
-		catch (BeanDefinitionValidationException ex) {
-			throw new BeanDefinitionStoreException(mbd.getResourceDescription(),
-					beanName, "Validation of method overrides failed", ex);
-		}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Creating instance of bean '" + beanName + "'");
+			}
+			// Make sure bean class is actually resolved at this point.
+			resolveBeanClass(mbd, beanName);
 
-		try {
-			// Give BeanPostProcessors a chance to return a proxy instead of the target bean instance.
-			Object bean = resolveBeforeInstantiation(beanName, mbd);
-			if (bean != null) {
-				return bean;
+			// Prepare method overrides.
+			try {
+				mbd.prepareMethodOverrides();
+			}
+			catch (BeanDefinitionValidationException ex) {
+				throw new BeanDefinitionStoreException(mbd.getResourceDescription(),
+						beanName, "Validation of method overrides failed", ex);
 			}
-		}
-		catch (Throwable ex) {
-			throw new BeanCreationException(mbd.getResourceDescription(), beanName,
-					"BeanPostProcessor before instantiation of bean failed", ex);
-		}
 
-		Object beanInstance = doCreateBean(beanName, mbd, args);
-		if (logger.isDebugEnabled()) {
-			logger.debug("Finished creating instance of bean '" + beanName + "'");
+			try {
+				// Give BeanPostProcessors a chance to return a proxy instead of the target bean instance.
+				Object bean = resolveBeforeInstantiation(beanName, mbd);
+				if (bean != null) {
+					return bean;
+				}
+			}
+			catch (Throwable ex) {
+				throw new BeanCreationException(mbd.getResourceDescription(), beanName,
+						"BeanPostProcessor before instantiation of bean failed", ex);
+			}
+
+			Object beanInstance = doCreateBean(beanName, mbd, args);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Finished creating instance of bean '" + beanName + "'");
+			}
+			return beanInstance;
+		}
+		finally {
+			if (profiler != null) {
+				profiler.end();
+			}
 		}
-		return beanInstance;
 	}
 
 	/**
@@ -482,7 +526,18 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			instanceWrapper = this.factoryBeanInstanceCache.remove(beanName);
 		}
 		if (instanceWrapper == null) {
-			instanceWrapper = createBeanInstance(beanName, mbd, args);
+			BeanCreationProfiler profiler = this.beanCreationProfiler;
+			if (profiler != null) {
+				profiler.beginPhase(BeanCreationProfiler.INSTANTIATE_PHASE);
+			}
+			try {
+				instanceWrapper = createBeanInstance(beanName, mbd, args);
+			}
+			finally {
+				if (profiler != null) {
+					profiler.end();
+				}
+			}
 		}
 		final Object bean = (instanceWrapper != null ? instanceWrapper.getWrappedInstance() : null);
 		Class<?> beanType = (instanceWrapper != null ? instanceWrapper.getWrappedClass() : null);
@@ -514,7 +569,18 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		// Initialize the bean instance.
 		Object exposedObject = bean;
 		try {
-			populateBean(beanName, mbd, instanceWrapper);
+			BeanCreationProfiler profiler = this.beanCreationProfiler;
+			if (profiler != null) {
+				profiler.beginPhase(BeanCreationProfiler.POPULATE_PHASE);
+			}
+			try {
+				populateBean(beanName, mbd, instanceWrapper);
+			}
+			finally {
+				if (profiler != null) {
+					profiler.end();
+				}
+			}
 			if (exposedObject != null) {
 				exposedObject = initializeBean(beanName, exposedObject, mbd);
 			}
@@ -791,7 +857,11 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	 * that we couldn't obtain a shortcut FactoryBean instance
 	 */
 	private FactoryBean<?> getSingletonFactoryBeanForTypeCheck(String beanName, RootBeanDefinition mbd) {
-		synchronized (getSingletonMutex()) {
+		if (!tryAcquireSingletonLock(beanName)) {
+			// Currently in creation by another thread: don't wait for it just for a type check.
+			return null;
+		}
+		try {
 			BeanWrapper bw = this.factoryBeanInstanceCache.get(beanName);
 			if (bw != null) {
 				return (FactoryBean<?>) bw.getWrappedInstance();
@@ -821,6 +891,9 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			}
 			return fb;
 		}
+		finally {
+			releaseSingletonLock(beanName);
+		}
 	}
 
 	/**
@@ -1502,11 +1575,17 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			invokeAwareMethods(beanName, bean);
 		}
 
+		BeanCreationProfiler profiler = this.beanCreationProfiler;
 		Object wrappedBean = bean;
 		if (mbd == null || !mbd.isSynthetic()) {
-			wrappedBean = applyBeanPostProcessorsBeforeInitialization(wrappedBean, beanName);
+			wrappedBean = (profiler != null ?
+					applyBeanPostProcessorsBeforeInitialization(wrappedBean, beanName, profiler) :
+					applyBeanPostProcessorsBeforeInitialization(wrappedBean, beanName));
 		}
 
+		if (profiler != null) {
+			profiler.beginPhase(BeanCreationProfiler.INIT_PHASE);
+		}
 		try {
 			invokeInitMethods(beanName, wrappedBean, mbd);
 		}
@@ -1515,13 +1594,70 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 					(mbd != null ? mbd.getResourceDescription() : null),
 					beanName, "Invocation of init method failed", ex);
 		}
+		finally {
+			if (profiler != null) {
+				profiler.end();
+			}
+		}
 
 		if (mbd == null || !mbd.isSynthetic()) {
-			wrappedBean = applyBeanPostProcessorsAfterInitialization(wrappedBean, beanName);
+			wrappedBean = (profiler != null ?
+					applyBeanPostProcessorsAfterInitialization(wrappedBean, beanName, profiler) :
+					applyBeanPostProcessorsAfterInitialization(wrappedBean, beanName));
 		}
 		return wrappedBean;
 	}
 
+	/**
+	 * Variant of {@link #applyBeanPostProcessorsBeforeInitialization(Object, String)}
+	 * for {@link #initializeBean}, recording each post-processor as a phase of the
+	 * bean's creation with the given profiler.
+	 */
+	private Object applyBeanPostProcessorsBeforeInitialization(
+			Object existingBean, String beanName, BeanCreationProfiler profiler) {
+
+		Object result = existingBean;
+		for (BeanPostProcessor beanProcessor : getBeanPostProcessors()) {
+			profiler.beginPhase(BeanCreationProfiler.BEFORE_INITIALIZATION_PHASE_PREFIX +
+					beanProcessor.getClass().getName());
+			try {
+				result = beanProcessor.postProcessBeforeInitialization(result, beanName);
+			}
+			finally {
+				profiler.end();
+			}
+			if (result == null) {
+				return result;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Variant of {@link #applyBeanPostProcessorsAfterInitialization(Object, String)}
+	 * for {@link #initializeBean}, recording each post-processor as a phase of the
+	 * bean's creation with the given profiler.
+	 */
+	private Object applyBeanPostProcessorsAfterInitialization(
+			Object existingBean, String beanName, BeanCreationProfiler profiler) {
+
+		Object result = existingBean;
+		for (BeanPostProcessor beanProcessor : getBeanPostProcessors()) {
+			profiler.beginPhase(BeanCreationProfiler.AFTER_INITIALIZATION_PHASE_PREFIX +
+					beanProcessor.getClass().getName());
+			try {
+				result = beanProcessor.postProcessAfterInitialization(result, beanName);
+			}
+			finally {
+				profiler.end();
+			}
+			if (result == null) {
+				return result;
+			}
+		}
+		return result;
+	}
+
 	private void invokeAwareMethods(final String beanName, final Object bean) {
 		if (bean instanceof Aware) {
 			if (bean instanceof BeanNameAware) {
@@ -22,6 +22,7 @@ import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.beans.BeanMetadataAttributeAccessor;
 import org.springframework.beans.MutablePropertyValues;
@@ -190,6 +191,13 @@ public abstract class AbstractBeanDefinition extends BeanMetadataAttributeAccess
 
 	private Resource resource;
 
+	/**
+	 * Modification counters of the factories that this bean definition has been
+	 * registered with, allowing their by-type indexes to detect in-place changes
+	 * (e.g. by BeanFactoryPostProcessors)
+	 */
+	private transient volatile AtomicLong[] typeModificationCounters;
+
 
 	/**
 	 * Create a new AbstractBeanDefinition with default settings.
@@ -369,6 +377,7 @@ public abstract class AbstractBeanDefinition extends BeanMetadataAttributeAccess
 	 */
 	public void setBeanClass(Class<?> beanClass) {
 		this.beanClass = beanClass;
+		typeModified();
 	}
 
 	/**
@@ -391,6 +400,7 @@ public abstract class AbstractBeanDefinition extends BeanMetadataAttributeAccess
 
 	public void setBeanClassName(String beanClassName) {
 		this.beanClass = beanClassName;
+		typeModified();
 	}
 
 	public String getBeanClassName() {
@@ -417,6 +427,7 @@ public abstract class AbstractBeanDefinition extends BeanMetadataAttributeAccess
 			return null;
 		}
 		Class<?> resolvedClass = ClassUtils.forName(className, classLoader);
+		// Not a type modification: the class is still the one named before.
 		this.beanClass = resolvedClass;
 		return resolvedClass;
 	}
@@ -491,6 +502,7 @@ public abstract class AbstractBeanDefinition extends BeanMetadataAttributeAccess
 	 */
 	public void setAbstract(boolean abstractFlag) {
 		this.abstractFlag = abstractFlag;
+		typeModified();
 	}
 
 	/**
@@ -772,6 +784,7 @@ public abstract class AbstractBeanDefinition extends BeanMetadataAttributeAccess
 
 	public void setFactoryBeanName(String factoryBeanName) {
 		this.factoryBeanName = factoryBeanName;
+		typeModified();
 	}
 
 	public String getFactoryBeanName() {
@@ -780,6 +793,7 @@ public abstract class AbstractBeanDefinition extends BeanMetadataAttributeAccess
 
 	public void setFactoryMethodName(String factoryMethodName) {
 		this.factoryMethodName = factoryMethodName;
+		typeModified();
 	}
 
 	public String getFactoryMethodName() {
@@ -858,6 +872,7 @@ public abstract class AbstractBeanDefinition extends BeanMetadataAttributeAccess
 	 */
 	public void setSynthetic(boolean synthetic) {
 		this.synthetic = synthetic;
+		typeModified();
 	}
 
 	/**
@@ -933,6 +948,64 @@ public abstract class AbstractBeanDefinition extends BeanMetadataAttributeAccess
 				((BeanDefinitionResource) this.resource).getBeanDefinition() : null);
 	}
 
+	/**
+	 * Count modifications to the type-determining settings of this bean
+	 * definition with the given counter from now on, i.e. once it has been
+	 * registered with the factory owning the counter.
+	 * @param counter the modification counter of the owning factory
+	 * @see #untrackTypeModifications
+	 */
+	synchronized void trackTypeModifications(AtomicLong counter) {
+		AtomicLong[] counters = this.typeModificationCounters;
+		if (counters == null) {
+			this.typeModificationCounters = new AtomicLong[] {counter};
+			return;
+		}
+		for (AtomicLong existing : counters) {
+			if (existing == counter) {
+				return;
+			}
+		}
+		AtomicLong[] newCounters = Arrays.copyOf(counters, counters.length + 1);
+		newCounters[counters.length] = counter;
+		this.typeModificationCounters = newCounters;
+	}
+
+	/**
+	 * Stop counting modifications with the given counter, i.e. once this bean
+	 * definition has been removed from the factory owning the counter.
+	 * @param counter the modification counter of the owning factory
+	 * @see #trackTypeModifications
+	 */
+	synchronized void untrackTypeModifications(AtomicLong counter) {
+		AtomicLong[] counters = this.typeModificationCounters;
+		if (counters == null) {
+			return;
+		}
+		for (int i = 0; i < counters.length; i++) {
+			if (counters[i] == counter) {
+				AtomicLong[] newCounters = new AtomicLong[counters.length - 1];
+				System.arraycopy(counters, 0, newCounters, 0, i);
+				System.arraycopy(counters, i + 1, newCounters, i, counters.length - i - 1);
+				this.typeModificationCounters = newCounters;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Register a modification of a type-determining setting with the
+	 * counters of the owning factories, if any.
+	 */
+	void typeModified() {
+		AtomicLong[] counters = this.typeModificationCounters;
+		if (counters != null) {
+			for (AtomicLong counter : counters) {
+				counter.incrementAndGet();
+			}
+		}
+	}
+
 	/**
 	 * Validate this bean definition.
 	 * @throws BeanDefinitionValidationException in case of validation failure
@@ -32,6 +32,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeanWrapper;
@@ -156,9 +158,12 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 	private SecurityContextProvider securityContextProvider;
 
 	/** Map from bean name to merged RootBeanDefinition */
-	private final Map<String, RootBeanDefinition> mergedBeanDefinitions =
+	private final ConcurrentMap<String, RootBeanDefinition> mergedBeanDefinitions =
 			new ConcurrentHashMap<String, RootBeanDefinition>(64);
 
+	/** Number of merged bean definitions removed so far, for detecting stale merges */
+	private final AtomicLong mergedBeanDefinitionRemovalCount = new AtomicLong();
+
 	/** Names of beans that have already been created at least once */
 	private final Map<String, Boolean> alreadyCreated = new ConcurrentHashMap<String, Boolean>(64);
 
@@ -864,6 +869,8 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 					otherAbstractFactory.hasDestructionAwareBeanPostProcessors;
 			this.scopes.putAll(otherAbstractFactory.scopes);
 			this.securityContextProvider = otherAbstractFactory.securityContextProvider;
+			setDestructionParallelism(otherAbstractFactory.getDestructionParallelism());
+			setDestructionTimeout(otherAbstractFactory.getDestructionTimeout());
 		}
 		else {
 			setTypeConverter(otherFactory.getTypeConverter());
@@ -1108,7 +1115,10 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 		if (mbd != null) {
 			return mbd;
 		}
-		return getMergedBeanDefinition(beanName, getBeanDefinition(beanName));
+		// Capture the removal count before fetching the bean definition, so that
+		// a re-registration right after fetching is not missed by the merge.
+		long removalCount = this.mergedBeanDefinitionRemovalCount.get();
+		return getMergedBeanDefinition(beanName, getBeanDefinition(beanName), null, removalCount);
 	}
 
 	/**
@@ -1139,74 +1149,94 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 			String beanName, BeanDefinition bd, BeanDefinition containingBd)
 			throws BeanDefinitionStoreException {
 
-		synchronized (this.mergedBeanDefinitions) {
-			RootBeanDefinition mbd = null;
+		return getMergedBeanDefinition(beanName, bd, containingBd, this.mergedBeanDefinitionRemovalCount.get());
+	}
 
-			// Check with full lock now in order to enforce the same merged instance.
-			if (containingBd == null) {
-				mbd = this.mergedBeanDefinitions.get(beanName);
-			}
+	/**
+	 * Merge the given bean definition, caching the result only if no merged bean
+	 * definition has been removed since the given removal count had been read.
+	 * @param removalCount the merged bean definition removal count, read before
+	 * the given bean definition had been obtained
+	 */
+	private RootBeanDefinition getMergedBeanDefinition(
+			String beanName, BeanDefinition bd, BeanDefinition containingBd, long removalCount)
+			throws BeanDefinitionStoreException {
 
-			if (mbd == null) {
-				if (bd.getParentName() == null) {
-					// Use copy of given root bean definition.
-					if (bd instanceof RootBeanDefinition) {
-						mbd = ((RootBeanDefinition) bd).cloneBeanDefinition();
-					}
-					else {
-						mbd = new RootBeanDefinition(bd);
-					}
+		RootBeanDefinition mbd = null;
+
+		// Check the concurrent cache first: merging does not hold a lock, so callers
+		// for different beans do not block each other.
+		if (containingBd == null) {
+			mbd = this.mergedBeanDefinitions.get(beanName);
+		}
+
+		if (mbd == null) {
+			if (bd.getParentName() == null) {
+				// Use copy of given root bean definition.
+				if (bd instanceof RootBeanDefinition) {
+					mbd = ((RootBeanDefinition) bd).cloneBeanDefinition();
 				}
 				else {
-					// Child bean definition: needs to be merged with parent.
-					BeanDefinition pbd;
-					try {
-						String parentBeanName = transformedBeanName(bd.getParentName());
-						if (!beanName.equals(parentBeanName)) {
-							pbd = getMergedBeanDefinition(parentBeanName);
+					mbd = new RootBeanDefinition(bd);
+				}
+			}
+			else {
+				// Child bean definition: needs to be merged with parent.
+				BeanDefinition pbd;
+				try {
+					String parentBeanName = transformedBeanName(bd.getParentName());
+					if (!beanName.equals(parentBeanName)) {
+						pbd = getMergedBeanDefinition(parentBeanName);
+					}
+					else {
+						if (getParentBeanFactory() instanceof ConfigurableBeanFactory) {
+							pbd = ((ConfigurableBeanFactory) getParentBeanFactory()).getMergedBeanDefinition(parentBeanName);
 						}
 						else {
-							if (getParentBeanFactory() instanceof ConfigurableBeanFactory) {
-								pbd = ((ConfigurableBeanFactory) getParentBeanFactory()).getMergedBeanDefinition(parentBeanName);
-							}
-							else {
-								throw new NoSuchBeanDefinitionException(bd.getParentName(),
-										"Parent name '" + bd.getParentName() + "' is equal to bean name '" + beanName +
-										"': cannot be resolved without an AbstractBeanFactory parent");
-							}
+							throw new NoSuchBeanDefinitionException(bd.getParentName(),
+									"Parent name '" + bd.getParentName() + "' is equal to bean name '" + beanName +
+									"': cannot be resolved without an AbstractBeanFactory parent");
 						}
 					}
-					catch (NoSuchBeanDefinitionException ex) {
-						throw new BeanDefinitionStoreException(bd.getResourceDescription(), beanName,
-								"Could not resolve parent bean definition '" + bd.getParentName() + "'", ex);
-					}
-					// Deep copy with overridden values.
-					mbd = new RootBeanDefinition(pbd);
-					mbd.overrideFrom(bd);
 				}
-
-				// Set default singleton scope, if not configured before.
-				if (!StringUtils.hasLength(mbd.getScope())) {
-					mbd.setScope(RootBeanDefinition.SCOPE_SINGLETON);
+				catch (NoSuchBeanDefinitionException ex) {
+					throw new BeanDefinitionStoreException(bd.getResourceDescription(), beanName,
+							"Could not resolve parent bean definition '" + bd.getParentName() + "'", ex);
 				}
+				// Deep copy with overridden values.
+				mbd = new RootBeanDefinition(pbd);
+				mbd.overrideFrom(bd);
+			}
 
-				// A bean contained in a non-singleton bean cannot be a singleton itself.
-				// Let's correct this on the fly here, since this might be the result of
-				// parent-child merging for the outer bean, in which case the original inner bean
-				// definition will not have inherited the merged outer bean's singleton status.
-				if (containingBd != null && !containingBd.isSingleton() && mbd.isSingleton()) {
-					mbd.setScope(containingBd.getScope());
-				}
+			// Set default singleton scope, if not configured before.
+			if (!StringUtils.hasLength(mbd.getScope())) {
+				mbd.setScope(RootBeanDefinition.SCOPE_SINGLETON);
+			}
 
-				// Only cache the merged bean definition if we're already about to create an
-				// instance of the bean, or at least have already created an instance before.
-				if (containingBd == null && isCacheBeanMetadata() && isBeanEligibleForMetadataCaching(beanName)) {
-					this.mergedBeanDefinitions.put(beanName, mbd);
-				}
+			// A bean contained in a non-singleton bean cannot be a singleton itself.
+			// Let's correct this on the fly here, since this might be the result of
+			// parent-child merging for the outer bean, in which case the original inner bean
+			// definition will not have inherited the merged outer bean's singleton status.
+			if (containingBd != null && !containingBd.isSingleton() && mbd.isSingleton()) {
+				mbd.setScope(containingBd.getScope());
 			}
 
-			return mbd;
+			// Only cache the merged bean definition if we're already about to create an
+			// instance of the bean, or at least have already created an instance before.
+			if (containingBd == null && isCacheBeanMetadata() && isBeanEligibleForMetadataCaching(beanName)) {
+				// Enforce the same merged instance for concurrent callers, unless
+				// the merged definition has been invalidated while merging it.
+				RootBeanDefinition existingMbd = this.mergedBeanDefinitions.putIfAbsent(beanName, mbd);
+				if (existingMbd != null) {
+					mbd = existingMbd;
+				}
+				else if (this.mergedBeanDefinitionRemovalCount.get() != removalCount) {
+					this.mergedBeanDefinitions.remove(beanName, mbd);
+				}
+			}
 		}
+
+		return mbd;
 	}
 
 	/**
@@ -1239,6 +1269,7 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 	 * @param beanName the bean name to clear the merged definition for
 	 */
 	protected void clearMergedBeanDefinition(String beanName) {
+		this.mergedBeanDefinitionRemovalCount.incrementAndGet();
 		this.mergedBeanDefinitions.remove(beanName);
 	}
 
@@ -0,0 +1,377 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records where the time goes while an {@link AbstractAutowireCapableBeanFactory}
+ * creates its beans: per bean, the time spent in instantiation (including
+ * constructor resolution), property population, each BeanPostProcessor's
+ * before/after initialization callback and the init methods, with the creation
+ * of dependent beans nested within the phase that triggered it.
+ *
+ * <p>Results are available as a trace in the "collapsed stack" format
+ * understood by common flame graph tools (one line per distinct stack, frames
+ * separated by semicolons, followed by the self time in microseconds), and as
+ * a plain-text summary of the most expensive beans.
+ *
+ * <p>Profiling is enabled by passing an instance to
+ * {@link AbstractAutowireCapableBeanFactory#setBeanCreationProfiler}; without
+ * a profiler, bean creation just performs a {@code null} check per phase.
+ * A profiler may be shared by several factories and is thread-safe; the
+ * nesting of creation phases is tracked per thread.
+ *
+ * @since 3.2.18
+ * @see AbstractAutowireCapableBeanFactory#setBeanCreationProfiler
+ */
+public class BeanCreationProfiler {
+
+	/** Phase name for the instantiation of a bean, including constructor resolution */
+	public static final String INSTANTIATE_PHASE = "instantiate";
+
+	/** Phase name for the population of bean properties */
+	public static final String POPULATE_PHASE = "populate";
+
+	/** Phase name for the invocation of init methods */
+	public static final String INIT_PHASE = "init";
+
+	/** Prefix for the phase name of a BeanPostProcessor's before-initialization callback */
+	public static final String BEFORE_INITIALIZATION_PHASE_PREFIX = "postProcessBeforeInitialization:";
+
+	/** Prefix for the phase name of a BeanPostProcessor's after-initialization callback */
+	public static final String AFTER_INITIALIZATION_PHASE_PREFIX = "postProcessAfterInitialization:";
+
+
+	private final ThreadLocal<Frame> currentFrame = new ThreadLocal<Frame>();
+
+	/** Self time in nanoseconds per collapsed stack */
+	private final ConcurrentMap<String, AtomicLong> stackTimes = new ConcurrentHashMap<String, AtomicLong>(256);
+
+	/** Statistics per bean name */
+	private final ConcurrentMap<String, BeanStatistics> beanStatistics =
+			new ConcurrentHashMap<String, BeanStatistics>(256);
+
+
+	/**
+	 * Notify this profiler that the creation of the given bean starts
+	 * on the current thread. Must be followed by a call to {@link #end()}.
+	 * @param beanName the name of the bean
+	 */
+	public void beginBean(String beanName) {
+		begin(beanName, true);
+	}
+
+	/**
+	 * Notify this profiler that the given phase of the current bean's creation
+	 * starts on the current thread. Must be followed by a call to {@link #end()}.
+	 * @param phase the name of the phase, e.g. {@link #INSTANTIATE_PHASE}
+	 */
+	public void beginPhase(String phase) {
+		begin(phase, false);
+	}
+
+	private void begin(String name, boolean bean) {
+		Frame parent = this.currentFrame.get();
+		this.currentFrame.set(new Frame(name, bean, parent));
+	}
+
+	/**
+	 * Notify this profiler that the bean creation or phase most recently
+	 * begun on the current thread has ended.
+	 */
+	public void end() {
+		Frame frame = this.currentFrame.get();
+		if (frame == null) {
+			throw new IllegalStateException("No bean creation or phase in progress on current thread");
+		}
+		long elapsed = System.nanoTime() - frame.startTime;
+		Frame parent = frame.parent;
+		if (parent != null) {
+			parent.childTime += elapsed;
+			this.currentFrame.set(parent);
+		}
+		else {
+			this.currentFrame.remove();
+		}
+		addStackTime(frame.stack, elapsed - frame.childTime);
+
+		long exclusive = elapsed - frame.nestedBeanTime;
+		if (frame.bean) {
+			getBeanStatistics(frame.name).addCreation(elapsed, exclusive);
+			for (Frame ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+				ancestor.nestedBeanTime += elapsed;
+				if (ancestor.bean) {
+					break;
+				}
+			}
+		}
+		else {
+			Frame beanFrame = parent;
+			while (beanFrame != null && !beanFrame.bean) {
+				beanFrame = beanFrame.parent;
+			}
+			if (beanFrame != null) {
+				getBeanStatistics(beanFrame.name).addPhase(frame.name, exclusive);
+			}
+		}
+	}
+
+	private void addStackTime(String stack, long nanos) {
+		AtomicLong time = this.stackTimes.get(stack);
+		if (time == null) {
+			time = new AtomicLong();
+			AtomicLong existing = this.stackTimes.putIfAbsent(stack, time);
+			if (existing != null) {
+				time = existing;
+			}
+		}
+		time.addAndGet(nanos);
+	}
+
+	private BeanStatistics getBeanStatistics(String beanName) {
+		BeanStatistics statistics = this.beanStatistics.get(beanName);
+		if (statistics == null) {
+			statistics = new BeanStatistics(beanName);
+			BeanStatistics existing = this.beanStatistics.putIfAbsent(beanName, statistics);
+			if (existing != null) {
+				statistics = existing;
+			}
+		}
+		return statistics;
+	}
+
+	/**
+	 * Clear all recorded timings.
+	 */
+	public void reset() {
+		this.stackTimes.clear();
+		this.beanStatistics.clear();
+	}
+
+	/**
+	 * Return the statistics for all beans created so far,
+	 * ordered by descending exclusive creation time.
+	 */
+	public List<BeanStatistics> getBeanStatistics() {
+		List<BeanStatistics> result = new ArrayList<BeanStatistics>(this.beanStatistics.values());
+		// Sort by a snapshot, as creations may still be recorded concurrently
+		final Map<BeanStatistics, Long> exclusiveTimes = new IdentityHashMap<BeanStatistics, Long>(result.size());
+		for (BeanStatistics statistics : result) {
+			exclusiveTimes.put(statistics, statistics.getExclusiveTime());
+		}
+		Collections.sort(result, new Comparator<BeanStatistics>() {
+			public int compare(BeanStatistics o1, BeanStatistics o2) {
+				long t1 = exclusiveTimes.get(o1);
+				long t2 = exclusiveTimes.get(o2);
+				return (t1 > t2 ? -1 : (t1 < t2 ? 1 : 0));
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Write the recorded timings in collapsed stack format: one line per
+	 * distinct stack of bean creations and phases, with the frames separated
+	 * by semicolons and followed by the stack's self time in microseconds.
+	 * Stacks are written in alphabetical order.
+	 * @param writer the writer to write to (not closed by this method)
+	 * @throws IOException in case of I/O errors
+	 */
+	public void writeTrace(Writer writer) throws IOException {
+		Map<String, Long> snapshot = new TreeMap<String, Long>();
+		for (Map.Entry<String, AtomicLong> entry : this.stackTimes.entrySet()) {
+			snapshot.put(entry.getKey(), entry.getValue().get());
+		}
+		for (Map.Entry<String, Long> entry : snapshot.entrySet()) {
+			long micros = entry.getValue() / 1000;
+			if (micros > 0) {
+				writer.write(entry.getKey());
+				writer.write(' ');
+				writer.write(Long.toString(micros));
+				writer.write('\n');
+			}
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Return a human-readable summary of the beans with the highest
+	 * exclusive creation time, i.e. excluding the creation of nested beans,
+	 * with a breakdown per phase.
+	 * @param topN the maximum number of beans to include
+	 */
+	public String getSummary(int topN) {
+		List<BeanStatistics> statistics = getBeanStatistics();
+		long totalTime = 0;
+		int totalCount = 0;
+		for (BeanStatistics beanStatistics : statistics) {
+			totalTime += beanStatistics.getExclusiveTime();
+			totalCount += beanStatistics.getCreationCount();
+		}
+		StringBuilder sb = new StringBuilder();
+		sb.append("Bean creation profile: ").append(totalCount).append(" creations of ");
+		sb.append(statistics.size()).append(" beans in ").append(formatMillis(totalTime)).append('\n');
+		int count = Math.min(topN, statistics.size());
+		for (int i = 0; i < count; i++) {
+			BeanStatistics beanStatistics = statistics.get(i);
+			sb.append(formatMillis(beanStatistics.getExclusiveTime())).append(" exclusive, ");
+			sb.append(formatMillis(beanStatistics.getTotalTime())).append(" total: '");
+			sb.append(beanStatistics.getBeanName()).append("'");
+			if (beanStatistics.getCreationCount() > 1) {
+				sb.append(" (").append(beanStatistics.getCreationCount()).append(" creations)");
+			}
+			Map<String, Long> phaseTimes = beanStatistics.getPhaseTimes();
+			if (!phaseTimes.isEmpty()) {
+				sb.append(" [");
+				boolean first = true;
+				for (Map.Entry<String, Long> entry : phaseTimes.entrySet()) {
+					if (!first) {
+						sb.append(", ");
+					}
+					sb.append(entry.getKey()).append('=').append(formatMillis(entry.getValue()));
+					first = false;
+				}
+				sb.append("]");
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+	private static String formatMillis(long nanos) {
+		return String.format("%.3f ms", nanos / 1000000.0);
+	}
+
+	private static String escapeFrameName(String name) {
+		return name.replace(';', ':').replace(' ', '_').replace('\n', '_');
+	}
+
+
+	/**
+	 * A bean creation or phase in progress on a specific thread.
+	 */
+	private static class Frame {
+
+		private final String name;
+
+		private final boolean bean;
+
+		private final Frame parent;
+
+		private final String stack;
+
+		private final long startTime;
+
+		/** Time spent in direct child frames */
+		private long childTime;
+
+		/** Time spent creating nested beans within this frame */
+		private long nestedBeanTime;
+
+		public Frame(String name, boolean bean, Frame parent) {
+			this.name = name;
+			this.bean = bean;
+			this.parent = parent;
+			String frameName = escapeFrameName(name);
+			this.stack = (parent != null ? parent.stack + ";" + frameName : frameName);
+			this.startTime = System.nanoTime();
+		}
+	}
+
+
+	/**
+	 * Creation statistics for a single bean name.
+	 */
+	public static class BeanStatistics {
+
+		private final String beanName;
+
+		private int creationCount;
+
+		private long totalTime;
+
+		private long exclusiveTime;
+
+		private final Map<String, Long> phaseTimes = new TreeMap<String, Long>();
+
+		private BeanStatistics(String beanName) {
+			this.beanName = beanName;
+		}
+
+		private synchronized void addCreation(long total, long exclusive) {
+			this.creationCount++;
+			this.totalTime += total;
+			this.exclusiveTime += exclusive;
+		}
+
+		private synchronized void addPhase(String phase, long time) {
+			Long existing = this.phaseTimes.get(phase);
+			this.phaseTimes.put(phase, (existing != null ? existing + time : time));
+		}
+
+		/**
+		 * Return the name of the bean.
+		 */
+		public String getBeanName() {
+			return this.beanName;
+		}
+
+		/**
+		 * Return the number of times the bean has been created.
+		 */
+		public synchronized int getCreationCount() {
+			return this.creationCount;
+		}
+
+		/**
+		 * Return the total creation time in nanoseconds,
+		 * including the creation of nested beans.
+		 */
+		public synchronized long getTotalTime() {
+			return this.totalTime;
+		}
+
+		/**
+		 * Return the creation time in nanoseconds,
+		 * excluding the creation of nested beans.
+		 */
+		public synchronized long getExclusiveTime() {
+			return this.exclusiveTime;
+		}
+
+		/**
+		 * Return the time in nanoseconds spent in each phase,
+		 * excluding the creation of nested beans, keyed by phase name.
+		 */
+		public synchronized Map<String, Long> getPhaseTimes() {
+			return new TreeMap<String, Long>(this.phaseTimes);
+		}
+	}
+
+}
@@ -16,6 +16,8 @@
 
 package org.springframework.beans.factory.support;
 
+import java.util.Map;
+
 import org.springframework.beans.factory.BeanDefinitionStoreException;
 import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.config.BeanDefinition;
@@ -156,6 +158,29 @@ public class BeanDefinitionReaderUtils {
 		}
 	}
 
+	/**
+	 * Register the given bean definitions with the given bean factory, in one batch
+	 * if the bean factory supports it (i.e. is a {@link DefaultListableBeanFactory}).
+	 * @param beanDefinitions the bean definitions to register, keyed by bean name
+	 * @param registry the bean factory to register with
+	 * @throws BeanDefinitionStoreException if registration failed
+	 * @since 3.2.18
+	 * @see DefaultListableBeanFactory#registerBeanDefinitions
+	 */
+	public static void registerBeanDefinitions(
+			Map<String, ? extends BeanDefinition> beanDefinitions, BeanDefinitionRegistry registry)
+			throws BeanDefinitionStoreException {
+
+		if (registry instanceof DefaultListableBeanFactory) {
+			((DefaultListableBeanFactory) registry).registerBeanDefinitions(beanDefinitions);
+		}
+		else {
+			for (Map.Entry<String, ? extends BeanDefinition> entry : beanDefinitions.entrySet()) {
+				registry.registerBeanDefinition(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
 	/**
 	 * Register the given bean definition with a generated name,
 	 * unique within the given bean factory.
@@ -0,0 +1,881 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.BeanMetadataAttribute;
+import org.springframework.beans.BeanMetadataAttributeAccessor;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanNameReference;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.core.io.DescriptiveResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+/**
+ * A set of bean definitions and aliases that can be written to and read from
+ * a compact binary representation, e.g. to persist the outcome of parsing
+ * XML bean definition files and to restore it on subsequent startups without
+ * parsing the original configuration again.
+ *
+ * <p>Supports {@link GenericBeanDefinition}, {@link RootBeanDefinition} and
+ * {@link ChildBeanDefinition} instances (but not subclasses thereof) with the
+ * value types produced by the XML bean definition format: Strings,
+ * {@link TypedStringValue}, {@link RuntimeBeanReference},
+ * {@link RuntimeBeanNameReference}, inner bean definitions (with or without
+ * {@link BeanDefinitionHolder}), {@link ManagedList}, {@link ManagedSet},
+ * {@link ManagedMap}, {@link ManagedProperties} and {@link ManagedArray},
+ * as well as Booleans, Integers and Longs. Configuration sources are not
+ * retained; the resource that a bean definition came from is retained
+ * by its description only.
+ *
+ * <p>{@link #writeTo} fails with a {@link NotSerializableException} for any
+ * content that cannot be represented; callers are expected to simply fall
+ * back to their original source of bean definitions in such a case.
+ *
+ * @since 3.2.18
+ * @see org.springframework.beans.factory.xml.XmlBeanDefinitionReader#setSnapshotDirectory
+ */
+public class BeanDefinitionSnapshot {
+
+	private static final int MAGIC = 0x53424453;
+
+	private static final int FORMAT_VERSION = 1;
+
+	private static final int NULL_STRING = 0;
+
+	private static final int NEW_STRING = 1;
+
+	private static final byte VALUE_NULL = 0;
+
+	private static final byte VALUE_STRING = 1;
+
+	private static final byte VALUE_TYPED_STRING = 2;
+
+	private static final byte VALUE_BEAN_REFERENCE = 3;
+
+	private static final byte VALUE_BEAN_NAME_REFERENCE = 4;
+
+	private static final byte VALUE_BEAN_DEFINITION_HOLDER = 5;
+
+	private static final byte VALUE_BEAN_DEFINITION = 6;
+
+	private static final byte VALUE_LIST = 7;
+
+	private static final byte VALUE_SET = 8;
+
+	private static final byte VALUE_MAP = 9;
+
+	private static final byte VALUE_PROPERTIES = 10;
+
+	private static final byte VALUE_ARRAY = 11;
+
+	private static final byte VALUE_BOOLEAN = 12;
+
+	private static final byte VALUE_INTEGER = 13;
+
+	private static final byte VALUE_LONG = 14;
+
+	private static final byte DEFINITION_GENERIC = 1;
+
+	private static final byte DEFINITION_ROOT = 2;
+
+	private static final byte DEFINITION_CHILD = 3;
+
+	private static final byte OVERRIDE_LOOKUP = 1;
+
+	private static final byte OVERRIDE_REPLACE = 2;
+
+	private static final byte RESOURCE_NONE = 0;
+
+	private static final byte RESOURCE_DESCRIPTION = 1;
+
+	private static final byte RESOURCE_ORIGINATING_DEFINITION = 2;
+
+
+	private final Map<String, String> sources = new LinkedHashMap<String, String>();
+
+	private final Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<String, BeanDefinition>();
+
+	private final Map<String, String> aliases = new LinkedHashMap<String, String>();
+
+
+	/**
+	 * Record a source that the bean definitions in this snapshot have been
+	 * derived from, along with a digest of its content at that time.
+	 * @param location the location of the source, e.g. a URL
+	 * @param digest the digest of the source's content
+	 */
+	public void addSource(String location, String digest) {
+		Assert.notNull(location, "Location must not be null");
+		Assert.notNull(digest, "Digest must not be null");
+		this.sources.put(location, digest);
+	}
+
+	/**
+	 * Return the sources that the bean definitions in this snapshot
+	 * have been derived from, as a Map from location to digest.
+	 */
+	public Map<String, String> getSources() {
+		return Collections.unmodifiableMap(this.sources);
+	}
+
+	/**
+	 * Add the given bean definition to this snapshot.
+	 * @param beanName the name of the bean
+	 * @param beanDefinition the bean definition
+	 */
+	public void addBeanDefinition(String beanName, BeanDefinition beanDefinition) {
+		Assert.notNull(beanName, "Bean name must not be null");
+		Assert.notNull(beanDefinition, "BeanDefinition must not be null");
+		this.beanDefinitions.put(beanName, beanDefinition);
+	}
+
+	/**
+	 * Return the bean definitions in this snapshot, in registration order.
+	 */
+	public Map<String, BeanDefinition> getBeanDefinitions() {
+		return Collections.unmodifiableMap(this.beanDefinitions);
+	}
+
+	/**
+	 * Add the given alias to this snapshot.
+	 * @param beanName the name of the bean (or alias) that the alias refers to
+	 * @param alias the alias
+	 */
+	public void addAlias(String beanName, String alias) {
+		Assert.notNull(beanName, "Bean name must not be null");
+		Assert.notNull(alias, "Alias must not be null");
+		this.aliases.put(alias, beanName);
+	}
+
+	/**
+	 * Return the aliases in this snapshot, as a Map from alias to bean name.
+	 */
+	public Map<String, String> getAliases() {
+		return Collections.unmodifiableMap(this.aliases);
+	}
+
+	/**
+	 * Register the bean definitions and aliases in this snapshot
+	 * with the given registry.
+	 * @param registry the registry to register with
+	 * @return the number of bean definitions registered
+	 */
+	public int registerWith(BeanDefinitionRegistry registry) {
+		BeanDefinitionReaderUtils.registerBeanDefinitions(this.beanDefinitions, registry);
+		for (Map.Entry<String, String> entry : this.aliases.entrySet()) {
+			registry.registerAlias(entry.getValue(), entry.getKey());
+		}
+		return this.beanDefinitions.size();
+	}
+
+
+	/**
+	 * Write this snapshot to the given stream.
+	 * @param out the stream to write to (not closed by this method)
+	 * @throws NotSerializableException if a bean definition or value
+	 * is not supported by the snapshot format
+	 * @throws IOException in case of I/O errors
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		SnapshotOutput output = new SnapshotOutput(out);
+		output.writeInt(MAGIC);
+		output.writeInt(FORMAT_VERSION);
+		output.writeCount(this.sources.size());
+		for (Map.Entry<String, String> entry : this.sources.entrySet()) {
+			output.writeString(entry.getKey());
+			output.writeString(entry.getValue());
+		}
+		output.writeCount(this.beanDefinitions.size());
+		for (Map.Entry<String, BeanDefinition> entry : this.beanDefinitions.entrySet()) {
+			output.writeString(entry.getKey());
+			output.writeBeanDefinition(entry.getValue());
+		}
+		output.writeCount(this.aliases.size());
+		for (Map.Entry<String, String> entry : this.aliases.entrySet()) {
+			output.writeString(entry.getKey());
+			output.writeString(entry.getValue());
+		}
+		output.flush();
+	}
+
+	/**
+	 * Read a snapshot from the given stream.
+	 * @param in the stream to read from (not closed by this method)
+	 * @return the snapshot
+	 * @throws StreamCorruptedException if the stream does not contain
+	 * a snapshot in the supported format
+	 * @throws IOException in case of I/O errors
+	 */
+	public static BeanDefinitionSnapshot readFrom(InputStream in) throws IOException {
+		SnapshotInput input = new SnapshotInput(in);
+		if (input.readInt() != MAGIC) {
+			throw new StreamCorruptedException("Not a bean definition snapshot");
+		}
+		int version = input.readInt();
+		if (version != FORMAT_VERSION) {
+			throw new StreamCorruptedException("Unsupported bean definition snapshot version: " + version);
+		}
+		BeanDefinitionSnapshot snapshot = new BeanDefinitionSnapshot();
+		int sourceCount = input.readCount();
+		for (int i = 0; i < sourceCount; i++) {
+			snapshot.addSource(input.readString(), input.readString());
+		}
+		int definitionCount = input.readCount();
+		for (int i = 0; i < definitionCount; i++) {
+			snapshot.addBeanDefinition(input.readString(), input.readBeanDefinition());
+		}
+		int aliasCount = input.readCount();
+		for (int i = 0; i < aliasCount; i++) {
+			String alias = input.readString();
+			snapshot.addAlias(input.readString(), alias);
+		}
+		return snapshot;
+	}
+
+
+	/**
+	 * Writes the snapshot format, sharing repeated Strings
+	 * (class names, bean names, type names) by back-reference.
+	 */
+	private static class SnapshotOutput extends DataOutputStream {
+
+		private final Map<String, Integer> strings = new HashMap<String, Integer>(256);
+
+		public SnapshotOutput(OutputStream out) {
+			super(out);
+		}
+
+		public void writeCount(int count) throws IOException {
+			int value = count;
+			while ((value & ~0x7F) != 0) {
+				writeByte((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			writeByte(value);
+		}
+
+		public void writeString(String value) throws IOException {
+			if (value == null) {
+				writeCount(NULL_STRING);
+				return;
+			}
+			Integer index = this.strings.get(value);
+			if (index != null) {
+				writeCount(index);
+				return;
+			}
+			this.strings.put(value, this.strings.size() + 2);
+			writeCount(NEW_STRING);
+			byte[] bytes = value.getBytes("UTF-8");
+			writeCount(bytes.length);
+			write(bytes);
+		}
+
+		public void writeStrings(String[] values) throws IOException {
+			if (values == null) {
+				writeCount(0);
+				return;
+			}
+			writeCount(values.length + 1);
+			for (String value : values) {
+				writeString(value);
+			}
+		}
+
+		public void writeBeanDefinition(BeanDefinition bd) throws IOException {
+			Class<?> type = bd.getClass();
+			if (type == GenericBeanDefinition.class) {
+				writeByte(DEFINITION_GENERIC);
+				writeString(bd.getParentName());
+			}
+			else if (type == RootBeanDefinition.class) {
+				writeByte(DEFINITION_ROOT);
+			}
+			else if (type == ChildBeanDefinition.class) {
+				writeByte(DEFINITION_CHILD);
+				writeString(bd.getParentName());
+			}
+			else {
+				throw new NotSerializableException("Unsupported bean definition type: " + type.getName());
+			}
+			AbstractBeanDefinition abd = (AbstractBeanDefinition) bd;
+			checkNoSource(abd, "Bean definition");
+			writeString(abd.getBeanClassName());
+			writeString(abd.getScope());
+			writeBoolean(abd.isAbstract());
+			writeBoolean(abd.isLazyInit());
+			writeCount(abd.getAutowireMode());
+			writeCount(abd.getDependencyCheck());
+			writeStrings(abd.getDependsOn());
+			writeBoolean(abd.isAutowireCandidate());
+			writeBoolean(abd.isPrimary());
+			Set<AutowireCandidateQualifier> qualifiers = abd.getQualifiers();
+			writeCount(qualifiers.size());
+			for (AutowireCandidateQualifier qualifier : qualifiers) {
+				checkNoSource(qualifier, "Qualifier");
+				writeString(qualifier.getTypeName());
+				writeAttributes(qualifier);
+			}
+			writeBoolean(abd.isNonPublicAccessAllowed());
+			writeBoolean(abd.isLenientConstructorResolution());
+			writeConstructorArgumentValues(abd.getConstructorArgumentValues());
+			writePropertyValues(abd.getPropertyValues());
+			writeMethodOverrides(abd.getMethodOverrides());
+			writeString(abd.getFactoryBeanName());
+			writeString(abd.getFactoryMethodName());
+			writeString(abd.getInitMethodName());
+			writeBoolean(abd.isEnforceInitMethod());
+			writeString(abd.getDestroyMethodName());
+			writeBoolean(abd.isEnforceDestroyMethod());
+			writeBoolean(abd.isSynthetic());
+			writeCount(abd.getRole());
+			writeString(abd.getDescription());
+			writeResource(abd);
+			writeAttributes(abd);
+			if (abd instanceof RootBeanDefinition) {
+				RootBeanDefinition rbd = (RootBeanDefinition) abd;
+				if (rbd.getTargetType() != null) {
+					throw new NotSerializableException("Root bean definition with target type not supported");
+				}
+				writeBoolean(rbd.isFactoryMethodUnique);
+				writeValue(rbd.getDecoratedDefinition());
+			}
+		}
+
+		private void writeResource(AbstractBeanDefinition bd) throws IOException {
+			BeanDefinition originatingBd = bd.getOriginatingBeanDefinition();
+			if (originatingBd != null) {
+				writeByte(RESOURCE_ORIGINATING_DEFINITION);
+				writeBeanDefinition(originatingBd);
+			}
+			else if (bd.getResource() != null) {
+				writeByte(RESOURCE_DESCRIPTION);
+				writeString(bd.getResourceDescription());
+			}
+			else {
+				writeByte(RESOURCE_NONE);
+			}
+		}
+
+		private void writeAttributes(BeanMetadataAttributeAccessor accessor) throws IOException {
+			String[] names = accessor.attributeNames();
+			writeCount(names.length);
+			for (String name : names) {
+				BeanMetadataAttribute attribute = accessor.getMetadataAttribute(name);
+				if (attribute == null || attribute.getSource() != null) {
+					throw new NotSerializableException("Unsupported attribute '" + name + "'");
+				}
+				writeString(name);
+				writeValue(attribute.getValue());
+			}
+		}
+
+		private void writeConstructorArgumentValues(ConstructorArgumentValues cargs) throws IOException {
+			Map<Integer, ConstructorArgumentValues.ValueHolder> indexed = cargs.getIndexedArgumentValues();
+			writeCount(indexed.size());
+			for (Map.Entry<Integer, ConstructorArgumentValues.ValueHolder> entry : indexed.entrySet()) {
+				writeCount(entry.getKey());
+				writeValueHolder(entry.getValue());
+			}
+			List<ConstructorArgumentValues.ValueHolder> generic = cargs.getGenericArgumentValues();
+			writeCount(generic.size());
+			for (ConstructorArgumentValues.ValueHolder valueHolder : generic) {
+				writeValueHolder(valueHolder);
+			}
+		}
+
+		private void writeValueHolder(ConstructorArgumentValues.ValueHolder valueHolder) throws IOException {
+			if (valueHolder.getSource() != null || valueHolder.isConverted()) {
+				throw new NotSerializableException("Unsupported constructor argument: " + valueHolder);
+			}
+			writeValue(valueHolder.getValue());
+			writeString(valueHolder.getType());
+			writeString(valueHolder.getName());
+		}
+
+		private void writePropertyValues(MutablePropertyValues pvs) throws IOException {
+			List<PropertyValue> pvList = pvs.getPropertyValueList();
+			writeCount(pvList.size());
+			for (PropertyValue pv : pvList) {
+				checkNoSource(pv, "Property value");
+				writeString(pv.getName());
+				writeValue(pv.getValue());
+				writeBoolean(pv.isOptional());
+				writeAttributes(pv);
+			}
+		}
+
+		private void writeMethodOverrides(MethodOverrides overrides) throws IOException {
+			Set<MethodOverride> overrideSet = overrides.getOverrides();
+			writeCount(overrideSet.size());
+			for (MethodOverride override : overrideSet) {
+				if (override.getSource() != null) {
+					throw new NotSerializableException("Method override with source not supported");
+				}
+				if (override.getClass() == LookupOverride.class) {
+					writeByte(OVERRIDE_LOOKUP);
+					writeString(override.getMethodName());
+					writeString(((LookupOverride) override).getBeanName());
+				}
+				else if (override.getClass() == ReplaceOverride.class) {
+					ReplaceOverride replaceOverride = (ReplaceOverride) override;
+					writeByte(OVERRIDE_REPLACE);
+					writeString(replaceOverride.getMethodName());
+					writeString(replaceOverride.getMethodReplacerBeanName());
+					List<String> typeIdentifiers = replaceOverride.getTypeIdentifiers();
+					writeStrings(typeIdentifiers.toArray(new String[typeIdentifiers.size()]));
+				}
+				else {
+					throw new NotSerializableException(
+							"Unsupported method override type: " + override.getClass().getName());
+				}
+			}
+		}
+
+		@SuppressWarnings("rawtypes")
+		public void writeValue(Object value) throws IOException {
+			if (value == null) {
+				writeByte(VALUE_NULL);
+			}
+			else if (value instanceof String) {
+				writeByte(VALUE_STRING);
+				writeString((String) value);
+			}
+			else if (value instanceof TypedStringValue) {
+				TypedStringValue typedStringValue = (TypedStringValue) value;
+				if (typedStringValue.getSource() != null) {
+					throw new NotSerializableException("TypedStringValue with source not supported");
+				}
+				writeByte(VALUE_TYPED_STRING);
+				writeString(typedStringValue.getValue());
+				writeString(typedStringValue.getTargetTypeName());
+				writeString(typedStringValue.getSpecifiedTypeName());
+				writeBoolean(typedStringValue.isDynamic());
+			}
+			else if (value.getClass() == RuntimeBeanReference.class) {
+				RuntimeBeanReference reference = (RuntimeBeanReference) value;
+				checkNoSource(reference.getSource(), "Bean reference");
+				writeByte(VALUE_BEAN_REFERENCE);
+				writeString(reference.getBeanName());
+				writeBoolean(reference.isToParent());
+			}
+			else if (value.getClass() == RuntimeBeanNameReference.class) {
+				RuntimeBeanNameReference reference = (RuntimeBeanNameReference) value;
+				checkNoSource(reference.getSource(), "Bean name reference");
+				writeByte(VALUE_BEAN_NAME_REFERENCE);
+				writeString(reference.getBeanName());
+			}
+			else if (value.getClass() == BeanDefinitionHolder.class) {
+				BeanDefinitionHolder holder = (BeanDefinitionHolder) value;
+				writeByte(VALUE_BEAN_DEFINITION_HOLDER);
+				writeString(holder.getBeanName());
+				writeStrings(holder.getAliases());
+				writeBeanDefinition(holder.getBeanDefinition());
+			}
+			else if (value instanceof BeanDefinition) {
+				writeByte(VALUE_BEAN_DEFINITION);
+				writeBeanDefinition((BeanDefinition) value);
+			}
+			else if (value.getClass() == ManagedArray.class) {
+				ManagedArray array = (ManagedArray) value;
+				checkNoSource(array.getSource(), "Managed array");
+				writeByte(VALUE_ARRAY);
+				writeString(array.getElementTypeName());
+				writeBoolean(array.isMergeEnabled());
+				writeElements(array);
+			}
+			else if (value.getClass() == ManagedList.class) {
+				ManagedList list = (ManagedList) value;
+				checkNoSource(list.getSource(), "Managed list");
+				writeByte(VALUE_LIST);
+				writeString(list.getElementTypeName());
+				writeBoolean(list.isMergeEnabled());
+				writeElements(list);
+			}
+			else if (value.getClass() == ManagedSet.class) {
+				ManagedSet set = (ManagedSet) value;
+				checkNoSource(set.getSource(), "Managed set");
+				writeByte(VALUE_SET);
+				writeString(set.getElementTypeName());
+				writeBoolean(set.isMergeEnabled());
+				writeElements(set);
+			}
+			else if (value.getClass() == ManagedMap.class) {
+				ManagedMap<?, ?> map = (ManagedMap) value;
+				checkNoSource(map.getSource(), "Managed map");
+				writeByte(VALUE_MAP);
+				writeString(map.getKeyTypeName());
+				writeString(map.getValueTypeName());
+				writeBoolean(map.isMergeEnabled());
+				writeEntries(map);
+			}
+			else if (value.getClass() == ManagedProperties.class) {
+				ManagedProperties props = (ManagedProperties) value;
+				checkNoSource(props.getSource(), "Managed properties");
+				writeByte(VALUE_PROPERTIES);
+				writeBoolean(props.isMergeEnabled());
+				writeEntries(props);
+			}
+			else if (value instanceof Boolean) {
+				writeByte(VALUE_BOOLEAN);
+				writeBoolean((Boolean) value);
+			}
+			else if (value instanceof Integer) {
+				writeByte(VALUE_INTEGER);
+				writeInt((Integer) value);
+			}
+			else if (value instanceof Long) {
+				writeByte(VALUE_LONG);
+				writeLong((Long) value);
+			}
+			else {
+				throw new NotSerializableException("Unsupported value type: " + value.getClass().getName());
+			}
+		}
+
+		private void writeElements(Collection<?> elements) throws IOException {
+			writeCount(elements.size());
+			for (Object element : elements) {
+				writeValue(element);
+			}
+		}
+
+		private void writeEntries(Map<?, ?> map) throws IOException {
+			writeCount(map.size());
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				writeValue(entry.getKey());
+				writeValue(entry.getValue());
+			}
+		}
+
+		private void checkNoSource(BeanMetadataAttributeAccessor element, String description)
+				throws NotSerializableException {
+
+			checkNoSource(element.getSource(), description);
+		}
+
+		private void checkNoSource(Object source, String description) throws NotSerializableException {
+			if (source != null) {
+				throw new NotSerializableException(description + " with configuration source not supported");
+			}
+		}
+	}
+
+
+	/**
+	 * Reads the format written by {@link SnapshotOutput}.
+	 */
+	private static class SnapshotInput extends DataInputStream {
+
+		private final List<String> strings = new ArrayList<String>(256);
+
+		public SnapshotInput(InputStream in) {
+			super(in);
+		}
+
+		public int readCount() throws IOException {
+			int value = 0;
+			int shift = 0;
+			int b;
+			do {
+				if (shift > 28) {
+					throw new StreamCorruptedException("Malformed count in bean definition snapshot");
+				}
+				b = readUnsignedByte();
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			}
+			while ((b & 0x80) != 0);
+			return value;
+		}
+
+		public String readString() throws IOException {
+			int index = readCount();
+			if (index == NULL_STRING) {
+				return null;
+			}
+			if (index != NEW_STRING) {
+				if (index - 2 >= this.strings.size()) {
+					throw new StreamCorruptedException("Invalid string reference in bean definition snapshot");
+				}
+				return this.strings.get(index - 2);
+			}
+			byte[] bytes = new byte[readCount()];
+			readFully(bytes);
+			String value = new String(bytes, "UTF-8");
+			this.strings.add(value);
+			return value;
+		}
+
+		public String[] readStrings() throws IOException {
+			int count = readCount();
+			if (count == 0) {
+				return null;
+			}
+			String[] values = new String[count - 1];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = readString();
+			}
+			return values;
+		}
+
+		public AbstractBeanDefinition readBeanDefinition() throws IOException {
+			byte type = readByte();
+			AbstractBeanDefinition bd;
+			switch (type) {
+				case DEFINITION_GENERIC:
+					GenericBeanDefinition gbd = new GenericBeanDefinition();
+					gbd.setParentName(readString());
+					bd = gbd;
+					break;
+				case DEFINITION_ROOT:
+					bd = new RootBeanDefinition();
+					break;
+				case DEFINITION_CHILD:
+					bd = new ChildBeanDefinition(readString());
+					break;
+				default:
+					throw new StreamCorruptedException("Unknown bean definition type in snapshot: " + type);
+			}
+			bd.setBeanClassName(readString());
+			bd.setScope(readString());
+			bd.setAbstract(readBoolean());
+			bd.setLazyInit(readBoolean());
+			bd.setAutowireMode(readCount());
+			bd.setDependencyCheck(readCount());
+			bd.setDependsOn(readStrings());
+			bd.setAutowireCandidate(readBoolean());
+			bd.setPrimary(readBoolean());
+			int qualifierCount = readCount();
+			for (int i = 0; i < qualifierCount; i++) {
+				AutowireCandidateQualifier qualifier = new AutowireCandidateQualifier(readString());
+				readAttributes(qualifier);
+				bd.addQualifier(qualifier);
+			}
+			bd.setNonPublicAccessAllowed(readBoolean());
+			bd.setLenientConstructorResolution(readBoolean());
+			readConstructorArgumentValues(bd.getConstructorArgumentValues());
+			readPropertyValues(bd.getPropertyValues());
+			readMethodOverrides(bd.getMethodOverrides());
+			bd.setFactoryBeanName(readString());
+			bd.setFactoryMethodName(readString());
+			bd.setInitMethodName(readString());
+			bd.setEnforceInitMethod(readBoolean());
+			bd.setDestroyMethodName(readString());
+			bd.setEnforceDestroyMethod(readBoolean());
+			bd.setSynthetic(readBoolean());
+			bd.setRole(readCount());
+			bd.setDescription(readString());
+			readResource(bd);
+			readAttributes(bd);
+			if (bd instanceof RootBeanDefinition) {
+				RootBeanDefinition rbd = (RootBeanDefinition) bd;
+				rbd.isFactoryMethodUnique = readBoolean();
+				rbd.setDecoratedDefinition((BeanDefinitionHolder) readValue());
+			}
+			return bd;
+		}
+
+		private void readResource(AbstractBeanDefinition bd) throws IOException {
+			byte type = readByte();
+			if (type == RESOURCE_ORIGINATING_DEFINITION) {
+				bd.setOriginatingBeanDefinition(readBeanDefinition());
+			}
+			else if (type == RESOURCE_DESCRIPTION) {
+				Resource resource = new DescriptiveResource(readString());
+				bd.setResource(resource);
+			}
+			else if (type != RESOURCE_NONE) {
+				throw new StreamCorruptedException("Unknown resource type in snapshot: " + type);
+			}
+		}
+
+		private void readAttributes(BeanMetadataAttributeAccessor accessor) throws IOException {
+			int count = readCount();
+			for (int i = 0; i < count; i++) {
+				String name = readString();
+				accessor.addMetadataAttribute(new BeanMetadataAttribute(name, readValue()));
+			}
+		}
+
+		private void readConstructorArgumentValues(ConstructorArgumentValues cargs) throws IOException {
+			int indexedCount = readCount();
+			for (int i = 0; i < indexedCount; i++) {
+				int index = readCount();
+				cargs.addIndexedArgumentValue(index, readValueHolder());
+			}
+			int genericCount = readCount();
+			for (int i = 0; i < genericCount; i++) {
+				cargs.addGenericArgumentValue(readValueHolder());
+			}
+		}
+
+		private ConstructorArgumentValues.ValueHolder readValueHolder() throws IOException {
+			Object value = readValue();
+			String type = readString();
+			String name = readString();
+			return new ConstructorArgumentValues.ValueHolder(value, type, name);
+		}
+
+		private void readPropertyValues(MutablePropertyValues pvs) throws IOException {
+			int count = readCount();
+			for (int i = 0; i < count; i++) {
+				String name = readString();
+				PropertyValue pv = new PropertyValue(name, readValue());
+				pv.setOptional(readBoolean());
+				readAttributes(pv);
+				pvs.addPropertyValue(pv);
+			}
+		}
+
+		private void readMethodOverrides(MethodOverrides overrides) throws IOException {
+			int count = readCount();
+			for (int i = 0; i < count; i++) {
+				byte type = readByte();
+				if (type == OVERRIDE_LOOKUP) {
+					String methodName = readString();
+					overrides.addOverride(new LookupOverride(methodName, readString()));
+				}
+				else if (type == OVERRIDE_REPLACE) {
+					String methodName = readString();
+					ReplaceOverride override = new ReplaceOverride(methodName, readString());
+					String[] typeIdentifiers = readStrings();
+					if (typeIdentifiers != null) {
+						for (String typeIdentifier : typeIdentifiers) {
+							override.addTypeIdentifier(typeIdentifier);
+						}
+					}
+					overrides.addOverride(override);
+				}
+				else {
+					throw new StreamCorruptedException("Unknown method override type in snapshot: " + type);
+				}
+			}
+		}
+
+		public Object readValue() throws IOException {
+			byte type = readByte();
+			switch (type) {
+				case VALUE_NULL:
+					return null;
+				case VALUE_STRING:
+					return readString();
+				case VALUE_TYPED_STRING:
+					TypedStringValue typedStringValue = new TypedStringValue(readString());
+					String targetTypeName = readString();
+					if (targetTypeName != null) {
+						typedStringValue.setTargetTypeName(targetTypeName);
+					}
+					typedStringValue.setSpecifiedTypeName(readString());
+					if (readBoolean()) {
+						typedStringValue.setDynamic();
+					}
+					return typedStringValue;
+				case VALUE_BEAN_REFERENCE:
+					String beanName = readString();
+					return new RuntimeBeanReference(beanName, readBoolean());
+				case VALUE_BEAN_NAME_REFERENCE:
+					return new RuntimeBeanNameReference(readString());
+				case VALUE_BEAN_DEFINITION_HOLDER:
+					String holderName = readString();
+					String[] holderAliases = readStrings();
+					return new BeanDefinitionHolder(readBeanDefinition(), holderName, holderAliases);
+				case VALUE_BEAN_DEFINITION:
+					return readBeanDefinition();
+				case VALUE_ARRAY:
+					String arrayElementTypeName = readString();
+					boolean arrayMergeEnabled = readBoolean();
+					int arraySize = readCount();
+					ManagedArray array = new ManagedArray(arrayElementTypeName, arraySize);
+					array.setMergeEnabled(arrayMergeEnabled);
+					readElements(array, arraySize);
+					return array;
+				case VALUE_LIST:
+					ManagedList<Object> list = new ManagedList<Object>();
+					list.setElementTypeName(readString());
+					list.setMergeEnabled(readBoolean());
+					readElements(list, readCount());
+					return list;
+				case VALUE_SET:
+					ManagedSet<Object> set = new ManagedSet<Object>();
+					set.setElementTypeName(readString());
+					set.setMergeEnabled(readBoolean());
+					readElements(set, readCount());
+					return set;
+				case VALUE_MAP:
+					ManagedMap<Object, Object> map = new ManagedMap<Object, Object>();
+					map.setKeyTypeName(readString());
+					map.setValueTypeName(readString());
+					map.setMergeEnabled(readBoolean());
+					readEntries(map);
+					return map;
+				case VALUE_PROPERTIES:
+					ManagedProperties props = new ManagedProperties();
+					props.setMergeEnabled(readBoolean());
+					readEntries(props);
+					return props;
+				case VALUE_BOOLEAN:
+					return readBoolean();
+				case VALUE_INTEGER:
+					return readInt();
+				case VALUE_LONG:
+					return readLong();
+				default:
+					throw new StreamCorruptedException("Unknown value type in snapshot: " + type);
+			}
+		}
+
+		@SuppressWarnings({"rawtypes", "unchecked"})
+		private void readElements(Collection elements, int count) throws IOException {
+			for (int i = 0; i < count; i++) {
+				elements.add(readValue());
+			}
+		}
+
+		@SuppressWarnings({"rawtypes", "unchecked"})
+		private void readEntries(Map map) throws IOException {
+			int count = readCount();
+			for (int i = 0; i < count; i++) {
+				Object key = readValue();
+				map.put(key, readValue());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ParallelProcessingUtils;
+import org.springframework.beans.factory.config.PartitionableBeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.PartitionableBeanFactoryPostProcessor.BeanDefinitionProcessing;
+import org.springframework.util.Assert;
+
+/**
+ * Invokes a sequence of {@link BeanFactoryPostProcessor BeanFactoryPostProcessors}
+ * on a bean factory, processing the bean definitions in parallel where possible.
+ *
+ * <p>Each run of consecutive {@link PartitionableBeanFactoryPostProcessor
+ * PartitionableBeanFactoryPostProcessors} that declare themselves as
+ * {@link PartitionableBeanFactoryPostProcessor#isPartitionable() partitionable}
+ * forms a stage: after preparing all post-processors of the stage, the bean definitions are split up among a pool
+ * of threads, with each bean definition getting processed by the post-processors
+ * of the stage in their given order. All other post-processors are invoked
+ * sequentially on the calling thread in between stages, as with plain
+ * {@link BeanFactoryPostProcessor#postProcessBeanFactory} calls.
+ *
+ * <p>With a parallelism of 1, all post-processors are simply invoked
+ * one after another through {@code postProcessBeanFactory}.
+ *
+ * @since 3.2.18
+ * @see PartitionableBeanFactoryPostProcessor
+ */
+public class BeanFactoryPostProcessorPipeline {
+
+	private static final Log logger = LogFactory.getLog(BeanFactoryPostProcessorPipeline.class);
+
+	private final int parallelism;
+
+
+	/**
+	 * Create a new BeanFactoryPostProcessorPipeline.
+	 * @param parallelism the number of threads to process bean definitions with
+	 */
+	public BeanFactoryPostProcessorPipeline(int parallelism) {
+		Assert.isTrue(parallelism > 0, "Parallelism must be at least 1");
+		this.parallelism = parallelism;
+	}
+
+
+	/**
+	 * Return the number of threads to process bean definitions with.
+	 */
+	public int getParallelism() {
+		return this.parallelism;
+	}
+
+	/**
+	 * Invoke the given post-processors on the given bean factory, in the given order.
+	 * @param postProcessors the post-processors to invoke
+	 * @param beanFactory the bean factory to post-process
+	 * @throws BeansException if a post-processor failed; in case of several
+	 * bean definitions failing within a stage, the failure of the first bean
+	 * definition in registration order
+	 */
+	public void invokeBeanFactoryPostProcessors(Collection<? extends BeanFactoryPostProcessor> postProcessors,
+			ConfigurableListableBeanFactory beanFactory) throws BeansException {
+
+		List<PartitionableBeanFactoryPostProcessor> stage = new ArrayList<PartitionableBeanFactoryPostProcessor>();
+		for (BeanFactoryPostProcessor postProcessor : postProcessors) {
+			if (this.parallelism > 1 && postProcessor instanceof PartitionableBeanFactoryPostProcessor &&
+					((PartitionableBeanFactoryPostProcessor) postProcessor).isPartitionable()) {
+				stage.add((PartitionableBeanFactoryPostProcessor) postProcessor);
+			}
+			else {
+				invokeStage(stage, beanFactory);
+				stage.clear();
+				postProcessor.postProcessBeanFactory(beanFactory);
+			}
+		}
+		invokeStage(stage, beanFactory);
+	}
+
+	private void invokeStage(List<PartitionableBeanFactoryPostProcessor> stage,
+			ConfigurableListableBeanFactory beanFactory) {
+
+		if (stage.isEmpty()) {
+			return;
+		}
+		long startTime = System.currentTimeMillis();
+		List<BeanDefinitionProcessing> processings = new ArrayList<BeanDefinitionProcessing>(stage.size());
+		for (PartitionableBeanFactoryPostProcessor postProcessor : stage) {
+			processings.add(postProcessor.beginBeanDefinitionProcessing(beanFactory));
+		}
+
+		// Determine the processing runs to apply to each bean definition.
+		List<Set<String>> beanNamesToProcess = new ArrayList<Set<String>>(processings.size());
+		for (BeanDefinitionProcessing processing : processings) {
+			String[] beanNames = processing.getBeanNamesToProcess();
+			beanNamesToProcess.add(beanNames != null ? new HashSet<String>(Arrays.asList(beanNames)) : null);
+		}
+		List<WorkItem> workItems = new ArrayList<WorkItem>();
+		for (String beanName : beanFactory.getBeanDefinitionNames()) {
+			WorkItem workItem = null;
+			for (int i = 0; i < processings.size(); i++) {
+				Set<String> beanNames = beanNamesToProcess.get(i);
+				if (beanNames == null || beanNames.contains(beanName)) {
+					if (workItem == null) {
+						workItem = new WorkItem(beanName);
+						workItems.add(workItem);
+					}
+					workItem.processings.add(processings.get(i));
+				}
+			}
+		}
+
+		boolean parallel = (workItems.size() > 1);
+		if (parallel) {
+			processInParallel(workItems, beanFactory);
+		}
+		else {
+			process(workItems, beanFactory);
+		}
+
+		for (BeanDefinitionProcessing processing : processings) {
+			processing.endBeanDefinitionProcessing(beanFactory);
+		}
+		if (logger.isInfoEnabled()) {
+			logger.info(String.format("Applied %d bean factory post-processors to %d bean definitions%s within %d ms",
+					stage.size(), workItems.size(), (parallel ? " in parallel" : ""),
+					System.currentTimeMillis() - startTime));
+		}
+	}
+
+	private void process(List<WorkItem> workItems, ConfigurableListableBeanFactory beanFactory) {
+		for (WorkItem workItem : workItems) {
+			BeanDefinition bd = beanFactory.getBeanDefinition(workItem.beanName);
+			for (BeanDefinitionProcessing processing : workItem.processings) {
+				processing.postProcessBeanDefinition(workItem.beanName, bd);
+			}
+		}
+	}
+
+	/**
+	 * Process contiguous chunks of the given work items on a pool of threads,
+	 * throwing the failure of the first chunk that failed.
+	 */
+	private void processInParallel(List<WorkItem> workItems, final ConfigurableListableBeanFactory beanFactory) {
+		// A few chunks per thread, to even out differences in processing effort.
+		int chunkSize = Math.max(1, workItems.size() / (this.parallelism * 4));
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		for (int i = 0; i < workItems.size(); i += chunkSize) {
+			final List<WorkItem> chunk = workItems.subList(i, Math.min(i + chunkSize, workItems.size()));
+			tasks.add(new Runnable() {
+				public void run() {
+					process(chunk, beanFactory);
+				}
+			});
+		}
+		ParallelProcessingUtils.invokeAll(this.parallelism, tasks, "post-processing bean definitions");
+	}
+
+
+	/**
+	 * A bean definition along with the processing runs to apply to it.
+	 */
+	private static class WorkItem {
+
+		private final String beanName;
+
+		private final List<BeanDefinitionProcessing> processings = new ArrayList<BeanDefinitionProcessing>(2);
+
+		public WorkItem(String beanName) {
+			this.beanName = beanName;
+		}
+	}
+
+}
@@ -0,0 +1,432 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
+import org.springframework.util.StringUtils;
+
+/**
+ * Index from types to the names of the bean definitions of a
+ * {@link DefaultListableBeanFactory} whose beans are assignable to them,
+ * used to narrow down the bean definitions that by-type lookups need to check.
+ *
+ * <p>The index is conservative: it never leaves out a bean that might match.
+ * Beans are classified lazily, on the first by-type lookup after their
+ * registration or after a change that may affect their type. Beans with a
+ * type that cannot be determined statically and cheaply - FactoryBeans,
+ * factory methods, decorated definitions, beans subject to type predictions
+ * by a {@link SmartInstantiationAwareBeanPostProcessor}, singletons currently
+ * in creation, etc. - remain unindexed and are returned as candidates for any
+ * type. The caller still performs the regular type check for each candidate.
+ *
+ * <p>Manually registered singletons (without a corresponding bean definition)
+ * are tracked as well, in registration order.
+ *
+ * @since 3.2.18
+ * @see DefaultListableBeanFactory#getBeanNamesForType
+ */
+class BeanTypeIndex {
+
+	private static final String[] EMPTY_NAMES = new String[0];
+
+	private final DefaultListableBeanFactory beanFactory;
+
+	/** Map from bean definition name to index entry, in registration order */
+	private final Map<String, Entry> entries = new HashMap<String, Entry>(64);
+
+	/** Map from type to the names of the indexed beans assignable to it */
+	private final Map<Class<?>, Set<String>> beanNamesByType = new HashMap<Class<?>, Set<String>>(64);
+
+	/** Names of the beans that need to be classified */
+	private final Set<String> pendingBeanNames = new LinkedHashSet<String>(64);
+
+	/** Names of the beans that are candidates for any type: pending or unindexed */
+	private final Set<String> unindexedBeanNames = new LinkedHashSet<String>(64);
+
+	/** Names of manually registered singletons, in registration order */
+	private final Set<String> manualSingletonNames = new LinkedHashSet<String>(16);
+
+	/** Cache of the types that the instances of a given class are assignable to */
+	private final Map<Class<?>, Set<Class<?>>> typeHierarchyCache = new HashMap<Class<?>, Set<Class<?>>>(64);
+
+	private long typeModificationCount = 0;
+
+	private int nextOrdinal = 0;
+
+
+	/**
+	 * Create a new BeanTypeIndex for the given bean factory.
+	 * @param beanFactory the bean factory to index the bean definitions of
+	 */
+	public BeanTypeIndex(DefaultListableBeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
+	}
+
+
+	/**
+	 * Register a (new or overriding) bean definition under the given name.
+	 * An overriding bean definition keeps the position of the original one.
+	 */
+	public synchronized void registerBeanDefinition(String beanName) {
+		Entry entry = this.entries.get(beanName);
+		if (entry == null) {
+			entry = new Entry(beanName, this.nextOrdinal++);
+			this.entries.put(beanName, entry);
+			this.pendingBeanNames.add(beanName);
+			this.unindexedBeanNames.add(beanName);
+		}
+		else {
+			markPending(entry);
+		}
+	}
+
+	/**
+	 * Remove the bean definition with the given name from the index.
+	 */
+	public synchronized void removeBeanDefinition(String beanName) {
+		Entry entry = this.entries.remove(beanName);
+		if (entry != null) {
+			removeFromIndex(entry);
+			this.pendingBeanNames.remove(beanName);
+			this.unindexedBeanNames.remove(beanName);
+		}
+	}
+
+	/**
+	 * Reclassify the given bean on the next lookup, e.g. since a singleton
+	 * instance has been registered or removed.
+	 */
+	public synchronized void resetBeanType(String beanName) {
+		Entry entry = this.entries.get(beanName);
+		if (entry != null) {
+			markPending(entry);
+		}
+	}
+
+	/**
+	 * Reclassify all beans on the next lookup, e.g. since the configuration
+	 * of the bean factory has changed.
+	 */
+	public synchronized void resetBeanTypes() {
+		for (Entry entry : this.entries.values()) {
+			markPending(entry);
+		}
+	}
+
+	/**
+	 * Leave the given bean unindexed until it is reset, e.g. while its
+	 * singleton instance is being created and might be exposed early.
+	 */
+	public synchronized void excludeBeanType(String beanName) {
+		Entry entry = this.entries.get(beanName);
+		if (entry != null) {
+			removeFromIndex(entry);
+			entry.version++;
+			this.pendingBeanNames.remove(beanName);
+			this.unindexedBeanNames.add(beanName);
+		}
+	}
+
+	/**
+	 * Register the addition of a singleton instance under the given name.
+	 * @param manual whether the singleton has been registered manually,
+	 * i.e. without a corresponding bean definition
+	 */
+	public synchronized void singletonAdded(String beanName, boolean manual) {
+		if (manual) {
+			this.manualSingletonNames.add(beanName);
+		}
+		Entry entry = this.entries.get(beanName);
+		if (entry != null) {
+			markPending(entry);
+		}
+	}
+
+	/**
+	 * Register the removal of the singleton instance with the given name.
+	 */
+	public synchronized void singletonRemoved(String beanName) {
+		this.manualSingletonNames.remove(beanName);
+		Entry entry = this.entries.get(beanName);
+		if (entry != null) {
+			markPending(entry);
+		}
+	}
+
+	/**
+	 * Register the removal of all singleton instances.
+	 */
+	public synchronized void singletonsRemoved() {
+		this.manualSingletonNames.clear();
+		resetBeanTypes();
+	}
+
+	/**
+	 * Return the names of all manually registered singletons,
+	 * in registration order.
+	 */
+	public synchronized String[] getManualSingletonNames() {
+		return StringUtils.toStringArray(this.manualSingletonNames);
+	}
+
+	/**
+	 * Return the names of the bean definitions that might match the given type,
+	 * in registration order. The bean definitions that are left out are known
+	 * not to match; the returned ones still need to be checked by the caller.
+	 * @param type the type to match (neither {@code null} nor a primitive type)
+	 * @return the candidate bean definition names
+	 */
+	public String[] getCandidateBeanNames(Class<?> type) {
+		classifyPendingBeans();
+		synchronized (this) {
+			Set<String> indexedBeanNames = this.beanNamesByType.get(type);
+			int count = this.unindexedBeanNames.size() + (indexedBeanNames != null ? indexedBeanNames.size() : 0);
+			if (count == 0) {
+				return EMPTY_NAMES;
+			}
+			List<Entry> candidates = new ArrayList<Entry>(count);
+			if (indexedBeanNames != null) {
+				for (String beanName : indexedBeanNames) {
+					candidates.add(this.entries.get(beanName));
+				}
+			}
+			for (String beanName : this.unindexedBeanNames) {
+				candidates.add(this.entries.get(beanName));
+			}
+			Collections.sort(candidates);
+			String[] candidateNames = new String[count];
+			for (int i = 0; i < count; i++) {
+				candidateNames[i] = candidates.get(i).beanName;
+			}
+			return candidateNames;
+		}
+	}
+
+	/**
+	 * Classify all pending beans. The bean types are determined without holding
+	 * the index lock, and only applied if the bean has not been reset meanwhile.
+	 */
+	private void classifyPendingBeans() {
+		Map<String, Integer> pending;
+		synchronized (this) {
+			long currentModificationCount = this.beanFactory.getBeanDefinitionModificationCount();
+			if (currentModificationCount != this.typeModificationCount) {
+				// Some registered bean definition has been modified in place.
+				this.typeModificationCount = currentModificationCount;
+				resetBeanTypes();
+			}
+			if (this.pendingBeanNames.isEmpty()) {
+				return;
+			}
+			pending = new HashMap<String, Integer>(this.pendingBeanNames.size());
+			for (String beanName : this.pendingBeanNames) {
+				pending.put(beanName, this.entries.get(beanName).version);
+			}
+		}
+		Map<String, Class<?>> beanTypes = new HashMap<String, Class<?>>(pending.size());
+		for (String beanName : pending.keySet()) {
+			beanTypes.put(beanName, determineIndexableType(beanName));
+		}
+		synchronized (this) {
+			for (Map.Entry<String, Integer> pendingEntry : pending.entrySet()) {
+				String beanName = pendingEntry.getKey();
+				Entry entry = this.entries.get(beanName);
+				if (entry != null && entry.version == pendingEntry.getValue() &&
+						this.pendingBeanNames.remove(beanName)) {
+					Class<?> beanType = beanTypes.get(beanName);
+					if (beanType != null) {
+						entry.indexedType = beanType;
+						for (Class<?> type : getTypeHierarchy(beanType)) {
+							Set<String> beanNames = this.beanNamesByType.get(type);
+							if (beanNames == null) {
+								beanNames = new LinkedHashSet<String>();
+								this.beanNamesByType.put(type, beanNames);
+							}
+							beanNames.add(beanName);
+						}
+						this.unindexedBeanNames.remove(beanName);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Determine the type that the given bean can safely be indexed under,
+	 * i.e. the type that {@link AbstractBeanFactory#isTypeMatch} is going
+	 * to check against.
+	 * @param beanName the name of the bean
+	 * @return the type of the bean, or {@code null} if the bean is
+	 * to remain unindexed
+	 */
+	private Class<?> determineIndexableType(String beanName) {
+		DefaultListableBeanFactory bf = this.beanFactory;
+		try {
+			if (bf.isSingletonCurrentlyInCreation(beanName)) {
+				return null;
+			}
+			Object beanInstance = bf.getSingleton(beanName, false);
+			if (beanInstance != null) {
+				Class<?> beanType = beanInstance.getClass();
+				return (beanInstance instanceof FactoryBean || beanType.isArray() ? null : beanType);
+			}
+			if (bf.containsSingleton(beanName) || !isLocallyDefined(beanName)) {
+				return null;
+			}
+			RootBeanDefinition mbd = bf.getMergedLocalBeanDefinition(beanName);
+			if (mbd.isAbstract() || mbd.getFactoryBeanName() != null || mbd.getFactoryMethodName() != null ||
+					mbd.getDecoratedDefinition() != null) {
+				return null;
+			}
+			Class<?> beanType = mbd.getTargetType();
+			if (beanType == null) {
+				if (!mbd.hasBeanClass() && mbd.isLazyInit() && !bf.isAllowEagerClassLoading()) {
+					// Leave it to the regular type check whether to load the bean class.
+					return null;
+				}
+				beanType = bf.resolveBeanClass(mbd, beanName);
+			}
+			if (beanType == null || FactoryBean.class.isAssignableFrom(beanType)) {
+				return null;
+			}
+			if (!mbd.isSynthetic() && bf.hasInstantiationAwareBeanPostProcessors()) {
+				for (BeanPostProcessor bp : bf.getBeanPostProcessors()) {
+					if (bp instanceof SmartInstantiationAwareBeanPostProcessor &&
+							((SmartInstantiationAwareBeanPostProcessor) bp).predictBeanType(beanType, beanName) != null) {
+						return null;
+					}
+				}
+			}
+			return beanType;
+		}
+		catch (RuntimeException ex) {
+			// Leave it to the regular type check to deal with the failure.
+			return null;
+		}
+	}
+
+	/**
+	 * Check whether the bean definition with the given name as well as its
+	 * parent definitions are defined in this factory and subject to tracking
+	 * of type modifications.
+	 */
+	private boolean isLocallyDefined(String beanName) {
+		String currentName = beanName;
+		for (int i = 0; i <= this.beanFactory.getBeanDefinitionCount(); i++) {
+			if (!this.beanFactory.containsBeanDefinition(currentName)) {
+				return false;
+			}
+			BeanDefinition bd = this.beanFactory.getBeanDefinition(currentName);
+			if (!(bd instanceof AbstractBeanDefinition)) {
+				return false;
+			}
+			String parentName = bd.getParentName();
+			if (parentName == null) {
+				return true;
+			}
+			String parentBeanName = this.beanFactory.transformedBeanName(parentName);
+			if (parentBeanName.equals(currentName)) {
+				// The parent definition is to be found in the parent factory.
+				return false;
+			}
+			currentName = parentBeanName;
+		}
+		// Circular parent relationship: the regular type check is going to report it.
+		return false;
+	}
+
+	/**
+	 * Return all types that instances of the given class are assignable to:
+	 * the class itself, its superclasses and all of the interfaces it implements.
+	 */
+	private Set<Class<?>> getTypeHierarchy(Class<?> clazz) {
+		Set<Class<?>> types = this.typeHierarchyCache.get(clazz);
+		if (types == null) {
+			types = new LinkedHashSet<Class<?>>();
+			addTypeHierarchy(clazz, types);
+			this.typeHierarchyCache.put(clazz, types);
+		}
+		return types;
+	}
+
+	private void addTypeHierarchy(Class<?> type, Set<Class<?>> types) {
+		if (type != null && types.add(type)) {
+			addTypeHierarchy(type.getSuperclass(), types);
+			for (Class<?> ifc : type.getInterfaces()) {
+				addTypeHierarchy(ifc, types);
+			}
+		}
+	}
+
+	private void markPending(Entry entry) {
+		removeFromIndex(entry);
+		entry.version++;
+		this.pendingBeanNames.add(entry.beanName);
+		this.unindexedBeanNames.add(entry.beanName);
+	}
+
+	private void removeFromIndex(Entry entry) {
+		if (entry.indexedType != null) {
+			for (Class<?> type : getTypeHierarchy(entry.indexedType)) {
+				Set<String> beanNames = this.beanNamesByType.get(type);
+				if (beanNames != null) {
+					beanNames.remove(entry.beanName);
+					if (beanNames.isEmpty()) {
+						this.beanNamesByType.remove(type);
+					}
+				}
+			}
+			entry.indexedType = null;
+		}
+	}
+
+
+	/**
+	 * Index entry for a bean definition.
+	 */
+	private static class Entry implements Comparable<Entry> {
+
+		private final String beanName;
+
+		private final int ordinal;
+
+		private int version;
+
+		private Class<?> indexedType;
+
+		public Entry(String beanName, int ordinal) {
+			this.beanName = beanName;
+			this.ordinal = ordinal;
+		}
+
+		public int compareTo(Entry other) {
+			return (this.ordinal < other.ordinal ? -1 : (this.ordinal > other.ordinal ? 1 : 0));
+		}
+	}
+
+}
@@ -134,6 +134,7 @@ public class ChildBeanDefinition extends AbstractBeanDefinition {
 
 	public void setParentName(String parentName) {
 		this.parentName = parentName;
+		typeModified();
 	}
 
 	public String getParentName() {
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Cache of constructor and factory method resolution state for the bean
+ * definitions of an {@link AbstractAutowireCapableBeanFactory}, shared across
+ * all bean definitions with the same bean class or factory method.
+ *
+ * <p>Keeps the candidate constructors and factory methods of a class in the
+ * order that {@link ConstructorResolver} tries them in, grouped by number of
+ * parameters, so that candidates with an unsuitable arity do not need to be
+ * looked at. Factory method candidates are pre-selected by name and by being
+ * static or not; bean definitions may narrow them down further through
+ * {@link RootBeanDefinition#isFactoryMethod}.
+ *
+ * <p>Also keeps the constructors and factory methods chosen for explicit
+ * arguments (as passed to {@code getBean(name, args)}): in that case, the
+ * outcome of a resolution only depends on the candidates and on the types
+ * of the given arguments, so it can be reused for subsequent creations of
+ * any bean with the same class, factory method and argument types.
+ *
+ * @since 3.2.18
+ * @see ConstructorResolver
+ */
+class ConstructorResolutionCache {
+
+	private final Map<CandidatesKey, Candidates<Constructor<?>>> constructorCandidates =
+			new ConcurrentHashMap<CandidatesKey, Candidates<Constructor<?>>>(64);
+
+	private final Map<CandidatesKey, Candidates<Method>> factoryMethodCandidates =
+			new ConcurrentHashMap<CandidatesKey, Candidates<Method>>(64);
+
+	private final Map<ResolutionKey, Member> explicitArgumentResolutions =
+			new ConcurrentHashMap<ResolutionKey, Member>(64);
+
+
+	/**
+	 * Return the cached candidate constructors for the given bean class, if any.
+	 */
+	public Candidates<Constructor<?>> getConstructorCandidates(Class<?> beanClass, boolean nonPublicAccessAllowed) {
+		return this.constructorCandidates.get(new CandidatesKey(beanClass, null, false, nonPublicAccessAllowed));
+	}
+
+	/**
+	 * Cache the given candidate constructors for the given bean class.
+	 * @param constructors the constructors, sorted in resolution order
+	 * @return the cached candidates
+	 */
+	public Candidates<Constructor<?>> putConstructorCandidates(
+			Class<?> beanClass, boolean nonPublicAccessAllowed, Constructor<?>[] constructors) {
+
+		int[] parameterCounts = new int[constructors.length];
+		for (int i = 0; i < constructors.length; i++) {
+			parameterCounts[i] = constructors[i].getParameterTypes().length;
+		}
+		Candidates<Constructor<?>> candidates = new Candidates<Constructor<?>>(constructors, parameterCounts);
+		this.constructorCandidates.put(new CandidatesKey(beanClass, null, false, nonPublicAccessAllowed), candidates);
+		return candidates;
+	}
+
+	/**
+	 * Return the cached candidate factory methods with the given name, if any.
+	 */
+	public Candidates<Method> getFactoryMethodCandidates(
+			Class<?> factoryClass, String factoryMethodName, boolean isStatic, boolean nonPublicAccessAllowed) {
+
+		return this.factoryMethodCandidates.get(
+				new CandidatesKey(factoryClass, factoryMethodName, isStatic, nonPublicAccessAllowed));
+	}
+
+	/**
+	 * Cache the given candidate factory methods with the given name.
+	 * @param methods the factory methods, sorted in resolution order
+	 * @return the cached candidates
+	 */
+	public Candidates<Method> putFactoryMethodCandidates(Class<?> factoryClass, String factoryMethodName,
+			boolean isStatic, boolean nonPublicAccessAllowed, Method[] methods) {
+
+		int[] parameterCounts = new int[methods.length];
+		for (int i = 0; i < methods.length; i++) {
+			parameterCounts[i] = methods[i].getParameterTypes().length;
+		}
+		Candidates<Method> candidates = new Candidates<Method>(methods, parameterCounts);
+		this.factoryMethodCandidates.put(
+				new CandidatesKey(factoryClass, factoryMethodName, isStatic, nonPublicAccessAllowed), candidates);
+		return candidates;
+	}
+
+	/**
+	 * Return the constructor or factory method previously chosen for the given
+	 * resolution key, if any.
+	 * @see #createResolutionKey
+	 */
+	public Member getResolution(Object resolutionKey) {
+		return this.explicitArgumentResolutions.get(resolutionKey);
+	}
+
+	/**
+	 * Remember the constructor or factory method chosen for the given resolution key.
+	 * @see #createResolutionKey
+	 */
+	public void putResolution(Object resolutionKey, Member constructorOrFactoryMethod) {
+		this.explicitArgumentResolutions.put((ResolutionKey) resolutionKey, constructorOrFactoryMethod);
+	}
+
+	/**
+	 * Create a key for the resolution of a constructor (if no factory method name
+	 * is given) or factory method for the given explicit arguments.
+	 * @param mbd the merged bean definition to resolve for
+	 * @param factoryClass the bean class or factory class
+	 * @param factoryMethodName the name of the factory method, or {@code null}
+	 * @param isStatic whether the factory method is static
+	 * @param explicitArgs the explicit arguments
+	 * @return the resolution key
+	 */
+	public Object createResolutionKey(RootBeanDefinition mbd, Class<?> factoryClass,
+			String factoryMethodName, boolean isStatic, Object[] explicitArgs) {
+
+		Class<?>[] argumentTypes = new Class<?>[explicitArgs.length];
+		for (int i = 0; i < explicitArgs.length; i++) {
+			argumentTypes[i] = (explicitArgs[i] != null ? explicitArgs[i].getClass() : null);
+		}
+		return new ResolutionKey(new CandidatesKey(factoryClass, factoryMethodName, isStatic,
+				mbd.isNonPublicAccessAllowed()), mbd.getClass(), mbd.isLenientConstructorResolution(), argumentTypes);
+	}
+
+
+	/**
+	 * Candidate constructors or factory methods of a class,
+	 * in resolution order.
+	 */
+	static class Candidates<T extends Member> {
+
+		private final T[] members;
+
+		private final Map<Integer, List<T>> membersByParameterCount = new HashMap<Integer, List<T>>(8);
+
+		private Candidates(T[] members, int[] parameterCounts) {
+			this.members = members;
+			for (int i = 0; i < members.length; i++) {
+				List<T> membersWithParameterCount = this.membersByParameterCount.get(parameterCounts[i]);
+				if (membersWithParameterCount == null) {
+					membersWithParameterCount = new ArrayList<T>(2);
+					this.membersByParameterCount.put(parameterCounts[i], membersWithParameterCount);
+				}
+				membersWithParameterCount.add(members[i]);
+			}
+		}
+
+		/**
+		 * Return all candidates, in resolution order.
+		 * The returned array must not be modified.
+		 */
+		public T[] getAll() {
+			return this.members;
+		}
+
+		/**
+		 * Return the candidates with the given number of parameters, in resolution order.
+		 */
+		public List<T> getWithParameterCount(int parameterCount) {
+			List<T> result = this.membersByParameterCount.get(parameterCount);
+			return (result != null ? result : new ArrayList<T>(0));
+		}
+	}
+
+
+	private static class CandidatesKey {
+
+		private final Class<?> factoryClass;
+
+		private final String factoryMethodName;
+
+		private final boolean isStatic;
+
+		private final boolean nonPublicAccessAllowed;
+
+		public CandidatesKey(Class<?> factoryClass, String factoryMethodName,
+				boolean isStatic, boolean nonPublicAccessAllowed) {
+
+			this.factoryClass = factoryClass;
+			this.factoryMethodName = factoryMethodName;
+			this.isStatic = isStatic;
+			this.nonPublicAccessAllowed = nonPublicAccessAllowed;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof CandidatesKey)) {
+				return false;
+			}
+			CandidatesKey otherKey = (CandidatesKey) other;
+			return (this.factoryClass.equals(otherKey.factoryClass) &&
+					ObjectUtils.nullSafeEquals(this.factoryMethodName, otherKey.factoryMethodName) &&
+					this.isStatic == otherKey.isStatic &&
+					this.nonPublicAccessAllowed == otherKey.nonPublicAccessAllowed);
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.factoryClass.hashCode() * 29 + ObjectUtils.nullSafeHashCode(this.factoryMethodName)) * 4 +
+					(this.isStatic ? 2 : 0) + (this.nonPublicAccessAllowed ? 1 : 0);
+		}
+	}
+
+
+	private static class ResolutionKey {
+
+		private final CandidatesKey candidatesKey;
+
+		private final Class<?> beanDefinitionClass;
+
+		private final boolean lenientConstructorResolution;
+
+		private final Class<?>[] argumentTypes;
+
+		public ResolutionKey(CandidatesKey candidatesKey, Class<?> beanDefinitionClass,
+				boolean lenientConstructorResolution, Class<?>[] argumentTypes) {
+
+			this.candidatesKey = candidatesKey;
+			this.beanDefinitionClass = beanDefinitionClass;
+			this.lenientConstructorResolution = lenientConstructorResolution;
+			this.argumentTypes = argumentTypes;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof ResolutionKey)) {
+				return false;
+			}
+			ResolutionKey otherKey = (ResolutionKey) other;
+			return (this.candidatesKey.equals(otherKey.candidatesKey) &&
+					this.beanDefinitionClass.equals(otherKey.beanDefinitionClass) &&
+					this.lenientConstructorResolution == otherKey.lenientConstructorResolution &&
+					Arrays.equals(this.argumentTypes, otherKey.argumentTypes));
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.candidatesKey.hashCode() * 29 + this.beanDefinitionClass.hashCode()) * 29 +
+					Arrays.hashCode(this.argumentTypes) + (this.lenientConstructorResolution ? 1 : 0);
+		}
+	}
+
+}
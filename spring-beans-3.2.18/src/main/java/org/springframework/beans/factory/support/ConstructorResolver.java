@@ -25,6 +25,7 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
@@ -129,6 +130,14 @@ class ConstructorResolver {
 			}
 		}
 
+		// Check for a constructor chosen for explicit arguments of the same types before.
+		ConstructorResolutionCache resolutionCache = this.beanFactory.getConstructorResolutionCache();
+		Object resolutionKey = null;
+		if (explicitArgs != null && chosenCtors == null) {
+			resolutionKey = resolutionCache.createResolutionKey(mbd, mbd.getBeanClass(), null, false, explicitArgs);
+			constructorToUse = (Constructor<?>) resolutionCache.getResolution(resolutionKey);
+		}
+
 		if (constructorToUse == null) {
 			// Need to resolve the constructor.
 			boolean autowiring = (chosenCtors != null ||
@@ -148,18 +157,20 @@ class ConstructorResolver {
 			// Take specified constructors, if any.
 			Constructor<?>[] candidates = chosenCtors;
 			if (candidates == null) {
-				Class<?> beanClass = mbd.getBeanClass();
-				try {
-					candidates = (mbd.isNonPublicAccessAllowed() ?
-							beanClass.getDeclaredConstructors() : beanClass.getConstructors());
+				ConstructorResolutionCache.Candidates<Constructor<?>> cachedCandidates =
+						getCandidateConstructors(beanName, mbd, resolutionCache);
+				// Explicit arguments given -> only consider constructors with the same number of arguments.
+				if (explicitArgs != null) {
+					List<Constructor<?>> matchingCandidates = cachedCandidates.getWithParameterCount(explicitArgs.length);
+					candidates = matchingCandidates.toArray(new Constructor<?>[matchingCandidates.size()]);
 				}
-				catch (Throwable ex) {
-					throw new BeanCreationException(mbd.getResourceDescription(), beanName,
-							"Resolution of declared constructors on bean Class [" + beanClass.getName() +
-							"] from ClassLoader [" + beanClass.getClassLoader() + "] failed", ex);
+				else {
+					candidates = cachedCandidates.getAll();
 				}
 			}
-			AutowireUtils.sortConstructors(candidates);
+			else {
+				AutowireUtils.sortConstructors(candidates);
+			}
 			int minTypeDiffWeight = Integer.MAX_VALUE;
 			Set<Constructor<?>> ambiguousConstructors = null;
 			List<Exception> causes = null;
@@ -258,6 +269,9 @@ class ConstructorResolver {
 			if (explicitArgs == null) {
 				argsHolderToUse.storeCache(mbd, constructorToUse);
 			}
+			else if (resolutionKey != null) {
+				resolutionCache.putResolution(resolutionKey, constructorToUse);
+			}
 		}
 
 		try {
@@ -304,10 +318,10 @@ class ConstructorResolver {
 		}
 		factoryClass = ClassUtils.getUserClass(factoryClass);
 
-		Method[] candidates = getCandidateMethods(factoryClass, mbd);
+		Method[] candidates = getCandidateFactoryMethods(factoryClass, isStatic, mbd).getAll();
 		Method uniqueCandidate = null;
 		for (Method candidate : candidates) {
-			if (Modifier.isStatic(candidate.getModifiers()) == isStatic && mbd.isFactoryMethod(candidate)) {
+			if (mbd.isFactoryMethod(candidate)) {
 				if (uniqueCandidate == null) {
 					uniqueCandidate = candidate;
 				}
@@ -322,6 +336,63 @@ class ConstructorResolver {
 		}
 	}
 
+	/**
+	 * Retrieve the candidate constructors for the given bean definition's class,
+	 * sorted in resolution order, from the factory's resolution cache.
+	 */
+	private ConstructorResolutionCache.Candidates<Constructor<?>> getCandidateConstructors(
+			String beanName, RootBeanDefinition mbd, ConstructorResolutionCache resolutionCache) {
+
+		Class<?> beanClass = mbd.getBeanClass();
+		boolean nonPublicAccessAllowed = mbd.isNonPublicAccessAllowed();
+		ConstructorResolutionCache.Candidates<Constructor<?>> candidates =
+				resolutionCache.getConstructorCandidates(beanClass, nonPublicAccessAllowed);
+		if (candidates == null) {
+			Constructor<?>[] constructors;
+			try {
+				constructors = (nonPublicAccessAllowed ?
+						beanClass.getDeclaredConstructors() : beanClass.getConstructors());
+			}
+			catch (Throwable ex) {
+				throw new BeanCreationException(mbd.getResourceDescription(), beanName,
+						"Resolution of declared constructors on bean Class [" + beanClass.getName() +
+						"] from ClassLoader [" + beanClass.getClassLoader() + "] failed", ex);
+			}
+			AutowireUtils.sortConstructors(constructors);
+			candidates = resolutionCache.putConstructorCandidates(beanClass, nonPublicAccessAllowed, constructors);
+		}
+		return candidates;
+	}
+
+	/**
+	 * Retrieve the candidate factory methods for the given bean definition from
+	 * the factory's resolution cache: the static or non-static methods of the
+	 * given class with the factory method name, sorted in resolution order.
+	 */
+	private ConstructorResolutionCache.Candidates<Method> getCandidateFactoryMethods(
+			Class<?> factoryClass, boolean isStatic, RootBeanDefinition mbd) {
+
+		ConstructorResolutionCache resolutionCache = this.beanFactory.getConstructorResolutionCache();
+		String factoryMethodName = mbd.getFactoryMethodName();
+		boolean nonPublicAccessAllowed = mbd.isNonPublicAccessAllowed();
+		ConstructorResolutionCache.Candidates<Method> candidates = resolutionCache.getFactoryMethodCandidates(
+				factoryClass, factoryMethodName, isStatic, nonPublicAccessAllowed);
+		if (candidates == null) {
+			List<Method> candidateList = new ArrayList<Method>();
+			for (Method candidate : getCandidateMethods(factoryClass, mbd)) {
+				if (Modifier.isStatic(candidate.getModifiers()) == isStatic &&
+						candidate.getName().equals(factoryMethodName)) {
+					candidateList.add(candidate);
+				}
+			}
+			Method[] methods = candidateList.toArray(new Method[candidateList.size()]);
+			AutowireUtils.sortFactoryMethods(methods);
+			candidates = resolutionCache.putFactoryMethodCandidates(
+					factoryClass, factoryMethodName, isStatic, nonPublicAccessAllowed, methods);
+		}
+		return candidates;
+	}
+
 	/**
 	 * Retrieve all candidate methods for the given class, considering
 	 * the {@link RootBeanDefinition#isNonPublicAccessAllowed()} flag.
@@ -417,20 +488,31 @@ class ConstructorResolver {
 			}
 		}
 
+		// Check for a factory method chosen for explicit arguments of the same types before.
+		factoryClass = ClassUtils.getUserClass(factoryClass);
+		ConstructorResolutionCache resolutionCache = this.beanFactory.getConstructorResolutionCache();
+		Object resolutionKey = null;
+		if (explicitArgs != null) {
+			resolutionKey = resolutionCache.createResolutionKey(
+					mbd, factoryClass, mbd.getFactoryMethodName(), isStatic, explicitArgs);
+			factoryMethodToUse = (Method) resolutionCache.getResolution(resolutionKey);
+		}
+
 		if (factoryMethodToUse == null || argsToUse == null) {
 			// Need to determine the factory method...
 			// Try all methods with this name to see if they match the given arguments.
-			factoryClass = ClassUtils.getUserClass(factoryClass);
-
-			Method[] rawCandidates = getCandidateMethods(factoryClass, mbd);
-			List<Method> candidateSet = new ArrayList<Method>();
+			ConstructorResolutionCache.Candidates<Method> cachedCandidates =
+					getCandidateFactoryMethods(factoryClass, isStatic, mbd);
+			// Explicit arguments given -> only consider methods with the same number of arguments.
+			Collection<Method> rawCandidates = (explicitArgs != null ?
+					cachedCandidates.getWithParameterCount(explicitArgs.length) : Arrays.asList(cachedCandidates.getAll()));
+			List<Method> candidateSet = new ArrayList<Method>(rawCandidates.size());
 			for (Method candidate : rawCandidates) {
-				if (Modifier.isStatic(candidate.getModifiers()) == isStatic && mbd.isFactoryMethod(candidate)) {
+				if (mbd.isFactoryMethod(candidate)) {
 					candidateSet.add(candidate);
 				}
 			}
 			Method[] candidates = candidateSet.toArray(new Method[candidateSet.size()]);
-			AutowireUtils.sortFactoryMethods(candidates);
 
 			ConstructorArgumentValues resolvedValues = null;
 			boolean autowiring = (mbd.getResolvedAutowireMode() == RootBeanDefinition.AUTOWIRE_CONSTRUCTOR);
@@ -572,6 +654,9 @@ class ConstructorResolver {
 			if (explicitArgs == null && argsHolderToUse != null) {
 				argsHolderToUse.storeCache(mbd, factoryMethodToUse);
 			}
+			else if (resolutionKey != null) {
+				resolutionCache.putResolution(resolutionKey, factoryMethodToUse);
+			}
 		}
 
 		try {
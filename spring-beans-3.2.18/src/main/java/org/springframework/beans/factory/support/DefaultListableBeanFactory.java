@@ -31,10 +31,12 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.inject.Provider;
 
 import org.springframework.beans.BeansException;
@@ -54,6 +56,7 @@ import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.SmartFactoryBean;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.config.DependencyDescriptor;
@@ -126,6 +129,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Whether to allow eager class loading even for lazy-init beans */
 	private boolean allowEagerClassLoading = true;
 
+	/** Number of threads to pre-instantiate singletons with */
+	private int preInstantiationParallelism = 1;
+
 	/** Resolver to use for checking if a bean definition is an autowire candidate */
 	private AutowireCandidateResolver autowireCandidateResolver = new SimpleAutowireCandidateResolver();
 
@@ -144,6 +150,21 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** List of bean definition names, in registration order */
 	private final List<String> beanDefinitionNames = new ArrayList<String>(64);
 
+	/** Index of bean definition names by type, narrowing down by-type lookups */
+	private final BeanTypeIndex beanTypeIndex = new BeanTypeIndex(this);
+
+	/** Map from parent bean name to the names of its child bean definitions */
+	private final Map<String, Set<String>> childBeanNamesByParentName = new HashMap<String, Set<String>>(16);
+
+	/** Names of bean definitions whose parent name changes cannot be tracked */
+	private final Set<String> untrackedChildBeanNames = new LinkedHashSet<String>(4);
+
+	/** Number of in-place modifications to the type-determining settings of registered bean definitions */
+	private final AtomicLong beanDefinitionModificationCount = new AtomicLong();
+
+	/** Bean definition modification count that the child bean name index reflects */
+	private long childBeanNameIndexModificationCount = 0;
+
 	/** Whether bean definition metadata may be cached for all beans */
 	private boolean configurationFrozen = false;
 
@@ -206,6 +227,37 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		this.allowEagerClassLoading = allowEagerClassLoading;
 	}
 
+	/**
+	 * Return whether the factory is allowed to eagerly load bean classes
+	 * even for bean definitions that are marked as "lazy-init".
+	 */
+	public boolean isAllowEagerClassLoading() {
+		return this.allowEagerClassLoading;
+	}
+
+	/**
+	 * Set the number of threads to use for pre-instantiating non-lazy singletons
+	 * in {@link #preInstantiateSingletons()}.
+	 * <p>Default is 1, instantiating all singletons sequentially on the calling
+	 * thread, in registration order. A higher value instantiates independent
+	 * singletons concurrently, following the dependencies declared in their bean
+	 * definitions; FactoryBeans and circular references are still processed
+	 * sequentially afterwards. Only to be turned on for bean classes that do
+	 * not rely on a particular creation order beyond their declared dependencies.
+	 * @see ParallelSingletonInstantiator
+	 */
+	public void setPreInstantiationParallelism(int preInstantiationParallelism) {
+		Assert.isTrue(preInstantiationParallelism > 0, "Pre-instantiation parallelism must be at least 1");
+		this.preInstantiationParallelism = preInstantiationParallelism;
+	}
+
+	/**
+	 * Return the number of threads to use for pre-instantiating singletons.
+	 */
+	public int getPreInstantiationParallelism() {
+		return this.preInstantiationParallelism;
+	}
+
 	/**
 	 * Set a custom autowire candidate resolver for this BeanFactory to use
 	 * when deciding whether a bean definition should be considered as a
@@ -245,9 +297,11 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			DefaultListableBeanFactory otherListableFactory = (DefaultListableBeanFactory) otherFactory;
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
+			this.preInstantiationParallelism = otherListableFactory.preInstantiationParallelism;
 			this.autowireCandidateResolver = otherListableFactory.autowireCandidateResolver;
 			this.resolvableDependencies.putAll(otherListableFactory.resolvableDependencies);
 		}
+		this.beanTypeIndex.resetBeanTypes();
 	}
 
 
@@ -342,8 +396,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	private String[] doGetBeanNamesForType(Class<?> type, boolean includeNonSingletons, boolean allowEagerInit) {
 		List<String> result = new ArrayList<String>();
 
-		// Check all bean definitions.
-		String[] beanDefinitionNames = getBeanDefinitionNames();
+		// Check all bean definitions that might match, as far as indexed by type.
+		String[] beanDefinitionNames = (type != null && !type.isPrimitive() && getTempClassLoader() == null ?
+				this.beanTypeIndex.getCandidateBeanNames(type) : getBeanDefinitionNames());
 		for (String beanName : beanDefinitionNames) {
 			// Only consider bean as eligible if the bean name
 			// is not defined as alias for some other bean.
@@ -392,7 +447,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		}
 
 		// Check singletons too, to catch manually registered singletons.
-		String[] singletonNames = getSingletonNames();
+		String[] singletonNames = this.beanTypeIndex.getManualSingletonNames();
 		for (String beanName : singletonNames) {
 			// Only check if manually registered.
 			if (!containsBeanDefinition(beanName)) {
@@ -613,31 +668,51 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		}
 
 		// Trigger initialization of all non-lazy singleton beans...
+		if (this.preInstantiationParallelism > 1) {
+			List<String> singletonNames = new ArrayList<String>(beanNames.size());
+			for (String beanName : beanNames) {
+				RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+				if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+					singletonNames.add(beanName);
+				}
+			}
+			beanNames = new ParallelSingletonInstantiator(this, this.preInstantiationParallelism)
+					.preInstantiateSingletons(singletonNames);
+		}
 		for (String beanName : beanNames) {
 			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
 			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				if (isFactoryBean(beanName)) {
-					final FactoryBean<?> factory = (FactoryBean<?>) getBean(FACTORY_BEAN_PREFIX + beanName);
-					boolean isEagerInit;
-					if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-						isEagerInit = AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
-							public Boolean run() {
-								return ((SmartFactoryBean<?>) factory).isEagerInit();
-							}
-						}, getAccessControlContext());
-					}
-					else {
-						isEagerInit = (factory instanceof SmartFactoryBean &&
-								((SmartFactoryBean<?>) factory).isEagerInit());
-					}
-					if (isEagerInit) {
-						getBean(beanName);
+				preInstantiateSingleton(beanName);
+			}
+		}
+	}
+
+	/**
+	 * Pre-instantiate the given non-lazy singleton, including the object
+	 * exposed by a FactoryBean if the latter asks for eager initialization.
+	 * @param beanName the name of the singleton
+	 */
+	private void preInstantiateSingleton(String beanName) {
+		if (isFactoryBean(beanName)) {
+			final FactoryBean<?> factory = (FactoryBean<?>) getBean(FACTORY_BEAN_PREFIX + beanName);
+			boolean isEagerInit;
+			if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+				isEagerInit = AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+					public Boolean run() {
+						return ((SmartFactoryBean<?>) factory).isEagerInit();
 					}
-				}
-				else {
-					getBean(beanName);
-				}
+				}, getAccessControlContext());
+			}
+			else {
+				isEagerInit = (factory instanceof SmartFactoryBean &&
+						((SmartFactoryBean<?>) factory).isEagerInit());
 			}
+			if (isEagerInit) {
+				getBean(beanName);
+			}
+		}
+		else {
+			getBean(beanName);
 		}
 	}
 
@@ -649,6 +724,67 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	public void registerBeanDefinition(String beanName, BeanDefinition beanDefinition)
 			throws BeanDefinitionStoreException {
 
+		validateBeanDefinition(beanName, beanDefinition);
+
+		BeanDefinition oldBeanDefinition;
+
+		synchronized (this.beanDefinitionMap) {
+			oldBeanDefinition = doRegisterBeanDefinition(beanName, beanDefinition);
+		}
+
+		if (oldBeanDefinition != null || containsSingleton(beanName)) {
+			resetBeanDefinition(beanName);
+		}
+	}
+
+	/**
+	 * Register the given bean definitions with this registry in one batch.
+	 * <p>Equivalent to calling {@link #registerBeanDefinition} for each entry
+	 * in iteration order, but validates all definitions upfront and registers
+	 * them under a single lock. If any definition is invalid or may not override
+	 * an existing definition, none of the given definitions gets registered.
+	 * @param beanDefinitions the bean definitions to register, keyed by bean name
+	 * (typically a LinkedHashMap, for a deterministic registration order)
+	 * @throws BeanDefinitionStoreException if a BeanDefinition is invalid
+	 * or if there is already a BeanDefinition for a specified bean name
+	 * (and we are not allowed to override it)
+	 * @since 3.2.18
+	 * @see BeanDefinitionReaderUtils#registerBeanDefinitions
+	 */
+	public void registerBeanDefinitions(Map<String, ? extends BeanDefinition> beanDefinitions)
+			throws BeanDefinitionStoreException {
+
+		Assert.notNull(beanDefinitions, "BeanDefinition Map must not be null");
+		for (Map.Entry<String, ? extends BeanDefinition> entry : beanDefinitions.entrySet()) {
+			validateBeanDefinition(entry.getKey(), entry.getValue());
+		}
+
+		Set<String> beanNamesToReset = new LinkedHashSet<String>();
+
+		synchronized (this.beanDefinitionMap) {
+			if (!this.allowBeanDefinitionOverriding) {
+				for (Map.Entry<String, ? extends BeanDefinition> entry : beanDefinitions.entrySet()) {
+					checkBeanDefinitionOverriding(entry.getKey(), entry.getValue(),
+							this.beanDefinitionMap.get(entry.getKey()));
+				}
+			}
+			for (Map.Entry<String, ? extends BeanDefinition> entry : beanDefinitions.entrySet()) {
+				String beanName = entry.getKey();
+				if (doRegisterBeanDefinition(beanName, entry.getValue()) != null || containsSingleton(beanName)) {
+					beanNamesToReset.add(beanName);
+				}
+			}
+		}
+
+		resetBeanDefinitions(beanNamesToReset);
+	}
+
+	/**
+	 * Check the given bean definition before its registration.
+	 */
+	private void validateBeanDefinition(String beanName, BeanDefinition beanDefinition)
+			throws BeanDefinitionStoreException {
+
 		Assert.hasText(beanName, "Bean name must not be empty");
 		Assert.notNull(beanDefinition, "BeanDefinition must not be null");
 
@@ -661,34 +797,52 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 						"Validation of bean definition failed", ex);
 			}
 		}
+	}
 
-		BeanDefinition oldBeanDefinition;
+	/**
+	 * Check whether the given bean definition may replace the existing one, if any.
+	 */
+	private void checkBeanDefinitionOverriding(String beanName, BeanDefinition beanDefinition,
+			BeanDefinition oldBeanDefinition) throws BeanDefinitionStoreException {
 
-		synchronized (this.beanDefinitionMap) {
-			oldBeanDefinition = this.beanDefinitionMap.get(beanName);
-			if (oldBeanDefinition != null) {
-				if (!this.allowBeanDefinitionOverriding) {
-					throw new BeanDefinitionStoreException(beanDefinition.getResourceDescription(), beanName,
-							"Cannot register bean definition [" + beanDefinition + "] for bean '" + beanName +
-							"': There is already [" + oldBeanDefinition + "] bound.");
-				}
-				else {
-					if (this.logger.isInfoEnabled()) {
-						this.logger.info("Overriding bean definition for bean '" + beanName +
-								"': replacing [" + oldBeanDefinition + "] with [" + beanDefinition + "]");
-					}
-				}
+		if (oldBeanDefinition != null) {
+			if (!this.allowBeanDefinitionOverriding) {
+				throw new BeanDefinitionStoreException(beanDefinition.getResourceDescription(), beanName,
+						"Cannot register bean definition [" + beanDefinition + "] for bean '" + beanName +
+						"': There is already [" + oldBeanDefinition + "] bound.");
 			}
 			else {
-				this.beanDefinitionNames.add(beanName);
-				this.frozenBeanDefinitionNames = null;
+				if (this.logger.isInfoEnabled()) {
+					this.logger.info("Overriding bean definition for bean '" + beanName +
+							"': replacing [" + oldBeanDefinition + "] with [" + beanDefinition + "]");
+				}
 			}
-			this.beanDefinitionMap.put(beanName, beanDefinition);
 		}
+	}
 
-		if (oldBeanDefinition != null || containsSingleton(beanName)) {
-			resetBeanDefinition(beanName);
+	/**
+	 * Put the given bean definition into the registry and update the indexes
+	 * derived from it. To be called while holding the bean definition map lock.
+	 * @return the bean definition that has been replaced, or {@code null} if none
+	 */
+	private BeanDefinition doRegisterBeanDefinition(String beanName, BeanDefinition beanDefinition)
+			throws BeanDefinitionStoreException {
+
+		BeanDefinition oldBeanDefinition = this.beanDefinitionMap.get(beanName);
+		checkBeanDefinitionOverriding(beanName, beanDefinition, oldBeanDefinition);
+		if (oldBeanDefinition == null) {
+			this.beanDefinitionNames.add(beanName);
+			this.frozenBeanDefinitionNames = null;
+		}
+		this.beanDefinitionMap.put(beanName, beanDefinition);
+		trackTypeModifications(beanDefinition);
+		this.beanTypeIndex.registerBeanDefinition(beanName);
+		if (oldBeanDefinition != null) {
+			untrackTypeModifications(oldBeanDefinition);
+			removeFromChildBeanNameIndex(beanName, oldBeanDefinition);
 		}
+		addToChildBeanNameIndex(beanName, beanDefinition);
+		return oldBeanDefinition;
 	}
 
 	public void removeBeanDefinition(String beanName) throws NoSuchBeanDefinitionException {
@@ -704,6 +858,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			}
 			this.beanDefinitionNames.remove(beanName);
 			this.frozenBeanDefinitionNames = null;
+			this.beanTypeIndex.removeBeanDefinition(beanName);
+			untrackTypeModifications(bd);
+			removeFromChildBeanNameIndex(beanName, bd);
 		}
 
 		resetBeanDefinition(beanName);
@@ -717,6 +874,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	protected void resetBeanDefinition(String beanName) {
 		// Remove the merged bean definition for the given bean, if already created.
 		clearMergedBeanDefinition(beanName);
+		this.beanTypeIndex.resetBeanType(beanName);
 
 		// Remove corresponding bean from singleton cache, if any. Shouldn't usually
 		// be necessary, rather just meant for overriding a context's default beans
@@ -724,11 +882,116 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		destroySingleton(beanName);
 
 		// Reset all bean definitions that have the given bean as parent (recursively).
-		for (String bdName : this.beanDefinitionNames) {
-			if (!beanName.equals(bdName)) {
-				BeanDefinition bd = this.beanDefinitionMap.get(bdName);
-				if (beanName.equals(bd.getParentName())) {
-					resetBeanDefinition(bdName);
+		for (String childName : getChildBeanNames(beanName)) {
+			resetBeanDefinition(childName);
+		}
+	}
+
+	/**
+	 * Reset all bean definition caches for the given beans,
+	 * including the caches of beans that are derived from them.
+	 * @param beanNames the names of the beans to reset
+	 * @see #resetBeanDefinition
+	 */
+	private void resetBeanDefinitions(Set<String> beanNames) {
+		for (String beanName : beanNames) {
+			resetBeanDefinition(beanName);
+		}
+	}
+
+	/**
+	 * Return the names of the bean definitions that have the given bean as parent,
+	 * as indexed on registration. The index is rebuilt if parent names of registered
+	 * bean definitions may have been changed in place in the meantime.
+	 * @param parentName the name of the parent bean
+	 * @return the names of the child bean definitions (never {@code null})
+	 */
+	private List<String> getChildBeanNames(String parentName) {
+		synchronized (this.beanDefinitionMap) {
+			long modificationCount = getBeanDefinitionModificationCount();
+			if (modificationCount != this.childBeanNameIndexModificationCount) {
+				this.childBeanNamesByParentName.clear();
+				this.untrackedChildBeanNames.clear();
+				for (String beanName : this.beanDefinitionNames) {
+					addToChildBeanNameIndex(beanName, this.beanDefinitionMap.get(beanName));
+				}
+				this.childBeanNameIndexModificationCount = modificationCount;
+			}
+			Set<String> childBeanNames = this.childBeanNamesByParentName.get(parentName);
+			List<String> result = (childBeanNames != null ?
+					new ArrayList<String>(childBeanNames) : new ArrayList<String>(0));
+			for (String beanName : this.untrackedChildBeanNames) {
+				if (!beanName.equals(parentName) &&
+						parentName.equals(this.beanDefinitionMap.get(beanName).getParentName())) {
+					result.add(beanName);
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Count in-place modifications to the type-determining settings
+	 * of the given bean definition, now registered with this factory.
+	 */
+	private void trackTypeModifications(BeanDefinition beanDefinition) {
+		if (beanDefinition instanceof AbstractBeanDefinition) {
+			((AbstractBeanDefinition) beanDefinition).trackTypeModifications(this.beanDefinitionModificationCount);
+		}
+	}
+
+	/**
+	 * Stop counting modifications of the given bean definition,
+	 * no longer registered with this factory.
+	 */
+	private void untrackTypeModifications(BeanDefinition beanDefinition) {
+		if (beanDefinition instanceof AbstractBeanDefinition) {
+			((AbstractBeanDefinition) beanDefinition).untrackTypeModifications(this.beanDefinitionModificationCount);
+		}
+	}
+
+	/**
+	 * Return the number of in-place modifications to the type-determining
+	 * settings of the bean definitions registered with this factory so far,
+	 * allowing indexes to detect changes made e.g. by BeanFactoryPostProcessors.
+	 */
+	long getBeanDefinitionModificationCount() {
+		return this.beanDefinitionModificationCount.get();
+	}
+
+	/**
+	 * Add the given bean definition to the child bean name index.
+	 * Needs to be called with the bean definition map lock held.
+	 */
+	private void addToChildBeanNameIndex(String beanName, BeanDefinition beanDefinition) {
+		if (!(beanDefinition instanceof AbstractBeanDefinition)) {
+			this.untrackedChildBeanNames.add(beanName);
+			return;
+		}
+		String parentName = beanDefinition.getParentName();
+		if (parentName != null && !parentName.equals(beanName)) {
+			Set<String> childBeanNames = this.childBeanNamesByParentName.get(parentName);
+			if (childBeanNames == null) {
+				childBeanNames = new LinkedHashSet<String>(4);
+				this.childBeanNamesByParentName.put(parentName, childBeanNames);
+			}
+			childBeanNames.add(beanName);
+		}
+	}
+
+	/**
+	 * Remove the given bean definition from the child bean name index.
+	 * Needs to be called with the bean definition map lock held.
+	 */
+	private void removeFromChildBeanNameIndex(String beanName, BeanDefinition beanDefinition) {
+		this.untrackedChildBeanNames.remove(beanName);
+		String parentName = beanDefinition.getParentName();
+		if (parentName != null) {
+			Set<String> childBeanNames = this.childBeanNamesByParentName.get(parentName);
+			if (childBeanNames != null) {
+				childBeanNames.remove(beanName);
+				if (childBeanNames.isEmpty()) {
+					this.childBeanNamesByParentName.remove(parentName);
 				}
 			}
 		}
@@ -754,6 +1017,46 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		clearByTypeCache();
 	}
 
+	@Override
+	public void destroySingletons() {
+		super.destroySingletons();
+		this.beanTypeIndex.singletonsRemoved();
+	}
+
+	@Override
+	protected void addSingleton(String beanName, Object singletonObject) {
+		super.addSingleton(beanName, singletonObject);
+		this.beanTypeIndex.singletonAdded(beanName, !containsBeanDefinition(beanName));
+	}
+
+	@Override
+	protected void removeSingleton(String beanName) {
+		super.removeSingleton(beanName);
+		this.beanTypeIndex.singletonRemoved(beanName);
+	}
+
+	/**
+	 * Keeps a singleton out of the by-type index while it is in creation,
+	 * since an early reference to it may differ from its predicted type.
+	 */
+	@Override
+	protected void beforeSingletonCreation(String beanName) {
+		super.beforeSingletonCreation(beanName);
+		this.beanTypeIndex.excludeBeanType(beanName);
+	}
+
+	@Override
+	public void addBeanPostProcessor(BeanPostProcessor beanPostProcessor) {
+		super.addBeanPostProcessor(beanPostProcessor);
+		this.beanTypeIndex.resetBeanTypes();
+	}
+
+	@Override
+	public void setBeanClassLoader(ClassLoader beanClassLoader) {
+		super.setBeanClassLoader(beanClassLoader);
+		this.beanTypeIndex.resetBeanTypes();
+	}
+
 	/**
 	 * Remove any assumptions about by-type mappings.
 	 */
@@ -16,13 +16,17 @@
 
 package org.springframework.beans.factory.support;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -33,6 +37,7 @@ import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.SimpleAliasRegistry;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
@@ -61,6 +66,15 @@ import org.springframework.util.StringUtils;
  * (which inherit from it). Can alternatively also be used as a nested
  * helper to delegate to.
  *
+ * <p>Singleton creation is guarded by a lock per bean name rather than by
+ * one registry-wide monitor, so unrelated singletons may be created and
+ * looked up concurrently. Lookups of fully initialized singletons as well as
+ * of already exposed early references do not lock at all. A thread asking
+ * for a singleton that another thread is currently creating waits for that
+ * creation to finish; if two creating threads end up waiting for each other
+ * (a circular reference spread across threads), the cycle is resolved through
+ * the early singleton reference, just like within a single thread.
+ *
  * @author Juergen Hoeller
  * @since 2.0
  * @see #registerSingleton
@@ -84,25 +98,35 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	private final Map<String, Object> singletonObjects = new ConcurrentHashMap<String, Object>(64);
 
 	/** Cache of singleton factories: bean name --> ObjectFactory */
-	private final Map<String, ObjectFactory<?>> singletonFactories = new HashMap<String, ObjectFactory<?>>(16);
+	private final Map<String, ObjectFactory<?>> singletonFactories = new ConcurrentHashMap<String, ObjectFactory<?>>(16);
 
 	/** Cache of early singleton objects: bean name --> bean instance */
-	private final Map<String, Object> earlySingletonObjects = new HashMap<String, Object>(16);
+	private final Map<String, Object> earlySingletonObjects = new ConcurrentHashMap<String, Object>(16);
 
 	/** Set of registered singletons, containing the bean names in registration order */
 	private final Set<String> registeredSingletons = new LinkedHashSet<String>(64);
 
+	/** Creation locks for singleton beans currently being created: bean name --> lock */
+	private final ConcurrentMap<String, SingletonLock> singletonLocks = new ConcurrentHashMap<String, SingletonLock>(16);
+
+	/** Threads currently blocked on a singleton creation lock: thread --> awaited lock */
+	private final Map<Thread, SingletonLock> singletonLockWaiters = new ConcurrentHashMap<Thread, SingletonLock>(16);
+
+	/** Monitor that waiting threads get notified on when a creation lock is released */
+	private final Object singletonLockMonitor = new Object();
+
 	/** Names of beans that are currently in creation (using a ConcurrentHashMap as a Set) */
 	private final Map<String, Boolean> singletonsCurrentlyInCreation = new ConcurrentHashMap<String, Boolean>(16);
 
 	/** Names of beans currently excluded from in creation checks (using a ConcurrentHashMap as a Set) */
 	private final Map<String, Boolean> inCreationCheckExclusions = new ConcurrentHashMap<String, Boolean>(16);
 
-	/** List of suppressed Exceptions, available for associating related causes */
-	private Set<Exception> suppressedExceptions;
+	/** List of suppressed Exceptions per creating thread, available for associating related causes */
+	private final ThreadLocal<Set<Exception>> suppressedExceptions =
+			new NamedThreadLocal<Set<Exception>>("Suppressed exceptions of singleton creation");
 
 	/** Flag that indicates whether we're currently within destroySingletons */
-	private boolean singletonsCurrentlyInDestruction = false;
+	private volatile boolean singletonsCurrentlyInDestruction = false;
 
 	/** Disposable bean instances: bean name --> disposable instance */
 	private final Map<String, Object> disposableBeans = new LinkedHashMap<String, Object>();
@@ -116,6 +140,12 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	/** Map between depending bean names: bean name --> Set of bean names for the bean's dependencies */
 	private final Map<String, Set<String>> dependenciesForBeanMap = new ConcurrentHashMap<String, Set<String>>(64);
 
+	/** Number of threads to destroy singletons with */
+	private int destructionParallelism = 1;
+
+	/** Milliseconds to wait for a singleton to be destroyed in parallel, or 0 for no timeout */
+	private long destructionTimeout = 0;
+
 
 	public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
 		Assert.notNull(beanName, "'beanName' must not be null");
@@ -171,6 +201,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * Return the (raw) singleton object registered under the given name.
 	 * <p>Checks already instantiated singletons and also allows for an early
 	 * reference to a currently created singleton (resolving a circular reference).
+	 * <p>If the singleton is currently being created by another thread, an early
+	 * reference is only handed out if waiting for that thread would deadlock;
+	 * otherwise this method blocks until the other thread's creation finished.
 	 * @param beanName the name of the bean to look for
 	 * @param allowEarlyReference whether early references should be created or not
 	 * @return the registered singleton object, or {@code null} if none found
@@ -178,11 +211,41 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	protected Object getSingleton(String beanName, boolean allowEarlyReference) {
 		Object singletonObject = this.singletonObjects.get(beanName);
 		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
-			synchronized (this.singletonObjects) {
-				singletonObject = this.earlySingletonObjects.get(beanName);
-				if (singletonObject == null && allowEarlyReference) {
-					ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
-					if (singletonFactory != null) {
+			singletonObject = this.earlySingletonObjects.get(beanName);
+			if (singletonObject == null && allowEarlyReference) {
+				SingletonLock lock = this.singletonLocks.get(beanName);
+				if (lock != null && !lock.isHeldByCurrentThread()) {
+					if (acquireSingletonLock(lock)) {
+						// The other thread is done with this singleton, successfully or not.
+						try {
+							singletonObject = this.singletonObjects.get(beanName);
+						}
+						finally {
+							unlockSingleton(beanName, lock);
+						}
+						return (singletonObject != NULL_OBJECT ? singletonObject : null);
+					}
+				}
+				singletonObject = getEarlySingleton(beanName);
+			}
+		}
+		return (singletonObject != NULL_OBJECT ? singletonObject : null);
+	}
+
+	/**
+	 * Obtain the early reference for the specified singleton, asking its
+	 * registered singleton factory once and caching the result.
+	 * @param beanName the name of the bean
+	 * @return the early singleton reference, or {@code null} if none available
+	 */
+	private Object getEarlySingleton(String beanName) {
+		Object singletonObject = this.earlySingletonObjects.get(beanName);
+		if (singletonObject == null) {
+			ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
+			if (singletonFactory != null) {
+				synchronized (singletonFactory) {
+					singletonObject = this.earlySingletonObjects.get(beanName);
+					if (singletonObject == null && this.singletonFactories.containsKey(beanName)) {
 						singletonObject = singletonFactory.getObject();
 						this.earlySingletonObjects.put(beanName, singletonObject);
 						this.singletonFactories.remove(beanName);
@@ -190,7 +253,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 				}
 			}
 		}
-		return (singletonObject != NULL_OBJECT ? singletonObject : null);
+		return singletonObject;
 	}
 
 	/**
@@ -203,43 +266,68 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "'beanName' must not be null");
-		synchronized (this.singletonObjects) {
-			Object singletonObject = this.singletonObjects.get(beanName);
-			if (singletonObject == null) {
-				if (this.singletonsCurrentlyInDestruction) {
-					throw new BeanCreationNotAllowedException(beanName,
-							"Singleton bean creation not allowed while the singletons of this factory are in destruction " +
-							"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
-				}
-				if (logger.isDebugEnabled()) {
-					logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
-				}
-				beforeSingletonCreation(beanName);
-				boolean recordSuppressedExceptions = (this.suppressedExceptions == null);
-				if (recordSuppressedExceptions) {
-					this.suppressedExceptions = new LinkedHashSet<Exception>();
-				}
-				try {
-					singletonObject = singletonFactory.getObject();
+		Object singletonObject = this.singletonObjects.get(beanName);
+		if (singletonObject == null) {
+			SingletonLock lock = lockSingleton(beanName);
+			if (lock == null) {
+				// Circular reference across threads: expose the other thread's early reference.
+				singletonObject = getEarlySingleton(beanName);
+				if (singletonObject == null) {
+					throw new BeanCurrentlyInCreationException(beanName);
 				}
-				catch (BeanCreationException ex) {
-					if (recordSuppressedExceptions) {
-						for (Exception suppressedException : this.suppressedExceptions) {
-							ex.addRelatedCause(suppressedException);
-						}
-					}
-					throw ex;
+				return (singletonObject != NULL_OBJECT ? singletonObject : null);
+			}
+			try {
+				singletonObject = this.singletonObjects.get(beanName);
+				if (singletonObject == null) {
+					singletonObject = createSingleton(beanName, singletonFactory);
 				}
-				finally {
-					if (recordSuppressedExceptions) {
-						this.suppressedExceptions = null;
-					}
-					afterSingletonCreation(beanName);
+			}
+			finally {
+				unlockSingleton(beanName, lock);
+			}
+		}
+		return (singletonObject != NULL_OBJECT ? singletonObject : null);
+	}
+
+	/**
+	 * Create the specified singleton through the given factory and register it.
+	 * To be called with the bean's creation lock held.
+	 */
+	private Object createSingleton(String beanName, ObjectFactory<?> singletonFactory) {
+		if (this.singletonsCurrentlyInDestruction) {
+			throw new BeanCreationNotAllowedException(beanName,
+					"Singleton bean creation not allowed while the singletons of this factory are in destruction " +
+					"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
+		}
+		beforeSingletonCreation(beanName);
+		boolean recordSuppressedExceptions = (this.suppressedExceptions.get() == null);
+		if (recordSuppressedExceptions) {
+			this.suppressedExceptions.set(new LinkedHashSet<Exception>());
+		}
+		Object singletonObject;
+		try {
+			singletonObject = singletonFactory.getObject();
+		}
+		catch (BeanCreationException ex) {
+			if (recordSuppressedExceptions) {
+				for (Exception suppressedException : this.suppressedExceptions.get()) {
+					ex.addRelatedCause(suppressedException);
 				}
-				addSingleton(beanName, singletonObject);
 			}
-			return (singletonObject != NULL_OBJECT ? singletonObject : null);
+			throw ex;
+		}
+		finally {
+			if (recordSuppressedExceptions) {
+				this.suppressedExceptions.remove();
+			}
+			afterSingletonCreation(beanName);
 		}
+		addSingleton(beanName, singletonObject);
+		return singletonObject;
 	}
 
 	/**
@@ -248,11 +336,188 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @param ex the Exception to register
 	 */
 	protected void onSuppressedException(Exception ex) {
-		synchronized (this.singletonObjects) {
-			if (this.suppressedExceptions != null) {
-				this.suppressedExceptions.add(ex);
+		Set<Exception> suppressed = this.suppressedExceptions.get();
+		if (suppressed != null) {
+			suppressed.add(ex);
+		}
+	}
+
+	/**
+	 * Acquire the creation lock for the specified singleton, as used by
+	 * {@link #getSingleton(String, ObjectFactory)}. Subclasses should guard any
+	 * extended per-bean singleton creation phase with this lock rather than
+	 * with the {@link #getSingletonMutex() singleton mutex}.
+	 * <p>Blocks while another thread holds the lock, unless waiting would
+	 * deadlock because that thread (transitively) waits for a lock held by
+	 * the current thread. In the latter case {@code false} is returned and
+	 * the caller is expected to proceed with the early singleton reference,
+	 * if any, without holding the lock.
+	 * @param beanName the name of the bean
+	 * @return {@code true} if the lock has been acquired (to be released
+	 * through {@link #releaseSingletonLock}), {@code false} if not
+	 * @throws BeanCurrentlyInCreationException if the threads involved in a
+	 * lock cycle are all waiting for singletons without an early reference
+	 */
+	protected boolean acquireSingletonLock(String beanName) {
+		return (lockSingleton(beanName) != null);
+	}
+
+	/**
+	 * Release the creation lock for the specified singleton, as previously
+	 * acquired through {@link #acquireSingletonLock}.
+	 * @param beanName the name of the bean
+	 */
+	protected void releaseSingletonLock(String beanName) {
+		SingletonLock lock = this.singletonLocks.get(beanName);
+		if (lock == null || !lock.isHeldByCurrentThread()) {
+			throw new IllegalMonitorStateException(
+					"Creation lock for singleton bean '" + beanName + "' not held by current thread");
+		}
+		unlockSingleton(beanName, lock);
+	}
+
+	/**
+	 * Try to acquire the creation lock for the specified singleton
+	 * without waiting for other threads.
+	 * @param beanName the name of the bean
+	 * @return {@code true} if the lock has been acquired (to be released
+	 * through {@link #releaseSingletonLock}), {@code false} if not
+	 */
+	protected boolean tryAcquireSingletonLock(String beanName) {
+		while (true) {
+			SingletonLock lock = getSingletonLock(beanName);
+			if (!lock.tryLock()) {
+				return false;
+			}
+			if (this.singletonLocks.get(beanName) == lock) {
+				return true;
+			}
+			// Lock got discarded by its previous owner in the meantime: try the current one.
+			unlockSingleton(beanName, lock);
+		}
+	}
+
+	/**
+	 * Acquire the current creation lock for the specified singleton.
+	 * <p>Creation locks get discarded once released by their last holder, so a
+	 * thread that was waiting for a lock may end up holding a discarded one;
+	 * in that case, the lock gets released again and the current lock acquired.
+	 * @return the acquired lock, or {@code null} if waiting would deadlock
+	 * @see #acquireSingletonLock(SingletonLock)
+	 */
+	private SingletonLock lockSingleton(String beanName) {
+		while (true) {
+			SingletonLock lock = getSingletonLock(beanName);
+			if (!acquireSingletonLock(lock)) {
+				return null;
+			}
+			if (this.singletonLocks.get(beanName) == lock) {
+				return lock;
+			}
+			unlockSingleton(beanName, lock);
+		}
+	}
+
+	/**
+	 * Release the given creation lock, discarding it if the current thread
+	 * does not hold it any further, and wake up threads waiting for a lock.
+	 */
+	private void unlockSingleton(String beanName, SingletonLock lock) {
+		if (lock.getHoldCount() == 1) {
+			this.singletonLocks.remove(beanName, lock);
+		}
+		lock.unlock();
+		if (!this.singletonLockWaiters.isEmpty()) {
+			synchronized (this.singletonLockMonitor) {
+				this.singletonLockMonitor.notifyAll();
+			}
+		}
+	}
+
+	private SingletonLock getSingletonLock(String beanName) {
+		SingletonLock lock = this.singletonLocks.get(beanName);
+		if (lock == null) {
+			lock = new SingletonLock(beanName);
+			SingletonLock existing = this.singletonLocks.putIfAbsent(beanName, lock);
+			if (existing != null) {
+				lock = existing;
+			}
+		}
+		return lock;
+	}
+
+	private boolean acquireSingletonLock(SingletonLock lock) {
+		if (lock.tryLock()) {
+			return true;
+		}
+		Thread currentThread = Thread.currentThread();
+		synchronized (this.singletonLockMonitor) {
+			this.singletonLockWaiters.put(currentThread, lock);
+			// Let the other waiting threads check for a lock cycle involving this thread.
+			this.singletonLockMonitor.notifyAll();
+			try {
+				while (!lock.tryLock()) {
+					List<SingletonLock> cycle = findSingletonLockCycle(lock);
+					if (cycle != null) {
+						if (hasEarlySingleton(lock.beanName)) {
+							if (logger.isDebugEnabled()) {
+								logger.debug("Resolving circular reference to singleton bean '" + lock.beanName +
+										"' across threads through its early reference");
+							}
+							return false;
+						}
+						boolean resolvable = false;
+						for (SingletonLock awaited : cycle) {
+							resolvable |= hasEarlySingleton(awaited.beanName);
+						}
+						if (!resolvable) {
+							throw new BeanCurrentlyInCreationException(lock.beanName,
+									"Requested bean is currently in creation by another thread which in turn waits " +
+									"for a bean held by this thread, with no early reference available to break the cycle");
+						}
+					}
+					// Woken up on release of any creation lock or on a new waiting thread.
+					this.singletonLockMonitor.wait();
+				}
+				return true;
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new BeanCreationException(lock.beanName,
+						"Interrupted while waiting for creation of the singleton in another thread", ex);
+			}
+			finally {
+				this.singletonLockWaiters.remove(currentThread);
+			}
+		}
+	}
+
+	/**
+	 * Follow the chain of lock owners and the locks they are waiting for,
+	 * starting at the given lock.
+	 * @return the awaited locks forming a cycle back to the current thread,
+	 * or {@code null} if there is no such cycle
+	 */
+	private List<SingletonLock> findSingletonLockCycle(SingletonLock lock) {
+		Thread currentThread = Thread.currentThread();
+		List<SingletonLock> cycle = new ArrayList<SingletonLock>();
+		SingletonLock awaited = lock;
+		while (awaited != null && cycle.size() <= this.singletonLockWaiters.size()) {
+			cycle.add(awaited);
+			Thread owner = awaited.getOwner();
+			if (owner == null) {
+				return null;
 			}
+			if (owner == currentThread) {
+				return cycle;
+			}
+			awaited = this.singletonLockWaiters.get(owner);
 		}
+		return null;
+	}
+
+	private boolean hasEarlySingleton(String beanName) {
+		return (this.earlySingletonObjects.containsKey(beanName) || this.singletonFactories.containsKey(beanName));
 	}
 
 	/**
@@ -392,7 +657,10 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 				dependentBeans = new LinkedHashSet<String>(8);
 				this.dependentBeanMap.put(canonicalName, dependentBeans);
 			}
-			dependentBeans.add(dependentBeanName);
+			if (!dependentBeans.add(dependentBeanName)) {
+				// Already registered, e.g. for a repeatedly created prototype.
+				return;
+			}
 		}
 		synchronized (this.dependenciesForBeanMap) {
 			Set<String> dependenciesForBean = this.dependenciesForBeanMap.get(dependentBeanName);
@@ -439,18 +707,72 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		return dependenciesForBean.toArray(new String[dependenciesForBean.size()]);
 	}
 
+	/**
+	 * Set the number of threads to use for destroying singletons in
+	 * {@link #destroySingletons()}.
+	 * <p>Default is 1, destroying all singletons sequentially on the calling
+	 * thread, in reverse registration order. A higher value destroys singletons
+	 * concurrently, still destroying the beans that have been registered as
+	 * dependent on a singleton before the singleton itself; circular dependencies
+	 * are processed sequentially afterwards. Only to be turned on for beans that
+	 * do not rely on a particular destruction order beyond their dependencies.
+	 * @since 3.2.18
+	 * @see #registerDependentBean
+	 * @see #setDestructionTimeout
+	 * @see ParallelSingletonDestroyer
+	 */
+	public void setDestructionParallelism(int destructionParallelism) {
+		Assert.isTrue(destructionParallelism > 0, "Destruction parallelism must be at least 1");
+		this.destructionParallelism = destructionParallelism;
+	}
+
+	/**
+	 * Return the number of threads to use for destroying singletons.
+	 * @since 3.2.18
+	 */
+	public int getDestructionParallelism() {
+		return this.destructionParallelism;
+	}
+
+	/**
+	 * Set the maximum number of milliseconds to wait for a singleton's destroy
+	 * method when destroying singletons in parallel. A singleton that does not get
+	 * destroyed in time is abandoned, and the singletons it depends on are destroyed
+	 * regardless. Default is 0, waiting for every singleton to be destroyed.
+	 * <p>Only applies if a {@link #setDestructionParallelism destruction parallelism}
+	 * greater than 1 has been specified.
+	 * @since 3.2.18
+	 */
+	public void setDestructionTimeout(long destructionTimeout) {
+		Assert.isTrue(destructionTimeout >= 0, "Destruction timeout must not be negative");
+		this.destructionTimeout = destructionTimeout;
+	}
+
+	/**
+	 * Return the maximum number of milliseconds to wait for a singleton's destroy
+	 * method when destroying singletons in parallel.
+	 * @since 3.2.18
+	 */
+	public long getDestructionTimeout() {
+		return this.destructionTimeout;
+	}
+
 	public void destroySingletons() {
 		if (logger.isInfoEnabled()) {
 			logger.info("Destroying singletons in " + this);
 		}
-		synchronized (this.singletonObjects) {
-			this.singletonsCurrentlyInDestruction = true;
-		}
+		this.singletonsCurrentlyInDestruction = true;
 
 		String[] disposableBeanNames;
 		synchronized (this.disposableBeans) {
 			disposableBeanNames = StringUtils.toStringArray(this.disposableBeans.keySet());
 		}
+		if (this.destructionParallelism > 1 && disposableBeanNames.length > 1) {
+			List<String> remainingBeanNames = new ParallelSingletonDestroyer(
+					this, this.destructionParallelism, this.destructionTimeout)
+					.destroySingletons(Arrays.asList(disposableBeanNames));
+			disposableBeanNames = StringUtils.toStringArray(remainingBeanNames);
+		}
 		for (int i = disposableBeanNames.length - 1; i >= 0; i--) {
 			destroySingleton(disposableBeanNames[i]);
 		}
@@ -486,6 +808,31 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		destroyBean(beanName, disposableBean);
 	}
 
+	/**
+	 * Destroy the given singleton without triggering the destruction of the beans
+	 * that depend on it or that it contains, which is left to the caller.
+	 * @param beanName the name of the bean
+	 * @see ParallelSingletonDestroyer
+	 */
+	void destroySingletonWithoutDependents(String beanName) {
+		removeSingleton(beanName);
+		DisposableBean disposableBean;
+		synchronized (this.disposableBeans) {
+			disposableBean = (DisposableBean) this.disposableBeans.remove(beanName);
+		}
+		if (disposableBean != null) {
+			try {
+				disposableBean.destroy();
+			}
+			catch (Throwable ex) {
+				logger.error("Destroy method on bean with name '" + beanName + "' threw an exception", ex);
+			}
+		}
+		this.dependentBeanMap.remove(beanName);
+		this.containedBeanMap.remove(beanName);
+		this.dependenciesForBeanMap.remove(beanName);
+	}
+
 	/**
 	 * Destroy the given bean. Must destroy beans that depend on the given
 	 * bean before the bean itself. Should not throw any exceptions.
@@ -540,8 +887,10 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 
 	/**
 	 * Exposes the singleton mutex to subclasses and external collaborators.
-	 * <p>Subclasses should synchronize on the given Object if they perform
-	 * any sort of extended singleton creation phase. In particular, subclasses
+	 * <p>The mutex guards the registration state of this registry but is not
+	 * held while singletons are being created. Subclasses performing any sort
+	 * of extended singleton creation phase should use the per-bean creation
+	 * lock instead (see {@link #acquireSingletonLock}). In particular, subclasses
 	 * should <i>not</i> have their own mutexes involved in singleton creation,
 	 * to avoid the potential for deadlocks in lazy-init situations.
 	 */
@@ -549,4 +898,24 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		return this.singletonObjects;
 	}
 
+
+	/**
+	 * Creation lock for a single singleton bean, exposing its owner thread
+	 * for detecting lock cycles between concurrently creating threads.
+	 */
+	@SuppressWarnings("serial")
+	private static class SingletonLock extends ReentrantLock {
+
+		private final String beanName;
+
+		public SingletonLock(String beanName) {
+			this.beanName = beanName;
+		}
+
+		@Override
+		public Thread getOwner() {
+			return super.getOwner();
+		}
+	}
+
 }
@@ -96,7 +96,8 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 	 */
 	protected Object getObjectFromFactoryBean(FactoryBean<?> factory, String beanName, boolean shouldPostProcess) {
 		if (factory.isSingleton() && containsSingleton(beanName)) {
-			synchronized (getSingletonMutex()) {
+			boolean locked = acquireSingletonLock(beanName);
+			try {
 				Object object = this.factoryBeanObjectCache.get(beanName);
 				if (object == null) {
 					object = doGetObjectFromFactoryBean(factory, beanName);
@@ -121,6 +122,11 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 				}
 				return (object != NULL_OBJECT ? object : null);
 			}
+			finally {
+				if (locked) {
+					releaseSingletonLock(beanName);
+				}
+			}
 		}
 		else {
 			Object object = doGetObjectFromFactoryBean(factory, beanName);
@@ -0,0 +1,444 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.cglib.core.SpringNamingPolicy;
+import org.springframework.cglib.proxy.Callback;
+import org.springframework.cglib.proxy.CallbackFilter;
+import org.springframework.cglib.proxy.Enhancer;
+import org.springframework.cglib.proxy.MethodInterceptor;
+import org.springframework.cglib.proxy.MethodProxy;
+import org.springframework.cglib.proxy.NoOp;
+import org.springframework.cglib.reflect.FastClass;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Object instantiation strategy that invokes constructors through generated
+ * factory classes instead of reflection. A factory class (a CGLIB
+ * {@link FastClass}) is generated once per bean class and then shared by all
+ * bean definitions for that class, turning repeated instantiation of
+ * prototypes into a direct constructor call.
+ *
+ * <p>For <em>Method Injection</em>, the subclass implementing the lookup
+ * methods and replaced methods is generated once per bean class and shape of
+ * {@link LookupOverride}/{@link ReplaceOverride} declarations, shared by all
+ * bean definitions with identical overrides, and instantiated through its own
+ * factory class as well. The subclass dispatches to the overrides of the bean
+ * definition that an instance has been created for.
+ *
+ * <p>Falls back to the reflective instantiation of
+ * {@link CglibSubclassingInstantiationStrategy} where a factory class cannot
+ * be used: e.g. for private constructors, for abstract bean classes without
+ * method overrides, for custom {@link MethodOverride} types, or when running
+ * with a SecurityManager. Factory methods are always invoked reflectively.
+ *
+ * @since 3.2.18
+ * @see AbstractAutowireCapableBeanFactory#setInstantiationStrategy
+ */
+public class GeneratedFactoryInstantiationStrategy extends CglibSubclassingInstantiationStrategy {
+
+	private static final Log logger = LogFactory.getLog(GeneratedFactoryInstantiationStrategy.class);
+
+	private static final int PASSTHROUGH = 0;
+
+	private static final int LOOKUP_OVERRIDE = 1;
+
+	private static final int METHOD_REPLACER = 2;
+
+	private static final GeneratedFactory NO_FACTORY = new GeneratedFactory(null);
+
+	/** Cache of generated factories: bean class --> factory */
+	private final Map<Class<?>, GeneratedFactory> factoryCache =
+			new ConcurrentHashMap<Class<?>, GeneratedFactory>(64);
+
+	/** Cache of generated factories for subclasses implementing method overrides */
+	private final Map<MethodOverridesKey, GeneratedFactory> methodInjectionFactoryCache =
+			new ConcurrentHashMap<MethodOverridesKey, GeneratedFactory>(16);
+
+
+	@Override
+	public Object instantiate(RootBeanDefinition beanDefinition, String beanName, BeanFactory owner) {
+		if (beanDefinition.getMethodOverrides().isEmpty() && System.getSecurityManager() == null) {
+			GeneratedFactory factory = getFactory(beanDefinition.getBeanClass());
+			if (factory.hasConstructor(null)) {
+				return factory.newInstance(null, null);
+			}
+		}
+		return super.instantiate(beanDefinition, beanName, owner);
+	}
+
+	@Override
+	public Object instantiate(RootBeanDefinition beanDefinition, String beanName, BeanFactory owner,
+			Constructor<?> ctor, Object[] args) {
+
+		if (beanDefinition.getMethodOverrides().isEmpty() && System.getSecurityManager() == null) {
+			GeneratedFactory factory = getFactory(ctor.getDeclaringClass());
+			if (factory.hasConstructor(ctor)) {
+				return factory.newInstance(ctor, args);
+			}
+		}
+		return super.instantiate(beanDefinition, beanName, owner, ctor, args);
+	}
+
+	@Override
+	protected Object instantiateWithMethodInjection(
+			RootBeanDefinition beanDefinition, String beanName, BeanFactory owner) {
+
+		GeneratedFactory factory = getMethodInjectionFactory(beanDefinition);
+		if (factory.hasConstructor(null)) {
+			return factory.newInstance(null, null, createCallbacks(beanDefinition, owner));
+		}
+		return super.instantiateWithMethodInjection(beanDefinition, beanName, owner);
+	}
+
+	@Override
+	protected Object instantiateWithMethodInjection(RootBeanDefinition beanDefinition,
+			String beanName, BeanFactory owner, Constructor<?> ctor, Object[] args) {
+
+		GeneratedFactory factory = getMethodInjectionFactory(beanDefinition);
+		if (factory.hasConstructor(ctor)) {
+			return factory.newInstance(ctor, args, createCallbacks(beanDefinition, owner));
+		}
+		return super.instantiateWithMethodInjection(beanDefinition, beanName, owner, ctor, args);
+	}
+
+
+	/**
+	 * Return the generated factory for the given bean class,
+	 * generating it if necessary.
+	 */
+	private GeneratedFactory getFactory(Class<?> beanClass) {
+		GeneratedFactory factory = this.factoryCache.get(beanClass);
+		if (factory == null) {
+			factory = (Modifier.isAbstract(beanClass.getModifiers()) ? NO_FACTORY : generateFactory(beanClass));
+			this.factoryCache.put(beanClass, factory);
+		}
+		return factory;
+	}
+
+	/**
+	 * Return the generated factory for the subclass implementing the method
+	 * overrides of the given bean definition, generating it if necessary.
+	 */
+	private GeneratedFactory getMethodInjectionFactory(RootBeanDefinition beanDefinition) {
+		if (System.getSecurityManager() != null) {
+			return NO_FACTORY;
+		}
+		MethodOverridesKey key = MethodOverridesKey.forBeanDefinition(beanDefinition);
+		if (key == null) {
+			return NO_FACTORY;
+		}
+		GeneratedFactory factory = this.methodInjectionFactoryCache.get(key);
+		if (factory == null) {
+			try {
+				Enhancer enhancer = new Enhancer();
+				enhancer.setSuperclass(beanDefinition.getBeanClass());
+				enhancer.setNamingPolicy(SpringNamingPolicy.INSTANCE);
+				enhancer.setCallbackFilter(new MethodOverridesCallbackFilter(key, beanDefinition.getMethodOverrides()));
+				enhancer.setCallbackTypes(new Class<?>[] {NoOp.class, MethodInterceptor.class, MethodInterceptor.class});
+				factory = generateFactory(enhancer.createClass());
+			}
+			catch (Throwable ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Could not generate subclass for method injection into bean class [" +
+							beanDefinition.getBeanClassName() + "] - falling back to per-definition subclass", ex);
+				}
+				factory = NO_FACTORY;
+			}
+			this.methodInjectionFactoryCache.put(key, factory);
+		}
+		return factory;
+	}
+
+	/**
+	 * Generate a factory for the given class, or return {@link #NO_FACTORY}
+	 * if no factory can be generated for it.
+	 */
+	private GeneratedFactory generateFactory(Class<?> clazz) {
+		try {
+			FastClass.Generator generator = new FastClass.Generator();
+			generator.setType(clazz);
+			generator.setClassLoader(clazz.getClassLoader());
+			generator.setNamingPolicy(SpringNamingPolicy.INSTANCE);
+			return new GeneratedFactory(generator.create());
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Could not generate factory class for [" + clazz.getName() +
+						"] - falling back to reflective instantiation", ex);
+			}
+			return NO_FACTORY;
+		}
+	}
+
+	/**
+	 * Create the callbacks for a subclass instance implementing the
+	 * method overrides of the given bean definition.
+	 */
+	private Callback[] createCallbacks(RootBeanDefinition beanDefinition, BeanFactory owner) {
+		return new Callback[] {NoOp.INSTANCE,
+				new LookupOverrideMethodInterceptor(beanDefinition, owner),
+				new ReplaceOverrideMethodInterceptor(beanDefinition, owner)};
+	}
+
+
+	/**
+	 * Generated factory for a class, invoking its constructors directly.
+	 */
+	private static class GeneratedFactory {
+
+		private static final Class<?>[] NO_PARAMETER_TYPES = new Class<?>[0];
+
+		private final FastClass fastClass;
+
+		private final int defaultConstructorIndex;
+
+		private final Map<Constructor<?>, Integer> constructorIndexes = new ConcurrentHashMap<Constructor<?>, Integer>(4);
+
+		public GeneratedFactory(FastClass fastClass) {
+			this.fastClass = fastClass;
+			this.defaultConstructorIndex = (fastClass != null ? fastClass.getIndex(NO_PARAMETER_TYPES) : -1);
+		}
+
+		/**
+		 * Determine whether this factory can invoke the given constructor
+		 * (or a constructor with the same parameter types, in case of a
+		 * generated subclass), or the default constructor if {@code null}.
+		 */
+		public boolean hasConstructor(Constructor<?> ctor) {
+			return (getConstructorIndex(ctor) >= 0);
+		}
+
+		public Object newInstance(Constructor<?> ctor, Object[] args) {
+			try {
+				return this.fastClass.newInstance(getConstructorIndex(ctor), args);
+			}
+			catch (InvocationTargetException ex) {
+				throw new BeanInstantiationException(this.fastClass.getJavaClass(),
+						"Constructor threw exception", ex.getTargetException());
+			}
+		}
+
+		public Object newInstance(Constructor<?> ctor, Object[] args, Callback[] callbacks) {
+			Class<?> generatedClass = this.fastClass.getJavaClass();
+			Enhancer.registerCallbacks(generatedClass, callbacks);
+			try {
+				return newInstance(ctor, args);
+			}
+			finally {
+				Enhancer.registerCallbacks(generatedClass, null);
+			}
+		}
+
+		private int getConstructorIndex(Constructor<?> ctor) {
+			if (ctor == null) {
+				return this.defaultConstructorIndex;
+			}
+			if (this.fastClass == null) {
+				return -1;
+			}
+			Integer index = this.constructorIndexes.get(ctor);
+			if (index == null) {
+				index = (Modifier.isPrivate(ctor.getModifiers()) ? -1 : this.fastClass.getIndex(ctor.getParameterTypes()));
+				this.constructorIndexes.put(ctor, index);
+			}
+			return index;
+		}
+	}
+
+
+	/**
+	 * Key for the subclass implementing method overrides: the bean class
+	 * plus everything about the overrides that determines which methods
+	 * get overridden in which way, but not the beans they refer to.
+	 */
+	private static class MethodOverridesKey {
+
+		private final Class<?> beanClass;
+
+		private final List<Object> overrideShapes;
+
+		private MethodOverridesKey(Class<?> beanClass, List<Object> overrideShapes) {
+			this.beanClass = beanClass;
+			this.overrideShapes = overrideShapes;
+		}
+
+		/**
+		 * Build the key for the given bean definition, or return {@code null}
+		 * if it contains method overrides of an unsupported type.
+		 */
+		public static MethodOverridesKey forBeanDefinition(RootBeanDefinition beanDefinition) {
+			List<Object> overrideShapes = new ArrayList<Object>();
+			for (MethodOverride override : beanDefinition.getMethodOverrides().getOverrides()) {
+				overrideShapes.add(override.getClass());
+				overrideShapes.add(override.getMethodName());
+				overrideShapes.add(override.isOverloaded());
+				if (override instanceof ReplaceOverride) {
+					overrideShapes.add(new ArrayList<String>(((ReplaceOverride) override).getTypeIdentifiers()));
+				}
+				else if (!(override instanceof LookupOverride)) {
+					return null;
+				}
+			}
+			return new MethodOverridesKey(beanDefinition.getBeanClass(), overrideShapes);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof MethodOverridesKey)) {
+				return false;
+			}
+			MethodOverridesKey otherKey = (MethodOverridesKey) other;
+			return (this.beanClass.equals(otherKey.beanClass) && this.overrideShapes.equals(otherKey.overrideShapes));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.beanClass.hashCode() * 29 + this.overrideShapes.hashCode();
+		}
+	}
+
+
+	/**
+	 * CGLIB CallbackFilter dispatching overridden methods to the interceptors.
+	 * Equality is based on the shape of the overrides, allowing CGLIB to share
+	 * the generated subclass between bean definitions with identical overrides.
+	 */
+	private static class MethodOverridesCallbackFilter implements CallbackFilter {
+
+		private final MethodOverridesKey key;
+
+		private final MethodOverrides methodOverrides;
+
+		public MethodOverridesCallbackFilter(MethodOverridesKey key, MethodOverrides methodOverrides) {
+			this.key = key;
+			this.methodOverrides = new MethodOverrides(methodOverrides);
+		}
+
+		public int accept(Method method) {
+			MethodOverride methodOverride = this.methodOverrides.getOverride(method);
+			if (methodOverride == null) {
+				return PASSTHROUGH;
+			}
+			else if (methodOverride instanceof LookupOverride) {
+				return LOOKUP_OVERRIDE;
+			}
+			else {
+				return METHOD_REPLACER;
+			}
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return (this == other || (other instanceof MethodOverridesCallbackFilter &&
+					this.key.equals(((MethodOverridesCallbackFilter) other).key)));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.key.hashCode();
+		}
+	}
+
+
+	/**
+	 * CGLIB MethodInterceptor to override methods, replacing them with an
+	 * implementation that returns a bean looked up in the container.
+	 */
+	private static class LookupOverrideMethodInterceptor implements MethodInterceptor {
+
+		private final RootBeanDefinition beanDefinition;
+
+		private final BeanFactory owner;
+
+		public LookupOverrideMethodInterceptor(RootBeanDefinition beanDefinition, BeanFactory owner) {
+			this.beanDefinition = beanDefinition;
+			this.owner = owner;
+		}
+
+		public Object intercept(Object obj, Method method, Object[] args, MethodProxy mp) throws Throwable {
+			// Cast is safe, as CallbackFilter filters are used selectively.
+			LookupOverride lo = (LookupOverride) this.beanDefinition.getMethodOverrides().getOverride(method);
+			return this.owner.getBean(lo.getBeanName());
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return (this == other || (other instanceof LookupOverrideMethodInterceptor &&
+					ObjectUtils.nullSafeEquals(this.beanDefinition,
+							((LookupOverrideMethodInterceptor) other).beanDefinition)));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.beanDefinition.hashCode();
+		}
+	}
+
+
+	/**
+	 * CGLIB MethodInterceptor to override methods, replacing them with a call
+	 * to a generic MethodReplacer.
+	 */
+	private static class ReplaceOverrideMethodInterceptor implements MethodInterceptor {
+
+		private final RootBeanDefinition beanDefinition;
+
+		private final BeanFactory owner;
+
+		public ReplaceOverrideMethodInterceptor(RootBeanDefinition beanDefinition, BeanFactory owner) {
+			this.beanDefinition = beanDefinition;
+			this.owner = owner;
+		}
+
+		public Object intercept(Object obj, Method method, Object[] args, MethodProxy mp) throws Throwable {
+			ReplaceOverride ro = (ReplaceOverride) this.beanDefinition.getMethodOverrides().getOverride(method);
+			MethodReplacer mr = (MethodReplacer) this.owner.getBean(ro.getMethodReplacerBeanName());
+			return mr.reimplement(obj, method, args);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return (this == other || (other instanceof ReplaceOverrideMethodInterceptor &&
+					ObjectUtils.nullSafeEquals(this.beanDefinition,
+							((ReplaceOverrideMethodInterceptor) other).beanDefinition)));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.beanDefinition.hashCode();
+		}
+	}
+
+}
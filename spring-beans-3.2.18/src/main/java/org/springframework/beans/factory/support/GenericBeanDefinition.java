@@ -68,6 +68,7 @@ public class GenericBeanDefinition extends AbstractBeanDefinition {
 
 	public void setParentName(String parentName) {
 		this.parentName = parentName;
+		typeModified();
 	}
 
 	public String getParentName() {
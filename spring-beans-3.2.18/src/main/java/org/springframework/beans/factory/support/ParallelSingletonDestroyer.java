@@ -0,0 +1,360 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.config.ParallelProcessingUtils;
+
+/**
+ * Delegate for destroying the singletons of a {@link DefaultSingletonBeanRegistry}
+ * on multiple threads.
+ *
+ * <p>Follows the dependencies registered through
+ * {@link DefaultSingletonBeanRegistry#registerDependentBean} (including
+ * containment relationships between inner and outer beans): a singleton is
+ * destroyed once all beans depending on it have been destroyed, so that
+ * independent parts of the dependency graph are destroyed concurrently.
+ * Singletons that are part of - or that other beans depend on through - a
+ * circular dependency are left to the caller for sequential destruction.
+ *
+ * <p>If a destruction timeout is specified, a singleton whose destroy method
+ * does not complete in time gets abandoned: its thread is interrupted, and
+ * the singletons it depends on are destroyed without waiting any further.
+ * Another thread takes over the abandoned thread's share of the work.
+ * A timing report, listing the slowest destroy methods, is logged at info level.
+ *
+ * @since 3.2.18
+ * @see DefaultSingletonBeanRegistry#setDestructionParallelism
+ * @see DefaultSingletonBeanRegistry#setDestructionTimeout
+ */
+class ParallelSingletonDestroyer {
+
+	/** Number of slowest singletons to list in the timing report */
+	private static final int REPORT_SIZE = 10;
+
+	/** Maximum number of milliseconds to wait before checking for timed out singletons */
+	private static final long TIMEOUT_CHECK_INTERVAL = 100;
+
+	private static final Log logger = LogFactory.getLog(ParallelSingletonDestroyer.class);
+
+	private final DefaultSingletonBeanRegistry registry;
+
+	private final int parallelism;
+
+	private final long timeout;
+
+	/** Singletons currently being destroyed */
+	private final Set<Node> runningNodes = Collections.newSetFromMap(new ConcurrentHashMap<Node, Boolean>());
+
+	private final AtomicInteger activeCount = new AtomicInteger();
+
+	private final AtomicInteger maxActiveCount = new AtomicInteger();
+
+	private final AtomicLong busyNanos = new AtomicLong();
+
+
+	/**
+	 * Create a new ParallelSingletonDestroyer for the given registry.
+	 * @param registry the registry to destroy singletons in
+	 * @param parallelism the maximum number of threads to use
+	 * @param timeout the maximum number of milliseconds to wait for a single
+	 * singleton to be destroyed, or 0 to wait indefinitely
+	 */
+	public ParallelSingletonDestroyer(DefaultSingletonBeanRegistry registry, int parallelism, long timeout) {
+		this.registry = registry;
+		this.parallelism = parallelism;
+		this.timeout = timeout;
+	}
+
+
+	/**
+	 * Destroy all given singletons that can safely be destroyed in parallel.
+	 * @param beanNames the names of the disposable singletons, in registration order
+	 * @return the names of the singletons that have been left for sequential
+	 * destruction by the caller, in registration order
+	 */
+	public List<String> destroySingletons(List<String> beanNames) {
+		long startTime = System.nanoTime();
+		Map<String, Node> nodes = buildGraph(beanNames);
+
+		// Schedule the singletons without remaining dependent beans first (Kahn's algorithm);
+		// whatever is never scheduled is part of, or is depended on through, a circular dependency.
+		List<Node> roots = new ArrayList<Node>();
+		Set<String> sequential = new LinkedHashSet<String>(nodes.keySet());
+		for (Node node : nodes.values()) {
+			if (node.pendingDependents.get() == 0) {
+				roots.add(node);
+			}
+		}
+		markSchedulable(roots, sequential);
+
+		int parallelCount = nodes.size() - sequential.size();
+		if (parallelCount > 0) {
+			execute(roots, parallelCount);
+		}
+
+		if (logger.isInfoEnabled()) {
+			logger.info(buildReport(nodes.values(), parallelCount, sequential.size(), System.nanoTime() - startTime));
+		}
+		List<String> result = new ArrayList<String>(sequential.size());
+		for (String beanName : beanNames) {
+			if (sequential.contains(beanName)) {
+				result.add(beanName);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Build the dependency graph between the given singletons and the beans
+	 * that have been registered as depending on them (or on each other).
+	 */
+	private Map<String, Node> buildGraph(List<String> beanNames) {
+		Map<String, Node> nodes = new LinkedHashMap<String, Node>(beanNames.size());
+		List<String> queue = new ArrayList<String>(beanNames);
+		for (int i = 0; i < queue.size(); i++) {
+			String beanName = queue.get(i);
+			if (!nodes.containsKey(beanName)) {
+				nodes.put(beanName, new Node(beanName));
+				for (String dependentBeanName : this.registry.getDependentBeans(beanName)) {
+					queue.add(dependentBeanName);
+				}
+			}
+		}
+		for (Node node : nodes.values()) {
+			for (String dependentBeanName : this.registry.getDependentBeans(node.beanName)) {
+				// A self-reference keeps the node pending forever, as for any other cycle.
+				nodes.get(dependentBeanName).dependencies.add(node);
+				node.pendingDependents.incrementAndGet();
+			}
+		}
+		return nodes;
+	}
+
+	/**
+	 * Remove all singletons reachable from the given roots from the set of
+	 * sequentially destroyed singletons, without modifying the graph.
+	 */
+	private void markSchedulable(List<Node> roots, Set<String> sequential) {
+		Map<Node, Integer> remaining = new LinkedHashMap<Node, Integer>();
+		List<Node> queue = new ArrayList<Node>(roots);
+		while (!queue.isEmpty()) {
+			Node node = queue.remove(queue.size() - 1);
+			sequential.remove(node.beanName);
+			for (Node dependency : node.dependencies) {
+				Integer count = remaining.get(dependency);
+				int newCount = (count != null ? count : dependency.pendingDependents.get()) - 1;
+				remaining.put(dependency, newCount);
+				if (newCount == 0) {
+					queue.add(dependency);
+				}
+			}
+		}
+	}
+
+	private void execute(List<Node> roots, int nodeCount) {
+		CountDownLatch latch = new CountDownLatch(nodeCount);
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(this.parallelism, this.parallelism,
+				0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+				ParallelProcessingUtils.createThreadFactory("singleton-destruction-"));
+		try {
+			for (Node root : roots) {
+				submit(executor, root, latch);
+			}
+			if (this.timeout > 0) {
+				long checkInterval = Math.min(this.timeout, TIMEOUT_CHECK_INTERVAL);
+				while (!latch.await(checkInterval, TimeUnit.MILLISECONDS)) {
+					abandonTimedOutNodes(executor, latch);
+				}
+			}
+			else {
+				latch.await();
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			logger.warn("Interrupted during parallel destruction of singletons - " +
+					"abandoning " + latch.getCount() + " singletons");
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void submit(final ThreadPoolExecutor executor, final Node node, final CountDownLatch latch) {
+		executor.execute(new Runnable() {
+			public void run() {
+				// The timeout applies from the actual start of destruction, not from submission.
+				node.startNanos = System.nanoTime();
+				synchronized (node) {
+					node.runningThread = Thread.currentThread();
+				}
+				runningNodes.add(node);
+				try {
+					destroy(node);
+				}
+				finally {
+					synchronized (node) {
+						node.runningThread = null;
+					}
+					if (node.timedOut) {
+						// Clear the interrupt for abandoning this node, now that it returned after all.
+						Thread.interrupted();
+					}
+					complete(executor, node, latch);
+				}
+			}
+		});
+	}
+
+	private void destroy(Node node) {
+		int active = this.activeCount.incrementAndGet();
+		int max = this.maxActiveCount.get();
+		while (active > max && !this.maxActiveCount.compareAndSet(max, active)) {
+			max = this.maxActiveCount.get();
+		}
+		try {
+			this.registry.destroySingletonWithoutDependents(node.beanName);
+		}
+		finally {
+			this.activeCount.decrementAndGet();
+			node.elapsedNanos = System.nanoTime() - node.startNanos;
+			this.busyNanos.addAndGet(node.elapsedNanos);
+		}
+	}
+
+	/**
+	 * Mark the given node as completed (unless it has been abandoned before),
+	 * and schedule those of its dependencies that have no pending dependents anymore.
+	 */
+	private void complete(ThreadPoolExecutor executor, Node node, CountDownLatch latch) {
+		if (node.completed.compareAndSet(false, true)) {
+			this.runningNodes.remove(node);
+			for (Node dependency : node.dependencies) {
+				if (dependency.pendingDependents.decrementAndGet() == 0) {
+					submit(executor, dependency, latch);
+				}
+			}
+			latch.countDown();
+		}
+	}
+
+	private void abandonTimedOutNodes(ThreadPoolExecutor executor, CountDownLatch latch) {
+		long now = System.nanoTime();
+		for (Node node : this.runningNodes) {
+			long elapsedNanos = now - node.startNanos;
+			if (elapsedNanos > TimeUnit.MILLISECONDS.toNanos(this.timeout) && !node.completed.get()) {
+				node.timedOut = true;
+				node.elapsedNanos = elapsedNanos;
+				logger.warn("Destruction of singleton '" + node.beanName + "' did not complete within " +
+						this.timeout + " ms - abandoning it");
+				// Let an additional thread take over, in case the abandoned one never returns.
+				executor.setMaximumPoolSize(executor.getMaximumPoolSize() + 1);
+				executor.setCorePoolSize(executor.getCorePoolSize() + 1);
+				synchronized (node) {
+					// Only interrupt the thread while it is still destroying this very node.
+					if (node.runningThread != null) {
+						node.runningThread.interrupt();
+					}
+				}
+				complete(executor, node, latch);
+			}
+		}
+	}
+
+	private String buildReport(Iterable<Node> nodes, int parallelCount, int sequentialCount, long elapsedNanos) {
+		List<Node> destroyedNodes = new ArrayList<Node>();
+		int timedOutCount = 0;
+		for (Node node : nodes) {
+			if (node.completed.get()) {
+				destroyedNodes.add(node);
+				if (node.timedOut) {
+					timedOutCount++;
+				}
+			}
+		}
+		Collections.sort(destroyedNodes, new Comparator<Node>() {
+			public int compare(Node node1, Node node2) {
+				return (node1.elapsedNanos < node2.elapsedNanos ? 1 : (node1.elapsedNanos > node2.elapsedNanos ? -1 : 0));
+			}
+		});
+		double averageParallelism = (elapsedNanos > 0 ? (double) this.busyNanos.get() / elapsedNanos : 0);
+		StringBuilder report = new StringBuilder(String.format("Destroyed %d singletons in parallel within %d ms: " +
+				"up to %d concurrently, average parallelism %.1f; %d timed out; %d singletons left for " +
+				"sequential destruction", parallelCount, elapsedNanos / 1000000, this.maxActiveCount.get(),
+				averageParallelism, timedOutCount, sequentialCount));
+		int reportSize = Math.min(destroyedNodes.size(), REPORT_SIZE);
+		if (reportSize > 0) {
+			report.append(". Slowest singletons:");
+			for (int i = 0; i < reportSize; i++) {
+				Node node = destroyedNodes.get(i);
+				report.append(String.format(" '%s' %.1f ms%s%s", node.beanName, node.elapsedNanos / 1000000.0,
+						(node.timedOut ? " (timed out)" : ""), (i < reportSize - 1 ? "," : "")));
+			}
+		}
+		return report.toString();
+	}
+
+
+	/**
+	 * A singleton in the dependency graph.
+	 */
+	private static class Node {
+
+		private final String beanName;
+
+		/** The nodes that this node depends on, to be destroyed after it */
+		private final List<Node> dependencies = new ArrayList<Node>();
+
+		private final AtomicInteger pendingDependents = new AtomicInteger();
+
+		private final AtomicBoolean completed = new AtomicBoolean();
+
+		/** The thread destroying the singleton, guarded by the node's monitor */
+		private Thread runningThread;
+
+		private volatile long startNanos;
+
+		private volatile long elapsedNanos;
+
+		private volatile boolean timedOut;
+
+		public Node(String beanName) {
+			this.beanName = beanName;
+		}
+	}
+
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.FatalBeanException;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.ParallelProcessingUtils;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+
+/**
+ * Delegate for pre-instantiating the non-lazy singletons of a
+ * {@link DefaultListableBeanFactory} on multiple threads.
+ *
+ * <p>Builds a dependency graph from the merged bean definitions, taking
+ * "depends-on" declarations, factory bean references and bean references
+ * in constructor arguments and property values (including inner beans and
+ * managed collections) into account. Singletons whose dependencies have
+ * all been created are instantiated on a {@link ForkJoinPool}, so that
+ * independent parts of the graph are processed concurrently. Dependencies
+ * that are not expressed in the bean definitions (e.g. autowiring) are
+ * simply resolved by the creating thread, as usual.
+ *
+ * <p>FactoryBeans (which may or may not be eagerly initialized, as decided
+ * by {@link org.springframework.beans.factory.SmartFactoryBean#isEagerInit()})
+ * as well as singletons that are part of - or depend on - a circular
+ * reference are left to the caller for sequential instantiation.
+ *
+ * @since 3.2.18
+ * @see DefaultListableBeanFactory#setPreInstantiationParallelism
+ */
+class ParallelSingletonInstantiator {
+
+	private static final Log logger = LogFactory.getLog(ParallelSingletonInstantiator.class);
+
+	private final DefaultListableBeanFactory beanFactory;
+
+	private final int parallelism;
+
+	private final AtomicInteger activeCount = new AtomicInteger();
+
+	private final AtomicInteger maxActiveCount = new AtomicInteger();
+
+	private final AtomicLong busyNanos = new AtomicLong();
+
+	private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+
+	/**
+	 * Create a new ParallelSingletonInstantiator for the given bean factory.
+	 * @param beanFactory the bean factory to create singletons in
+	 * @param parallelism the maximum number of threads to use
+	 */
+	public ParallelSingletonInstantiator(DefaultListableBeanFactory beanFactory, int parallelism) {
+		this.beanFactory = beanFactory;
+		this.parallelism = parallelism;
+	}
+
+
+	/**
+	 * Instantiate all given singletons that can safely be created in parallel.
+	 * @param beanNames the names of the non-lazy singletons to pre-instantiate,
+	 * in registration order
+	 * @return the names of the singletons that have been left for sequential
+	 * instantiation by the caller, in registration order
+	 * @throws org.springframework.beans.BeansException if a singleton could
+	 * not be created (the first failure encountered)
+	 */
+	public List<String> preInstantiateSingletons(List<String> beanNames) {
+		long startTime = System.nanoTime();
+		Map<String, Node> nodes = buildGraph(beanNames);
+
+		// Schedule the singletons without outstanding dependencies first (Kahn's algorithm);
+		// whatever is never scheduled is part of, or depends on, a circular reference.
+		List<Node> roots = new ArrayList<Node>();
+		Set<String> sequential = new LinkedHashSet<String>(beanNames);
+		for (Node node : nodes.values()) {
+			if (node.pendingDependencies.get() == 0) {
+				roots.add(node);
+			}
+		}
+		markSchedulable(roots, sequential);
+
+		int parallelCount = beanNames.size() - sequential.size();
+		if (parallelCount > 0) {
+			execute(roots, parallelCount);
+		}
+
+		if (logger.isInfoEnabled()) {
+			long elapsedNanos = System.nanoTime() - startTime;
+			double averageParallelism = (elapsedNanos > 0 ? (double) this.busyNanos.get() / elapsedNanos : 0);
+			logger.info(String.format("Pre-instantiated %d singletons in parallel within %d ms: up to %d " +
+					"concurrently, average parallelism %.1f; %d singletons left for sequential instantiation",
+					parallelCount, elapsedNanos / 1000000, this.maxActiveCount.get(), averageParallelism,
+					sequential.size()));
+		}
+		return new ArrayList<String>(sequential);
+	}
+
+	/**
+	 * Build the dependency graph between the given singletons,
+	 * leaving out FactoryBeans.
+	 */
+	private Map<String, Node> buildGraph(List<String> beanNames) {
+		Map<String, Node> nodes = new LinkedHashMap<String, Node>(beanNames.size());
+		for (String beanName : beanNames) {
+			if (!this.beanFactory.isFactoryBean(beanName)) {
+				nodes.put(beanName, new Node(beanName));
+			}
+		}
+		for (Node node : nodes.values()) {
+			Set<String> references = new LinkedHashSet<String>();
+			addReferences(this.beanFactory.getMergedLocalBeanDefinition(node.beanName), references);
+			for (String reference : references) {
+				Node dependency = nodes.get(this.beanFactory.transformedBeanName(reference));
+				if (dependency != null) {
+					// A self-reference keeps the node pending forever, as for any other cycle.
+					dependency.dependents.add(node);
+					node.pendingDependencies.incrementAndGet();
+				}
+			}
+		}
+		return nodes;
+	}
+
+	private void addReferences(BeanDefinition bd, Set<String> references) {
+		String[] dependsOn = (bd instanceof AbstractBeanDefinition ?
+				((AbstractBeanDefinition) bd).getDependsOn() : null);
+		if (dependsOn != null) {
+			for (String dependsOnBean : dependsOn) {
+				references.add(dependsOnBean);
+			}
+		}
+		if (bd.getFactoryBeanName() != null) {
+			references.add(bd.getFactoryBeanName());
+		}
+		ConstructorArgumentValues cav = bd.getConstructorArgumentValues();
+		for (ConstructorArgumentValues.ValueHolder valueHolder : cav.getIndexedArgumentValues().values()) {
+			addReferences(valueHolder.getValue(), references);
+		}
+		for (ConstructorArgumentValues.ValueHolder valueHolder : cav.getGenericArgumentValues()) {
+			addReferences(valueHolder.getValue(), references);
+		}
+		for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+			addReferences(pv.getValue(), references);
+		}
+	}
+
+	private void addReferences(Object value, Set<String> references) {
+		if (value instanceof RuntimeBeanReference) {
+			RuntimeBeanReference ref = (RuntimeBeanReference) value;
+			if (!ref.isToParent()) {
+				references.add(ref.getBeanName());
+			}
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			addReferences(((BeanDefinitionHolder) value).getBeanDefinition(), references);
+		}
+		else if (value instanceof BeanDefinition) {
+			addReferences((BeanDefinition) value, references);
+		}
+		else if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				addReferences(element, references);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				addReferences(entry.getKey(), references);
+				addReferences(entry.getValue(), references);
+			}
+		}
+	}
+
+	/**
+	 * Remove all singletons reachable from the given roots from the set of
+	 * sequentially instantiated singletons, without modifying the graph.
+	 */
+	private void markSchedulable(List<Node> roots, Set<String> sequential) {
+		Map<Node, Integer> remaining = new LinkedHashMap<Node, Integer>();
+		List<Node> queue = new ArrayList<Node>(roots);
+		while (!queue.isEmpty()) {
+			Node node = queue.remove(queue.size() - 1);
+			sequential.remove(node.beanName);
+			for (Node dependent : node.dependents) {
+				Integer count = remaining.get(dependent);
+				int newCount = (count != null ? count : dependent.pendingDependencies.get()) - 1;
+				remaining.put(dependent, newCount);
+				if (newCount == 0) {
+					queue.add(dependent);
+				}
+			}
+		}
+	}
+
+	private void execute(List<Node> roots, int nodeCount) {
+		final CountDownLatch latch = new CountDownLatch(nodeCount);
+		ForkJoinPool pool = ParallelProcessingUtils.createForkJoinPool(this.parallelism);
+		try {
+			for (Node root : roots) {
+				submit(pool, root, latch);
+			}
+			latch.await();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new FatalBeanException("Interrupted during parallel pre-instantiation of singletons", ex);
+		}
+		finally {
+			pool.shutdown();
+		}
+		Throwable ex = this.failure.get();
+		if (ex instanceof RuntimeException) {
+			throw (RuntimeException) ex;
+		}
+		if (ex instanceof Error) {
+			throw (Error) ex;
+		}
+	}
+
+	private void submit(final ForkJoinPool pool, final Node node, final CountDownLatch latch) {
+		pool.execute(new Runnable() {
+			public void run() {
+				try {
+					if (failure.get() == null) {
+						instantiate(node);
+					}
+				}
+				catch (Throwable ex) {
+					if (!failure.compareAndSet(null, ex) && logger.isDebugEnabled()) {
+						logger.debug("Additional failure during parallel pre-instantiation of singleton '" +
+								node.beanName + "'", ex);
+					}
+				}
+				finally {
+					for (Node dependent : node.dependents) {
+						if (dependent.pendingDependencies.decrementAndGet() == 0) {
+							submit(pool, dependent, latch);
+						}
+					}
+					latch.countDown();
+				}
+			}
+		});
+	}
+
+	private void instantiate(Node node) {
+		long startTime = System.nanoTime();
+		int active = this.activeCount.incrementAndGet();
+		int max = this.maxActiveCount.get();
+		while (active > max && !this.maxActiveCount.compareAndSet(max, active)) {
+			max = this.maxActiveCount.get();
+		}
+		try {
+			this.beanFactory.getBean(node.beanName);
+		}
+		finally {
+			this.activeCount.decrementAndGet();
+			this.busyNanos.addAndGet(System.nanoTime() - startTime);
+		}
+	}
+
+
+	/**
+	 * A singleton in the dependency graph.
+	 */
+	private static class Node {
+
+		private final String beanName;
+
+		private final List<Node> dependents = new ArrayList<Node>();
+
+		private final AtomicInteger pendingDependencies = new AtomicInteger();
+
+		public Node(String beanName) {
+			this.beanName = beanName;
+		}
+	}
+
+}
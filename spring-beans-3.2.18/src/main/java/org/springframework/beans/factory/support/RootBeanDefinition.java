@@ -254,6 +254,7 @@ public class RootBeanDefinition extends AbstractBeanDefinition {
 	 */
 	public void setDecoratedDefinition(BeanDefinitionHolder decoratedDefinition) {
 		this.decoratedDefinition = decoratedDefinition;
+		typeModified();
 	}
 
 	/**
@@ -268,6 +269,7 @@ public class RootBeanDefinition extends AbstractBeanDefinition {
 	 */
 	public void setTargetType(Class<?> targetType) {
 		this.targetType = targetType;
+		typeModified();
 	}
 
 	/**
@@ -0,0 +1,561 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.ls.LSInput;
+import org.w3c.dom.ls.LSResourceResolver;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.util.xml.XmlValidationModeDetector;
+
+/**
+ * {@link DocumentLoader} that shares XML parsing infrastructure between documents,
+ * for applications that load many XML bean definition files:
+ * <ul>
+ * <li>The XSD schemas referenced by the {@code xsi:schemaLocation} attribute of a
+ * document's root element are compiled once into a {@link Schema}, which is then
+ * used for validating every document declaring the same schema locations.
+ * <li>The content of entities (schemas and DTDs) resolved through the given
+ * {@link EntityResolver} is kept in memory, keyed by public and system id.
+ * <li>{@link DocumentBuilder} instances are pooled and {@link DocumentBuilder#reset() reset}
+ * for reuse instead of creating a new factory and builder for every document.
+ * </ul>
+ *
+ * <p>Documents that cannot be validated against a compiled schema (e.g. documents
+ * without a root {@code xsi:schemaLocation}, with further schema locations on nested
+ * elements or with schema locations that the {@link EntityResolver} cannot resolve,
+ * or invalid documents) are loaded the standard way, as done by
+ * {@link DefaultDocumentLoader}; validation errors are therefore reported just as
+ * without caching. Note that the caches assume all entity resolvers used with this
+ * loader to resolve a given public and system id to the same content, as is the
+ * case for Spring's schema and DTD mappings.
+ *
+ * <p>A single instance is meant to be shared, e.g. between the
+ * {@link XmlBeanDefinitionReader XmlBeanDefinitionReaders} of several application
+ * contexts, and is thread-safe.
+ *
+ * @since 3.2.18
+ * @see XmlBeanDefinitionReader#setDocumentLoader
+ */
+public class CachingDocumentLoader extends DefaultDocumentLoader {
+
+	private static final String SCHEMA_LOCATION_ATTRIBUTE = "schemaLocation";
+
+
+	private static final Log logger = LogFactory.getLog(CachingDocumentLoader.class);
+
+	private final XMLInputFactory inputFactory;
+
+	/** Compiled schemas, keyed by the schema locations of the root element */
+	private final ConcurrentMap<String, Schema> schemaCache = new ConcurrentHashMap<String, Schema>();
+
+	/** Content of resolved entities, keyed by public and system id */
+	private final ConcurrentMap<String, ResolvedEntity> entityCache = new ConcurrentHashMap<String, ResolvedEntity>();
+
+	/** Factories and pooled builders, keyed by configuration */
+	private final ConcurrentMap<String, BuilderPool> builderPools = new ConcurrentHashMap<String, BuilderPool>();
+
+	private final AtomicInteger schemaCompilationCount = new AtomicInteger();
+
+
+	public CachingDocumentLoader() {
+		this.inputFactory = XMLInputFactory.newInstance();
+		this.inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		this.inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+	}
+
+
+	/**
+	 * Return the number of schema sets compiled so far.
+	 */
+	public int getSchemaCompilationCount() {
+		return this.schemaCompilationCount.get();
+	}
+
+	/**
+	 * Clear the cached schemas, entities and document builders.
+	 */
+	public void clearCache() {
+		this.schemaCache.clear();
+		this.entityCache.clear();
+		this.builderPools.clear();
+	}
+
+
+	@Override
+	public Document loadDocument(InputSource inputSource, EntityResolver entityResolver,
+			ErrorHandler errorHandler, int validationMode, boolean namespaceAware) throws Exception {
+
+		EntityResolver cachingResolver = (entityResolver != null ? new CachingEntityResolver(entityResolver) : null);
+		if (validationMode != XmlValidationModeDetector.VALIDATION_XSD ||
+				(inputSource.getByteStream() == null && inputSource.getCharacterStream() == null)) {
+			return parse(inputSource, getBuilderPool(validationMode, namespaceAware, null, null),
+					cachingResolver, errorHandler);
+		}
+
+		// Buffer the content, for reading the root element before the actual parsing.
+		InputSourceContent content = new InputSourceContent(inputSource);
+		String schemaLocation = null;
+		try {
+			schemaLocation = readRootSchemaLocation(content.createInputSource());
+		}
+		catch (Exception ex) {
+			// Not well-formed: leave the error reporting to the standard parsing below
+		}
+		if (StringUtils.hasText(schemaLocation)) {
+			try {
+				Schema schema = getSchema(schemaLocation, cachingResolver);
+				if (schema != null) {
+					return parse(content.createInputSource(), getBuilderPool(validationMode, true, schemaLocation, schema),
+							cachingResolver, new FallbackErrorHandler(errorHandler));
+				}
+			}
+			catch (Exception ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Cannot validate XML document against compiled schema for [" + schemaLocation +
+							"] - falling back to standard validation: " + ex);
+				}
+			}
+		}
+		return parse(content.createInputSource(), getBuilderPool(validationMode, namespaceAware, null, null),
+				cachingResolver, errorHandler);
+	}
+
+	private Document parse(InputSource inputSource, BuilderPool pool, EntityResolver entityResolver,
+			ErrorHandler errorHandler) throws Exception {
+
+		DocumentBuilder builder = pool.obtain();
+		try {
+			if (entityResolver != null) {
+				builder.setEntityResolver(entityResolver);
+			}
+			if (errorHandler != null) {
+				builder.setErrorHandler(errorHandler);
+			}
+			return builder.parse(inputSource);
+		}
+		finally {
+			builder.reset();
+			pool.release(builder);
+		}
+	}
+
+	/**
+	 * Read the value of the {@code xsi:schemaLocation} attribute of the document's root element.
+	 */
+	private String readRootSchemaLocation(InputSource inputSource) throws Exception {
+		XMLStreamReader reader;
+		synchronized (this.inputFactory) {
+			reader = (inputSource.getCharacterStream() != null ?
+					this.inputFactory.createXMLStreamReader(inputSource.getCharacterStream()) :
+					(inputSource.getEncoding() != null ?
+							this.inputFactory.createXMLStreamReader(inputSource.getByteStream(), inputSource.getEncoding()) :
+							this.inputFactory.createXMLStreamReader(inputSource.getByteStream())));
+		}
+		try {
+			while (reader.hasNext()) {
+				if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+					return reader.getAttributeValue(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, SCHEMA_LOCATION_ATTRIBUTE);
+				}
+			}
+			return null;
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Obtain the compiled schema for the given {@code xsi:schemaLocation} value,
+	 * compiling it if necessary.
+	 * @return the compiled schema, or {@code null} if any of the schema locations
+	 * cannot be resolved through the given EntityResolver (in which case the
+	 * document gets loaded the standard way instead of fetching the schema
+	 * from its location here)
+	 */
+	private Schema getSchema(String schemaLocation, EntityResolver entityResolver) throws Exception {
+		String[] tokens = StringUtils.tokenizeToStringArray(schemaLocation, " \t\r\n");
+		String key = StringUtils.arrayToDelimitedString(tokens, " ");
+		Schema schema = this.schemaCache.get(key);
+		if (schema == null) {
+			List<Source> sources = new ArrayList<Source>();
+			for (int i = 1; i < tokens.length; i += 2) {
+				InputSource resolved = (entityResolver != null ? entityResolver.resolveEntity(null, tokens[i]) : null);
+				if (resolved == null || resolved.getByteStream() == null) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Cannot resolve XML schema [" + tokens[i] + "] locally - not compiling schema for [" +
+								key + "]");
+					}
+					return null;
+				}
+				sources.add(new StreamSource(resolved.getByteStream(), tokens[i]));
+			}
+			SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+			if (entityResolver != null) {
+				schemaFactory.setResourceResolver(new EntityResourceResolver(entityResolver));
+			}
+			schema = schemaFactory.newSchema(sources.toArray(new Source[sources.size()]));
+			this.schemaCompilationCount.incrementAndGet();
+			if (logger.isDebugEnabled()) {
+				logger.debug("Compiled XML schema for [" + key + "]");
+			}
+			Schema existing = this.schemaCache.putIfAbsent(key, schema);
+			if (existing != null) {
+				schema = existing;
+			}
+		}
+		return schema;
+	}
+
+	private BuilderPool getBuilderPool(int validationMode, boolean namespaceAware, String schemaKey, Schema schema)
+			throws Exception {
+
+		String key = (schema != null ? "schema:" + schemaKey : validationMode + ":" + namespaceAware);
+		BuilderPool pool = this.builderPools.get(key);
+		if (pool == null) {
+			DocumentBuilderFactory factory;
+			if (schema != null) {
+				factory = DocumentBuilderFactory.newInstance();
+				factory.setNamespaceAware(true);
+				factory.setSchema(schema);
+			}
+			else {
+				factory = createDocumentBuilderFactory(validationMode, namespaceAware);
+			}
+			pool = new BuilderPool(factory);
+			BuilderPool existing = this.builderPools.putIfAbsent(key, pool);
+			if (existing != null) {
+				pool = existing;
+			}
+		}
+		return pool;
+	}
+
+
+	/**
+	 * A factory with a pool of the document builders that it created.
+	 */
+	private static class BuilderPool {
+
+		private final DocumentBuilderFactory factory;
+
+		private final Queue<DocumentBuilder> builders = new ConcurrentLinkedQueue<DocumentBuilder>();
+
+		public BuilderPool(DocumentBuilderFactory factory) {
+			this.factory = factory;
+		}
+
+		public DocumentBuilder obtain() throws Exception {
+			DocumentBuilder builder = this.builders.poll();
+			if (builder == null) {
+				synchronized (this.factory) {
+					builder = this.factory.newDocumentBuilder();
+				}
+			}
+			return builder;
+		}
+
+		public void release(DocumentBuilder builder) {
+			this.builders.offer(builder);
+		}
+	}
+
+
+	/**
+	 * The content of an InputSource, read into memory so that it can be parsed more than once.
+	 */
+	private static class InputSourceContent {
+
+		private final InputSource original;
+
+		private final byte[] bytes;
+
+		private final String characters;
+
+		public InputSourceContent(InputSource original) throws Exception {
+			this.original = original;
+			Reader reader = original.getCharacterStream();
+			if (reader != null) {
+				this.characters = FileCopyUtils.copyToString(reader);
+				this.bytes = null;
+			}
+			else {
+				this.bytes = FileCopyUtils.copyToByteArray(original.getByteStream());
+				this.characters = null;
+			}
+		}
+
+		public InputSource createInputSource() {
+			InputSource inputSource = new InputSource();
+			if (this.characters != null) {
+				inputSource.setCharacterStream(new StringReader(this.characters));
+			}
+			else {
+				inputSource.setByteStream(new ByteArrayInputStream(this.bytes));
+			}
+			inputSource.setEncoding(this.original.getEncoding());
+			inputSource.setPublicId(this.original.getPublicId());
+			inputSource.setSystemId(this.original.getSystemId());
+			return inputSource;
+		}
+	}
+
+
+	/**
+	 * The content of an entity as resolved by an EntityResolver.
+	 */
+	private static class ResolvedEntity {
+
+		private final byte[] content;
+
+		private final String systemId;
+
+		private final String encoding;
+
+		public ResolvedEntity(byte[] content, String systemId, String encoding) {
+			this.content = content;
+			this.systemId = systemId;
+			this.encoding = encoding;
+		}
+	}
+
+
+	/**
+	 * EntityResolver decorator that keeps the content of resolved
+	 * entities in this loader's cache.
+	 */
+	private class CachingEntityResolver implements EntityResolver {
+
+		private final EntityResolver targetResolver;
+
+		public CachingEntityResolver(EntityResolver targetResolver) {
+			this.targetResolver = targetResolver;
+		}
+
+		public InputSource resolveEntity(String publicId, String systemId) throws IOException, SAXException {
+
+			String key = publicId + " " + systemId;
+			ResolvedEntity entity = entityCache.get(key);
+			if (entity == null) {
+				InputSource source = this.targetResolver.resolveEntity(publicId, systemId);
+				if (source == null || source.getByteStream() == null) {
+					return source;
+				}
+				InputStream inputStream = source.getByteStream();
+				entity = new ResolvedEntity(FileCopyUtils.copyToByteArray(inputStream),
+						source.getSystemId(), source.getEncoding());
+				entityCache.putIfAbsent(key, entity);
+			}
+			InputSource source = new InputSource(new ByteArrayInputStream(entity.content));
+			source.setPublicId(publicId);
+			source.setSystemId(entity.systemId);
+			source.setEncoding(entity.encoding);
+			return source;
+		}
+	}
+
+
+	/**
+	 * Adapts an EntityResolver for resolving the resources
+	 * (includes and imports) referenced by schemas.
+	 */
+	private static class EntityResourceResolver implements LSResourceResolver {
+
+		private final EntityResolver entityResolver;
+
+		public EntityResourceResolver(EntityResolver entityResolver) {
+			this.entityResolver = entityResolver;
+		}
+
+		public LSInput resolveResource(String type, String namespaceURI, String publicId, String systemId,
+				String baseURI) {
+
+			if (systemId == null) {
+				return null;
+			}
+			try {
+				String resolvedSystemId = systemId;
+				if (baseURI != null) {
+					resolvedSystemId = new URI(baseURI).resolve(systemId).toString();
+				}
+				InputSource source = this.entityResolver.resolveEntity(publicId, resolvedSystemId);
+				if (source == null || source.getByteStream() == null) {
+					return null;
+				}
+				return new ResolvedInput(publicId, resolvedSystemId, baseURI, source.getByteStream(),
+						source.getEncoding());
+			}
+			catch (Exception ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Could not resolve schema resource [" + systemId + "]: " + ex);
+				}
+				return null;
+			}
+		}
+	}
+
+
+	/**
+	 * LSInput for a resolved schema resource.
+	 */
+	private static class ResolvedInput implements LSInput {
+
+		private String publicId;
+
+		private String systemId;
+
+		private String baseURI;
+
+		private InputStream byteStream;
+
+		private String encoding;
+
+		public ResolvedInput(String publicId, String systemId, String baseURI, InputStream byteStream,
+				String encoding) {
+
+			this.publicId = publicId;
+			this.systemId = systemId;
+			this.baseURI = baseURI;
+			this.byteStream = byteStream;
+			this.encoding = encoding;
+		}
+
+		public Reader getCharacterStream() {
+			return null;
+		}
+
+		public void setCharacterStream(Reader characterStream) {
+		}
+
+		public InputStream getByteStream() {
+			return this.byteStream;
+		}
+
+		public void setByteStream(InputStream byteStream) {
+			this.byteStream = byteStream;
+		}
+
+		public String getStringData() {
+			return null;
+		}
+
+		public void setStringData(String stringData) {
+		}
+
+		public String getSystemId() {
+			return this.systemId;
+		}
+
+		public void setSystemId(String systemId) {
+			this.systemId = systemId;
+		}
+
+		public String getPublicId() {
+			return this.publicId;
+		}
+
+		public void setPublicId(String publicId) {
+			this.publicId = publicId;
+		}
+
+		public String getBaseURI() {
+			return this.baseURI;
+		}
+
+		public void setBaseURI(String baseURI) {
+			this.baseURI = baseURI;
+		}
+
+		public String getEncoding() {
+			return this.encoding;
+		}
+
+		public void setEncoding(String encoding) {
+			this.encoding = encoding;
+		}
+
+		public boolean getCertifiedText() {
+			return false;
+		}
+
+		public void setCertifiedText(boolean certifiedText) {
+		}
+	}
+
+
+	/**
+	 * ErrorHandler for parsing against a compiled schema: passes warnings
+	 * on to the given handler but turns errors into exceptions, so that the
+	 * document gets parsed again the standard way for reporting them.
+	 */
+	private static class FallbackErrorHandler implements ErrorHandler {
+
+		private final ErrorHandler targetHandler;
+
+		public FallbackErrorHandler(ErrorHandler targetHandler) {
+			this.targetHandler = targetHandler;
+		}
+
+		public void warning(SAXParseException ex) throws SAXException {
+			if (this.targetHandler != null) {
+				this.targetHandler.warning(ex);
+			}
+		}
+
+		public void error(SAXParseException ex) throws SAXException {
+			throw ex;
+		}
+
+		public void fatalError(SAXParseException ex) throws SAXException {
+			throw ex;
+		}
+	}
+
+}
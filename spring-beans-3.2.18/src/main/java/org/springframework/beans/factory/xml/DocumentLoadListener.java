@@ -0,0 +1,45 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Callback interface for monitoring the loading of XML documents
+ * by an {@link XmlBeanDefinitionReader}, e.g. for finding out which
+ * configuration files account for most of the startup time.
+ *
+ * <p>Note that documents may be loaded on several threads concurrently
+ * if the reader has been configured for parallel loading, so
+ * implementations need to be thread-safe.
+ *
+ * @since 3.2.18
+ * @see XmlBeanDefinitionReader#setDocumentLoadListener
+ */
+public interface DocumentLoadListener {
+
+	/**
+	 * Notification that the XML document for the given resource has been loaded.
+	 * @param resource the resource that the document has been loaded from
+	 * @param validationMode the validation mode used
+	 * (see {@link XmlBeanDefinitionReader#VALIDATION_XSD} etc)
+	 * @param loadTime the time spent parsing and validating the document
+	 * through the {@link DocumentLoader}, in nanoseconds
+	 */
+	void documentLoaded(Resource resource, int validationMode, long loadTime);
+
+}
@@ -0,0 +1,1783 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.BeanMetadataAttribute;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.FieldRetrievingFactoryBean;
+import org.springframework.beans.factory.config.ListFactoryBean;
+import org.springframework.beans.factory.config.MapFactoryBean;
+import org.springframework.beans.factory.config.PropertiesFactoryBean;
+import org.springframework.beans.factory.config.PropertyPathFactoryBean;
+import org.springframework.beans.factory.config.RuntimeBeanNameReference;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.SetFactoryBean;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.beans.factory.parsing.BeanComponentDefinition;
+import org.springframework.beans.factory.parsing.BeanEntry;
+import org.springframework.beans.factory.parsing.ConstructorArgumentEntry;
+import org.springframework.beans.factory.parsing.NullSourceExtractor;
+import org.springframework.beans.factory.parsing.ParseState;
+import org.springframework.beans.factory.parsing.PropertyEntry;
+import org.springframework.beans.factory.parsing.QualifierEntry;
+import org.springframework.beans.factory.parsing.ReaderContext;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.AutowireCandidateQualifier;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.BeanDefinitionReaderUtils;
+import org.springframework.beans.factory.support.LookupOverride;
+import org.springframework.beans.factory.support.ManagedArray;
+import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.beans.factory.support.ManagedMap;
+import org.springframework.beans.factory.support.ManagedProperties;
+import org.springframework.beans.factory.support.ManagedSet;
+import org.springframework.beans.factory.support.ReplaceOverride;
+import org.springframework.core.Conventions;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.PatternMatchUtils;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StringUtils;
+
+import static org.springframework.beans.factory.xml.BeanDefinitionParserDelegate.*;
+
+/**
+ * Parses the bean definitions in a single XML document from a StAX
+ * {@link XMLStreamReader}, registering each top-level bean definition as soon
+ * as its element has been read, without building a DOM.
+ *
+ * <p>Follows the rules of {@link DefaultBeanDefinitionDocumentReader} and
+ * {@link BeanDefinitionParserDelegate} for the "beans" namespace, and those of
+ * {@link UtilNamespaceHandler}, {@link SimplePropertyNamespaceHandler} and
+ * {@link SimpleConstructorNamespaceHandler} for the "util", "p" and "c"
+ * namespaces. Since the document is not validated, the attribute defaults
+ * declared by the "spring-beans" schema (or DTD, for documents that declare
+ * a DOCTYPE) are applied by this parser itself.
+ *
+ * @since 3.2.18
+ * @see StaxXmlBeanDefinitionReader
+ */
+class StaxBeanDefinitionParser {
+
+	static final String UTIL_NAMESPACE_URI = "http://www.springframework.org/schema/util";
+
+	static final String P_NAMESPACE_URI = "http://www.springframework.org/schema/p";
+
+	static final String C_NAMESPACE_URI = "http://www.springframework.org/schema/c";
+
+	private static final String SPRING_NAMESPACE_PREFIX = "http://www.springframework.org/";
+
+	private static final String DEFAULT_QUALIFIER_TYPE = "org.springframework.beans.factory.annotation.Qualifier";
+
+	private static final String REF_SUFFIX = "-ref";
+
+	private static final String SCOPE_ATTRIBUTE = "scope";
+
+	/** Attribute defaults declared by the "spring-beans" schema, per element name */
+	private static final Map<String, Map<String, String>> schemaAttributeDefaults =
+			new HashMap<String, Map<String, String>>();
+
+	/** Attribute defaults declared by the "spring-beans" DTD, per element name */
+	private static final Map<String, Map<String, String>> dtdAttributeDefaults =
+			new HashMap<String, Map<String, String>>();
+
+	static {
+		addAttributeDefault(schemaAttributeDefaults, "beans", DEFAULT_LAZY_INIT_ATTRIBUTE, DEFAULT_VALUE);
+		addAttributeDefault(schemaAttributeDefaults, "beans", DEFAULT_MERGE_ATTRIBUTE, DEFAULT_VALUE);
+		addAttributeDefault(schemaAttributeDefaults, "beans", DEFAULT_AUTOWIRE_ATTRIBUTE, DEFAULT_VALUE);
+		addAttributeDefault(schemaAttributeDefaults, BEAN_ELEMENT, LAZY_INIT_ATTRIBUTE, DEFAULT_VALUE);
+		addAttributeDefault(schemaAttributeDefaults, BEAN_ELEMENT, AUTOWIRE_ATTRIBUTE, DEFAULT_VALUE);
+		addAttributeDefault(schemaAttributeDefaults, BEAN_ELEMENT, AUTOWIRE_CANDIDATE_ATTRIBUTE, DEFAULT_VALUE);
+		addAttributeDefault(schemaAttributeDefaults, QUALIFIER_ELEMENT, TYPE_ATTRIBUTE, DEFAULT_QUALIFIER_TYPE);
+		for (String collectionElement : new String[] {ARRAY_ELEMENT, LIST_ELEMENT, SET_ELEMENT, MAP_ELEMENT, PROPS_ELEMENT}) {
+			addAttributeDefault(schemaAttributeDefaults, collectionElement, MERGE_ATTRIBUTE, DEFAULT_VALUE);
+		}
+
+		addAttributeDefault(dtdAttributeDefaults, "beans", DEFAULT_LAZY_INIT_ATTRIBUTE, FALSE_VALUE);
+		addAttributeDefault(dtdAttributeDefaults, "beans", DEFAULT_MERGE_ATTRIBUTE, FALSE_VALUE);
+		addAttributeDefault(dtdAttributeDefaults, "beans", DEFAULT_AUTOWIRE_ATTRIBUTE, AUTOWIRE_NO_VALUE);
+		addAttributeDefault(dtdAttributeDefaults, "beans", DEFAULT_DEPENDENCY_CHECK_ATTRIBUTE, "none");
+		addAttributeDefault(dtdAttributeDefaults, BEAN_ELEMENT, LAZY_INIT_ATTRIBUTE, DEFAULT_VALUE);
+		addAttributeDefault(dtdAttributeDefaults, BEAN_ELEMENT, AUTOWIRE_ATTRIBUTE, DEFAULT_VALUE);
+		addAttributeDefault(dtdAttributeDefaults, BEAN_ELEMENT, DEPENDENCY_CHECK_ATTRIBUTE, DEFAULT_VALUE);
+		for (String collectionElement : new String[] {LIST_ELEMENT, SET_ELEMENT, MAP_ELEMENT, PROPS_ELEMENT}) {
+			addAttributeDefault(dtdAttributeDefaults, collectionElement, MERGE_ATTRIBUTE, DEFAULT_VALUE);
+		}
+	}
+
+	private static void addAttributeDefault(Map<String, Map<String, String>> attributeDefaults,
+			String elementName, String attributeName, String value) {
+
+		Map<String, String> elementDefaults = attributeDefaults.get(elementName);
+		if (elementDefaults == null) {
+			elementDefaults = new HashMap<String, String>(4);
+			attributeDefaults.put(elementName, elementDefaults);
+		}
+		elementDefaults.put(attributeName, value);
+	}
+
+
+	private final Log logger = LogFactory.getLog(getClass());
+
+	private final StaxXmlBeanDefinitionReader reader;
+
+	private final ReaderContext readerContext;
+
+	private final XMLStreamReader xml;
+
+	private final boolean extractSources;
+
+	private final ParseState parseState = new ParseState();
+
+	private Map<String, Map<String, String>> attributeDefaults = schemaAttributeDefaults;
+
+	/** The defaults of the innermost {@code <beans>} element being parsed */
+	private DocumentDefaultsDefinition defaults;
+
+	/** The bean names used within the innermost {@code <beans>} element being parsed */
+	private Set<String> usedNames;
+
+
+	/**
+	 * Create a new parser for the given document.
+	 * @param reader the reader that loads the document
+	 * @param readerContext the context for the document's resource
+	 * @param xml the stream reader for the document, positioned at its start
+	 */
+	public StaxBeanDefinitionParser(StaxXmlBeanDefinitionReader reader, ReaderContext readerContext,
+			XMLStreamReader xml) {
+
+		this.reader = reader;
+		this.readerContext = readerContext;
+		this.xml = xml;
+		this.extractSources = !(readerContext.getSourceExtractor() instanceof NullSourceExtractor);
+	}
+
+
+	/**
+	 * Parse the document and register the bean definitions found.
+	 * @throws XMLStreamException if the document is not well-formed
+	 */
+	public void parse() throws XMLStreamException {
+		while (this.xml.hasNext()) {
+			int event = this.xml.next();
+			if (event == XMLStreamConstants.DTD) {
+				this.attributeDefaults = dtdAttributeDefaults;
+			}
+			else if (event == XMLStreamConstants.START_ELEMENT) {
+				XmlElement root = readElement();
+				if (isDefaultNamespace(root)) {
+					parseBeansElement(root);
+				}
+				else {
+					parseCustomElement(root, null);
+				}
+				return;
+			}
+		}
+	}
+
+
+	//---------------------------------------------------------------------
+	// Top-level elements
+	//---------------------------------------------------------------------
+
+	private void parseBeansElement(XmlElement root) throws XMLStreamException {
+		String profileSpec = root.getAttribute(DefaultBeanDefinitionDocumentReader.PROFILE_ATTRIBUTE);
+		if (StringUtils.hasText(profileSpec)) {
+			String[] specifiedProfiles = StringUtils.tokenizeToStringArray(
+					profileSpec, MULTI_VALUE_ATTRIBUTE_DELIMITERS);
+			if (!this.reader.getEnvironment().acceptsProfiles(specifiedProfiles)) {
+				skipElement();
+				return;
+			}
+		}
+
+		DocumentDefaultsDefinition parentDefaults = this.defaults;
+		Set<String> parentUsedNames = this.usedNames;
+		this.defaults = createDefaults(root, parentDefaults);
+		this.usedNames = new HashSet<String>();
+		this.readerContext.fireDefaultsRegistered(this.defaults);
+		try {
+			XmlElement ele;
+			while ((ele = nextChildElement()) != null) {
+				if (!isDefaultNamespace(ele)) {
+					parseCustomElement(ele, null);
+				}
+				else if (ele.nameEquals(BEAN_ELEMENT)) {
+					processBeanDefinition(ele);
+				}
+				else if (ele.nameEquals(DefaultBeanDefinitionDocumentReader.NESTED_BEANS_ELEMENT)) {
+					parseBeansElement(ele);
+				}
+				else if (ele.nameEquals(DefaultBeanDefinitionDocumentReader.ALIAS_ELEMENT)) {
+					skipElement();
+					processAliasRegistration(ele);
+				}
+				else if (ele.nameEquals(DefaultBeanDefinitionDocumentReader.IMPORT_ELEMENT)) {
+					skipElement();
+					importBeanDefinitionResource(ele);
+				}
+				else {
+					skipElement();
+				}
+			}
+		}
+		finally {
+			this.defaults = parentDefaults;
+			this.usedNames = parentUsedNames;
+		}
+	}
+
+	private DocumentDefaultsDefinition createDefaults(XmlElement root, DocumentDefaultsDefinition parentDefaults) {
+		DocumentDefaultsDefinition defaults = new DocumentDefaultsDefinition();
+		String lazyInit = root.getAttribute(DEFAULT_LAZY_INIT_ATTRIBUTE);
+		if (DEFAULT_VALUE.equals(lazyInit)) {
+			lazyInit = (parentDefaults != null ? parentDefaults.getLazyInit() : FALSE_VALUE);
+		}
+		defaults.setLazyInit(lazyInit);
+
+		String merge = root.getAttribute(DEFAULT_MERGE_ATTRIBUTE);
+		if (DEFAULT_VALUE.equals(merge)) {
+			merge = (parentDefaults != null ? parentDefaults.getMerge() : FALSE_VALUE);
+		}
+		defaults.setMerge(merge);
+
+		String autowire = root.getAttribute(DEFAULT_AUTOWIRE_ATTRIBUTE);
+		if (DEFAULT_VALUE.equals(autowire)) {
+			autowire = (parentDefaults != null ? parentDefaults.getAutowire() : AUTOWIRE_NO_VALUE);
+		}
+		defaults.setAutowire(autowire);
+
+		// No fallback to the parent defaults, as for BeanDefinitionParserDelegate.
+		defaults.setDependencyCheck(root.getAttribute(DEFAULT_DEPENDENCY_CHECK_ATTRIBUTE));
+
+		if (root.hasAttribute(DEFAULT_AUTOWIRE_CANDIDATES_ATTRIBUTE)) {
+			defaults.setAutowireCandidates(root.getAttribute(DEFAULT_AUTOWIRE_CANDIDATES_ATTRIBUTE));
+		}
+		else if (parentDefaults != null) {
+			defaults.setAutowireCandidates(parentDefaults.getAutowireCandidates());
+		}
+
+		if (root.hasAttribute(DEFAULT_INIT_METHOD_ATTRIBUTE)) {
+			defaults.setInitMethod(root.getAttribute(DEFAULT_INIT_METHOD_ATTRIBUTE));
+		}
+		else if (parentDefaults != null) {
+			defaults.setInitMethod(parentDefaults.getInitMethod());
+		}
+
+		if (root.hasAttribute(DEFAULT_DESTROY_METHOD_ATTRIBUTE)) {
+			defaults.setDestroyMethod(root.getAttribute(DEFAULT_DESTROY_METHOD_ATTRIBUTE));
+		}
+		else if (parentDefaults != null) {
+			defaults.setDestroyMethod(parentDefaults.getDestroyMethod());
+		}
+
+		defaults.setSource(extractSource(root));
+		return defaults;
+	}
+
+	private void importBeanDefinitionResource(XmlElement ele) {
+		String location = ele.getAttribute(DefaultBeanDefinitionDocumentReader.RESOURCE_ATTRIBUTE);
+		if (!StringUtils.hasText(location)) {
+			error("Resource location must not be empty", ele);
+			return;
+		}
+
+		// Resolve system properties: e.g. "${user.dir}"
+		location = this.reader.getEnvironment().resolveRequiredPlaceholders(location);
+
+		Set<Resource> actualResources = new LinkedHashSet<Resource>(4);
+		boolean absoluteLocation = false;
+		try {
+			absoluteLocation = ResourcePatternUtils.isUrl(location) || ResourceUtils.toURI(location).isAbsolute();
+		}
+		catch (URISyntaxException ex) {
+			// cannot convert to an URI, considering the location relative
+		}
+
+		if (absoluteLocation) {
+			try {
+				int importCount = this.reader.loadBeanDefinitions(location, actualResources);
+				if (logger.isDebugEnabled()) {
+					logger.debug("Imported " + importCount + " bean definitions from URL location [" + location + "]");
+				}
+			}
+			catch (BeanDefinitionStoreException ex) {
+				error("Failed to import bean definitions from URL location [" + location + "]", ele, ex);
+			}
+		}
+		else {
+			try {
+				int importCount;
+				Resource relativeResource = this.readerContext.getResource().createRelative(location);
+				if (relativeResource.exists()) {
+					importCount = this.reader.loadBeanDefinitions(relativeResource);
+					actualResources.add(relativeResource);
+				}
+				else {
+					String baseLocation = this.readerContext.getResource().getURL().toString();
+					importCount = this.reader.loadBeanDefinitions(
+							StringUtils.applyRelativePath(baseLocation, location), actualResources);
+				}
+				if (logger.isDebugEnabled()) {
+					logger.debug("Imported " + importCount + " bean definitions from relative location [" + location + "]");
+				}
+			}
+			catch (IOException ex) {
+				error("Failed to resolve current resource location", ele, ex);
+			}
+			catch (BeanDefinitionStoreException ex) {
+				error("Failed to import bean definitions from relative location [" + location + "]", ele, ex);
+			}
+		}
+		Resource[] actResArray = actualResources.toArray(new Resource[actualResources.size()]);
+		this.readerContext.fireImportProcessed(location, actResArray, extractSource(ele));
+	}
+
+	private void processAliasRegistration(XmlElement ele) {
+		String name = ele.getAttribute(DefaultBeanDefinitionDocumentReader.NAME_ATTRIBUTE);
+		String alias = ele.getAttribute(DefaultBeanDefinitionDocumentReader.ALIAS_ATTRIBUTE);
+		boolean valid = true;
+		if (!StringUtils.hasText(name)) {
+			error("Name must not be empty", ele);
+			valid = false;
+		}
+		if (!StringUtils.hasText(alias)) {
+			error("Alias must not be empty", ele);
+			valid = false;
+		}
+		if (valid) {
+			try {
+				this.reader.getRegistry().registerAlias(name, alias);
+			}
+			catch (Exception ex) {
+				error("Failed to register alias '" + alias + "' for bean with name '" + name + "'", ele, ex);
+			}
+			this.readerContext.fireAliasRegistered(name, alias, extractSource(ele));
+		}
+	}
+
+	private void processBeanDefinition(XmlElement ele) throws XMLStreamException {
+		BeanDefinitionHolder bdHolder = parseBeanDefinitionElement(ele, null);
+		if (bdHolder != null) {
+			try {
+				BeanDefinitionReaderUtils.registerBeanDefinition(bdHolder, this.reader.getRegistry());
+			}
+			catch (BeanDefinitionStoreException ex) {
+				error("Failed to register bean definition with name '" + bdHolder.getBeanName() + "'", ele, ex);
+			}
+			this.readerContext.fireComponentRegistered(new BeanComponentDefinition(bdHolder));
+		}
+	}
+
+
+	//---------------------------------------------------------------------
+	// Bean elements
+	//---------------------------------------------------------------------
+
+	private BeanDefinitionHolder parseBeanDefinitionElement(XmlElement ele, BeanDefinition containingBean)
+			throws XMLStreamException {
+
+		String id = ele.getAttribute(ID_ATTRIBUTE);
+		String nameAttr = ele.getAttribute(NAME_ATTRIBUTE);
+
+		List<String> aliases = new ArrayList<String>();
+		if (StringUtils.hasLength(nameAttr)) {
+			String[] nameArr = StringUtils.tokenizeToStringArray(nameAttr, MULTI_VALUE_ATTRIBUTE_DELIMITERS);
+			aliases.addAll(Arrays.asList(nameArr));
+		}
+
+		String beanName = id;
+		if (!StringUtils.hasText(beanName) && !aliases.isEmpty()) {
+			beanName = aliases.remove(0);
+		}
+
+		if (containingBean == null) {
+			checkNameUniqueness(beanName, aliases, ele);
+		}
+
+		AbstractBeanDefinition beanDefinition = parseBeanDefinition(ele, beanName, containingBean);
+		if (beanDefinition == null) {
+			return null;
+		}
+		if (!StringUtils.hasText(beanName)) {
+			try {
+				if (containingBean != null) {
+					beanName = BeanDefinitionReaderUtils.generateBeanName(
+							beanDefinition, this.reader.getRegistry(), true);
+				}
+				else {
+					beanName = this.reader.getBeanNameGenerator().generateBeanName(
+							beanDefinition, this.reader.getRegistry());
+					// Register an alias for the plain bean class name, if still possible,
+					// as done by BeanDefinitionParserDelegate.
+					String beanClassName = beanDefinition.getBeanClassName();
+					if (beanClassName != null &&
+							beanName.startsWith(beanClassName) && beanName.length() > beanClassName.length() &&
+							!this.reader.getRegistry().isBeanNameInUse(beanClassName)) {
+						aliases.add(beanClassName);
+					}
+				}
+			}
+			catch (Exception ex) {
+				error(ex.getMessage(), ele);
+				return null;
+			}
+		}
+		BeanDefinitionHolder holder = new BeanDefinitionHolder(beanDefinition, beanName, StringUtils.toStringArray(aliases));
+		return decorateBeanDefinitionIfRequired(ele, holder);
+	}
+
+	private void checkNameUniqueness(String beanName, List<String> aliases, XmlElement beanElement) {
+		String foundName = null;
+		if (StringUtils.hasText(beanName) && this.usedNames.contains(beanName)) {
+			foundName = beanName;
+		}
+		if (foundName == null) {
+			foundName = (String) CollectionUtils.findFirstMatch(this.usedNames, aliases);
+		}
+		if (foundName != null) {
+			error("Bean name '" + foundName + "' is already used in this <beans> element", beanElement);
+		}
+		this.usedNames.add(beanName);
+		this.usedNames.addAll(aliases);
+	}
+
+	private AbstractBeanDefinition parseBeanDefinition(XmlElement ele, String beanName, BeanDefinition containingBean)
+			throws XMLStreamException {
+
+		this.parseState.push(new BeanEntry(beanName));
+		try {
+			String className = null;
+			if (ele.hasAttribute(CLASS_ATTRIBUTE)) {
+				className = ele.getAttribute(CLASS_ATTRIBUTE).trim();
+			}
+			String parent = null;
+			if (ele.hasAttribute(PARENT_ATTRIBUTE)) {
+				parent = ele.getAttribute(PARENT_ATTRIBUTE);
+			}
+
+			AbstractBeanDefinition bd;
+			try {
+				bd = BeanDefinitionReaderUtils.createBeanDefinition(parent, className, this.reader.getBeanClassLoader());
+			}
+			catch (ClassNotFoundException ex) {
+				error("Bean class [" + className + "] not found", ele, ex);
+				skipElement();
+				return null;
+			}
+			catch (NoClassDefFoundError err) {
+				error("Class that bean class [" + className + "] depends on not found", ele, err);
+				skipElement();
+				return null;
+			}
+
+			parseBeanDefinitionAttributes(ele, beanName, containingBean, bd);
+			parseBeanDefinitionSubElements(ele, bd);
+			bd.setResource(this.readerContext.getResource());
+			bd.setSource(extractSource(ele));
+			return bd;
+		}
+		finally {
+			this.parseState.pop();
+		}
+	}
+
+	private void parseBeanDefinitionAttributes(XmlElement ele, String beanName,
+			BeanDefinition containingBean, AbstractBeanDefinition bd) {
+
+		if (ele.hasAttribute(SCOPE_ATTRIBUTE)) {
+			bd.setScope(ele.getAttribute(SCOPE_ATTRIBUTE));
+			if (ele.hasAttribute(SINGLETON_ATTRIBUTE)) {
+				error("Specify either 'scope' or 'singleton', not both", ele);
+			}
+		}
+		else if (ele.hasAttribute(SINGLETON_ATTRIBUTE)) {
+			bd.setScope(TRUE_VALUE.equals(ele.getAttribute(SINGLETON_ATTRIBUTE)) ?
+					BeanDefinition.SCOPE_SINGLETON : BeanDefinition.SCOPE_PROTOTYPE);
+		}
+		else if (containingBean != null) {
+			bd.setScope(containingBean.getScope());
+		}
+
+		if (ele.hasAttribute(ABSTRACT_ATTRIBUTE)) {
+			bd.setAbstract(TRUE_VALUE.equals(ele.getAttribute(ABSTRACT_ATTRIBUTE)));
+		}
+
+		String lazyInit = ele.getAttribute(LAZY_INIT_ATTRIBUTE);
+		if (DEFAULT_VALUE.equals(lazyInit)) {
+			lazyInit = this.defaults.getLazyInit();
+		}
+		bd.setLazyInit(TRUE_VALUE.equals(lazyInit));
+
+		bd.setAutowireMode(getAutowireMode(ele.getAttribute(AUTOWIRE_ATTRIBUTE)));
+		bd.setDependencyCheck(getDependencyCheck(ele.getAttribute(DEPENDENCY_CHECK_ATTRIBUTE)));
+
+		if (ele.hasAttribute(DEPENDS_ON_ATTRIBUTE)) {
+			String dependsOn = ele.getAttribute(DEPENDS_ON_ATTRIBUTE);
+			bd.setDependsOn(StringUtils.tokenizeToStringArray(dependsOn, MULTI_VALUE_ATTRIBUTE_DELIMITERS));
+		}
+
+		String autowireCandidate = ele.getAttribute(AUTOWIRE_CANDIDATE_ATTRIBUTE);
+		if ("".equals(autowireCandidate) || DEFAULT_VALUE.equals(autowireCandidate)) {
+			String candidatePattern = this.defaults.getAutowireCandidates();
+			if (candidatePattern != null) {
+				String[] patterns = StringUtils.commaDelimitedListToStringArray(candidatePattern);
+				bd.setAutowireCandidate(PatternMatchUtils.simpleMatch(patterns, beanName));
+			}
+		}
+		else {
+			bd.setAutowireCandidate(TRUE_VALUE.equals(autowireCandidate));
+		}
+
+		if (ele.hasAttribute(PRIMARY_ATTRIBUTE)) {
+			bd.setPrimary(TRUE_VALUE.equals(ele.getAttribute(PRIMARY_ATTRIBUTE)));
+		}
+
+		if (ele.hasAttribute(INIT_METHOD_ATTRIBUTE)) {
+			String initMethodName = ele.getAttribute(INIT_METHOD_ATTRIBUTE);
+			if (!"".equals(initMethodName)) {
+				bd.setInitMethodName(initMethodName);
+			}
+		}
+		else if (this.defaults.getInitMethod() != null) {
+			bd.setInitMethodName(this.defaults.getInitMethod());
+			bd.setEnforceInitMethod(false);
+		}
+
+		if (ele.hasAttribute(DESTROY_METHOD_ATTRIBUTE)) {
+			String destroyMethodName = ele.getAttribute(DESTROY_METHOD_ATTRIBUTE);
+			if (!"".equals(destroyMethodName)) {
+				bd.setDestroyMethodName(destroyMethodName);
+			}
+		}
+		else if (this.defaults.getDestroyMethod() != null) {
+			bd.setDestroyMethodName(this.defaults.getDestroyMethod());
+			bd.setEnforceDestroyMethod(false);
+		}
+
+		if (ele.hasAttribute(FACTORY_METHOD_ATTRIBUTE)) {
+			bd.setFactoryMethodName(ele.getAttribute(FACTORY_METHOD_ATTRIBUTE));
+		}
+		if (ele.hasAttribute(FACTORY_BEAN_ATTRIBUTE)) {
+			bd.setFactoryBeanName(ele.getAttribute(FACTORY_BEAN_ATTRIBUTE));
+		}
+	}
+
+	@SuppressWarnings("deprecation")
+	private int getAutowireMode(String att) {
+		if (DEFAULT_VALUE.equals(att)) {
+			att = this.defaults.getAutowire();
+		}
+		if (AUTOWIRE_BY_NAME_VALUE.equals(att)) {
+			return AbstractBeanDefinition.AUTOWIRE_BY_NAME;
+		}
+		else if (AUTOWIRE_BY_TYPE_VALUE.equals(att)) {
+			return AbstractBeanDefinition.AUTOWIRE_BY_TYPE;
+		}
+		else if (AUTOWIRE_CONSTRUCTOR_VALUE.equals(att)) {
+			return AbstractBeanDefinition.AUTOWIRE_CONSTRUCTOR;
+		}
+		else if (AUTOWIRE_AUTODETECT_VALUE.equals(att)) {
+			return AbstractBeanDefinition.AUTOWIRE_AUTODETECT;
+		}
+		return AbstractBeanDefinition.AUTOWIRE_NO;
+	}
+
+	private int getDependencyCheck(String att) {
+		if (DEFAULT_VALUE.equals(att)) {
+			att = this.defaults.getDependencyCheck();
+		}
+		if (DEPENDENCY_CHECK_ALL_ATTRIBUTE_VALUE.equals(att)) {
+			return AbstractBeanDefinition.DEPENDENCY_CHECK_ALL;
+		}
+		else if (DEPENDENCY_CHECK_OBJECTS_ATTRIBUTE_VALUE.equals(att)) {
+			return AbstractBeanDefinition.DEPENDENCY_CHECK_OBJECTS;
+		}
+		else if (DEPENDENCY_CHECK_SIMPLE_ATTRIBUTE_VALUE.equals(att)) {
+			return AbstractBeanDefinition.DEPENDENCY_CHECK_SIMPLE;
+		}
+		return AbstractBeanDefinition.DEPENDENCY_CHECK_NONE;
+	}
+
+	private void parseBeanDefinitionSubElements(XmlElement beanEle, AbstractBeanDefinition bd)
+			throws XMLStreamException {
+
+		boolean descriptionFound = false;
+		XmlElement ele;
+		while ((ele = nextChildElement()) != null) {
+			if (!isDefaultNamespace(ele)) {
+				unsupportedElement(ele);
+			}
+			else if (ele.nameEquals(PROPERTY_ELEMENT)) {
+				parsePropertyElement(ele, bd);
+			}
+			else if (ele.nameEquals(CONSTRUCTOR_ARG_ELEMENT)) {
+				parseConstructorArgElement(ele, bd);
+			}
+			else if (ele.nameEquals(META_ELEMENT)) {
+				bd.addMetadataAttribute(parseMetaElement(ele));
+			}
+			else if (ele.nameEquals(DESCRIPTION_ELEMENT) && !descriptionFound) {
+				bd.setDescription(readText());
+				descriptionFound = true;
+			}
+			else if (ele.nameEquals(QUALIFIER_ELEMENT)) {
+				parseQualifierElement(ele, bd);
+			}
+			else if (ele.nameEquals(LOOKUP_METHOD_ELEMENT)) {
+				skipElement();
+				LookupOverride override = new LookupOverride(
+						ele.getAttribute(NAME_ATTRIBUTE), ele.getAttribute(BEAN_ELEMENT));
+				override.setSource(extractSource(ele));
+				bd.getMethodOverrides().addOverride(override);
+			}
+			else if (ele.nameEquals(REPLACED_METHOD_ELEMENT)) {
+				parseReplacedMethodElement(ele, bd);
+			}
+			else {
+				skipElement();
+			}
+		}
+	}
+
+	private BeanMetadataAttribute parseMetaElement(XmlElement ele) throws XMLStreamException {
+		skipElement();
+		BeanMetadataAttribute attribute =
+				new BeanMetadataAttribute(ele.getAttribute(KEY_ATTRIBUTE), ele.getAttribute(VALUE_ATTRIBUTE));
+		attribute.setSource(extractSource(ele));
+		return attribute;
+	}
+
+	private void parseReplacedMethodElement(XmlElement replacedMethodEle, AbstractBeanDefinition bd)
+			throws XMLStreamException {
+
+		ReplaceOverride replaceOverride = new ReplaceOverride(
+				replacedMethodEle.getAttribute(NAME_ATTRIBUTE), replacedMethodEle.getAttribute(REPLACER_ATTRIBUTE));
+		XmlElement argTypeEle;
+		while ((argTypeEle = nextChildElement()) != null) {
+			if (argTypeEle.nameEquals(ARG_TYPE_ELEMENT)) {
+				String match = argTypeEle.getAttribute(ARG_TYPE_MATCH_ATTRIBUTE);
+				String text = readText();
+				match = (StringUtils.hasText(match) ? match : text);
+				if (StringUtils.hasText(match)) {
+					replaceOverride.addTypeIdentifier(match);
+				}
+			}
+			else {
+				skipElement();
+			}
+		}
+		replaceOverride.setSource(extractSource(replacedMethodEle));
+		bd.getMethodOverrides().addOverride(replaceOverride);
+	}
+
+	private void parseConstructorArgElement(XmlElement ele, BeanDefinition bd) throws XMLStreamException {
+		String indexAttr = ele.getAttribute(INDEX_ATTRIBUTE);
+		String typeAttr = ele.getAttribute(TYPE_ATTRIBUTE);
+		String nameAttr = ele.getAttribute(NAME_ATTRIBUTE);
+		int index = -1;
+		if (StringUtils.hasLength(indexAttr)) {
+			try {
+				index = Integer.parseInt(indexAttr);
+			}
+			catch (NumberFormatException ex) {
+				error("Attribute 'index' of tag 'constructor-arg' must be an integer", ele);
+				skipElement();
+				return;
+			}
+			if (index < 0) {
+				error("'index' cannot be lower than 0", ele);
+				skipElement();
+				return;
+			}
+		}
+
+		this.parseState.push(index >= 0 ? new ConstructorArgumentEntry(index) : new ConstructorArgumentEntry());
+		try {
+			Object value = parsePropertyValue(ele, bd, null, null);
+			ConstructorArgumentValues.ValueHolder valueHolder = new ConstructorArgumentValues.ValueHolder(value);
+			if (StringUtils.hasLength(typeAttr)) {
+				valueHolder.setType(typeAttr);
+			}
+			if (StringUtils.hasLength(nameAttr)) {
+				valueHolder.setName(nameAttr);
+			}
+			valueHolder.setSource(extractSource(ele));
+			if (index < 0) {
+				bd.getConstructorArgumentValues().addGenericArgumentValue(valueHolder);
+			}
+			else if (bd.getConstructorArgumentValues().hasIndexedArgumentValue(index)) {
+				error("Ambiguous constructor-arg entries for index " + index, ele);
+			}
+			else {
+				bd.getConstructorArgumentValues().addIndexedArgumentValue(index, valueHolder);
+			}
+		}
+		finally {
+			this.parseState.pop();
+		}
+	}
+
+	private void parsePropertyElement(XmlElement ele, BeanDefinition bd) throws XMLStreamException {
+		String propertyName = ele.getAttribute(NAME_ATTRIBUTE);
+		if (!StringUtils.hasLength(propertyName)) {
+			error("Tag 'property' must have a 'name' attribute", ele);
+			skipElement();
+			return;
+		}
+		this.parseState.push(new PropertyEntry(propertyName));
+		try {
+			if (bd.getPropertyValues().contains(propertyName)) {
+				error("Multiple 'property' definitions for property '" + propertyName + "'", ele);
+				skipElement();
+				return;
+			}
+			List<BeanMetadataAttribute> metaAttributes = new ArrayList<BeanMetadataAttribute>(0);
+			Object val = parsePropertyValue(ele, bd, propertyName, metaAttributes);
+			PropertyValue pv = new PropertyValue(propertyName, val);
+			for (BeanMetadataAttribute metaAttribute : metaAttributes) {
+				pv.addMetadataAttribute(metaAttribute);
+			}
+			pv.setSource(extractSource(ele));
+			bd.getPropertyValues().addPropertyValue(pv);
+		}
+		finally {
+			this.parseState.pop();
+		}
+	}
+
+	private void parseQualifierElement(XmlElement ele, AbstractBeanDefinition bd) throws XMLStreamException {
+		String typeName = ele.getAttribute(TYPE_ATTRIBUTE);
+		if (!StringUtils.hasLength(typeName)) {
+			error("Tag 'qualifier' must have a 'type' attribute", ele);
+			skipElement();
+			return;
+		}
+		this.parseState.push(new QualifierEntry(typeName));
+		try {
+			AutowireCandidateQualifier qualifier = new AutowireCandidateQualifier(typeName);
+			qualifier.setSource(extractSource(ele));
+			String value = ele.getAttribute(VALUE_ATTRIBUTE);
+			if (StringUtils.hasLength(value)) {
+				qualifier.setAttribute(AutowireCandidateQualifier.VALUE_KEY, value);
+			}
+			boolean valid = true;
+			XmlElement attributeEle;
+			while ((attributeEle = nextChildElement()) != null) {
+				skipElement();
+				if (valid && isDefaultNamespace(attributeEle) && attributeEle.nameEquals(QUALIFIER_ATTRIBUTE_ELEMENT)) {
+					String attributeName = attributeEle.getAttribute(KEY_ATTRIBUTE);
+					String attributeValue = attributeEle.getAttribute(VALUE_ATTRIBUTE);
+					if (StringUtils.hasLength(attributeName) && StringUtils.hasLength(attributeValue)) {
+						BeanMetadataAttribute attribute = new BeanMetadataAttribute(attributeName, attributeValue);
+						attribute.setSource(extractSource(attributeEle));
+						qualifier.addMetadataAttribute(attribute);
+					}
+					else {
+						error("Qualifier 'attribute' tag must have a 'name' and 'value'", attributeEle);
+						valid = false;
+					}
+				}
+			}
+			if (valid) {
+				bd.addQualifier(qualifier);
+			}
+		}
+		finally {
+			this.parseState.pop();
+		}
+	}
+
+	/**
+	 * Apply the "p" and "c" namespace attributes of the given bean element,
+	 * in the order of their qualified names (as in a DOM attribute map).
+	 */
+	private BeanDefinitionHolder decorateBeanDefinitionIfRequired(XmlElement ele, BeanDefinitionHolder holder) {
+		if (ele.customAttributes == null) {
+			return holder;
+		}
+		for (CustomAttribute attr : ele.getSortedCustomAttributes()) {
+			if (P_NAMESPACE_URI.equals(attr.namespaceUri)) {
+				decorateWithPropertyAttribute(attr, holder, ele);
+			}
+			else if (C_NAMESPACE_URI.equals(attr.namespaceUri)) {
+				decorateWithConstructorAttribute(attr, holder, ele);
+			}
+			else if (attr.namespaceUri.startsWith(SPRING_NAMESPACE_PREFIX)) {
+				error("Attribute '" + attr.qualifiedName + "' from XML schema namespace [" + attr.namespaceUri +
+						"] is not supported by " + StaxXmlBeanDefinitionReader.class.getSimpleName(), ele);
+			}
+			else if (logger.isDebugEnabled()) {
+				logger.debug("Ignoring attribute '" + attr.qualifiedName + "' from XML schema namespace [" +
+						attr.namespaceUri + "]");
+			}
+		}
+		return holder;
+	}
+
+	private void decorateWithPropertyAttribute(CustomAttribute attr, BeanDefinitionHolder holder, XmlElement ele) {
+		String propertyName = attr.localName;
+		MutablePropertyValues pvs = holder.getBeanDefinition().getPropertyValues();
+		if (pvs.contains(propertyName)) {
+			error("Property '" + propertyName + "' is already defined using " +
+					"both <property> and inline syntax. Only one approach may be used per property.", ele);
+		}
+		if (propertyName.endsWith(REF_SUFFIX)) {
+			propertyName = propertyName.substring(0, propertyName.length() - REF_SUFFIX.length());
+			pvs.add(Conventions.attributeNameToPropertyName(propertyName), new RuntimeBeanReference(attr.value));
+		}
+		else {
+			pvs.add(Conventions.attributeNameToPropertyName(propertyName), attr.value);
+		}
+	}
+
+	private void decorateWithConstructorAttribute(CustomAttribute attr, BeanDefinitionHolder holder, XmlElement ele) {
+		String argName = StringUtils.trimWhitespace(attr.localName);
+		String argValue = StringUtils.trimWhitespace(attr.value);
+		ConstructorArgumentValues cvs = holder.getBeanDefinition().getConstructorArgumentValues();
+		boolean ref = false;
+		if (argName.endsWith(REF_SUFFIX)) {
+			ref = true;
+			argName = argName.substring(0, argName.length() - REF_SUFFIX.length());
+		}
+		ConstructorArgumentValues.ValueHolder valueHolder =
+				new ConstructorArgumentValues.ValueHolder(ref ? new RuntimeBeanReference(argValue) : argValue);
+		valueHolder.setSource(extractSource(ele));
+
+		if (argName.startsWith("_")) {
+			String arg = argName.substring(1).trim();
+			if (!StringUtils.hasText(arg)) {
+				cvs.addGenericArgumentValue(valueHolder);
+			}
+			else {
+				int index = -1;
+				try {
+					index = Integer.parseInt(arg);
+				}
+				catch (NumberFormatException ex) {
+					error("Constructor argument '" + argName + "' specifies an invalid integer", ele);
+				}
+				if (index < 0) {
+					error("Constructor argument '" + argName + "' specifies a negative index", ele);
+				}
+				if (cvs.hasIndexedArgumentValue(index)) {
+					error("Constructor argument '" + argName + "' with index " + index +
+							" already defined using <constructor-arg>. Only one approach may be used per argument.", ele);
+				}
+				cvs.addIndexedArgumentValue(index, valueHolder);
+			}
+		}
+		else {
+			String name = Conventions.attributeNameToPropertyName(argName);
+			if (containsArgWithName(name, cvs)) {
+				error("Constructor argument '" + argName + "' already defined using <constructor-arg>." +
+						" Only one approach may be used per argument.", ele);
+			}
+			valueHolder.setName(name);
+			cvs.addGenericArgumentValue(valueHolder);
+		}
+	}
+
+	private static boolean containsArgWithName(String name, ConstructorArgumentValues cvs) {
+		for (ConstructorArgumentValues.ValueHolder holder : cvs.getGenericArgumentValues()) {
+			if (name.equals(holder.getName())) {
+				return true;
+			}
+		}
+		for (ConstructorArgumentValues.ValueHolder holder : cvs.getIndexedArgumentValues().values()) {
+			if (name.equals(holder.getName())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	//---------------------------------------------------------------------
+	// Values
+	//---------------------------------------------------------------------
+
+	/**
+	 * Parse the value of a property or constructor-arg element, consuming the element.
+	 * @param metaAttributes the list to add meta sub-elements to,
+	 * or {@code null} if these are to be ignored
+	 */
+	private Object parsePropertyValue(XmlElement ele, BeanDefinition bd, String propertyName,
+			List<BeanMetadataAttribute> metaAttributes) throws XMLStreamException {
+
+		String elementName = (propertyName != null) ?
+				"<property> element for property '" + propertyName + "'" :
+				"<constructor-arg> element";
+		boolean hasRefAttribute = ele.hasAttribute(REF_ATTRIBUTE);
+		boolean hasValueAttribute = ele.hasAttribute(VALUE_ATTRIBUTE);
+
+		boolean hasSubElement = false;
+		Object subElementValue = null;
+		XmlElement subElement;
+		while ((subElement = nextChildElement()) != null) {
+			if (subElement.nameEquals(DESCRIPTION_ELEMENT)) {
+				skipElement();
+			}
+			else if (subElement.nameEquals(META_ELEMENT)) {
+				BeanMetadataAttribute metaAttribute = parseMetaElement(subElement);
+				if (metaAttributes != null && isDefaultNamespace(subElement)) {
+					metaAttributes.add(metaAttribute);
+				}
+			}
+			else if (hasSubElement) {
+				error(elementName + " must not contain more than one sub-element", ele);
+				skipElement();
+			}
+			else {
+				hasSubElement = true;
+				if (hasRefAttribute || hasValueAttribute) {
+					skipElement();
+				}
+				else {
+					subElementValue = parsePropertySubElement(subElement, bd, null);
+				}
+			}
+		}
+
+		if ((hasRefAttribute && hasValueAttribute) || ((hasRefAttribute || hasValueAttribute) && hasSubElement)) {
+			error(elementName +
+					" is only allowed to contain either 'ref' attribute OR 'value' attribute OR sub-element", ele);
+		}
+
+		if (hasRefAttribute) {
+			String refName = ele.getAttribute(REF_ATTRIBUTE);
+			if (!StringUtils.hasText(refName)) {
+				error(elementName + " contains empty 'ref' attribute", ele);
+			}
+			RuntimeBeanReference ref = new RuntimeBeanReference(refName);
+			ref.setSource(extractSource(ele));
+			return ref;
+		}
+		else if (hasValueAttribute) {
+			TypedStringValue valueHolder = new TypedStringValue(ele.getAttribute(VALUE_ATTRIBUTE));
+			valueHolder.setSource(extractSource(ele));
+			return valueHolder;
+		}
+		else if (hasSubElement) {
+			return subElementValue;
+		}
+		else {
+			error(elementName + " must specify a ref or value", ele);
+			return null;
+		}
+	}
+
+	/**
+	 * Parse a value, ref or collection element, consuming the element.
+	 */
+	private Object parsePropertySubElement(XmlElement ele, BeanDefinition bd, String defaultValueType)
+			throws XMLStreamException {
+
+		if (!isDefaultNamespace(ele)) {
+			return parseNestedCustomElement(ele, bd);
+		}
+		else if (ele.nameEquals(BEAN_ELEMENT)) {
+			return parseBeanDefinitionElement(ele, bd);
+		}
+		else if (ele.nameEquals(REF_ELEMENT)) {
+			skipElement();
+			String refName = ele.getAttribute(BEAN_REF_ATTRIBUTE);
+			boolean toParent = false;
+			if (!StringUtils.hasLength(refName)) {
+				refName = ele.getAttribute(LOCAL_REF_ATTRIBUTE);
+				if (!StringUtils.hasLength(refName)) {
+					refName = ele.getAttribute(PARENT_REF_ATTRIBUTE);
+					toParent = true;
+					if (!StringUtils.hasLength(refName)) {
+						error("'bean', 'local' or 'parent' is required for <ref> element", ele);
+						return null;
+					}
+				}
+			}
+			if (!StringUtils.hasText(refName)) {
+				error("<ref> element contains empty target attribute", ele);
+				return null;
+			}
+			RuntimeBeanReference ref = new RuntimeBeanReference(refName, toParent);
+			ref.setSource(extractSource(ele));
+			return ref;
+		}
+		else if (ele.nameEquals(VALUE_ELEMENT)) {
+			return parseValueElement(ele, defaultValueType);
+		}
+		else if (ele.nameEquals(IDREF_ELEMENT)) {
+			skipElement();
+			String refName = ele.getAttribute(BEAN_REF_ATTRIBUTE);
+			if (!StringUtils.hasLength(refName)) {
+				refName = ele.getAttribute(LOCAL_REF_ATTRIBUTE);
+				if (!StringUtils.hasLength(refName)) {
+					error("Either 'bean' or 'local' is required for <idref> element", ele);
+					return null;
+				}
+			}
+			if (!StringUtils.hasText(refName)) {
+				error("<idref> element contains empty target attribute", ele);
+				return null;
+			}
+			RuntimeBeanNameReference ref = new RuntimeBeanNameReference(refName);
+			ref.setSource(extractSource(ele));
+			return ref;
+		}
+		else if (ele.nameEquals(NULL_ELEMENT)) {
+			skipElement();
+			TypedStringValue nullHolder = new TypedStringValue(null);
+			nullHolder.setSource(extractSource(ele));
+			return nullHolder;
+		}
+		else if (ele.nameEquals(LIST_ELEMENT)) {
+			return parseListElement(ele, bd);
+		}
+		else if (ele.nameEquals(MAP_ELEMENT)) {
+			return parseMapElement(ele, bd);
+		}
+		else if (ele.nameEquals(SET_ELEMENT)) {
+			return parseSetElement(ele, bd);
+		}
+		else if (ele.nameEquals(PROPS_ELEMENT)) {
+			return parsePropsElement(ele);
+		}
+		else if (ele.nameEquals(ARRAY_ELEMENT)) {
+			String elementType = ele.getAttribute(VALUE_TYPE_ATTRIBUTE);
+			ManagedArray target = new ManagedArray(elementType, 4);
+			target.setSource(extractSource(ele));
+			target.setElementTypeName(elementType);
+			target.setMergeEnabled(parseMergeAttribute(ele));
+			parseCollectionElements(target, bd, elementType);
+			return target;
+		}
+		else {
+			error("Unknown property sub-element: [" + ele.getNodeName() + "]", ele);
+			skipElement();
+			return null;
+		}
+	}
+
+	private Object parseValueElement(XmlElement ele, String defaultTypeName) throws XMLStreamException {
+		String value = readText();
+		String specifiedTypeName = ele.getAttribute(TYPE_ATTRIBUTE);
+		String typeName = specifiedTypeName;
+		if (!StringUtils.hasText(typeName)) {
+			typeName = defaultTypeName;
+		}
+		try {
+			TypedStringValue typedValue = buildTypedStringValue(value, typeName);
+			typedValue.setSource(extractSource(ele));
+			typedValue.setSpecifiedTypeName(specifiedTypeName);
+			return typedValue;
+		}
+		catch (ClassNotFoundException ex) {
+			error("Type class [" + typeName + "] not found for <value> element", ele, ex);
+			return value;
+		}
+	}
+
+	private TypedStringValue buildTypedStringValue(String value, String targetTypeName)
+			throws ClassNotFoundException {
+
+		ClassLoader classLoader = this.reader.getBeanClassLoader();
+		if (!StringUtils.hasText(targetTypeName)) {
+			return new TypedStringValue(value);
+		}
+		else if (classLoader != null) {
+			return new TypedStringValue(value, ClassUtils.forName(targetTypeName, classLoader));
+		}
+		else {
+			return new TypedStringValue(value, targetTypeName);
+		}
+	}
+
+	private Object buildTypedStringValueForMap(String value, String defaultTypeName, XmlElement entryEle) {
+		try {
+			TypedStringValue typedValue = buildTypedStringValue(value, defaultTypeName);
+			typedValue.setSource(extractSource(entryEle));
+			return typedValue;
+		}
+		catch (ClassNotFoundException ex) {
+			error("Type class [" + defaultTypeName + "] not found for Map key/value type", entryEle, ex);
+			return value;
+		}
+	}
+
+	private List<Object> parseListElement(XmlElement collectionEle, BeanDefinition bd) throws XMLStreamException {
+		String defaultElementType = collectionEle.getAttribute(VALUE_TYPE_ATTRIBUTE);
+		ManagedList<Object> target = new ManagedList<Object>();
+		target.setSource(extractSource(collectionEle));
+		target.setElementTypeName(defaultElementType);
+		target.setMergeEnabled(parseMergeAttribute(collectionEle));
+		parseCollectionElements(target, bd, defaultElementType);
+		return target;
+	}
+
+	private Set<Object> parseSetElement(XmlElement collectionEle, BeanDefinition bd) throws XMLStreamException {
+		String defaultElementType = collectionEle.getAttribute(VALUE_TYPE_ATTRIBUTE);
+		ManagedSet<Object> target = new ManagedSet<Object>();
+		target.setSource(extractSource(collectionEle));
+		target.setElementTypeName(defaultElementType);
+		target.setMergeEnabled(parseMergeAttribute(collectionEle));
+		parseCollectionElements(target, bd, defaultElementType);
+		return target;
+	}
+
+	private void parseCollectionElements(Collection<Object> target, BeanDefinition bd, String defaultElementType)
+			throws XMLStreamException {
+
+		XmlElement ele;
+		while ((ele = nextChildElement()) != null) {
+			if (ele.nameEquals(DESCRIPTION_ELEMENT)) {
+				skipElement();
+			}
+			else {
+				target.add(parsePropertySubElement(ele, bd, defaultElementType));
+			}
+		}
+	}
+
+	private Map<Object, Object> parseMapElement(XmlElement mapEle, BeanDefinition bd) throws XMLStreamException {
+		String defaultKeyType = mapEle.getAttribute(KEY_TYPE_ATTRIBUTE);
+		String defaultValueType = mapEle.getAttribute(VALUE_TYPE_ATTRIBUTE);
+		ManagedMap<Object, Object> map = new ManagedMap<Object, Object>();
+		map.setSource(extractSource(mapEle));
+		map.setKeyTypeName(defaultKeyType);
+		map.setValueTypeName(defaultValueType);
+		map.setMergeEnabled(parseMergeAttribute(mapEle));
+
+		XmlElement entryEle;
+		while ((entryEle = nextChildElement()) != null) {
+			if (entryEle.nameEquals(ENTRY_ELEMENT)) {
+				parseEntryElement(entryEle, map, bd, defaultKeyType, defaultValueType);
+			}
+			else {
+				skipElement();
+			}
+		}
+		return map;
+	}
+
+	private void parseEntryElement(XmlElement entryEle, Map<Object, Object> map, BeanDefinition bd,
+			String defaultKeyType, String defaultValueType) throws XMLStreamException {
+
+		boolean hasKeyElement = false;
+		Object keyElementValue = null;
+		boolean hasValueElement = false;
+		Object valueElementValue = null;
+		XmlElement ele;
+		while ((ele = nextChildElement()) != null) {
+			if (ele.nameEquals(KEY_ELEMENT)) {
+				if (hasKeyElement) {
+					error("<entry> element is only allowed to contain one <key> sub-element", entryEle);
+					skipElement();
+				}
+				else {
+					hasKeyElement = true;
+					keyElementValue = parseKeyElement(ele, bd, defaultKeyType);
+				}
+			}
+			else if (ele.nameEquals(DESCRIPTION_ELEMENT)) {
+				skipElement();
+			}
+			else if (hasValueElement) {
+				error("<entry> element must not contain more than one value sub-element", entryEle);
+				skipElement();
+			}
+			else {
+				hasValueElement = true;
+				valueElementValue = parsePropertySubElement(ele, bd, defaultValueType);
+			}
+		}
+
+		// Extract key from attribute or sub-element.
+		Object key = null;
+		boolean hasKeyAttribute = entryEle.hasAttribute(KEY_ATTRIBUTE);
+		boolean hasKeyRefAttribute = entryEle.hasAttribute(KEY_REF_ATTRIBUTE);
+		if ((hasKeyAttribute && hasKeyRefAttribute) || ((hasKeyAttribute || hasKeyRefAttribute) && hasKeyElement)) {
+			error("<entry> element is only allowed to contain either " +
+					"a 'key' attribute OR a 'key-ref' attribute OR a <key> sub-element", entryEle);
+		}
+		if (hasKeyAttribute) {
+			key = buildTypedStringValueForMap(entryEle.getAttribute(KEY_ATTRIBUTE), defaultKeyType, entryEle);
+		}
+		else if (hasKeyRefAttribute) {
+			String refName = entryEle.getAttribute(KEY_REF_ATTRIBUTE);
+			if (!StringUtils.hasText(refName)) {
+				error("<entry> element contains empty 'key-ref' attribute", entryEle);
+			}
+			RuntimeBeanReference ref = new RuntimeBeanReference(refName);
+			ref.setSource(extractSource(entryEle));
+			key = ref;
+		}
+		else if (hasKeyElement) {
+			key = keyElementValue;
+		}
+		else {
+			error("<entry> element must specify a key", entryEle);
+		}
+
+		// Extract value from attribute or sub-element.
+		Object value = null;
+		boolean hasValueAttribute = entryEle.hasAttribute(VALUE_ATTRIBUTE);
+		boolean hasValueRefAttribute = entryEle.hasAttribute(VALUE_REF_ATTRIBUTE);
+		boolean hasValueTypeAttribute = entryEle.hasAttribute(VALUE_TYPE_ATTRIBUTE);
+		if ((hasValueAttribute && hasValueRefAttribute) ||
+				((hasValueAttribute || hasValueRefAttribute) && hasValueElement)) {
+			error("<entry> element is only allowed to contain either " +
+					"'value' attribute OR 'value-ref' attribute OR <value> sub-element", entryEle);
+		}
+		if ((hasValueTypeAttribute && hasValueRefAttribute) ||
+				(hasValueTypeAttribute && !hasValueAttribute) ||
+				(hasValueTypeAttribute && hasValueElement)) {
+			error("<entry> element is only allowed to contain a 'value-type' " +
+					"attribute when it has a 'value' attribute", entryEle);
+		}
+		if (hasValueAttribute) {
+			String valueType = entryEle.getAttribute(VALUE_TYPE_ATTRIBUTE);
+			if (!StringUtils.hasText(valueType)) {
+				valueType = defaultValueType;
+			}
+			value = buildTypedStringValueForMap(entryEle.getAttribute(VALUE_ATTRIBUTE), valueType, entryEle);
+		}
+		else if (hasValueRefAttribute) {
+			String refName = entryEle.getAttribute(VALUE_REF_ATTRIBUTE);
+			if (!StringUtils.hasText(refName)) {
+				error("<entry> element contains empty 'value-ref' attribute", entryEle);
+			}
+			RuntimeBeanReference ref = new RuntimeBeanReference(refName);
+			ref.setSource(extractSource(entryEle));
+			value = ref;
+		}
+		else if (hasValueElement) {
+			value = valueElementValue;
+		}
+		else {
+			error("<entry> element must specify a value", entryEle);
+		}
+
+		map.put(key, value);
+	}
+
+	private Object parseKeyElement(XmlElement keyEle, BeanDefinition bd, String defaultKeyTypeName)
+			throws XMLStreamException {
+
+		boolean hasSubElement = false;
+		Object key = null;
+		XmlElement ele;
+		while ((ele = nextChildElement()) != null) {
+			if (hasSubElement) {
+				error("<key> element must not contain more than one value sub-element", keyEle);
+				skipElement();
+			}
+			else {
+				hasSubElement = true;
+				key = parsePropertySubElement(ele, bd, defaultKeyTypeName);
+			}
+		}
+		if (!hasSubElement) {
+			error("<key> element must contain a value sub-element", keyEle);
+		}
+		return key;
+	}
+
+	private ManagedProperties parsePropsElement(XmlElement propsEle) throws XMLStreamException {
+		ManagedProperties props = new ManagedProperties();
+		props.setSource(extractSource(propsEle));
+		props.setMergeEnabled(parseMergeAttribute(propsEle));
+
+		XmlElement propEle;
+		while ((propEle = nextChildElement()) != null) {
+			if (propEle.nameEquals(PROP_ELEMENT)) {
+				// Trim the text value to avoid unwanted whitespace
+				// caused by typical XML formatting.
+				String value = readText().trim();
+				TypedStringValue keyHolder = new TypedStringValue(propEle.getAttribute(KEY_ATTRIBUTE));
+				keyHolder.setSource(extractSource(propEle));
+				TypedStringValue valueHolder = new TypedStringValue(value);
+				valueHolder.setSource(extractSource(propEle));
+				props.put(keyHolder, valueHolder);
+			}
+			else {
+				skipElement();
+			}
+		}
+		return props;
+	}
+
+	private boolean parseMergeAttribute(XmlElement collectionEle) {
+		String value = collectionEle.getAttribute(MERGE_ATTRIBUTE);
+		if (DEFAULT_VALUE.equals(value)) {
+			value = this.defaults.getMerge();
+		}
+		return TRUE_VALUE.equals(value);
+	}
+
+
+	//---------------------------------------------------------------------
+	// "util" namespace elements
+	//---------------------------------------------------------------------
+
+	private BeanDefinitionHolder parseNestedCustomElement(XmlElement ele, BeanDefinition containingBd)
+			throws XMLStreamException {
+
+		BeanDefinition innerDefinition = parseCustomElement(ele, containingBd);
+		if (innerDefinition == null) {
+			error("Incorrect usage of element '" + ele.getNodeName() + "' in a nested manner. " +
+					"This tag cannot be used nested inside <property>.", ele);
+			return null;
+		}
+		String id = ele.getNodeName() + BeanDefinitionReaderUtils.GENERATED_BEAN_NAME_SEPARATOR +
+				ObjectUtils.getIdentityHexString(innerDefinition);
+		return new BeanDefinitionHolder(innerDefinition, id);
+	}
+
+	/**
+	 * Parse an element from the "util" namespace into a bean definition,
+	 * consuming the element. Top-level definitions are registered right away.
+	 * @param containingBd the containing bean definition, or {@code null}
+	 * for a top-level element
+	 */
+	private BeanDefinition parseCustomElement(XmlElement ele, BeanDefinition containingBd)
+			throws XMLStreamException {
+
+		if (!UTIL_NAMESPACE_URI.equals(ele.namespaceUri)) {
+			unsupportedElement(ele);
+			return null;
+		}
+
+		BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition();
+		AbstractBeanDefinition bd = builder.getRawBeanDefinition();
+		bd.setSource(extractSource(ele));
+		if (containingBd != null) {
+			builder.setScope(containingBd.getScope());
+		}
+		if (TRUE_VALUE.equals(this.defaults.getLazyInit())) {
+			builder.setLazyInit(true);
+		}
+
+		String id = ele.getAttribute(ID_ATTRIBUTE);
+		String localName = ele.localName;
+		if ("constant".equals(localName)) {
+			skipElement();
+			bd.setBeanClass(FieldRetrievingFactoryBean.class);
+			addAttributePropertyValues(ele, builder);
+			if (!StringUtils.hasText(id)) {
+				id = ele.getAttribute("static-field");
+			}
+		}
+		else if ("property-path".equals(localName)) {
+			skipElement();
+			bd.setBeanClass(PropertyPathFactoryBean.class);
+			String path = ele.getAttribute("path");
+			int dotIndex = path.indexOf(".");
+			if (!StringUtils.hasText(path)) {
+				error("Attribute 'path' must not be empty", ele);
+			}
+			else if (dotIndex == -1) {
+				error("Attribute 'path' must follow pattern 'beanName.propertyName'", ele);
+			}
+			else {
+				builder.addPropertyValue("targetBeanName", path.substring(0, dotIndex));
+				builder.addPropertyValue("propertyPath", path.substring(dotIndex + 1));
+			}
+			if (!StringUtils.hasText(id)) {
+				id = path;
+			}
+		}
+		else if (LIST_ELEMENT.equals(localName)) {
+			bd.setBeanClass(ListFactoryBean.class);
+			builder.addPropertyValue("sourceList", parseListElement(ele, bd));
+			addClassPropertyValue(ele, builder, "list-class", "targetListClass");
+		}
+		else if (SET_ELEMENT.equals(localName)) {
+			bd.setBeanClass(SetFactoryBean.class);
+			builder.addPropertyValue("sourceSet", parseSetElement(ele, bd));
+			addClassPropertyValue(ele, builder, "set-class", "targetSetClass");
+		}
+		else if (MAP_ELEMENT.equals(localName)) {
+			bd.setBeanClass(MapFactoryBean.class);
+			builder.addPropertyValue("sourceMap", parseMapElement(ele, bd));
+			addClassPropertyValue(ele, builder, "map-class", "targetMapClass");
+		}
+		else if ("properties".equals(localName)) {
+			bd.setBeanClass(PropertiesFactoryBean.class);
+			addAttributePropertyValues(ele, builder);
+			builder.addPropertyValue("properties", parsePropsElement(ele));
+			addClassPropertyValue(ele, builder, null, null);
+		}
+		else {
+			unsupportedElement(ele);
+			return null;
+		}
+
+		AbstractBeanDefinition definition = builder.getBeanDefinition();
+		if (containingBd == null) {
+			try {
+				if (!StringUtils.hasText(id)) {
+					error("Id is required for element '" + localName + "' when used as a top-level tag", ele);
+				}
+				String[] aliases = new String[0];
+				String name = ele.getAttribute(NAME_ATTRIBUTE);
+				if (StringUtils.hasLength(name)) {
+					aliases = StringUtils.trimArrayElements(StringUtils.commaDelimitedListToStringArray(name));
+				}
+				BeanDefinitionHolder holder = new BeanDefinitionHolder(definition, id, aliases);
+				BeanDefinitionReaderUtils.registerBeanDefinition(holder, this.reader.getRegistry());
+				this.readerContext.fireComponentRegistered(new BeanComponentDefinition(holder));
+			}
+			catch (BeanDefinitionStoreException ex) {
+				error(ex.getMessage(), ele);
+				return null;
+			}
+		}
+		return definition;
+	}
+
+	/**
+	 * Add the target collection class (if any) and the scope (if any)
+	 * of the given "util" element to the given builder.
+	 */
+	private void addClassPropertyValue(XmlElement ele, BeanDefinitionBuilder builder,
+			String classAttribute, String classProperty) {
+
+		if (classAttribute != null) {
+			String className = ele.getAttribute(classAttribute);
+			if (StringUtils.hasText(className)) {
+				builder.addPropertyValue(classProperty, className);
+			}
+		}
+		String scope = ele.getAttribute(SCOPE_ATTRIBUTE);
+		if (StringUtils.hasLength(scope)) {
+			builder.setScope(scope);
+		}
+	}
+
+	/**
+	 * Map the attributes of the given "util" element to bean properties,
+	 * as done by {@link AbstractSimpleBeanDefinitionParser}.
+	 */
+	private void addAttributePropertyValues(XmlElement ele, BeanDefinitionBuilder builder) {
+		Map<String, String> sortedAttributes = new TreeMap<String, String>(ele.attributes);
+		for (Map.Entry<String, String> attribute : sortedAttributes.entrySet()) {
+			String attributeName = attribute.getKey();
+			if (!ID_ATTRIBUTE.equals(attributeName) && !SCOPE_ATTRIBUTE.equals(attributeName)) {
+				builder.addPropertyValue(Conventions.attributeNameToPropertyName(attributeName), attribute.getValue());
+			}
+		}
+	}
+
+
+	//---------------------------------------------------------------------
+	// Stream navigation and helpers
+	//---------------------------------------------------------------------
+
+	/**
+	 * Capture the element at the current START_ELEMENT event,
+	 * applying the declared attribute defaults.
+	 */
+	private XmlElement readElement() {
+		XmlElement ele = new XmlElement(this.xml.getNamespaceURI(), this.xml.getPrefix(), this.xml.getLocalName());
+		int attributeCount = this.xml.getAttributeCount();
+		for (int i = 0; i < attributeCount; i++) {
+			String namespaceUri = this.xml.getAttributeNamespace(i);
+			String localName = this.xml.getAttributeLocalName(i);
+			String value = this.xml.getAttributeValue(i);
+			if (isDefaultNamespace(namespaceUri)) {
+				ele.attributes.put(localName, value);
+			}
+			else {
+				if (ele.customAttributes == null) {
+					ele.customAttributes = new ArrayList<CustomAttribute>(4);
+				}
+				String prefix = this.xml.getAttributePrefix(i);
+				String qualifiedName = (StringUtils.hasLength(prefix) ? prefix + ":" + localName : localName);
+				ele.customAttributes.add(new CustomAttribute(namespaceUri, qualifiedName, localName, value));
+			}
+		}
+		if (isDefaultNamespace(ele)) {
+			Map<String, String> elementDefaults = this.attributeDefaults.get(ele.localName);
+			if (elementDefaults != null) {
+				for (Map.Entry<String, String> attributeDefault : elementDefaults.entrySet()) {
+					if (!ele.attributes.containsKey(attributeDefault.getKey())) {
+						ele.attributes.put(attributeDefault.getKey(), attributeDefault.getValue());
+					}
+				}
+			}
+		}
+		Location location = this.xml.getLocation();
+		ele.lineNumber = location.getLineNumber();
+		ele.columnNumber = location.getColumnNumber();
+		return ele;
+	}
+
+	/**
+	 * Advance to the next child element of the current element.
+	 * @return the child element, positioned at its START_ELEMENT event,
+	 * or {@code null} if the END_ELEMENT event of the current element has been reached
+	 */
+	private XmlElement nextChildElement() throws XMLStreamException {
+		while (true) {
+			int event = this.xml.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				return readElement();
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Skip the current element, including all of its content.
+	 */
+	private void skipElement() throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0) {
+			int event = this.xml.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	/**
+	 * Read the text content of the current element, ignoring comments
+	 * and nested elements, as {@link org.springframework.util.xml.DomUtils#getTextValue} does.
+	 */
+	private String readText() throws XMLStreamException {
+		String text = "";
+		StringBuilder sb = null;
+		while (true) {
+			int event = this.xml.next();
+			if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA ||
+					event == XMLStreamConstants.SPACE || event == XMLStreamConstants.ENTITY_REFERENCE) {
+				if (sb != null) {
+					sb.append(this.xml.getText());
+				}
+				else if (text.length() == 0) {
+					text = this.xml.getText();
+				}
+				else {
+					sb = new StringBuilder(text).append(this.xml.getText());
+				}
+			}
+			else if (event == XMLStreamConstants.START_ELEMENT) {
+				skipElement();
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT) {
+				return (sb != null ? sb.toString() : text);
+			}
+		}
+	}
+
+	private static boolean isDefaultNamespace(String namespaceUri) {
+		return (!StringUtils.hasLength(namespaceUri) || BEANS_NAMESPACE_URI.equals(namespaceUri));
+	}
+
+	private static boolean isDefaultNamespace(XmlElement ele) {
+		return isDefaultNamespace(ele.namespaceUri);
+	}
+
+	private void unsupportedElement(XmlElement ele) throws XMLStreamException {
+		skipElement();
+		if (ele.namespaceUri.startsWith(SPRING_NAMESPACE_PREFIX)) {
+			error("Element [" + ele.getNodeName() + "] from XML schema namespace [" + ele.namespaceUri +
+					"] is not supported by " + StaxXmlBeanDefinitionReader.class.getSimpleName(), ele);
+		}
+		else if (logger.isDebugEnabled()) {
+			logger.debug("Ignoring element [" + ele.getNodeName() + "] from XML schema namespace [" +
+					ele.namespaceUri + "]");
+		}
+	}
+
+	private Object extractSource(XmlElement ele) {
+		return (this.extractSources ? this.readerContext.extractSource(ele.getLocation()) : null);
+	}
+
+	private void error(String message, XmlElement source) {
+		this.readerContext.error(message, source.getLocation(), this.parseState.snapshot());
+	}
+
+	private void error(String message, XmlElement source, Throwable cause) {
+		this.readerContext.error(message, source.getLocation(), this.parseState.snapshot(), cause);
+	}
+
+
+	/**
+	 * The name and attributes of an element, as captured at its START_ELEMENT event.
+	 */
+	private static class XmlElement {
+
+		private final String namespaceUri;
+
+		private final String prefix;
+
+		private final String localName;
+
+		/** Attributes in the default namespace, including defaulted ones */
+		private final Map<String, String> attributes = new HashMap<String, String>(8);
+
+		/** Attributes in other namespaces, if any */
+		private List<CustomAttribute> customAttributes;
+
+		private int lineNumber;
+
+		private int columnNumber;
+
+		public XmlElement(String namespaceUri, String prefix, String localName) {
+			this.namespaceUri = (namespaceUri != null ? namespaceUri : "");
+			this.prefix = prefix;
+			this.localName = localName;
+		}
+
+		public boolean nameEquals(String name) {
+			return name.equals(this.localName);
+		}
+
+		public String getNodeName() {
+			return (StringUtils.hasLength(this.prefix) ? this.prefix + ":" + this.localName : this.localName);
+		}
+
+		/**
+		 * Return the value of the given attribute, or the empty String if not
+		 * present (like {@link org.w3c.dom.Element#getAttribute}).
+		 */
+		public String getAttribute(String name) {
+			String value = this.attributes.get(name);
+			return (value != null ? value : "");
+		}
+
+		public boolean hasAttribute(String name) {
+			return this.attributes.containsKey(name);
+		}
+
+		public List<CustomAttribute> getSortedCustomAttributes() {
+			List<CustomAttribute> sorted = new ArrayList<CustomAttribute>(this.customAttributes);
+			Collections.sort(sorted);
+			return sorted;
+		}
+
+		public Location getLocation() {
+			return new ElementLocation(this.lineNumber, this.columnNumber);
+		}
+	}
+
+
+	/**
+	 * An attribute outside of the default namespace.
+	 */
+	private static class CustomAttribute implements Comparable<CustomAttribute> {
+
+		private final String namespaceUri;
+
+		private final String qualifiedName;
+
+		private final String localName;
+
+		private final String value;
+
+		public CustomAttribute(String namespaceUri, String qualifiedName, String localName, String value) {
+			this.namespaceUri = namespaceUri;
+			this.qualifiedName = qualifiedName;
+			this.localName = localName;
+			this.value = value;
+		}
+
+		public int compareTo(CustomAttribute other) {
+			return this.qualifiedName.compareTo(other.qualifiedName);
+		}
+	}
+
+
+	/**
+	 * The position of an element in the XML document, used as
+	 * source candidate for the {@link org.springframework.beans.factory.parsing.SourceExtractor}.
+	 */
+	private static class ElementLocation implements Location {
+
+		private final int lineNumber;
+
+		private final int columnNumber;
+
+		public ElementLocation(int lineNumber, int columnNumber) {
+			this.lineNumber = lineNumber;
+			this.columnNumber = columnNumber;
+		}
+
+		public int getLineNumber() {
+			return this.lineNumber;
+		}
+
+		public int getColumnNumber() {
+			return this.columnNumber;
+		}
+
+		public int getCharacterOffset() {
+			return -1;
+		}
+
+		public String getPublicId() {
+			return null;
+		}
+
+		public String getSystemId() {
+			return null;
+		}
+
+		@Override
+		public String toString() {
+			return "line " + this.lineNumber + ", column " + this.columnNumber;
+		}
+	}
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.parsing.EmptyReaderEventListener;
+import org.springframework.beans.factory.parsing.FailFastProblemReporter;
+import org.springframework.beans.factory.parsing.NullSourceExtractor;
+import org.springframework.beans.factory.parsing.ProblemReporter;
+import org.springframework.beans.factory.parsing.ReaderContext;
+import org.springframework.beans.factory.parsing.ReaderEventListener;
+import org.springframework.beans.factory.parsing.SourceExtractor;
+import org.springframework.beans.factory.support.AbstractBeanDefinitionReader;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.util.Assert;
+
+/**
+ * Bean definition reader for XML bean definitions that streams through the
+ * XML document with a StAX {@link XMLStreamReader} instead of building a DOM,
+ * registering each bean definition as soon as its element has been read.
+ * Memory consumption is therefore independent of the size of the document,
+ * which makes a difference for documents with many thousands of beans.
+ *
+ * <p>Supports the "beans" namespace (including nested {@code <beans>} elements
+ * with profiles, {@code <import>} and {@code <alias>}) as well as the "util",
+ * "p" and "c" namespaces, producing the same bean definitions as
+ * {@link XmlBeanDefinitionReader}. Elements and attributes from other Spring
+ * namespaces are reported as errors, since they require a DOM-based
+ * {@link NamespaceHandler}; elements and attributes from non-Spring namespaces
+ * are ignored. Use {@link XmlBeanDefinitionReader} for such documents.
+ *
+ * <p>Note that documents are not validated against the "spring-beans" schema
+ * or DTD: only well-formedness is checked, with the declared attribute defaults
+ * applied by the reader itself. External DTDs and entities are not resolved.
+ *
+ * @since 3.2.18
+ * @see XmlBeanDefinitionReader
+ */
+public class StaxXmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
+
+	private ProblemReporter problemReporter = new FailFastProblemReporter();
+
+	private ReaderEventListener eventListener = new EmptyReaderEventListener();
+
+	private SourceExtractor sourceExtractor = new NullSourceExtractor();
+
+	private final XMLInputFactory inputFactory = createInputFactory();
+
+	private final ThreadLocal<Set<EncodedResource>> resourcesCurrentlyBeingLoaded =
+			new NamedThreadLocal<Set<EncodedResource>>("XML bean definition resources currently being loaded");
+
+
+	/**
+	 * Create new StaxXmlBeanDefinitionReader for the given bean factory.
+	 * @param registry the BeanFactory to load bean definitions into,
+	 * in the form of a BeanDefinitionRegistry
+	 */
+	public StaxXmlBeanDefinitionReader(BeanDefinitionRegistry registry) {
+		super(registry);
+	}
+
+
+	/**
+	 * Create the StAX input factory to use: namespace aware and coalescing,
+	 * with DTD processing and external entities switched off.
+	 */
+	protected XMLInputFactory createInputFactory() {
+		XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+		inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+		inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return inputFactory;
+	}
+
+	/**
+	 * Specify which {@link ProblemReporter} to use.
+	 * <p>The default implementation is {@link FailFastProblemReporter}
+	 * which exhibits fail fast behaviour.
+	 * @see XmlBeanDefinitionReader#setProblemReporter
+	 */
+	public void setProblemReporter(ProblemReporter problemReporter) {
+		this.problemReporter = (problemReporter != null ? problemReporter : new FailFastProblemReporter());
+	}
+
+	/**
+	 * Specify which {@link ReaderEventListener} to use.
+	 * <p>The default implementation is EmptyReaderEventListener which discards every event notification.
+	 * @see XmlBeanDefinitionReader#setEventListener
+	 */
+	public void setEventListener(ReaderEventListener eventListener) {
+		this.eventListener = (eventListener != null ? eventListener : new EmptyReaderEventListener());
+	}
+
+	/**
+	 * Specify the {@link SourceExtractor} to use.
+	 * <p>The default implementation is {@link NullSourceExtractor} which simply returns {@code null}
+	 * as the source object. Otherwise, the source candidate passed to the extractor
+	 * is a {@link javax.xml.stream.Location} indicating the line and column of the element.
+	 */
+	public void setSourceExtractor(SourceExtractor sourceExtractor) {
+		this.sourceExtractor = (sourceExtractor != null ? sourceExtractor : new NullSourceExtractor());
+	}
+
+
+	/**
+	 * Load bean definitions from the specified XML file.
+	 * @param resource the resource descriptor for the XML file
+	 * @return the number of bean definitions found
+	 * @throws BeanDefinitionStoreException in case of loading or parsing errors
+	 */
+	public int loadBeanDefinitions(Resource resource) throws BeanDefinitionStoreException {
+		return loadBeanDefinitions(new EncodedResource(resource));
+	}
+
+	/**
+	 * Load bean definitions from the specified XML file.
+	 * @param encodedResource the resource descriptor for the XML file,
+	 * allowing to specify an encoding to use for parsing the file
+	 * @return the number of bean definitions found
+	 * @throws BeanDefinitionStoreException in case of loading or parsing errors
+	 */
+	public int loadBeanDefinitions(EncodedResource encodedResource) throws BeanDefinitionStoreException {
+		Assert.notNull(encodedResource, "EncodedResource must not be null");
+		if (logger.isInfoEnabled()) {
+			logger.info("Streaming XML bean definitions from " + encodedResource.getResource());
+		}
+
+		Set<EncodedResource> currentResources = this.resourcesCurrentlyBeingLoaded.get();
+		if (currentResources == null) {
+			currentResources = new HashSet<EncodedResource>(4);
+			this.resourcesCurrentlyBeingLoaded.set(currentResources);
+		}
+		if (!currentResources.add(encodedResource)) {
+			throw new BeanDefinitionStoreException(
+					"Detected cyclic loading of " + encodedResource + " - check your import definitions!");
+		}
+		try {
+			InputStream inputStream = encodedResource.getResource().getInputStream();
+			try {
+				return doLoadBeanDefinitions(inputStream, encodedResource);
+			}
+			finally {
+				inputStream.close();
+			}
+		}
+		catch (IOException ex) {
+			throw new BeanDefinitionStoreException(
+					"IOException parsing XML document from " + encodedResource.getResource(), ex);
+		}
+		finally {
+			currentResources.remove(encodedResource);
+			if (currentResources.isEmpty()) {
+				this.resourcesCurrentlyBeingLoaded.remove();
+			}
+		}
+	}
+
+	/**
+	 * Actually load bean definitions from the specified XML file.
+	 * @param inputStream the stream to read from
+	 * @param encodedResource the resource descriptor for the XML file
+	 * @return the number of bean definitions found
+	 * @throws BeanDefinitionStoreException in case of loading or parsing errors
+	 */
+	protected int doLoadBeanDefinitions(InputStream inputStream, EncodedResource encodedResource)
+			throws BeanDefinitionStoreException {
+
+		Resource resource = encodedResource.getResource();
+		try {
+			XMLStreamReader streamReader;
+			synchronized (this.inputFactory) {
+				streamReader = (encodedResource.getEncoding() != null ?
+						this.inputFactory.createXMLStreamReader(inputStream, encodedResource.getEncoding()) :
+						this.inputFactory.createXMLStreamReader(inputStream));
+			}
+			try {
+				int countBefore = getRegistry().getBeanDefinitionCount();
+				new StaxBeanDefinitionParser(this, createReaderContext(resource), streamReader).parse();
+				return getRegistry().getBeanDefinitionCount() - countBefore;
+			}
+			finally {
+				streamReader.close();
+			}
+		}
+		catch (BeanDefinitionStoreException ex) {
+			throw ex;
+		}
+		catch (XMLStreamException ex) {
+			String message = (ex.getLocation() != null ?
+					"Line " + ex.getLocation().getLineNumber() + " in XML document from " + resource + " is invalid" :
+					"XML document from " + resource + " is invalid");
+			throw new BeanDefinitionStoreException(resource.getDescription(), message, ex);
+		}
+		catch (Throwable ex) {
+			throw new BeanDefinitionStoreException(resource.getDescription(),
+					"Unexpected exception parsing XML document from " + resource, ex);
+		}
+	}
+
+	/**
+	 * Create the {@link ReaderContext} to pass over to the parser.
+	 */
+	protected ReaderContext createReaderContext(Resource resource) {
+		return new ReaderContext(resource, this.problemReporter, this.eventListener, this.sourceExtractor);
+	}
+
+}
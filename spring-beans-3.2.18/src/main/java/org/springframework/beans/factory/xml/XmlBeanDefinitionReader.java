@@ -16,13 +16,38 @@
 
 package org.springframework.beans.factory.xml;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
 import org.xml.sax.EntityResolver;
 import org.xml.sax.ErrorHandler;
 import org.xml.sax.InputSource;
@@ -31,21 +56,35 @@ import org.xml.sax.SAXParseException;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.parsing.AliasDefinition;
+import org.springframework.beans.factory.parsing.ComponentDefinition;
+import org.springframework.beans.factory.parsing.DefaultsDefinition;
 import org.springframework.beans.factory.parsing.EmptyReaderEventListener;
 import org.springframework.beans.factory.parsing.FailFastProblemReporter;
+import org.springframework.beans.factory.parsing.ImportDefinition;
 import org.springframework.beans.factory.parsing.NullSourceExtractor;
 import org.springframework.beans.factory.parsing.ProblemReporter;
 import org.springframework.beans.factory.parsing.ReaderEventListener;
 import org.springframework.beans.factory.parsing.SourceExtractor;
 import org.springframework.beans.factory.support.AbstractBeanDefinitionReader;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionSnapshot;
 import org.springframework.core.Constants;
 import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.io.DescriptiveResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.UrlResource;
 import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternUtils;
 import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.util.SystemPropertyUtils;
 import org.springframework.util.xml.SimpleSaxErrorHandler;
 import org.springframework.util.xml.XmlValidationModeDetector;
 
@@ -96,6 +135,12 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 	 */
 	public static final int VALIDATION_XSD = XmlValidationModeDetector.VALIDATION_XSD;
 
+	/**
+	 * File name suffix for bean definition snapshots.
+	 * @see #setSnapshotDirectory
+	 */
+	public static final String SNAPSHOT_FILE_SUFFIX = ".beans-snapshot";
+
 
 	/** Constants instance for this class */
 	private static final Constants constants = new Constants(XmlBeanDefinitionReader.class);
@@ -116,15 +161,28 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 
 	private DocumentLoader documentLoader = new DefaultDocumentLoader();
 
+	private DocumentLoadListener documentLoadListener;
+
 	private EntityResolver entityResolver;
 
 	private ErrorHandler errorHandler = new SimpleSaxErrorHandler(logger);
 
 	private final XmlValidationModeDetector validationModeDetector = new XmlValidationModeDetector();
 
+	private File snapshotDirectory;
+
+	private Executor parallelLoadingExecutor;
+
 	private final ThreadLocal<Set<EncodedResource>> resourcesCurrentlyBeingLoaded =
 			new NamedThreadLocal<Set<EncodedResource>>("XML bean definition resources currently being loaded");
 
+	private final ThreadLocal<SnapshotRecording> currentSnapshotRecording =
+			new NamedThreadLocal<SnapshotRecording>("XML bean definition snapshot currently being recorded");
+
+	private final ThreadLocal<ConcurrentMap<EncodedResource, PrefetchTask>> prefetchedDocuments =
+			new NamedThreadLocal<ConcurrentMap<EncodedResource, PrefetchTask>>(
+					"XML bean definition documents currently being prefetched");
+
 
 	/**
 	 * Create new XmlBeanDefinitionReader for the given bean factory.
@@ -239,6 +297,18 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 		this.documentLoader = (documentLoader != null ? documentLoader : new DefaultDocumentLoader());
 	}
 
+	/**
+	 * Specify a {@link DocumentLoadListener} to notify about the time
+	 * spent loading the XML document for each resource. Default is none.
+	 * <p>Consider a shared {@link CachingDocumentLoader} for reducing that
+	 * time when loading many documents.
+	 * @since 3.2.18
+	 * @see #setDocumentLoader
+	 */
+	public void setDocumentLoadListener(DocumentLoadListener documentLoadListener) {
+		this.documentLoadListener = documentLoadListener;
+	}
+
 	/**
 	 * Set a SAX entity resolver to be used for parsing.
 	 * <p>By default, {@link ResourceEntityResolver} will be used. Can be overridden
@@ -292,6 +362,100 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 		this.documentReaderClass = documentReaderClass;
 	}
 
+	/**
+	 * Specify a directory for binary snapshots of the bean definitions
+	 * loaded from each XML resource. Default is none.
+	 * <p>If specified, the bean definitions (and aliases) registered while loading
+	 * an XML resource, including the resources that it imports, are written to a
+	 * {@link BeanDefinitionSnapshot} file. The file is named after a digest of the
+	 * resource content, the active and default profiles and the names of the bean
+	 * definitions registered beforehand. As long as that digest matches and the
+	 * imported resources are unchanged, subsequent loads of the resource register
+	 * the bean definitions from the snapshot, without any XML parsing or schema
+	 * resolution.
+	 * <p>Note that no {@link ReaderEventListener} callbacks are triggered for bean
+	 * definitions registered from a snapshot. No snapshot is written for resources
+	 * whose bean definitions cannot be represented in the snapshot format, e.g.
+	 * definitions found through classpath scanning or definitions with configuration
+	 * sources from a custom {@link SourceExtractor}; such resources are always parsed.
+	 * @param snapshotDirectory the directory to keep snapshot files in
+	 * (will be created if necessary)
+	 * @since 3.2.18
+	 * @see #SNAPSHOT_FILE_SUFFIX
+	 */
+	public void setSnapshotDirectory(File snapshotDirectory) {
+		this.snapshotDirectory = snapshotDirectory;
+	}
+
+	/**
+	 * Specify an {@link Executor} for loading XML documents in parallel.
+	 * Default is none, loading each document when its bean definitions are
+	 * about to be registered.
+	 * <p>If specified, the documents for all resources passed to a single
+	 * {@code loadBeanDefinitions} call, as well as the documents that they
+	 * {@code <import>} (recursively), are loaded and validated concurrently
+	 * on the given executor. The bean definitions themselves are still
+	 * registered on the calling thread, one document after the other, in the
+	 * same order as without an executor: overriding of bean definitions,
+	 * generated bean names and {@link ReaderEventListener} callbacks are
+	 * therefore unaffected.
+	 * <p>Resources that cannot be loaded in advance, e.g. because they are
+	 * not readable or not valid, are simply loaded again at registration
+	 * time, reporting any error exactly as without an executor. The same
+	 * applies to documents whose loading the executor rejects, e.g. because
+	 * it is saturated or has been shut down.
+	 * Parallel loading does not apply to resources loaded from a
+	 * {@link #setSnapshotDirectory snapshot directory}.
+	 * @param parallelLoadingExecutor the executor to load documents with
+	 * (typically a thread pool; not shut down by this reader)
+	 * @since 3.2.18
+	 */
+	public void setParallelLoadingExecutor(Executor parallelLoadingExecutor) {
+		this.parallelLoadingExecutor = parallelLoadingExecutor;
+	}
+
+
+	/**
+	 * Load bean definitions from the specified resource locations,
+	 * loading their documents in parallel if an executor has been specified.
+	 * @see #setParallelLoadingExecutor
+	 */
+	@Override
+	public int loadBeanDefinitions(String... locations) throws BeanDefinitionStoreException {
+		boolean prefetching = beginPrefetching();
+		try {
+			if (locations != null && getPrefetchedDocuments() != null) {
+				for (String location : locations) {
+					prefetchDocuments(location);
+				}
+			}
+			return super.loadBeanDefinitions(locations);
+		}
+		finally {
+			endPrefetching(prefetching);
+		}
+	}
+
+	/**
+	 * Load bean definitions from the specified resources,
+	 * loading their documents in parallel if an executor has been specified.
+	 * @see #setParallelLoadingExecutor
+	 */
+	@Override
+	public int loadBeanDefinitions(Resource... resources) throws BeanDefinitionStoreException {
+		boolean prefetching = beginPrefetching();
+		try {
+			if (resources != null && getPrefetchedDocuments() != null) {
+				for (Resource resource : resources) {
+					prefetchDocument(new EncodedResource(resource), getPrefetchedDocuments());
+				}
+			}
+			return super.loadBeanDefinitions(resources);
+		}
+		finally {
+			endPrefetching(prefetching);
+		}
+	}
 
 	/**
 	 * Load bean definitions from the specified XML file.
@@ -325,7 +489,11 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 			throw new BeanDefinitionStoreException(
 					"Detected cyclic loading of " + encodedResource + " - check your import definitions!");
 		}
+		boolean prefetching = beginPrefetching();
 		try {
+			if (this.snapshotDirectory != null && !encodedResource.getResource().isOpen()) {
+				return loadBeanDefinitionsWithSnapshot(encodedResource);
+			}
 			InputStream inputStream = encodedResource.getResource().getInputStream();
 			try {
 				InputSource inputSource = new InputSource(inputStream);
@@ -343,6 +511,7 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 					"IOException parsing XML document from " + encodedResource.getResource(), ex);
 		}
 		finally {
+			endPrefetching(prefetching);
 			currentResources.remove(encodedResource);
 			if (currentResources.isEmpty()) {
 				this.resourcesCurrentlyBeingLoaded.remove();
@@ -350,6 +519,466 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 		}
 	}
 
+	/**
+	 * Start a scope for prefetching documents on the current thread,
+	 * unless no executor has been specified or a scope is active already.
+	 * @return whether a new scope has been started
+	 * @see #setParallelLoadingExecutor
+	 */
+	private boolean beginPrefetching() {
+		if (this.parallelLoadingExecutor == null || this.snapshotDirectory != null ||
+				this.prefetchedDocuments.get() != null) {
+			return false;
+		}
+		// Initialize the shared EntityResolver before handing it out to other threads
+		getEntityResolver();
+		this.prefetchedDocuments.set(new ConcurrentHashMap<EncodedResource, PrefetchTask>());
+		return true;
+	}
+
+	/**
+	 * End the scope for prefetching documents on the current thread,
+	 * if started by the corresponding call to {@link #beginPrefetching()}.
+	 * <p>Prefetch tasks that have not started yet get cancelled, and tasks
+	 * that are still running get waited for, so that no prefetching outlives
+	 * the loading of the bean definitions.
+	 */
+	private void endPrefetching(boolean prefetching) {
+		if (prefetching) {
+			ConcurrentMap<EncodedResource, PrefetchTask> documents = this.prefetchedDocuments.get();
+			this.prefetchedDocuments.remove();
+			// Running tasks may still register further tasks for their imports.
+			while (!documents.isEmpty()) {
+				for (Iterator<PrefetchTask> it = documents.values().iterator(); it.hasNext();) {
+					PrefetchTask task = it.next();
+					it.remove();
+					task.cancel(false);
+					if (!task.awaitTermination()) {
+						return;
+					}
+				}
+			}
+		}
+	}
+
+	private ConcurrentMap<EncodedResource, PrefetchTask> getPrefetchedDocuments() {
+		return this.prefetchedDocuments.get();
+	}
+
+	/**
+	 * Prefetch the documents for the given resource location, if possible.
+	 */
+	private void prefetchDocuments(String location) {
+		ConcurrentMap<EncodedResource, PrefetchTask> documents = getPrefetchedDocuments();
+		for (Resource resource : resolvePrefetchResources(location)) {
+			prefetchDocument(new EncodedResource(resource), documents);
+		}
+	}
+
+	/**
+	 * Resolve the given location like {@link #loadBeanDefinitions(String, Set)} does,
+	 * returning an empty array instead of throwing an exception.
+	 */
+	private Resource[] resolvePrefetchResources(String location) {
+		ResourceLoader resourceLoader = getResourceLoader();
+		try {
+			if (resourceLoader instanceof ResourcePatternResolver) {
+				return ((ResourcePatternResolver) resourceLoader).getResources(location);
+			}
+			else if (resourceLoader != null) {
+				return new Resource[] {resourceLoader.getResource(location)};
+			}
+		}
+		catch (Exception ex) {
+			// Leave it to the actual loading of the location to report the problem
+		}
+		return new Resource[0];
+	}
+
+	/**
+	 * Start loading the document for the given resource on the executor,
+	 * unless already loaded or being loaded, and then its imports in turn.
+	 * <p>If the executor rejects the task, the document will simply be
+	 * loaded without prefetching once it is needed.
+	 */
+	private void prefetchDocument(final EncodedResource encodedResource,
+			final ConcurrentMap<EncodedResource, PrefetchTask> documents) {
+
+		if (encodedResource.getResource().isOpen() || documents.containsKey(encodedResource)) {
+			return;
+		}
+		PrefetchTask task = new PrefetchTask(new Callable<Document>() {
+			public Document call() throws Exception {
+				Document doc = loadDocument(encodedResource);
+				prefetchImports(doc.getDocumentElement(), encodedResource.getResource(), documents);
+				return doc;
+			}
+		});
+		if (documents.putIfAbsent(encodedResource, task) == null) {
+			try {
+				this.parallelLoadingExecutor.execute(task);
+			}
+			catch (RejectedExecutionException ex) {
+				documents.remove(encodedResource, task);
+				task.cancel(false);
+				if (logger.isDebugEnabled()) {
+					logger.debug("Parallel loading executor rejected prefetching of XML document from " +
+							encodedResource.getResource() + " - loading it on demand", ex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Load the document for the given resource, as {@link #doLoadBeanDefinitions} does.
+	 */
+	private Document loadDocument(EncodedResource encodedResource) throws Exception {
+		Resource resource = encodedResource.getResource();
+		int validationMode = getValidationModeForResourceSynchronized(resource);
+		InputStream inputStream = resource.getInputStream();
+		try {
+			InputSource inputSource = new InputSource(inputStream);
+			if (encodedResource.getEncoding() != null) {
+				inputSource.setEncoding(encodedResource.getEncoding());
+			}
+			return loadDocument(inputSource, resource, validationMode);
+		}
+		finally {
+			inputStream.close();
+		}
+	}
+
+	/**
+	 * Prefetch the documents imported by the given {@code <beans>} element
+	 * and its active nested {@code <beans>} elements, resolving the import
+	 * locations as {@link DefaultBeanDefinitionDocumentReader} does.
+	 */
+	private void prefetchImports(Element beansElement, Resource resource,
+			ConcurrentMap<EncodedResource, PrefetchTask> documents) {
+
+		if (!isDefaultNamespace(beansElement)) {
+			return;
+		}
+		String profileSpec = beansElement.getAttribute(DefaultBeanDefinitionDocumentReader.PROFILE_ATTRIBUTE);
+		if (StringUtils.hasText(profileSpec) && !getEnvironment().acceptsProfiles(StringUtils.tokenizeToStringArray(
+				profileSpec, BeanDefinitionParserDelegate.MULTI_VALUE_ATTRIBUTE_DELIMITERS))) {
+			return;
+		}
+		NodeList nodes = beansElement.getChildNodes();
+		for (int i = 0; i < nodes.getLength(); i++) {
+			Node node = nodes.item(i);
+			if (node instanceof Element && isDefaultNamespace(node)) {
+				Element ele = (Element) node;
+				String localName = (ele.getLocalName() != null ? ele.getLocalName() : ele.getNodeName());
+				if (DefaultBeanDefinitionDocumentReader.NESTED_BEANS_ELEMENT.equals(localName)) {
+					prefetchImports(ele, resource, documents);
+				}
+				else if (DefaultBeanDefinitionDocumentReader.IMPORT_ELEMENT.equals(localName)) {
+					String location = ele.getAttribute(DefaultBeanDefinitionDocumentReader.RESOURCE_ATTRIBUTE);
+					for (Resource importedResource : resolveImportResources(location, resource)) {
+						prefetchDocument(new EncodedResource(importedResource), documents);
+					}
+				}
+			}
+		}
+	}
+
+	private Resource[] resolveImportResources(String location, Resource resource) {
+		if (!StringUtils.hasText(location)) {
+			return new Resource[0];
+		}
+		try {
+			location = getEnvironment().resolveRequiredPlaceholders(location);
+			boolean absoluteLocation = false;
+			try {
+				absoluteLocation = ResourcePatternUtils.isUrl(location) || ResourceUtils.toURI(location).isAbsolute();
+			}
+			catch (URISyntaxException ex) {
+				// cannot convert to an URI, considering the location relative
+			}
+			if (absoluteLocation) {
+				return resolvePrefetchResources(location);
+			}
+			Resource relativeResource = resource.createRelative(location);
+			if (relativeResource.exists()) {
+				return new Resource[] {relativeResource};
+			}
+			return resolvePrefetchResources(StringUtils.applyRelativePath(resource.getURL().toString(), location));
+		}
+		catch (Exception ex) {
+			// Leave it to the actual import to report the problem
+			return new Resource[0];
+		}
+	}
+
+	/**
+	 * Exclude the resource from bean definition snapshots if any of its imports
+	 * cannot be verified through the content of the imported resources alone:
+	 * that is, if an import location contains placeholders, which depend on the
+	 * environment, or a pattern, which may match different resources over time.
+	 */
+	private void checkSnapshotImports(Element beansElement, Resource resource, SnapshotRecording recording) {
+		if (!isDefaultNamespace(beansElement)) {
+			return;
+		}
+		NodeList nodes = beansElement.getChildNodes();
+		for (int i = 0; i < nodes.getLength(); i++) {
+			Node node = nodes.item(i);
+			if (node instanceof Element && isDefaultNamespace(node)) {
+				Element ele = (Element) node;
+				String localName = (ele.getLocalName() != null ? ele.getLocalName() : ele.getNodeName());
+				if (DefaultBeanDefinitionDocumentReader.NESTED_BEANS_ELEMENT.equals(localName)) {
+					checkSnapshotImports(ele, resource, recording);
+				}
+				else if (DefaultBeanDefinitionDocumentReader.IMPORT_ELEMENT.equals(localName)) {
+					String location = ele.getAttribute(DefaultBeanDefinitionDocumentReader.RESOURCE_ATTRIBUTE);
+					if (location.contains(SystemPropertyUtils.PLACEHOLDER_PREFIX) ||
+							location.startsWith(ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX) ||
+							location.indexOf('*') != -1 || location.indexOf('?') != -1) {
+						if (logger.isDebugEnabled()) {
+							logger.debug("Not writing bean definition snapshot for " + resource +
+									": import location [" + location + "] contains placeholders or patterns");
+						}
+						recording.markIncomplete();
+						return;
+					}
+				}
+			}
+		}
+	}
+
+	private static boolean isDefaultNamespace(Node node) {
+		String namespaceUri = node.getNamespaceURI();
+		return (!StringUtils.hasLength(namespaceUri) || BeanDefinitionParserDelegate.BEANS_NAMESPACE_URI.equals(namespaceUri));
+	}
+
+	/**
+	 * Obtain the prefetched document for the given resource, if any.
+	 * @return the document, or {@code null} if not prefetched
+	 * or if prefetching failed
+	 */
+	private Document getPrefetchedDocument(EncodedResource encodedResource) {
+		ConcurrentMap<EncodedResource, PrefetchTask> documents = getPrefetchedDocuments();
+		PrefetchTask task = (documents != null ? documents.get(encodedResource) : null);
+		if (task == null) {
+			return null;
+		}
+		try {
+			return task.get();
+		}
+		catch (ExecutionException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to prefetch XML document from " + encodedResource.getResource() +
+						" - loading it again", ex.getCause());
+			}
+			return null;
+		}
+		catch (CancellationException ex) {
+			// Rejected by the executor in the meantime
+			return null;
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+
+	/**
+	 * Load bean definitions from the specified XML file, or from the snapshot
+	 * of the bean definitions previously loaded from the same content.
+	 * @param encodedResource the resource descriptor for the XML file
+	 * @return the number of bean definitions found
+	 * @throws IOException if the XML file could not be read
+	 * @see #setSnapshotDirectory
+	 */
+	private int loadBeanDefinitionsWithSnapshot(EncodedResource encodedResource) throws IOException {
+		Resource resource = encodedResource.getResource();
+		byte[] content = FileCopyUtils.copyToByteArray(resource.getInputStream());
+		String contentDigest = DigestUtils.md5DigestAsHex(content);
+		SnapshotRecording enclosingRecording = this.currentSnapshotRecording.get();
+		if (enclosingRecording != null) {
+			enclosingRecording.addSource(getSnapshotLocation(resource), contentDigest);
+		}
+
+		BeanDefinitionRegistry registry = getRegistry();
+		String[] beanNamesBefore = registry.getBeanDefinitionNames();
+		File snapshotFile = new File(this.snapshotDirectory,
+				getSnapshotKey(encodedResource, contentDigest, beanNamesBefore) + SNAPSHOT_FILE_SUFFIX);
+		BeanDefinitionSnapshot snapshot = readSnapshot(snapshotFile, resource);
+		if (snapshot != null) {
+			if (enclosingRecording != null) {
+				enclosingRecording.addSnapshot(snapshot);
+			}
+			int countBefore = registry.getBeanDefinitionCount();
+			snapshot.registerWith(registry);
+			return registry.getBeanDefinitionCount() - countBefore;
+		}
+
+		Map<String, BeanDefinition> beanDefinitionsBefore = new LinkedHashMap<String, BeanDefinition>();
+		for (String beanName : beanNamesBefore) {
+			beanDefinitionsBefore.put(beanName, registry.getBeanDefinition(beanName));
+		}
+		SnapshotRecording recording = new SnapshotRecording();
+		this.currentSnapshotRecording.set(recording);
+		int count;
+		try {
+			InputSource inputSource = new InputSource(new ByteArrayInputStream(content));
+			if (encodedResource.getEncoding() != null) {
+				inputSource.setEncoding(encodedResource.getEncoding());
+			}
+			count = doLoadBeanDefinitions(inputSource, resource);
+		}
+		finally {
+			if (enclosingRecording != null) {
+				this.currentSnapshotRecording.set(enclosingRecording);
+			}
+			else {
+				this.currentSnapshotRecording.remove();
+			}
+		}
+		if (enclosingRecording != null) {
+			enclosingRecording.addRecording(recording);
+		}
+		if (recording.isComplete()) {
+			writeSnapshot(snapshotFile, resource, recording, beanDefinitionsBefore);
+		}
+		return count;
+	}
+
+	/**
+	 * Build the key for the snapshot of the given resource,
+	 * in the current environment and state of the registry.
+	 */
+	private String getSnapshotKey(EncodedResource encodedResource, String contentDigest, String[] beanNamesBefore)
+			throws IOException {
+
+		StringBuilder sb = new StringBuilder(contentDigest);
+		sb.append('\n').append(encodedResource.getEncoding());
+		sb.append('\n').append(StringUtils.arrayToCommaDelimitedString(getEnvironment().getActiveProfiles()));
+		sb.append('\n').append(StringUtils.arrayToCommaDelimitedString(getEnvironment().getDefaultProfiles()));
+		sb.append('\n').append(StringUtils.arrayToCommaDelimitedString(beanNamesBefore));
+		return DigestUtils.md5DigestAsHex(sb.toString().getBytes("UTF-8"));
+	}
+
+	/**
+	 * Return the location that the given resource can be
+	 * re-read from for validating a snapshot, if any.
+	 */
+	private String getSnapshotLocation(Resource resource) {
+		if (resource.isOpen()) {
+			return null;
+		}
+		try {
+			return resource.getURL().toExternalForm();
+		}
+		catch (IOException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Read the given snapshot file, if it exists and
+	 * all resources that it has been derived from are unchanged.
+	 * @return the snapshot, or {@code null} if not available or outdated
+	 */
+	private BeanDefinitionSnapshot readSnapshot(File snapshotFile, Resource resource) {
+		if (!snapshotFile.isFile()) {
+			return null;
+		}
+		BeanDefinitionSnapshot snapshot;
+		try {
+			InputStream in = new FileInputStream(snapshotFile);
+			try {
+				snapshot = BeanDefinitionSnapshot.readFrom(new BufferedInputStream(in));
+			}
+			finally {
+				in.close();
+			}
+			for (Map.Entry<String, String> source : snapshot.getSources().entrySet()) {
+				byte[] content = FileCopyUtils.copyToByteArray(new UrlResource(source.getKey()).getInputStream());
+				if (!source.getValue().equals(DigestUtils.md5DigestAsHex(content))) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Ignoring outdated bean definition snapshot for " + resource +
+								": imported resource [" + source.getKey() + "] has changed");
+					}
+					return null;
+				}
+			}
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Ignoring unreadable bean definition snapshot [" + snapshotFile + "]", ex);
+			}
+			return null;
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Loading bean definitions for " + resource + " from snapshot [" + snapshotFile + "]");
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Write the bean definitions and aliases registered while loading the
+	 * given resource to the given snapshot file, if supported by the format.
+	 */
+	private void writeSnapshot(File snapshotFile, Resource resource, SnapshotRecording recording,
+			Map<String, BeanDefinition> beanDefinitionsBefore) {
+
+		BeanDefinitionRegistry registry = getRegistry();
+		BeanDefinitionSnapshot snapshot = new BeanDefinitionSnapshot();
+		for (Map.Entry<String, String> source : recording.getSources().entrySet()) {
+			snapshot.addSource(source.getKey(), source.getValue());
+		}
+		for (String beanName : registry.getBeanDefinitionNames()) {
+			BeanDefinition bd = registry.getBeanDefinition(beanName);
+			if (beanDefinitionsBefore.get(beanName) != bd) {
+				snapshot.addBeanDefinition(beanName, bd);
+				for (String alias : registry.getAliases(beanName)) {
+					snapshot.addAlias(beanName, alias);
+				}
+			}
+		}
+		for (Map.Entry<String, String> alias : recording.getAliases().entrySet()) {
+			snapshot.addAlias(alias.getValue(), alias.getKey());
+		}
+
+		File tempFile = null;
+		try {
+			File directory = snapshotFile.getParentFile();
+			if (!directory.isDirectory() && !directory.mkdirs()) {
+				throw new IOException("Could not create snapshot directory [" + directory + "]");
+			}
+			tempFile = File.createTempFile(snapshotFile.getName(), ".tmp", directory);
+			OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile));
+			try {
+				snapshot.writeTo(out);
+			}
+			finally {
+				out.close();
+			}
+			if (!tempFile.renameTo(snapshotFile) && !(snapshotFile.delete() && tempFile.renameTo(snapshotFile))) {
+				throw new IOException("Could not rename [" + tempFile + "] to [" + snapshotFile + "]");
+			}
+			tempFile = null;
+			if (logger.isDebugEnabled()) {
+				logger.debug("Written bean definition snapshot for " + resource + " to [" + snapshotFile + "]");
+			}
+		}
+		catch (NotSerializableException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Cannot write bean definition snapshot for " + resource + ": " + ex.getMessage());
+			}
+		}
+		catch (IOException ex) {
+			logger.warn("Could not write bean definition snapshot for " + resource, ex);
+		}
+		finally {
+			if (tempFile != null) {
+				tempFile.delete();
+			}
+		}
+	}
+
 	/**
 	 * Load bean definitions from the specified XML file.
 	 * @param inputSource the SAX InputSource to read from
@@ -385,9 +1014,19 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 	protected int doLoadBeanDefinitions(InputSource inputSource, Resource resource)
 			throws BeanDefinitionStoreException {
 		try {
-			int validationMode = getValidationModeForResource(resource);
-			Document doc = this.documentLoader.loadDocument(
-					inputSource, getEntityResolver(), this.errorHandler, validationMode, isNamespaceAware());
+			Document doc = getPrefetchedDocument(new EncodedResource(resource, inputSource.getEncoding()));
+			if (doc == null) {
+				int validationMode = getValidationModeForResourceSynchronized(resource);
+				doc = loadDocument(inputSource, resource, validationMode);
+				ConcurrentMap<EncodedResource, PrefetchTask> documents = getPrefetchedDocuments();
+				if (documents != null) {
+					prefetchImports(doc.getDocumentElement(), resource, documents);
+				}
+			}
+			SnapshotRecording recording = this.currentSnapshotRecording.get();
+			if (recording != null) {
+				checkSnapshotImports(doc.getDocumentElement(), resource, recording);
+			}
 			return registerBeanDefinitions(doc, resource);
 		}
 		catch (BeanDefinitionStoreException ex) {
@@ -415,6 +1054,32 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 		}
 	}
 
+	/**
+	 * Determine the validation mode for the given resource through
+	 * {@link #getValidationModeForResource}, guarding the shared validation
+	 * mode detector against concurrent use by prefetch tasks.
+	 */
+	private int getValidationModeForResourceSynchronized(Resource resource) {
+		synchronized (this.validationModeDetector) {
+			return getValidationModeForResource(resource);
+		}
+	}
+
+	/**
+	 * Load the document from the given InputSource through the {@link DocumentLoader},
+	 * notifying the {@link DocumentLoadListener} (if any).
+	 */
+	private Document loadDocument(InputSource inputSource, Resource resource, int validationMode) throws Exception {
+		DocumentLoadListener listener = this.documentLoadListener;
+		long startTime = (listener != null ? System.nanoTime() : 0);
+		Document doc = this.documentLoader.loadDocument(
+				inputSource, getEntityResolver(), this.errorHandler, validationMode, isNamespaceAware());
+		if (listener != null) {
+			listener.documentLoaded(resource, validationMode, System.nanoTime() - startTime);
+		}
+		return doc;
+	}
+
 
 	/**
 	 * Gets the validation mode for the specified {@link Resource}. If no explicit
@@ -513,7 +1178,12 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 		if (this.namespaceHandlerResolver == null) {
 			this.namespaceHandlerResolver = createDefaultNamespaceHandlerResolver();
 		}
-		return new XmlReaderContext(resource, this.problemReporter, this.eventListener,
+		ReaderEventListener eventListener = this.eventListener;
+		SnapshotRecording recording = this.currentSnapshotRecording.get();
+		if (recording != null) {
+			eventListener = new AliasRecordingEventListener(eventListener, recording);
+		}
+		return new XmlReaderContext(resource, this.problemReporter, eventListener,
 				this.sourceExtractor, this, this.namespaceHandlerResolver);
 	}
 
@@ -525,4 +1195,139 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 		return new DefaultNamespaceHandlerResolver(getResourceLoader().getClassLoader());
 	}
 
+
+	/**
+	 * Task loading a document in the background, allowing to wait for
+	 * its termination even after it has been cancelled while running.
+	 */
+	private static class PrefetchTask extends FutureTask<Document> {
+
+		private final AtomicBoolean started = new AtomicBoolean();
+
+		private final CountDownLatch terminated = new CountDownLatch(1);
+
+		public PrefetchTask(Callable<Document> callable) {
+			super(callable);
+		}
+
+		@Override
+		public void run() {
+			this.started.set(true);
+			try {
+				super.run();
+			}
+			finally {
+				this.terminated.countDown();
+			}
+		}
+
+		/**
+		 * Wait for this task to terminate if it has been started already.
+		 * A task that has not been started yet will not do anything
+		 * once cancelled.
+		 * @return {@code false} if interrupted while waiting
+		 */
+		public boolean awaitTermination() {
+			if (this.started.get()) {
+				try {
+					this.terminated.await();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+
+	/**
+	 * Collects the imported resources and explicitly registered aliases
+	 * while loading an XML resource for a bean definition snapshot.
+	 */
+	private static class SnapshotRecording {
+
+		private final Map<String, String> sources = new LinkedHashMap<String, String>();
+
+		private final Map<String, String> aliases = new LinkedHashMap<String, String>();
+
+		private boolean complete = true;
+
+		public void addSource(String location, String digest) {
+			if (location != null) {
+				this.sources.put(location, digest);
+			}
+			else {
+				// Cannot verify the resource later on...
+				this.complete = false;
+			}
+		}
+
+		public void markIncomplete() {
+			this.complete = false;
+		}
+
+		public void addAlias(String beanName, String alias) {
+			this.aliases.put(alias, beanName);
+		}
+
+		public void addSnapshot(BeanDefinitionSnapshot snapshot) {
+			this.sources.putAll(snapshot.getSources());
+			this.aliases.putAll(snapshot.getAliases());
+		}
+
+		public void addRecording(SnapshotRecording recording) {
+			this.sources.putAll(recording.sources);
+			this.aliases.putAll(recording.aliases);
+			this.complete = (this.complete && recording.complete);
+		}
+
+		public Map<String, String> getSources() {
+			return this.sources;
+		}
+
+		public Map<String, String> getAliases() {
+			return this.aliases;
+		}
+
+		public boolean isComplete() {
+			return this.complete;
+		}
+	}
+
+
+	/**
+	 * ReaderEventListener decorator that records aliases
+	 * for inclusion in a bean definition snapshot.
+	 */
+	private static class AliasRecordingEventListener implements ReaderEventListener {
+
+		private final ReaderEventListener targetListener;
+
+		private final SnapshotRecording recording;
+
+		public AliasRecordingEventListener(ReaderEventListener targetListener, SnapshotRecording recording) {
+			this.targetListener = targetListener;
+			this.recording = recording;
+		}
+
+		public void defaultsRegistered(DefaultsDefinition defaultsDefinition) {
+			this.targetListener.defaultsRegistered(defaultsDefinition);
+		}
+
+		public void componentRegistered(ComponentDefinition componentDefinition) {
+			this.targetListener.componentRegistered(componentDefinition);
+		}
+
+		public void aliasRegistered(AliasDefinition aliasDefinition) {
+			this.recording.addAlias(aliasDefinition.getBeanName(), aliasDefinition.getAlias());
+			this.targetListener.aliasRegistered(aliasDefinition);
+		}
+
+		public void importProcessed(ImportDefinition importDefinition) {
+			this.targetListener.importProcessed(importDefinition);
+		}
+	}
+
 }
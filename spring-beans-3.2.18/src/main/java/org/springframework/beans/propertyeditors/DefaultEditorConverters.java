@@ -0,0 +1,263 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.propertyeditors;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.NumberUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Stateless, thread-safe equivalents of the default property editors
+ * for simple value types, as registered by
+ * {@link org.springframework.beans.PropertyEditorRegistrySupport}.
+ *
+ * <p>In contrast to a {@link java.beans.PropertyEditor}, which keeps the
+ * converted value between {@code setAsText} and {@code getValue}, each
+ * {@link Converter} returned here is immutable: a single instance is shared
+ * by all bean wrappers and may be used concurrently, without any per-wrapper
+ * editor instances or synchronization.
+ *
+ * <p>Each converter behaves like the corresponding default editor for any
+ * non-empty text value that it successfully converts. For empty text it
+ * returns {@code null}, and for invalid text it throws an
+ * {@code IllegalArgumentException}; callers that need the exact semantics
+ * of the default editor for such input (e.g. rejecting an empty value
+ * for a primitive type) should fall back to that editor in those cases.
+ *
+ * <p>Editors that depend on a resource loader or produce arrays, collections
+ * or maps are not covered: {@link FileEditor}, {@link InputStreamEditor},
+ * {@link InputSourceEditor}, {@link URLEditor}, {@link URIEditor},
+ * {@link ClassArrayEditor}, {@link PropertiesEditor}, the collection and
+ * map editors as well as the byte and char array editors.
+ *
+ * @since 3.2.18
+ * @see org.springframework.beans.PropertyEditorRegistrySupport#getDefaultEditor
+ */
+public abstract class DefaultEditorConverters {
+
+	private static final String UNICODE_PREFIX = "\\u";
+
+	private static final int UNICODE_LENGTH = 6;
+
+	private static final Map<Class<?>, Converter<String, ?>> defaultConverters;
+
+	static {
+		Map<Class<?>, Converter<String, ?>> converters = new HashMap<Class<?>, Converter<String, ?>>(32);
+		converters.put(Charset.class, new CharsetConverter());
+		converters.put(Class.class, new ClassConverter());
+		converters.put(Currency.class, new CurrencyConverter());
+		converters.put(Locale.class, new LocaleConverter());
+		converters.put(Pattern.class, new PatternConverter());
+		converters.put(TimeZone.class, new TimeZoneConverter());
+		converters.put(UUID.class, new UUIDConverter());
+
+		CharacterConverter characterConverter = new CharacterConverter();
+		converters.put(char.class, characterConverter);
+		converters.put(Character.class, characterConverter);
+
+		BooleanConverter booleanConverter = new BooleanConverter();
+		converters.put(boolean.class, booleanConverter);
+		converters.put(Boolean.class, booleanConverter);
+
+		addNumberConverter(converters, byte.class, Byte.class);
+		addNumberConverter(converters, short.class, Short.class);
+		addNumberConverter(converters, int.class, Integer.class);
+		addNumberConverter(converters, long.class, Long.class);
+		addNumberConverter(converters, float.class, Float.class);
+		addNumberConverter(converters, double.class, Double.class);
+		addNumberConverter(converters, null, BigDecimal.class);
+		addNumberConverter(converters, null, BigInteger.class);
+		defaultConverters = Collections.unmodifiableMap(converters);
+	}
+
+	private static void addNumberConverter(Map<Class<?>, Converter<String, ?>> converters,
+			Class<?> primitiveType, Class<? extends Number> numberClass) {
+
+		NumberConverter converter = new NumberConverter(numberClass);
+		if (primitiveType != null) {
+			converters.put(primitiveType, converter);
+		}
+		converters.put(numberClass, converter);
+	}
+
+
+	/**
+	 * Return the shared converter equivalent to the default editor
+	 * for the given type, if any.
+	 * @param requiredType the type to convert text values to
+	 * @return the shared converter, or {@code null} if none available
+	 */
+	public static Converter<String, ?> getConverter(Class<?> requiredType) {
+		return defaultConverters.get(requiredType);
+	}
+
+
+	/**
+	 * Equivalent of {@link CharsetEditor}.
+	 */
+	private static class CharsetConverter implements Converter<String, Charset> {
+
+		public Charset convert(String source) {
+			return (StringUtils.hasText(source) ? Charset.forName(source) : null);
+		}
+	}
+
+
+	/**
+	 * Equivalent of {@link ClassEditor} with the default ClassLoader,
+	 * determined for each conversion as it may be thread-specific.
+	 */
+	private static class ClassConverter implements Converter<String, Class<?>> {
+
+		public Class<?> convert(String source) {
+			return (StringUtils.hasText(source) ?
+					ClassUtils.resolveClassName(source.trim(), ClassUtils.getDefaultClassLoader()) : null);
+		}
+	}
+
+
+	/**
+	 * Equivalent of {@link CurrencyEditor}.
+	 */
+	private static class CurrencyConverter implements Converter<String, Currency> {
+
+		public Currency convert(String source) {
+			return (StringUtils.hasLength(source) ? Currency.getInstance(source) : null);
+		}
+	}
+
+
+	/**
+	 * Equivalent of {@link LocaleEditor}.
+	 */
+	private static class LocaleConverter implements Converter<String, Locale> {
+
+		public Locale convert(String source) {
+			return StringUtils.parseLocaleString(source);
+		}
+	}
+
+
+	/**
+	 * Equivalent of {@link PatternEditor} without flags.
+	 */
+	private static class PatternConverter implements Converter<String, Pattern> {
+
+		public Pattern convert(String source) {
+			return (StringUtils.hasLength(source) ? Pattern.compile(source) : null);
+		}
+	}
+
+
+	/**
+	 * Equivalent of {@link TimeZoneEditor}.
+	 */
+	private static class TimeZoneConverter implements Converter<String, TimeZone> {
+
+		public TimeZone convert(String source) {
+			return (StringUtils.hasLength(source) ? TimeZone.getTimeZone(source) : null);
+		}
+	}
+
+
+	/**
+	 * Equivalent of {@link UUIDEditor}.
+	 */
+	private static class UUIDConverter implements Converter<String, UUID> {
+
+		public UUID convert(String source) {
+			return (StringUtils.hasText(source) ? UUID.fromString(source) : null);
+		}
+	}
+
+
+	/**
+	 * Equivalent of {@link CharacterEditor}.
+	 */
+	private static class CharacterConverter implements Converter<String, Character> {
+
+		public Character convert(String source) {
+			if (!StringUtils.hasLength(source)) {
+				return null;
+			}
+			if (source.startsWith(UNICODE_PREFIX) && source.length() == UNICODE_LENGTH) {
+				return (char) Integer.parseInt(source.substring(UNICODE_PREFIX.length()), 16);
+			}
+			if (source.length() != 1) {
+				throw new IllegalArgumentException("String [" + source + "] with length " +
+						source.length() + " cannot be converted to char type");
+			}
+			return source.charAt(0);
+		}
+	}
+
+
+	/**
+	 * Equivalent of {@link CustomBooleanEditor} without custom true/false Strings.
+	 */
+	private static class BooleanConverter implements Converter<String, Boolean> {
+
+		public Boolean convert(String source) {
+			String input = (source != null ? source.trim() : null);
+			if (!StringUtils.hasLength(input)) {
+				return null;
+			}
+			if (CustomBooleanEditor.VALUE_TRUE.equalsIgnoreCase(input) ||
+					CustomBooleanEditor.VALUE_ON.equalsIgnoreCase(input) ||
+					CustomBooleanEditor.VALUE_YES.equalsIgnoreCase(input) || CustomBooleanEditor.VALUE_1.equals(input)) {
+				return Boolean.TRUE;
+			}
+			if (CustomBooleanEditor.VALUE_FALSE.equalsIgnoreCase(input) ||
+					CustomBooleanEditor.VALUE_OFF.equalsIgnoreCase(input) ||
+					CustomBooleanEditor.VALUE_NO.equalsIgnoreCase(input) || CustomBooleanEditor.VALUE_0.equals(input)) {
+				return Boolean.FALSE;
+			}
+			throw new IllegalArgumentException("Invalid boolean value [" + source + "]");
+		}
+	}
+
+
+	/**
+	 * Equivalent of {@link CustomNumberEditor} without NumberFormat.
+	 */
+	private static class NumberConverter implements Converter<String, Number> {
+
+		private final Class<? extends Number> numberClass;
+
+		public NumberConverter(Class<? extends Number> numberClass) {
+			this.numberClass = numberClass;
+		}
+
+		public Number convert(String source) {
+			return (StringUtils.hasText(source) ? NumberUtils.parseNumber(source, this.numberClass) : null);
+		}
+	}
+
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.support;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Abstract base class for state holders that separate a list of objects
+ * into pages, holding the page size, the current page and the sort definition.
+ * Page numbering starts with 0.
+ *
+ * <p>Subclasses determine where the elements come from: {@link PagedListHolder}
+ * holds a full source list, whereas {@link LazyPagedListHolder} loads pages
+ * on demand.
+ *
+ * @since 3.2.18
+ * @param <E> the element type
+ * @see #getPageList()
+ */
+public abstract class AbstractPagedListHolder<E> implements Serializable {
+
+	private static final long serialVersionUID = -7217559613953130020L;
+
+	public static final int DEFAULT_PAGE_SIZE = 10;
+
+	public static final int DEFAULT_MAX_LINKED_PAGES = 10;
+
+
+	private SortDefinition sort;
+
+	private int pageSize = DEFAULT_PAGE_SIZE;
+
+	private int page = 0;
+
+	private boolean newPageSet;
+
+	private int maxLinkedPages = DEFAULT_MAX_LINKED_PAGES;
+
+
+	/**
+	 * Set the sort definition for this holder.
+	 * Typically an instance of MutableSortDefinition.
+	 * @see org.springframework.beans.support.MutableSortDefinition
+	 */
+	public void setSort(SortDefinition sort) {
+		this.sort = sort;
+	}
+
+	/**
+	 * Return the sort definition for this holder.
+	 */
+	public SortDefinition getSort() {
+		return this.sort;
+	}
+
+	/**
+	 * Set the current page size.
+	 * Resets the current page number if changed.
+	 * <p>Default value is 10.
+	 */
+	public void setPageSize(int pageSize) {
+		if (pageSize != this.pageSize) {
+			this.pageSize = pageSize;
+			if (!this.newPageSet) {
+				this.page = 0;
+			}
+		}
+	}
+
+	/**
+	 * Return the current page size.
+	 */
+	public int getPageSize() {
+		return this.pageSize;
+	}
+
+	/**
+	 * Set the current page number.
+	 * Page numbering starts with 0.
+	 */
+	public void setPage(int page) {
+		this.page = page;
+		this.newPageSet = true;
+	}
+
+	/**
+	 * Return the current page number.
+	 * Page numbering starts with 0.
+	 */
+	public int getPage() {
+		this.newPageSet = false;
+		if (this.page >= getPageCount()) {
+			this.page = getPageCount() - 1;
+		}
+		return this.page;
+	}
+
+	/**
+	 * Set the maximum number of page links to a few pages around the current one.
+	 */
+	public void setMaxLinkedPages(int maxLinkedPages) {
+		this.maxLinkedPages = maxLinkedPages;
+	}
+
+	/**
+	 * Return the maximum number of page links to a few pages around the current one.
+	 */
+	public int getMaxLinkedPages() {
+		return this.maxLinkedPages;
+	}
+
+
+	/**
+	 * Return the number of pages for the current elements.
+	 */
+	public int getPageCount() {
+		float nrOfPages = (float) getNrOfElements() / getPageSize();
+		return (int) ((nrOfPages > (int) nrOfPages || nrOfPages == 0.0) ? nrOfPages + 1 : nrOfPages);
+	}
+
+	/**
+	 * Return if the current page is the first one.
+	 */
+	public boolean isFirstPage() {
+		return getPage() == 0;
+	}
+
+	/**
+	 * Return if the current page is the last one.
+	 */
+	public boolean isLastPage() {
+		return getPage() == getPageCount() -1;
+	}
+
+	/**
+	 * Switch to previous page.
+	 * Will stay on first page if already on first page.
+	 */
+	public void previousPage() {
+		if (!isFirstPage()) {
+			this.page--;
+		}
+	}
+
+	/**
+	 * Switch to next page.
+	 * Will stay on last page if already on last page.
+	 */
+	public void nextPage() {
+		if (!isLastPage()) {
+			this.page++;
+		}
+	}
+
+	/**
+	 * Return the total number of elements.
+	 */
+	public abstract int getNrOfElements();
+
+	/**
+	 * Return the element index of the first element on the current page.
+	 * Element numbering starts with 0.
+	 */
+	public int getFirstElementOnPage() {
+		return (getPageSize() * getPage());
+	}
+
+	/**
+	 * Return the element index of the last element on the current page.
+	 * Element numbering starts with 0.
+	 */
+	public int getLastElementOnPage() {
+		int endIndex = getPageSize() * (getPage() + 1);
+		int size = getNrOfElements();
+		return (endIndex > size ? size : endIndex) - 1;
+	}
+
+	/**
+	 * Return a list representing the current page.
+	 */
+	public abstract List<E> getPageList();
+
+	/**
+	 * Return the first page to which create a link around the current page.
+	 */
+	public int getFirstLinkedPage() {
+		return Math.max(0, getPage() - (getMaxLinkedPages() / 2));
+	}
+
+	/**
+	 * Return the last page to which create a link around the current page.
+	 */
+	public int getLastLinkedPage() {
+		return Math.min(getFirstLinkedPage() + getMaxLinkedPages() - 1, getPageCount() - 1);
+	}
+
+
+	/**
+	 * Apply the current {@code sort} definition if it changed since last applied.
+	 */
+	public abstract void resort();
+
+	/**
+	 * Create a deep copy of the given sort definition,
+	 * for use as state holder to compare a modified sort definition against.
+	 * <p>Default implementation creates a MutableSortDefinition instance.
+	 * Can be overridden in subclasses, in particular in case of custom
+	 * extensions to the SortDefinition interface. Is allowed to return
+	 * null, which means that no sort state will be held, triggering
+	 * actual sorting for each {@code resort} call.
+	 * @param sort the current SortDefinition object
+	 * @return a deep copy of the SortDefinition object
+	 * @see MutableSortDefinition#MutableSortDefinition(SortDefinition)
+	 */
+	protected SortDefinition copySortDefinition(SortDefinition sort) {
+		return new MutableSortDefinition(sort);
+	}
+
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.support;
+
+/**
+ * Callback for determining the total number of elements available
+ * from a {@link PageProvider}, e.g. through a count query.
+ *
+ * @since 3.2.18
+ * @see LazyPagedListHolder
+ */
+public interface ElementCountProvider {
+
+	/**
+	 * Return the total number of elements.
+	 */
+	int countElements();
+
+}
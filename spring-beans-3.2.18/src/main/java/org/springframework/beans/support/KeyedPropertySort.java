@@ -0,0 +1,359 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.support;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.GeneratedPropertyReader;
+import org.springframework.beans.PropertyAccessorUtils;
+
+/**
+ * Sorts objects by a bean property in decorate-sort-undecorate fashion:
+ * the sort key of each object is read once upfront, rather than twice per
+ * comparison as with a {@link PropertyComparator}, and the objects are then
+ * sorted along with their keys. Simple properties are read through a
+ * {@link GeneratedPropertyReader}; nested properties through a BeanWrapper.
+ *
+ * <p>The resulting order is the same as with a PropertyComparator and a
+ * stable sort algorithm: objects with a {@code null} key go to the end
+ * (or to the beginning, if sorting descending), and objects with equal
+ * keys remain in their original order. Integer keys are sorted as
+ * primitives; large inputs are sorted in parallel.
+ *
+ * <p>Alternatively, objects can be sorted incrementally: each call to
+ * {@link #sortUpTo} puts just the objects up to the given position into
+ * their final order, e.g. only the pages of a {@link PagedListHolder} that
+ * actually get displayed.
+ *
+ * @since 3.2.18
+ * @see PropertyComparator#sort(List, SortDefinition)
+ * @see PagedListHolder#setIncrementalSort
+ */
+class KeyedPropertySort {
+
+	/** Minimum number of objects to sort in parallel */
+	private static final int PARALLEL_SORT_THRESHOLD = 8192;
+
+	private static final Log logger = LogFactory.getLog(KeyedPropertySort.class);
+
+	private final SortDefinition sortDefinition;
+
+	private final Entry[] entries;
+
+	private final Comparator<Entry> entryComparator;
+
+	private int sortedCount;
+
+
+	/**
+	 * Create a new KeyedPropertySort for the given objects,
+	 * reading the sort key of each of them.
+	 * @param objects the objects to sort
+	 * @param sortDefinition the parameters to sort by
+	 */
+	public KeyedPropertySort(Object[] objects, SortDefinition sortDefinition) {
+		this.sortDefinition = sortDefinition;
+		this.entries = new Entry[objects.length];
+		KeyReader keyReader = new KeyReader(sortDefinition);
+		for (int i = 0; i < objects.length; i++) {
+			this.entries[i] = new Entry(objects[i], keyReader.readKey(objects[i]), i);
+		}
+		this.entryComparator = new EntryComparator(sortDefinition.isAscending());
+	}
+
+
+	/**
+	 * Return the number of objects that are in their final order already.
+	 */
+	public int getSortedCount() {
+		return this.sortedCount;
+	}
+
+	/**
+	 * Sort all objects.
+	 * @return the sorted objects
+	 */
+	public Object[] sort() {
+		if (this.sortedCount < this.entries.length) {
+			if (!sortIntegerKeys()) {
+				sort(this.entries, 0, this.entries.length);
+			}
+			this.sortedCount = this.entries.length;
+		}
+		Object[] result = new Object[this.entries.length];
+		for (int i = 0; i < this.entries.length; i++) {
+			result[i] = this.entries[i].object;
+		}
+		return result;
+	}
+
+	/**
+	 * Put the objects up to the given position into their final order, leaving
+	 * the order of all subsequent objects undefined, and copy them to the given
+	 * list. Only the objects beyond those sorted by previous calls are sorted.
+	 * @param count the number of leading objects to sort
+	 * @param target the list to copy the objects to, in their current order
+	 * (must have the same number of elements as there are objects to sort)
+	 */
+	public void sortUpTo(int count, List<Object> target) {
+		count = Math.min(count, this.entries.length);
+		if (count <= this.sortedCount) {
+			return;
+		}
+		// Select the next smallest entries, then sort just those.
+		if (count < this.entries.length) {
+			select(this.sortedCount, this.entries.length, count);
+		}
+		sort(this.entries, this.sortedCount, count);
+		// Selection has permuted all remaining entries.
+		ListIterator<Object> it = target.listIterator(this.sortedCount);
+		for (int i = this.sortedCount; i < this.entries.length; i++) {
+			it.next();
+			it.set(this.entries[i].object);
+		}
+		this.sortedCount = count;
+	}
+
+
+	private void sort(Entry[] entries, int fromIndex, int toIndex) {
+		if (toIndex - fromIndex >= PARALLEL_SORT_THRESHOLD) {
+			Arrays.parallelSort(entries, fromIndex, toIndex, this.entryComparator);
+		}
+		else {
+			Arrays.sort(entries, fromIndex, toIndex, this.entryComparator);
+		}
+	}
+
+	/**
+	 * Sort all entries as primitives if all keys are integers of the same type
+	 * (or {@code null}), packing each key together with the original position
+	 * of its entry.
+	 * @return whether the entries have been sorted
+	 */
+	private boolean sortIntegerKeys() {
+		int nullCount = 0;
+		Class<?> keyType = null;
+		for (Entry entry : this.entries) {
+			if (entry.key == null) {
+				nullCount++;
+			}
+			else if (keyType == null && (entry.key instanceof Integer || entry.key instanceof Short ||
+					entry.key instanceof Byte || entry.key instanceof Character)) {
+				keyType = entry.key.getClass();
+			}
+			else if (entry.key.getClass() != keyType) {
+				return false;
+			}
+		}
+		// Entries may have been permuted by incremental sorting already.
+		Entry[] entriesByIndex = new Entry[this.entries.length];
+		for (Entry entry : this.entries) {
+			entriesByIndex[entry.index] = entry;
+		}
+		boolean ascending = this.sortDefinition.isAscending();
+		long[] packed = new long[this.entries.length - nullCount];
+		Entry[] nullEntries = new Entry[nullCount];
+		int packedIndex = 0;
+		int nullIndex = 0;
+		for (Entry entry : entriesByIndex) {
+			if (entry.key != null) {
+				int key = (entry.key instanceof Character ? (Character) entry.key : ((Number) entry.key).intValue());
+				// Inverting all bits reverses the order of int values without overflow.
+				packed[packedIndex++] = ((long) (ascending ? key : ~key) << 32) | entry.index;
+			}
+			else {
+				nullEntries[nullIndex++] = entry;
+			}
+		}
+		if (packed.length >= PARALLEL_SORT_THRESHOLD) {
+			Arrays.parallelSort(packed);
+		}
+		else {
+			Arrays.sort(packed);
+		}
+		int offset = (ascending ? 0 : nullCount);
+		for (int i = 0; i < packed.length; i++) {
+			this.entries[offset + i] = entriesByIndex[(int) packed[i]];
+		}
+		System.arraycopy(nullEntries, 0, this.entries, (ascending ? packed.length : 0), nullCount);
+		return true;
+	}
+
+	/**
+	 * Partition the given range of entries so that the entries up to the
+	 * given position are the smallest ones in the range (quickselect).
+	 */
+	private void select(int fromIndex, int toIndex, int position) {
+		int left = fromIndex;
+		int right = toIndex - 1;
+		while (left < right) {
+			Entry pivot = medianOfThree(left, (left + right) >>> 1, right);
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (this.entryComparator.compare(this.entries[i], pivot) < 0) {
+					i++;
+				}
+				while (this.entryComparator.compare(this.entries[j], pivot) > 0) {
+					j--;
+				}
+				if (i <= j) {
+					Entry temp = this.entries[i];
+					this.entries[i++] = this.entries[j];
+					this.entries[j--] = temp;
+				}
+			}
+			if (position <= j) {
+				right = j;
+			}
+			else if (position >= i) {
+				left = i;
+			}
+			else {
+				return;
+			}
+		}
+	}
+
+	private Entry medianOfThree(int a, int b, int c) {
+		Entry ea = this.entries[a];
+		Entry eb = this.entries[b];
+		Entry ec = this.entries[c];
+		if (this.entryComparator.compare(ea, eb) < 0) {
+			return (this.entryComparator.compare(eb, ec) < 0 ? eb : (this.entryComparator.compare(ea, ec) < 0 ? ec : ea));
+		}
+		return (this.entryComparator.compare(ea, ec) < 0 ? ea : (this.entryComparator.compare(eb, ec) < 0 ? ec : eb));
+	}
+
+
+	/**
+	 * An object to sort, decorated with its sort key and original position.
+	 */
+	private static class Entry {
+
+		private final Object object;
+
+		private final Object key;
+
+		private final int index;
+
+		public Entry(Object object, Object key, int index) {
+			this.object = object;
+			this.key = key;
+			this.index = index;
+		}
+	}
+
+
+	/**
+	 * Compares entries by key like a {@link PropertyComparator}, and entries with
+	 * equal keys by original position, making the order of all entries total.
+	 */
+	private static class EntryComparator implements Comparator<Entry> {
+
+		private final boolean ascending;
+
+		public EntryComparator(boolean ascending) {
+			this.ascending = ascending;
+		}
+
+		@SuppressWarnings("unchecked")
+		public int compare(Entry e1, Entry e2) {
+			int result;
+			// Put an object with null property at the end of the sort result.
+			try {
+				if (e1.key != null) {
+					result = (e2.key != null ? ((Comparable<Object>) e1.key).compareTo(e2.key) : -1);
+				}
+				else {
+					result = (e2.key != null ? 1 : 0);
+				}
+			}
+			catch (RuntimeException ex) {
+				if (logger.isWarnEnabled()) {
+					logger.warn("Could not sort objects [" + e1.object + "] and [" + e2.object + "]", ex);
+				}
+				result = 0;
+			}
+			if (result != 0) {
+				return (this.ascending ? result : -result);
+			}
+			return (e1.index < e2.index ? -1 : (e1.index > e2.index ? 1 : 0));
+		}
+	}
+
+
+	/**
+	 * Reads the sort key of an object, the same way a {@link PropertyComparator}
+	 * obtains the values to compare.
+	 */
+	private static class KeyReader {
+
+		private final String property;
+
+		private final boolean ignoreCase;
+
+		private final boolean simpleProperty;
+
+		private BeanWrapperImpl beanWrapper;
+
+		private GeneratedPropertyReader propertyReader;
+
+		public KeyReader(SortDefinition sortDefinition) {
+			this.property = sortDefinition.getProperty();
+			this.ignoreCase = sortDefinition.isIgnoreCase();
+			this.simpleProperty = !PropertyAccessorUtils.isNestedOrIndexedProperty(this.property);
+		}
+
+		public Object readKey(Object obj) {
+			Object key;
+			// If a nested property cannot be read, simply treat it as null (similar to JSTL EL).
+			try {
+				if (this.simpleProperty && obj != null) {
+					if (this.propertyReader == null || this.propertyReader.getBeanClass() != obj.getClass()) {
+						this.propertyReader = new GeneratedPropertyReader(obj.getClass(), this.property);
+					}
+					key = this.propertyReader.read(obj);
+				}
+				else {
+					if (this.beanWrapper == null) {
+						this.beanWrapper = new BeanWrapperImpl(false);
+					}
+					this.beanWrapper.setWrappedInstance(obj);
+					key = this.beanWrapper.getPropertyValue(this.property);
+				}
+			}
+			catch (BeansException ex) {
+				logger.info("PropertyComparator could not access property - treating as null for sorting", ex);
+				return null;
+			}
+			if (this.ignoreCase && key instanceof String) {
+				key = ((String) key).toLowerCase();
+			}
+			return key;
+		}
+	}
+
+}
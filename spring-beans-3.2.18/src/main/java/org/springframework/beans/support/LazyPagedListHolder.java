@@ -0,0 +1,397 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.support;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.util.Assert;
+
+/**
+ * Paged list holder that does not hold a full source list but loads
+ * pages on demand from a {@link PageProvider}, for paging through data sets
+ * too large to keep in memory. Sorting is delegated to the page provider,
+ * which receives the sort definition used along with each page request.
+ *
+ * <p>Just a bounded number of recently accessed pages is kept (see
+ * {@link #setMaxCachedPages}); whenever a page is accessed through
+ * {@link #getPageList()}, the following page can be loaded in the background
+ * if a prefetch executor has been specified (see {@link #setPrefetchExecutor}).
+ * The navigation API is the same as with a plain {@link PagedListHolder}.
+ *
+ * <p>The total number of elements is obtained from an optional
+ * {@link ElementCountProvider}. Without one, it is discovered while paging:
+ * the holder then assumes one more page beyond the last full page loaded
+ * until a page comes back incomplete, so navigation proceeds page by page.
+ *
+ * <p>This holder is serializable if its page provider, count provider and
+ * prefetch executor are; loaded pages are not serialized but loaded again
+ * on demand.
+ *
+ * @since 3.2.18
+ * @param <E> the element type
+ * @see PageProvider
+ * @see ElementCountProvider
+ */
+public class LazyPagedListHolder<E> extends AbstractPagedListHolder<E> {
+
+	private static final long serialVersionUID = 6348926734290417283L;
+
+	public static final int DEFAULT_MAX_CACHED_PAGES = 10;
+
+	private static final Log logger = LogFactory.getLog(LazyPagedListHolder.class);
+
+
+	private final PageProvider<E> pageProvider;
+
+	private final ElementCountProvider countProvider;
+
+	private int maxCachedPages = DEFAULT_MAX_CACHED_PAGES;
+
+	private TaskExecutor prefetchExecutor;
+
+	private SortDefinition sortUsed;
+
+	private int elementCount = -1;
+
+	private int loadedElementCount;
+
+	private transient Map<Integer, List<E>> pageCache;
+
+	private transient Map<Integer, FutureTask<List<E>>> pendingPages;
+
+	private transient int generation;
+
+
+	/**
+	 * Create a new holder instance for the given page provider,
+	 * discovering the total number of elements while paging.
+	 * @param pageProvider the callback for loading pages
+	 */
+	public LazyPagedListHolder(PageProvider<E> pageProvider) {
+		this(pageProvider, null);
+	}
+
+	/**
+	 * Create a new holder instance for the given page provider, starting with
+	 * a default sort definition (with "toggleAscendingOnProperty" activated).
+	 * @param pageProvider the callback for loading pages
+	 * @param countProvider the callback for determining the total number of
+	 * elements (may be {@code null} to discover it while paging)
+	 * @see MutableSortDefinition#setToggleAscendingOnProperty
+	 */
+	public LazyPagedListHolder(PageProvider<E> pageProvider, ElementCountProvider countProvider) {
+		this(pageProvider, countProvider, null);
+	}
+
+	/**
+	 * Create a new holder instance for the given page provider, starting with
+	 * a default sort definition (with "toggleAscendingOnProperty" activated).
+	 * @param pageProvider the callback for loading pages
+	 * @param countProvider the callback for determining the total number of
+	 * elements (may be {@code null} to discover it while paging)
+	 * @param prefetchExecutor the executor for loading the following page
+	 * in the background (may be {@code null} to not prefetch pages)
+	 * @see MutableSortDefinition#setToggleAscendingOnProperty
+	 */
+	public LazyPagedListHolder(PageProvider<E> pageProvider, ElementCountProvider countProvider,
+			TaskExecutor prefetchExecutor) {
+
+		Assert.notNull(pageProvider, "PageProvider must not be null");
+		this.pageProvider = pageProvider;
+		this.countProvider = countProvider;
+		this.prefetchExecutor = prefetchExecutor;
+		setSort(new MutableSortDefinition(true));
+		initPageCache();
+	}
+
+
+	/**
+	 * Return the callback for loading pages.
+	 */
+	public final PageProvider<E> getPageProvider() {
+		return this.pageProvider;
+	}
+
+	/**
+	 * Return the callback for determining the total number of elements, if any.
+	 */
+	public final ElementCountProvider getCountProvider() {
+		return this.countProvider;
+	}
+
+	/**
+	 * Set the maximum number of pages to keep, evicting the least recently
+	 * accessed ones beyond. Default is 10.
+	 */
+	public void setMaxCachedPages(int maxCachedPages) {
+		Assert.isTrue(maxCachedPages > 0, "'maxCachedPages' must be greater than 0");
+		this.maxCachedPages = maxCachedPages;
+	}
+
+	/**
+	 * Return the maximum number of pages to keep.
+	 */
+	public int getMaxCachedPages() {
+		return this.maxCachedPages;
+	}
+
+	/**
+	 * Set the executor for loading the page following the current one in the
+	 * background. Default is none, not prefetching any pages.
+	 * <p>Each access to a page may submit a prefetch task, so the executor
+	 * should have a bounded number of threads, e.g. a thread pool shared
+	 * across all holders of a kind.
+	 */
+	public void setPrefetchExecutor(TaskExecutor prefetchExecutor) {
+		this.prefetchExecutor = prefetchExecutor;
+	}
+
+	/**
+	 * Return the executor for loading pages in the background, if any.
+	 */
+	public TaskExecutor getPrefetchExecutor() {
+		return this.prefetchExecutor;
+	}
+
+	/**
+	 * Set the current page size.
+	 * Discards all pages loaded so far if changed.
+	 */
+	@Override
+	public void setPageSize(int pageSize) {
+		if (pageSize != getPageSize()) {
+			super.setPageSize(pageSize);
+			clearPages();
+		}
+	}
+
+	/**
+	 * Return the total number of elements, as determined by the count provider,
+	 * or the number of elements known to exist plus one if still undetermined.
+	 */
+	@Override
+	public int getNrOfElements() {
+		if (this.elementCount < 0 && this.countProvider != null) {
+			this.elementCount = this.countProvider.countElements();
+		}
+		return (this.elementCount >= 0 ? this.elementCount : this.loadedElementCount + 1);
+	}
+
+	/**
+	 * Return the element index of the last element on the current page,
+	 * loading the current page if the total number of elements is undetermined.
+	 */
+	@Override
+	public int getLastElementOnPage() {
+		if (this.countProvider != null || this.elementCount >= 0) {
+			return super.getLastElementOnPage();
+		}
+		List<E> pageList = getPageList();
+		return getFirstElementOnPage() + pageList.size() - 1;
+	}
+
+	/**
+	 * Return the current page, loading it if not held already, and trigger
+	 * loading of the following page in the background.
+	 */
+	@Override
+	public List<E> getPageList() {
+		int page = getPage();
+		List<E> pageList = obtainPage(page);
+		// The current page may have turned out to be beyond the last element.
+		while (pageList.isEmpty() && page > 0 && getPage() != page) {
+			page = getPage();
+			pageList = obtainPage(page);
+		}
+		if (this.prefetchExecutor != null && page + 1 < getPageCount()) {
+			prefetchPage(page + 1);
+		}
+		return pageList;
+	}
+
+	/**
+	 * Discard all pages loaded so far if the current {@code sort} instance
+	 * isn't equal to the backed-up {@code sortUsed} instance, passing the
+	 * new sort definition to the page provider from now on.
+	 */
+	@Override
+	public void resort() {
+		SortDefinition sort = getSort();
+		if (sort != null && !sort.equals(this.sortUsed)) {
+			this.sortUsed = copySortDefinition(sort);
+			clearPages();
+			setPage(0);
+		}
+	}
+
+	/**
+	 * Discard all pages loaded so far, as well as the total number of
+	 * elements, to have them loaded again from the providers on demand.
+	 * Keeps the current page number.
+	 */
+	public void refresh() {
+		clearPages();
+		this.elementCount = -1;
+		this.loadedElementCount = 0;
+	}
+
+
+	/**
+	 * Return the given page, loading it if necessary.
+	 */
+	private List<E> obtainPage(int page) {
+		List<E> pageList;
+		FutureTask<List<E>> pendingPage;
+		int currentGeneration;
+		synchronized (this.pageCache) {
+			pageList = this.pageCache.get(page);
+			pendingPage = this.pendingPages.get(page);
+			currentGeneration = this.generation;
+		}
+		if (pageList == null && pendingPage != null) {
+			try {
+				pageList = pendingPage.get();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			catch (ExecutionException ex) {
+				// Load the page again, letting the provider's exception through this time.
+				logger.debug("Failed to prefetch page " + page, ex.getCause());
+			}
+			catch (CancellationException ex) {
+				// Discarded concurrently - load the page again.
+			}
+		}
+		if (pageList == null) {
+			pageList = loadPage(page);
+		}
+		synchronized (this.pageCache) {
+			if (currentGeneration == this.generation) {
+				this.pageCache.put(page, pageList);
+			}
+		}
+		int pageSize = getPageSize();
+		if (pageList.size() < pageSize) {
+			if (this.elementCount < 0 && this.countProvider == null) {
+				this.elementCount = page * pageSize + pageList.size();
+			}
+		}
+		else {
+			this.loadedElementCount = Math.max(this.loadedElementCount, (page + 1) * pageSize);
+		}
+		return pageList;
+	}
+
+	/**
+	 * Trigger loading of the given page in the background,
+	 * unless held or being loaded already.
+	 */
+	private void prefetchPage(final int page) {
+		FutureTask<List<E>> pendingPage;
+		synchronized (this.pageCache) {
+			if (this.pageCache.containsKey(page) || this.pendingPages.containsKey(page)) {
+				return;
+			}
+			final int currentGeneration = this.generation;
+			pendingPage = new FutureTask<List<E>>(new Callable<List<E>>() {
+				public List<E> call() {
+					return loadPage(page);
+				}
+			}) {
+				@Override
+				protected void done() {
+					synchronized (pageCache) {
+						if (pendingPages.get(page) == this) {
+							pendingPages.remove(page);
+						}
+						if (currentGeneration == generation && !isCancelled()) {
+							try {
+								pageCache.put(page, get());
+							}
+							catch (Exception ex) {
+								// Failed prefetch - to be loaded again on access.
+							}
+						}
+					}
+				}
+			};
+			this.pendingPages.put(page, pendingPage);
+		}
+		try {
+			this.prefetchExecutor.execute(pendingPage);
+		}
+		catch (RuntimeException ex) {
+			logger.debug("Could not prefetch page " + page, ex);
+			pendingPage.cancel(false);
+		}
+	}
+
+	private List<E> loadPage(int page) {
+		int pageSize = getPageSize();
+		List<E> pageList = this.pageProvider.loadPage(page * pageSize, pageSize, this.sortUsed);
+		Assert.state(pageList != null, "PageProvider returned null page");
+		return pageList;
+	}
+
+	private void clearPages() {
+		synchronized (this.pageCache) {
+			this.generation++;
+			this.pageCache.clear();
+			List<FutureTask<List<E>>> pendingPages = new ArrayList<FutureTask<List<E>>>(this.pendingPages.values());
+			this.pendingPages.clear();
+			for (FutureTask<List<E>> pendingPage : pendingPages) {
+				pendingPage.cancel(false);
+			}
+		}
+	}
+
+	private void initPageCache() {
+		this.pageCache = new LinkedHashMap<Integer, List<E>>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, List<E>> eldest) {
+				return size() > getMaxCachedPages();
+			}
+		};
+		this.pendingPages = new HashMap<Integer, FutureTask<List<E>>>();
+	}
+
+
+	//---------------------------------------------------------------------
+	// Serialization support
+	//---------------------------------------------------------------------
+
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ois.defaultReadObject();
+		initPageCache();
+	}
+
+}
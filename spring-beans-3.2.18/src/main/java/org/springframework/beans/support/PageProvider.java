@@ -0,0 +1,41 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.support;
+
+import java.util.List;
+
+/**
+ * Callback for loading a single page of elements on demand,
+ * typically from a database query with a limit and offset.
+ *
+ * @since 3.2.18
+ * @see LazyPagedListHolder
+ */
+public interface PageProvider<E> {
+
+	/**
+	 * Load the given range of elements, sorted according to the given definition.
+	 * @param firstElement the index of the first element to load (starting with 0)
+	 * @param maxElements the maximum number of elements to load, i.e. the page size
+	 * @param sort the definition to sort by, or {@code null} for the natural order
+	 * (a definition with an empty property is to be treated as natural order as well)
+	 * @return the elements, fewer than {@code maxElements} at the end of the
+	 * underlying data and an empty list beyond it (never {@code null})
+	 */
+	List<E> loadPage(int firstElement, int maxElements, SortDefinition sort);
+
+}
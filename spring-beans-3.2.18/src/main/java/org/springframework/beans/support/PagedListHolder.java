@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,12 +16,12 @@
 
 package org.springframework.beans.support;
 
-import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
 import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
 
 /**
  * PagedListHolder is a simple state holder for handling lists of objects,
@@ -42,34 +42,31 @@ import org.springframework.util.Assert;
  * the respective JSTL EL expressions, like "myModelAttr.pageSize" and
  * "myModelAttr.sort.ascending".
  *
+ * <p>As of Spring 3.2.18, the paging state is held by {@link AbstractPagedListHolder},
+ * which changes the serialized form: instances serialized with earlier versions
+ * cannot be deserialized.
+ *
  * @author Juergen Hoeller
  * @since 19.05.2003
  * @see #getPageList()
  * @see org.springframework.beans.support.MutableSortDefinition
+ * @see LazyPagedListHolder
  */
-@SuppressWarnings("serial")
-public class PagedListHolder<E> implements Serializable {
-
-	public static final int DEFAULT_PAGE_SIZE = 10;
-
-	public static final int DEFAULT_MAX_LINKED_PAGES = 10;
+public class PagedListHolder<E> extends AbstractPagedListHolder<E> {
 
+	private static final long serialVersionUID = 9184193500046611550L;
 
 	private List<E> source;
 
 	private Date refreshDate;
 
-	private SortDefinition sort;
-
 	private SortDefinition sortUsed;
 
-	private int pageSize = DEFAULT_PAGE_SIZE;
-
-	private int page = 0;
+	private boolean incrementalSort = false;
 
-	private boolean newPageSet;
+	private boolean sortIncomplete;
 
-	private int maxLinkedPages = DEFAULT_MAX_LINKED_PAGES;
+	private transient KeyedPropertySort incrementalSorter;
 
 
 	/**
@@ -110,6 +107,8 @@ public class PagedListHolder<E> implements Serializable {
 		this.source = source;
 		this.refreshDate = new Date();
 		this.sortUsed = null;
+		this.sortIncomplete = false;
+		this.incrementalSorter = null;
 	}
 
 	/**
@@ -127,198 +126,88 @@ public class PagedListHolder<E> implements Serializable {
 	}
 
 	/**
-	 * Set the sort definition for this holder.
-	 * Typically an instance of MutableSortDefinition.
-	 * @see org.springframework.beans.support.MutableSortDefinition
-	 */
-	public void setSort(SortDefinition sort) {
-		this.sort = sort;
-	}
-
-	/**
-	 * Return the sort definition for this holder.
-	 */
-	public SortDefinition getSort() {
-		return this.sort;
-	}
-
-	/**
-	 * Set the current page size.
-	 * Resets the current page number if changed.
-	 * <p>Default value is 10.
-	 */
-	public void setPageSize(int pageSize) {
-		if (pageSize != this.pageSize) {
-			this.pageSize = pageSize;
-			if (!this.newPageSet) {
-				this.page = 0;
-			}
-		}
-	}
-
-	/**
-	 * Return the current page size.
-	 */
-	public int getPageSize() {
-		return this.pageSize;
-	}
-
-	/**
-	 * Set the current page number.
-	 * Page numbering starts with 0.
-	 */
-	public void setPage(int page) {
-		this.page = page;
-		this.newPageSet = true;
-	}
-
-	/**
-	 * Return the current page number.
-	 * Page numbering starts with 0.
-	 */
-	public int getPage() {
-		this.newPageSet = false;
-		if (this.page >= getPageCount()) {
-			this.page = getPageCount() - 1;
-		}
-		return this.page;
-	}
-
-	/**
-	 * Set the maximum number of page links to a few pages around the current one.
-	 */
-	public void setMaxLinkedPages(int maxLinkedPages) {
-		this.maxLinkedPages = maxLinkedPages;
-	}
-
-	/**
-	 * Return the maximum number of page links to a few pages around the current one.
-	 */
-	public int getMaxLinkedPages() {
-		return this.maxLinkedPages;
-	}
-
-
-	/**
-	 * Return the number of pages for the current source list.
+	 * Set whether to sort the source list incrementally, i.e. just up to the
+	 * last element of the current page whenever {@link #getPageList()} is called.
+	 * This avoids sorting an entire large list when only its first few pages
+	 * are ever displayed; moving to later pages sorts just the elements since.
+	 * <p>Default is "false", sorting the entire list on {@link #resort()}.
+	 * Note that incremental sorting bypasses {@link #doSort}, and that the
+	 * source list must not be modified other than through {@link #setSource}
+	 * while being sorted incrementally: the order of its elements beyond the
+	 * pages retrieved so far is undefined.
+	 * @since 3.2.18
 	 */
-	public int getPageCount() {
-		float nrOfPages = (float) getNrOfElements() / getPageSize();
-		return (int) ((nrOfPages > (int) nrOfPages || nrOfPages == 0.0) ? nrOfPages + 1 : nrOfPages);
+	public void setIncrementalSort(boolean incrementalSort) {
+		this.incrementalSort = incrementalSort;
 	}
 
 	/**
-	 * Return if the current page is the first one.
+	 * Return whether to sort the source list incrementally.
+	 * @since 3.2.18
 	 */
-	public boolean isFirstPage() {
-		return getPage() == 0;
-	}
-
-	/**
-	 * Return if the current page is the last one.
-	 */
-	public boolean isLastPage() {
-		return getPage() == getPageCount() -1;
-	}
-
-	/**
-	 * Switch to previous page.
-	 * Will stay on first page if already on first page.
-	 */
-	public void previousPage() {
-		if (!isFirstPage()) {
-			this.page--;
-		}
-	}
-
-	/**
-	 * Switch to next page.
-	 * Will stay on last page if already on last page.
-	 */
-	public void nextPage() {
-		if (!isLastPage()) {
-			this.page++;
-		}
+	public boolean isIncrementalSort() {
+		return this.incrementalSort;
 	}
 
 	/**
 	 * Return the total number of elements in the source list.
 	 */
+	@Override
 	public int getNrOfElements() {
 		return getSource().size();
 	}
 
-	/**
-	 * Return the element index of the first element on the current page.
-	 * Element numbering starts with 0.
-	 */
-	public int getFirstElementOnPage() {
-		return (getPageSize() * getPage());
-	}
-
-	/**
-	 * Return the element index of the last element on the current page.
-	 * Element numbering starts with 0.
-	 */
-	public int getLastElementOnPage() {
-		int endIndex = getPageSize() * (getPage() + 1);
-		int size = getNrOfElements();
-		return (endIndex > size ? size : endIndex) - 1;
-	}
-
 	/**
 	 * Return a sub-list representing the current page.
 	 */
+	@Override
+	@SuppressWarnings("unchecked")
 	public List<E> getPageList() {
+		if (this.sortIncomplete) {
+			if (this.incrementalSorter != null) {
+				this.incrementalSorter.sortUpTo(getLastElementOnPage() + 1, (List<Object>) getSource());
+				this.sortIncomplete = (this.incrementalSorter.getSortedCount() < getNrOfElements());
+			}
+			else {
+				// Incremental sort state lost through serialization: sort the rest at once.
+				doSort(getSource(), this.sortUsed);
+				this.sortIncomplete = false;
+			}
+			if (!this.sortIncomplete) {
+				this.incrementalSorter = null;
+			}
+		}
 		return getSource().subList(getFirstElementOnPage(), getLastElementOnPage() + 1);
 	}
 
-	/**
-	 * Return the first page to which create a link around the current page.
-	 */
-	public int getFirstLinkedPage() {
-		return Math.max(0, getPage() - (getMaxLinkedPages() / 2));
-	}
-
-	/**
-	 * Return the last page to which create a link around the current page.
-	 */
-	public int getLastLinkedPage() {
-		return Math.min(getFirstLinkedPage() + getMaxLinkedPages() - 1, getPageCount() - 1);
-	}
-
 
 	/**
 	 * Resort the list if necessary, i.e. if the current {@code sort} instance
 	 * isn't equal to the backed-up {@code sortUsed} instance.
-	 * <p>Calls {@code doSort} to trigger actual sorting.
+	 * <p>Calls {@code doSort} to trigger actual sorting, unless sorting
+	 * incrementally: in that case, the sort keys are just read upfront, with
+	 * the list getting sorted page by page on {@link #getPageList()}.
 	 * @see #doSort
+	 * @see #setIncrementalSort
 	 */
+	@Override
 	public void resort() {
 		SortDefinition sort = getSort();
 		if (sort != null && !sort.equals(this.sortUsed)) {
 			this.sortUsed = copySortDefinition(sort);
-			doSort(getSource(), sort);
+			if (this.incrementalSort && this.sortUsed != null && StringUtils.hasText(sort.getProperty())) {
+				this.incrementalSorter = new KeyedPropertySort(getSource().toArray(), sort);
+				this.sortIncomplete = true;
+			}
+			else {
+				this.incrementalSorter = null;
+				this.sortIncomplete = false;
+				doSort(getSource(), sort);
+			}
 			setPage(0);
 		}
 	}
 
-	/**
-	 * Create a deep copy of the given sort definition,
-	 * for use as state holder to compare a modified sort definition against.
-	 * <p>Default implementation creates a MutableSortDefinition instance.
-	 * Can be overridden in subclasses, in particular in case of custom
-	 * extensions to the SortDefinition interface. Is allowed to return
-	 * null, which means that no sort state will be held, triggering
-	 * actual sorting for each {@code resort} call.
-	 * @param sort the current SortDefinition object
-	 * @return a deep copy of the SortDefinition object
-	 * @see MutableSortDefinition#MutableSortDefinition(SortDefinition)
-	 */
-	protected SortDefinition copySortDefinition(SortDefinition sort) {
-		return new MutableSortDefinition(sort);
-	}
-
 	/**
 	 * Actually perform sorting of the given source list, according to
 	 * the given sort definition.
@@ -16,10 +16,9 @@
 
 package org.springframework.beans.support;
 
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.ListIterator;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -125,13 +124,22 @@ public class PropertyComparator implements Comparator {
 	 * Sort the given List according to the given sort definition.
 	 * <p>Note: Contained objects have to provide the given property
 	 * in the form of a bean property, i.e. a getXXX method.
+	 * <p>As of 3.2.18, the property value of each object is read just once
+	 * rather than for every comparison, with the resulting order being the
+	 * same as with a PropertyComparator instance.
 	 * @param source the input List
 	 * @param sortDefinition the parameters to sort by
 	 * @throws java.lang.IllegalArgumentException in case of a missing propertyName
 	 */
+	@SuppressWarnings("unchecked")
 	public static void sort(List source, SortDefinition sortDefinition) throws BeansException {
 		if (StringUtils.hasText(sortDefinition.getProperty())) {
-			Collections.sort(source, new PropertyComparator(sortDefinition));
+			Object[] sorted = new KeyedPropertySort(source.toArray(), sortDefinition).sort();
+			ListIterator<Object> it = source.listIterator();
+			for (Object obj : sorted) {
+				it.next();
+				it.set(obj);
+			}
 		}
 	}
 
@@ -139,13 +147,16 @@ public class PropertyComparator implements Comparator {
 	 * Sort the given source according to the given sort definition.
 	 * <p>Note: Contained objects have to provide the given property
 	 * in the form of a bean property, i.e. a getXXX method.
+	 * <p>As of 3.2.18, the property value of each object is read just once
+	 * rather than for every comparison.
 	 * @param source input source
 	 * @param sortDefinition the parameters to sort by
 	 * @throws java.lang.IllegalArgumentException in case of a missing propertyName
 	 */
 	public static void sort(Object[] source, SortDefinition sortDefinition) throws BeansException {
 		if (StringUtils.hasText(sortDefinition.getProperty())) {
-			Arrays.sort(source, new PropertyComparator(sortDefinition));
+			Object[] sorted = new KeyedPropertySort(source, sortDefinition).sort();
+			System.arraycopy(sorted, 0, source, 0, sorted.length);
 		}
 	}
 
@@ -1595,6 +1595,95 @@ public final class BeanWrapperTests {
 		assertEquals("4", result[3]);
 	}
 
+	@Test
+	public void testSimpleValueConversions() {
+		SimpleTypeConverter converter = new SimpleTypeConverter();
+		assertEquals(Integer.valueOf(42), converter.convertIfNecessary(" 42 ", int.class));
+		assertEquals(Long.valueOf(255), converter.convertIfNecessary("0xFF", Long.class));
+		assertEquals(Double.valueOf(42), converter.convertIfNecessary(42, double.class));
+		assertEquals(Boolean.TRUE, converter.convertIfNecessary("on", boolean.class));
+		assertEquals(Boolean.FALSE, converter.convertIfNecessary(" NO ", Boolean.class));
+		assertNull(converter.convertIfNecessary("", Integer.class));
+		assertNull(converter.convertIfNecessary("", Boolean.class));
+		assertEquals(TestEnum.TEST_VALUE, converter.convertIfNecessary(" TEST_VALUE ", TestEnum.class));
+		assertEquals(AliasedEnum.VALUE, converter.convertIfNecessary("ALIAS", AliasedEnum.class));
+		assertNull(converter.convertIfNecessary(" ", TestEnum.class));
+		try {
+			converter.convertIfNecessary("x", int.class);
+			fail("Should have thrown TypeMismatchException");
+		}
+		catch (TypeMismatchException ex) {
+			assertTrue(ex.getCause() instanceof NumberFormatException);
+		}
+		try {
+			converter.convertIfNecessary("maybe", Boolean.class);
+			fail("Should have thrown TypeMismatchException");
+		}
+		catch (TypeMismatchException ex) {
+			// expected
+		}
+
+		converter.overrideDefaultEditor(int.class, new PropertyEditorSupport() {
+			@Override
+			public void setAsText(String text) {
+				setValue(text.length());
+			}
+		});
+		assertEquals(Integer.valueOf(3), converter.convertIfNecessary("042", int.class));
+		assertEquals(Integer.valueOf(42), converter.convertIfNecessary("042", Integer.class));
+		converter.registerCustomEditor(TestEnum.class, new PropertyEditorSupport() {
+			@Override
+			public void setAsText(String text) {
+				setValue(TestEnum.TEST_VALUE);
+			}
+		});
+		assertEquals(TestEnum.TEST_VALUE, converter.convertIfNecessary("OTHER", TestEnum.class));
+	}
+
+	@Test
+	public void testNestedBeanWrapperForNewWrappedInstance() {
+		TestBean tb1 = new TestBean();
+		tb1.setSpouse(new TestBean());
+		TestBean tb2 = new TestBean();
+		tb2.setSpouse(new TestBean());
+		BeanWrapperImpl bw = new BeanWrapperImpl(tb1);
+		bw.setPropertyValue("spouse.name", "Juergen");
+		assertEquals("Juergen", tb1.getSpouse().getName());
+
+		bw.setWrappedInstance(tb2);
+		bw.setPropertyValue("spouse.name", "Rod");
+		assertEquals("Rod", tb2.getSpouse().getName());
+		assertEquals("Juergen", tb1.getSpouse().getName());
+		assertEquals("Rod", bw.getPropertyValue("spouse.name"));
+
+		bw.registerCustomEditor(String.class, "spouse.name", new StringTrimmerEditor(false));
+		bw.setPropertyValue("spouse.name", "  Rob  ");
+		assertEquals("Rob", tb2.getSpouse().getName());
+
+		tb2.setSpouse(new TestBean());
+		bw.setPropertyValue("spouse.age", "42");
+		assertEquals(42, tb2.getSpouse().getAge());
+		bw.setPropertyValue("spouse.name", "  Mark  ");
+		assertEquals("Mark", tb2.getSpouse().getName());
+	}
+
+	@Test
+	public void testIndexedPropertyPathsAcrossBeanWrappers() {
+		for (int i = 0; i < 3; i++) {
+			IndexedTestBean bean = new IndexedTestBean();
+			BeanWrapper bw = new BeanWrapperImpl(bean);
+			bw.setPropertyValue("array[0].name", "name" + i);
+			bw.setPropertyValue("map['key.3'].name", "map" + i);
+			bw.setPropertyValue("list[1].spouse", new TestBean("spouse" + i, i));
+			bw.setPropertyValue("list[1].spouse.age", i + 1);
+			assertEquals("name" + i, bean.getArray()[0].getName());
+			assertEquals("map" + i, ((TestBean) bean.getMap().get("key.3")).getName());
+			assertEquals("spouse" + i, bw.getPropertyValue("list[1].spouse.name"));
+			assertEquals(i + 1, ((TestBean) bean.getList().get(1)).getSpouse().getAge());
+			assertEquals(TestBean.class, bw.getPropertyType("map[\"key.3\"]"));
+		}
+	}
+
 
 	static class Spr10115Bean {
 
@@ -1982,6 +2071,14 @@ public final class BeanWrapperTests {
 	}
 
 
+	public enum AliasedEnum {
+
+		VALUE;
+
+		public static final AliasedEnum ALIAS = VALUE;
+	}
+
+
 	public static class ArrayToObject {
 
 		private Object object;
@@ -19,6 +19,12 @@ package org.springframework.beans;
 import java.beans.BeanInfo;
 import java.beans.PropertyDescriptor;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 
@@ -40,28 +46,82 @@ public final class CachedIntrospectionResultsTests {
 		BeanWrapper bw = new BeanWrapperImpl(TestBean.class);
 		assertTrue(bw.isWritableProperty("name"));
 		assertTrue(bw.isWritableProperty("age"));
-		assertTrue(CachedIntrospectionResults.classCache.containsKey(TestBean.class));
+		assertTrue(CachedIntrospectionResults.strongClassCache.containsKey(TestBean.class));
 
 		ClassLoader child = new OverridingClassLoader(getClass().getClassLoader());
 		Class<?> tbClass = child.loadClass("org.springframework.tests.sample.beans.TestBean");
-		assertFalse(CachedIntrospectionResults.classCache.containsKey(tbClass));
+		assertFalse(CachedIntrospectionResults.strongClassCache.containsKey(tbClass));
 		CachedIntrospectionResults.acceptClassLoader(child);
 		bw = new BeanWrapperImpl(tbClass);
 		assertTrue(bw.isWritableProperty("name"));
 		assertTrue(bw.isWritableProperty("age"));
-		assertTrue(CachedIntrospectionResults.classCache.containsKey(tbClass));
+		assertTrue(CachedIntrospectionResults.strongClassCache.containsKey(tbClass));
 		CachedIntrospectionResults.clearClassLoader(child);
-		assertFalse(CachedIntrospectionResults.classCache.containsKey(tbClass));
+		assertFalse(CachedIntrospectionResults.strongClassCache.containsKey(tbClass));
 
-		assertTrue(CachedIntrospectionResults.classCache.containsKey(TestBean.class));
+		assertTrue(CachedIntrospectionResults.strongClassCache.containsKey(TestBean.class));
 	}
 
 	@Test
 	public void clearClassLoaderForSystemClassLoader() throws Exception {
 		BeanUtils.getPropertyDescriptors(ArrayList.class);
-		assertTrue(CachedIntrospectionResults.classCache.containsKey(ArrayList.class));
+		assertTrue(CachedIntrospectionResults.strongClassCache.containsKey(ArrayList.class));
 		CachedIntrospectionResults.clearClassLoader(ArrayList.class.getClassLoader());
-		assertFalse(CachedIntrospectionResults.classCache.containsKey(ArrayList.class));
+		assertFalse(CachedIntrospectionResults.strongClassCache.containsKey(ArrayList.class));
+	}
+
+	@Test
+	public void softlyCacheNonCacheSafeClass() throws Exception {
+		ClassLoader child = new OverridingClassLoader(getClass().getClassLoader());
+		Class<?> tbClass = child.loadClass("org.springframework.tests.sample.beans.TestBean");
+		long missCount = CachedIntrospectionResults.getMissCount();
+		long hitCount = CachedIntrospectionResults.getHitCount();
+		long evictionCount = CachedIntrospectionResults.getEvictionCount();
+
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(tbClass);
+		assertFalse(CachedIntrospectionResults.strongClassCache.containsKey(tbClass));
+		assertTrue(CachedIntrospectionResults.softClassCache.containsKey(tbClass));
+		assertSame(results, CachedIntrospectionResults.forClass(tbClass));
+		assertEquals(missCount + 1, CachedIntrospectionResults.getMissCount());
+		assertTrue(CachedIntrospectionResults.getHitCount() > hitCount);
+
+		CachedIntrospectionResults.clearClassLoader(child);
+		assertFalse(CachedIntrospectionResults.softClassCache.containsKey(tbClass));
+		assertTrue(CachedIntrospectionResults.getEvictionCount() > evictionCount);
+	}
+
+	@Test
+	public void countMissOnlyForStoredResults() throws Exception {
+		final int threadCount = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			for (int round = 0; round < 5; round++) {
+				ClassLoader child = new OverridingClassLoader(getClass().getClassLoader());
+				final Class<?> tbClass = child.loadClass("org.springframework.tests.sample.beans.TestBean");
+				final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+				long missCount = CachedIntrospectionResults.getMissCount();
+				long hitCount = CachedIntrospectionResults.getHitCount();
+
+				List<Future<CachedIntrospectionResults>> futures = new ArrayList<Future<CachedIntrospectionResults>>();
+				for (int i = 0; i < threadCount; i++) {
+					futures.add(executor.submit(new Callable<CachedIntrospectionResults>() {
+						public CachedIntrospectionResults call() throws Exception {
+							barrier.await();
+							return CachedIntrospectionResults.forClass(tbClass);
+						}
+					}));
+				}
+				for (Future<CachedIntrospectionResults> future : futures) {
+					assertSame(futures.get(0).get(), future.get());
+				}
+				assertEquals(missCount + 1, CachedIntrospectionResults.getMissCount());
+				assertEquals(hitCount + threadCount - 1, CachedIntrospectionResults.getHitCount());
+				CachedIntrospectionResults.clearClassLoader(child);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
 	}
 
 	@Test
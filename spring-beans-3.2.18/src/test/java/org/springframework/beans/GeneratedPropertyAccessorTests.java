@@ -0,0 +1,305 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+
+import org.springframework.beans.propertyeditors.StringTrimmerEditor;
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
+import org.springframework.tests.sample.beans.TestBean;
+import org.springframework.util.StopWatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link GeneratedPropertyAccessor}.
+ *
+ * @since 3.2.18
+ */
+public final class GeneratedPropertyAccessorTests {
+
+	@Test
+	public void invokerGeneratedForPublicClass() {
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(ValueBean.class);
+		PropertyInvoker invoker = PropertyInvokerGenerator.getPropertyInvoker(
+				ValueBean.class, results.getPropertyDescriptors());
+		assertNotNull(invoker);
+		assertTrue(invoker.getReadMethodIndex("name") >= 0);
+		assertTrue(invoker.getWriteMethodIndex("age") >= 0);
+		assertEquals(-1, invoker.getWriteMethodIndex("class"));
+		assertSame(invoker, PropertyInvokerGenerator.getPropertyInvoker(
+				ValueBean.class, results.getPropertyDescriptors()));
+	}
+
+	@Test
+	public void setAndGetPropertyValues() {
+		ValueBean bean = new ValueBean();
+		ConfigurablePropertyAccessor accessor = PropertyAccessorFactory.forGeneratedPropertyAccess(bean);
+		accessor.setPropertyValue("name", "Juergen");
+		accessor.setPropertyValue("age", 42);
+		accessor.setPropertyValue("weight", 71.5d);
+		accessor.setPropertyValue("active", true);
+		accessor.setPropertyValue("tags", new String[] {"a", "b"});
+		accessor.setPropertyValue("chained", 7L);
+
+		assertEquals("Juergen", bean.getName());
+		assertEquals(42, bean.getAge());
+		assertEquals(71.5d, bean.getWeight(), 0.0);
+		assertTrue(bean.isActive());
+		assertArrayEquals(new String[] {"a", "b"}, bean.getTags());
+		assertEquals(7L, bean.getChained());
+
+		assertEquals("Juergen", accessor.getPropertyValue("name"));
+		assertEquals(42, accessor.getPropertyValue("age"));
+		assertEquals(71.5d, accessor.getPropertyValue("weight"));
+		assertEquals(Boolean.TRUE, accessor.getPropertyValue("active"));
+		assertEquals(7L, accessor.getPropertyValue("chained"));
+		assertEquals(ValueBean.class, accessor.getPropertyValue("class"));
+	}
+
+	@Test
+	public void setPropertyValuesWithConversion() {
+		ValueBean bean = new ValueBean();
+		ConfigurablePropertyAccessor accessor = PropertyAccessorFactory.forGeneratedPropertyAccess(bean);
+		accessor.registerCustomEditor(String.class, new StringTrimmerEditor(true));
+		MutablePropertyValues pvs = new MutablePropertyValues();
+		pvs.add("name", "  Rod  ");
+		pvs.add("age", "31");
+		pvs.add("active", "true");
+		pvs.add("scores", new String[] {"1", "2"});
+		accessor.setPropertyValues(pvs);
+
+		assertEquals("Rod", bean.getName());
+		assertEquals(31, bean.getAge());
+		assertTrue(bean.isActive());
+		assertEquals(2, bean.getScores().size());
+		assertEquals(Integer.valueOf(1), bean.getScores().get(0));
+		assertEquals(Integer.class, accessor.getPropertyTypeDescriptor("scores").getElementTypeDescriptor().getType());
+	}
+
+	@Test
+	public void setPropertyValueWithTypeMismatch() {
+		ValueBean bean = new ValueBean();
+		ConfigurablePropertyAccessor accessor = PropertyAccessorFactory.forGeneratedPropertyAccess(bean);
+		try {
+			accessor.setPropertyValue("age", "x");
+			fail("Should have thrown TypeMismatchException");
+		}
+		catch (TypeMismatchException ex) {
+			assertEquals("age", ex.getPropertyName());
+		}
+		try {
+			accessor.setPropertyValue("age", null);
+			fail("Should have thrown TypeMismatchException");
+		}
+		catch (TypeMismatchException ex) {
+			assertEquals("age", ex.getPropertyName());
+		}
+		assertEquals(0, bean.getAge());
+	}
+
+	@Test
+	public void accessorMethodExceptions() {
+		ValueBean bean = new ValueBean();
+		ConfigurablePropertyAccessor accessor = PropertyAccessorFactory.forGeneratedPropertyAccess(bean);
+		try {
+			accessor.setPropertyValue("failing", "value");
+			fail("Should have thrown MethodInvocationException");
+		}
+		catch (MethodInvocationException ex) {
+			assertTrue(ex.getCause() instanceof IllegalStateException);
+		}
+		try {
+			accessor.getPropertyValue("failing");
+			fail("Should have thrown InvalidPropertyException");
+		}
+		catch (InvalidPropertyException ex) {
+			assertTrue(ex.getCause().getCause() instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void unknownProperties() {
+		ConfigurablePropertyAccessor accessor = PropertyAccessorFactory.forGeneratedPropertyAccess(new ValueBean());
+		assertFalse(accessor.isReadableProperty("nonExisting"));
+		assertFalse(accessor.isWritableProperty("class"));
+		assertFalse(accessor.isWritableProperty("name.length"));
+		try {
+			accessor.setPropertyValue("nmae", "value");
+			fail("Should have thrown NotWritablePropertyException");
+		}
+		catch (NotWritablePropertyException ex) {
+			assertArrayEquals(new String[] {"name"}, ex.getPossibleMatches());
+		}
+		try {
+			accessor.getPropertyValue("nonExisting");
+			fail("Should have thrown NotReadablePropertyException");
+		}
+		catch (NotReadablePropertyException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void nonPublicClassFallsBackToReflection() {
+		NonPublicBean bean = new NonPublicBean();
+		assertNull(PropertyInvokerGenerator.getPropertyInvoker(NonPublicBean.class,
+				CachedIntrospectionResults.forClass(NonPublicBean.class).getPropertyDescriptors()));
+		ConfigurablePropertyAccessor accessor = PropertyAccessorFactory.forGeneratedPropertyAccess(bean);
+		accessor.setPropertyValue("name", "Juergen");
+		assertEquals("Juergen", bean.getName());
+		assertEquals("Juergen", accessor.getPropertyValue("name"));
+	}
+
+	@Test
+	public void performanceVersusReflectiveAccessors() {
+		Assume.group(TestGroup.PERFORMANCE);
+		Assume.notLogging(LogFactory.getLog(GeneratedPropertyAccessorTests.class));
+
+		TestBean bean = new TestBean();
+		ConfigurablePropertyAccessor generated = new GeneratedPropertyAccessor(bean);
+		ConfigurablePropertyAccessor reflective = new BeanWrapperImpl(bean);
+		ConfigurablePropertyAccessor direct = new DirectFieldAccessor(bean);
+		StopWatch sw = new StopWatch();
+		for (int run = 0; run < 2; run++) {
+			sw.start("GeneratedPropertyAccessor");
+			bindRepeatedly(generated);
+			sw.stop();
+			sw.start("BeanWrapperImpl");
+			bindRepeatedly(reflective);
+			sw.stop();
+			sw.start("DirectFieldAccessor");
+			bindRepeatedly(direct);
+			sw.stop();
+		}
+		assertEquals("name99999", bean.getName());
+		assertEquals(99999, bean.getAge());
+		LogFactory.getLog(GeneratedPropertyAccessorTests.class).info(sw.prettyPrint());
+	}
+
+	private void bindRepeatedly(ConfigurablePropertyAccessor accessor) {
+		for (int i = 0; i < 100000; i++) {
+			accessor.setPropertyValue("name", "name" + i);
+			accessor.setPropertyValue("age", i);
+			accessor.getPropertyValue("name");
+			accessor.getPropertyValue("age");
+		}
+	}
+
+
+	public static class ValueBean {
+
+		private String name;
+
+		private int age;
+
+		private double weight;
+
+		private boolean active;
+
+		private String[] tags;
+
+		private List<Integer> scores = new ArrayList<Integer>();
+
+		private long chained;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public double getWeight() {
+			return this.weight;
+		}
+
+		public void setWeight(double weight) {
+			this.weight = weight;
+		}
+
+		public boolean isActive() {
+			return this.active;
+		}
+
+		public void setActive(boolean active) {
+			this.active = active;
+		}
+
+		public String[] getTags() {
+			return this.tags;
+		}
+
+		public void setTags(String[] tags) {
+			this.tags = tags;
+		}
+
+		public List<Integer> getScores() {
+			return this.scores;
+		}
+
+		public void setScores(List<Integer> scores) {
+			this.scores = scores;
+		}
+
+		public long getChained() {
+			return this.chained;
+		}
+
+		public ValueBean setChained(long chained) {
+			this.chained = chained;
+			return this;
+		}
+
+		public String getFailing() {
+			throw new IllegalStateException("getter failure");
+		}
+
+		public void setFailing(String failing) {
+			throw new IllegalStateException("setter failure");
+		}
+	}
+
+
+	static class NonPublicBean {
+
+		private String name;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
+}
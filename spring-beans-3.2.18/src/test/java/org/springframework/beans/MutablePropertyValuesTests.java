@@ -18,8 +18,13 @@ package org.springframework.beans;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.Test;
 
+import org.springframework.util.SerializationTestUtils;
+
 
 /**
  * Tests for {@link MutablePropertyValues}.
@@ -104,4 +109,95 @@ public final class MutablePropertyValuesTests extends AbstractPropertyValuesTest
 		assertTrue("new value is bar", fn.getValue().equals("bar"));
 	}
 
+	@Test
+	public void testManyPropertyValues() throws Exception {
+		MutablePropertyValues pvs = createPropertyValues(500);
+		pvs.add("property250", "overridden");
+		assertEquals(500, pvs.size());
+		assertEquals("overridden", pvs.getPropertyValue("property250").getValue());
+		assertEquals("property250", pvs.getPropertyValues()[250].getName());
+		assertEquals("value499", pvs.getPropertyValue("property499").getValue());
+		assertNull(pvs.getPropertyValue("property500"));
+		assertFalse(pvs.contains("property500"));
+
+		pvs.registerProcessedProperty("property500");
+		assertTrue(pvs.contains("property500"));
+		assertNull(pvs.getPropertyValue("property500"));
+		pvs.clearProcessedProperty("property500");
+		assertFalse(pvs.contains("property500"));
+
+		MutablePropertyValues copy = new MutablePropertyValues(pvs);
+		assertEquals(pvs, copy);
+		assertEquals(0, copy.changesSince(pvs).getPropertyValues().length);
+		copy.add("property0", "changed").add("property500", "added");
+		PropertyValue[] changes = copy.changesSince(pvs).getPropertyValues();
+		assertEquals(2, changes.length);
+		assertEquals("property0", changes[0].getName());
+		assertEquals("property500", changes[1].getName());
+	}
+
+	@Test
+	public void testRemovePropertyValuesKeepsOrder() throws Exception {
+		MutablePropertyValues pvs = createPropertyValues(20);
+		pvs.removePropertyValue("property3");
+		pvs.removePropertyValue(pvs.getPropertyValue("property10"));
+		pvs.removePropertyValue("property20");
+		assertEquals(18, pvs.size());
+		assertNull(pvs.getPropertyValue("property3"));
+		assertNull(pvs.getPropertyValue("property10"));
+		assertEquals("property11", pvs.getPropertyValues()[9].getName());
+		assertEquals("value19", pvs.getPropertyValue("property19").getValue());
+
+		pvs.add("property3", "readded");
+		assertEquals("property3", pvs.getPropertyValues()[18].getName());
+		assertEquals("readded", pvs.getPropertyValue("property3").getValue());
+	}
+
+	@Test
+	public void testModificationThroughPropertyValueList() throws Exception {
+		MutablePropertyValues pvs = createPropertyValues(20);
+		List<PropertyValue> pvList = pvs.getPropertyValueList();
+		assertEquals("value5", pvs.getPropertyValue("property5").getValue());
+		pvList.add(0, new PropertyValue("first", "value"));
+		pvList.set(6, new PropertyValue("replaced", "value"));
+		pvList.add(new PropertyValue("property1", "duplicate"));
+		pvList.remove(2);
+
+		assertEquals(21, pvs.size());
+		assertNull(pvs.getPropertyValue("property5"));
+		assertEquals("value", pvs.getPropertyValue("first").getValue());
+		assertEquals("value", pvs.getPropertyValue("replaced").getValue());
+		assertEquals("duplicate", pvs.getPropertyValue("property1").getValue());
+		pvList.add(new PropertyValue("property1", "duplicate2"));
+		assertEquals("duplicate", pvs.getPropertyValue("property1").getValue());
+		assertEquals("value7", pvs.getPropertyValue("property7").getValue());
+
+		pvList.clear();
+		assertTrue(pvs.isEmpty());
+		assertNull(pvs.getPropertyValue("first"));
+		pvs.add("first", "again");
+		assertEquals(Arrays.asList(new PropertyValue("first", "again")), pvList);
+	}
+
+	@Test
+	public void testSerializable() throws Exception {
+		MutablePropertyValues pvs = createPropertyValues(20);
+		assertEquals("value10", pvs.getPropertyValue("property10").getValue());
+		MutablePropertyValues deserialized = (MutablePropertyValues) SerializationTestUtils.serializeAndDeserialize(pvs);
+		assertEquals(pvs, deserialized);
+		assertEquals("value10", deserialized.getPropertyValue("property10").getValue());
+		deserialized.add("property10", "overridden");
+		assertEquals(20, deserialized.size());
+		assertEquals("overridden", deserialized.getPropertyValue("property10").getValue());
+	}
+
+
+	private static MutablePropertyValues createPropertyValues(int count) {
+		MutablePropertyValues pvs = new MutablePropertyValues();
+		for (int i = 0; i < count; i++) {
+			pvs.add("property" + i, "value" + i);
+		}
+		return pvs;
+	}
+
 }
@@ -0,0 +1,377 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import static org.junit.Assert.*;
+
+/**
+ * Multi-threaded tests for singleton creation in a
+ * {@link DefaultListableBeanFactory}, checking that unrelated singletons
+ * are created in parallel while circular references keep working.
+ *
+ * @since 3.2.18
+ * @see ConcurrentBeanFactoryTests
+ */
+public final class ConcurrentSingletonCreationTests {
+
+	private static final long TIMEOUT_SECONDS = 10;
+
+	private static CountDownLatch latch;
+
+	private static final AtomicInteger instanceCount = new AtomicInteger();
+
+	private DefaultListableBeanFactory factory;
+
+
+	@Before
+	public void setUp() {
+		this.factory = new DefaultListableBeanFactory();
+		instanceCount.set(0);
+	}
+
+	@Test
+	public void testUnrelatedSingletonsCreatedInParallel() throws Exception {
+		int threadCount = 4;
+		latch = new CountDownLatch(threadCount);
+		List<TestRun> runs = new ArrayList<TestRun>();
+		for (int i = 0; i < threadCount; i++) {
+			this.factory.registerBeanDefinition("bean" + i, new RootBeanDefinition(RendezvousBean.class));
+			runs.add(new TestRun("bean" + i));
+		}
+		runAll(runs);
+		for (TestRun run : runs) {
+			assertNull(run.ex);
+			assertTrue("Singleton creation was serialized", ((RendezvousBean) run.bean).metOthers);
+		}
+	}
+
+	@Test
+	public void testSameSingletonCreatedOnce() throws Exception {
+		this.factory.registerBeanDefinition("bean", new RootBeanDefinition(SlowBean.class));
+		List<TestRun> runs = new ArrayList<TestRun>();
+		for (int i = 0; i < 20; i++) {
+			runs.add(new TestRun("bean"));
+		}
+		runAll(runs);
+		for (TestRun run : runs) {
+			assertNull(run.ex);
+			assertSame(runs.get(0).bean, run.bean);
+		}
+		assertEquals(1, instanceCount.get());
+	}
+
+	@Test
+	public void testCircularReferenceAcrossThreads() throws Exception {
+		latch = new CountDownLatch(2);
+		RootBeanDefinition bd1 = new RootBeanDefinition(PartnerBean.class);
+		bd1.getPropertyValues().add("partner", new RuntimeBeanReference("bean2"));
+		this.factory.registerBeanDefinition("bean1", bd1);
+		RootBeanDefinition bd2 = new RootBeanDefinition(PartnerBean.class);
+		bd2.getPropertyValues().add("partner", new RuntimeBeanReference("bean1"));
+		this.factory.registerBeanDefinition("bean2", bd2);
+
+		TestRun run1 = new TestRun("bean1");
+		TestRun run2 = new TestRun("bean2");
+		runAll(run1, run2);
+		assertNull(run1.ex);
+		assertNull(run2.ex);
+		PartnerBean bean1 = (PartnerBean) run1.bean;
+		PartnerBean bean2 = (PartnerBean) run2.bean;
+		assertSame(bean2, bean1.getPartner());
+		assertSame(bean1, bean2.getPartner());
+		assertSame(bean1, this.factory.getBean("bean1"));
+		assertSame(bean2, this.factory.getBean("bean2"));
+		assertEquals(2, instanceCount.get());
+	}
+
+	@Test
+	public void testConstructorCycleAcrossThreadsFailsInsteadOfDeadlocking() throws Exception {
+		latch = new CountDownLatch(2);
+		this.factory.addBeanPostProcessor(new InstantiationAwareBeanPostProcessorAdapter() {
+			@Override
+			public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) throws BeansException {
+				// Make sure that both threads hold their creation locks before resolving arguments.
+				awaitOthers();
+				return null;
+			}
+		});
+		RootBeanDefinition bd1 = new RootBeanDefinition(ConstructorPartnerBean.class);
+		bd1.getConstructorArgumentValues().addGenericArgumentValue(new RuntimeBeanReference("bean2"));
+		this.factory.registerBeanDefinition("bean1", bd1);
+		RootBeanDefinition bd2 = new RootBeanDefinition(ConstructorPartnerBean.class);
+		bd2.getConstructorArgumentValues().addGenericArgumentValue(new RuntimeBeanReference("bean1"));
+		this.factory.registerBeanDefinition("bean2", bd2);
+
+		TestRun run1 = new TestRun("bean1");
+		TestRun run2 = new TestRun("bean2");
+		runAll(run1, run2);
+		assertTrue(run1.ex instanceof BeanCreationException);
+		assertTrue(run2.ex instanceof BeanCreationException);
+		assertFalse(this.factory.containsSingleton("bean1"));
+		assertFalse(this.factory.containsSingleton("bean2"));
+	}
+
+	@Test
+	public void testParallelPreInstantiation() {
+		int beanCount = 4;
+		latch = new CountDownLatch(beanCount);
+		for (int i = 0; i < beanCount; i++) {
+			this.factory.registerBeanDefinition("bean" + i, new RootBeanDefinition(RendezvousBean.class));
+		}
+		this.factory.setPreInstantiationParallelism(beanCount);
+		this.factory.preInstantiateSingletons();
+		for (int i = 0; i < beanCount; i++) {
+			assertTrue("Singleton pre-instantiation was serialized",
+					this.factory.getBean("bean" + i, RendezvousBean.class).metOthers);
+		}
+	}
+
+	@Test
+	public void testParallelPreInstantiationRespectsDeclaredDependencies() {
+		RootBeanDefinition bd1 = new RootBeanDefinition(OrderedBean.class);
+		bd1.setDependsOn(new String[] {"bean2"});
+		this.factory.registerBeanDefinition("bean1", bd1);
+		RootBeanDefinition bd2 = new RootBeanDefinition(OrderedBean.class);
+		bd2.getPropertyValues().add("dependency", new RuntimeBeanReference("bean3"));
+		this.factory.registerBeanDefinition("bean2", bd2);
+		RootBeanDefinition bd3 = new RootBeanDefinition(OrderedBean.class);
+		bd3.getConstructorArgumentValues().addGenericArgumentValue(new RuntimeBeanReference("bean4"));
+		this.factory.registerBeanDefinition("bean3", bd3);
+		this.factory.registerBeanDefinition("bean4", new RootBeanDefinition(OrderedBean.class));
+		RootBeanDefinition lazy = new RootBeanDefinition(OrderedBean.class);
+		lazy.setLazyInit(true);
+		this.factory.registerBeanDefinition("lazy", lazy);
+
+		this.factory.setPreInstantiationParallelism(4);
+		this.factory.preInstantiateSingletons();
+		assertEquals(4, instanceCount.get());
+		assertFalse(this.factory.containsSingleton("lazy"));
+		OrderedBean bean1 = this.factory.getBean("bean1", OrderedBean.class);
+		OrderedBean bean2 = this.factory.getBean("bean2", OrderedBean.class);
+		OrderedBean bean3 = this.factory.getBean("bean3", OrderedBean.class);
+		OrderedBean bean4 = this.factory.getBean("bean4", OrderedBean.class);
+		assertTrue(bean4.order < bean3.order);
+		assertTrue(bean3.order < bean2.order);
+		assertTrue(bean2.order < bean1.order);
+		assertSame(bean3, bean2.getDependency());
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithCircularReferenceAndFactoryBean() {
+		RootBeanDefinition bd1 = new RootBeanDefinition(OrderedBean.class);
+		bd1.getPropertyValues().add("dependency", new RuntimeBeanReference("bean2"));
+		this.factory.registerBeanDefinition("bean1", bd1);
+		RootBeanDefinition bd2 = new RootBeanDefinition(OrderedBean.class);
+		bd2.getPropertyValues().add("dependency", new RuntimeBeanReference("bean1"));
+		this.factory.registerBeanDefinition("bean2", bd2);
+		RootBeanDefinition bd3 = new RootBeanDefinition(OrderedBean.class);
+		bd3.getPropertyValues().add("dependency", new RuntimeBeanReference("bean2"));
+		this.factory.registerBeanDefinition("bean3", bd3);
+		this.factory.registerBeanDefinition("eagerFactory", new RootBeanDefinition(EagerFactoryBean.class));
+
+		this.factory.setPreInstantiationParallelism(4);
+		this.factory.preInstantiateSingletons();
+		OrderedBean bean1 = this.factory.getBean("bean1", OrderedBean.class);
+		OrderedBean bean2 = this.factory.getBean("bean2", OrderedBean.class);
+		assertSame(bean2, bean1.getDependency());
+		assertSame(bean1, bean2.getDependency());
+		assertSame(bean2, this.factory.getBean("bean3", OrderedBean.class).getDependency());
+		assertEquals(4, instanceCount.get());
+	}
+
+	@Test
+	public void testParallelPreInstantiationFailure() {
+		this.factory.registerBeanDefinition("bean1", new RootBeanDefinition(OrderedBean.class));
+		RootBeanDefinition bd2 = new RootBeanDefinition(OrderedBean.class);
+		bd2.getPropertyValues().add("nonExisting", "value");
+		this.factory.registerBeanDefinition("bean2", bd2);
+
+		this.factory.setPreInstantiationParallelism(4);
+		try {
+			this.factory.preInstantiateSingletons();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			assertEquals("bean2", ex.getBeanName());
+		}
+	}
+
+	private void runAll(TestRun... runs) throws InterruptedException {
+		runAll(Arrays.asList(runs));
+	}
+
+	private void runAll(List<TestRun> runs) throws InterruptedException {
+		for (TestRun run : runs) {
+			run.setDaemon(true);
+			run.start();
+		}
+		for (TestRun run : runs) {
+			run.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+			assertFalse("Singleton creation did not finish - deadlock?", run.isAlive());
+		}
+	}
+
+	private static boolean awaitOthers() {
+		latch.countDown();
+		try {
+			return latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+
+	private class TestRun extends Thread {
+
+		private final String beanName;
+
+		private volatile Object bean;
+
+		private volatile Throwable ex;
+
+		public TestRun(String beanName) {
+			this.beanName = beanName;
+		}
+
+		@Override
+		public void run() {
+			try {
+				this.bean = factory.getBean(this.beanName);
+			}
+			catch (Throwable ex) {
+				this.ex = ex;
+			}
+		}
+	}
+
+
+	public static class RendezvousBean implements InitializingBean {
+
+		private boolean metOthers;
+
+		@Override
+		public void afterPropertiesSet() {
+			this.metOthers = awaitOthers();
+		}
+	}
+
+
+	public static class SlowBean {
+
+		public SlowBean() throws InterruptedException {
+			instanceCount.incrementAndGet();
+			Thread.sleep(50);
+		}
+	}
+
+
+	public static class PartnerBean {
+
+		private PartnerBean partner;
+
+		public PartnerBean() {
+			instanceCount.incrementAndGet();
+			awaitOthers();
+		}
+
+		public PartnerBean getPartner() {
+			return this.partner;
+		}
+
+		public void setPartner(PartnerBean partner) {
+			this.partner = partner;
+		}
+	}
+
+
+	public static class OrderedBean {
+
+		private final int order = instanceCount.incrementAndGet();
+
+		private Object dependency;
+
+		public OrderedBean() {
+		}
+
+		public OrderedBean(Object dependency) {
+			this.dependency = dependency;
+		}
+
+		public Object getDependency() {
+			return this.dependency;
+		}
+
+		public void setDependency(Object dependency) {
+			this.dependency = dependency;
+		}
+	}
+
+
+	public static class EagerFactoryBean implements SmartFactoryBean<OrderedBean> {
+
+		@Override
+		public OrderedBean getObject() {
+			return new OrderedBean();
+		}
+
+		@Override
+		public Class<?> getObjectType() {
+			return OrderedBean.class;
+		}
+
+		@Override
+		public boolean isSingleton() {
+			return true;
+		}
+
+		@Override
+		public boolean isPrototype() {
+			return false;
+		}
+
+		@Override
+		public boolean isEagerInit() {
+			return true;
+		}
+	}
+
+
+	public static class ConstructorPartnerBean {
+
+		public ConstructorPartnerBean(ConstructorPartnerBean partner) {
+		}
+	}
+
+}
@@ -25,13 +25,19 @@ import java.security.Principal;
 import java.security.PrivilegedAction;
 import java.text.NumberFormat;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.security.auth.Subject;
 
 import org.apache.commons.logging.Log;
@@ -62,6 +68,8 @@ import org.springframework.beans.factory.support.AbstractBeanFactory;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.support.ChildBeanDefinition;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.LookupOverride;
 import org.springframework.beans.factory.support.ManagedList;
 import org.springframework.beans.factory.support.PropertiesBeanDefinitionReader;
 import org.springframework.beans.factory.support.RootBeanDefinition;
@@ -821,6 +829,194 @@ public class DefaultListableBeanFactoryTests {
 		assertTrue(lbf.getBean("testAlias") instanceof NestedTestBean);
 	}
 
+	@Test
+	public void testBatchBeanDefinitionRegistration() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("existing", new RootBeanDefinition(TestBean.class));
+		Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<String, BeanDefinition>();
+		beanDefinitions.put("test2", new RootBeanDefinition(NestedTestBean.class));
+		beanDefinitions.put("test1", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinitions(beanDefinitions);
+		assertEquals(Arrays.asList("existing", "test2", "test1"), Arrays.asList(lbf.getBeanDefinitionNames()));
+		assertTrue(lbf.getBean("test2") instanceof NestedTestBean);
+		assertEquals(Arrays.asList("existing", "test1"), Arrays.asList(lbf.getBeanNamesForType(TestBean.class)));
+	}
+
+	@Test
+	public void testBatchBeanDefinitionOverridingResetsDerivedBeans() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		RootBeanDefinition parent = new RootBeanDefinition(TestBean.class);
+		parent.getPropertyValues().add("name", "parent");
+		lbf.registerBeanDefinition("parent", parent);
+		lbf.registerBeanDefinition("child", new ChildBeanDefinition("parent"));
+		lbf.registerBeanDefinition("grandchild", new ChildBeanDefinition("child"));
+		lbf.registerBeanDefinition("other", new RootBeanDefinition(TestBean.class));
+		assertEquals("parent", lbf.getBean("grandchild", TestBean.class).getName());
+		TestBean other = lbf.getBean("other", TestBean.class);
+
+		Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<String, BeanDefinition>();
+		RootBeanDefinition overridingParent = new RootBeanDefinition(NestedTestBean.class);
+		overridingParent.getPropertyValues().add("company", "overridden");
+		beanDefinitions.put("parent", overridingParent);
+		beanDefinitions.put("additional", new ChildBeanDefinition("child"));
+		lbf.registerBeanDefinitions(beanDefinitions);
+
+		assertEquals("overridden", lbf.getBean("child", NestedTestBean.class).getCompany());
+		assertEquals("overridden", lbf.getBean("grandchild", NestedTestBean.class).getCompany());
+		assertEquals("overridden", lbf.getBean("additional", NestedTestBean.class).getCompany());
+		assertSame(other, lbf.getBean("other"));
+	}
+
+	@Test
+	public void testBatchBeanDefinitionOverridingGoesThroughResetBeanDefinition() {
+		final List<String> resetBeanNames = new ArrayList<String>();
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory() {
+			@Override
+			protected void resetBeanDefinition(String beanName) {
+				resetBeanNames.add(beanName);
+				super.resetBeanDefinition(beanName);
+			}
+		};
+		lbf.registerBeanDefinition("parent", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("child", new ChildBeanDefinition("parent"));
+		Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<String, BeanDefinition>();
+		beanDefinitions.put("parent", new RootBeanDefinition(NestedTestBean.class));
+		beanDefinitions.put("other", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinitions(beanDefinitions);
+		assertEquals(Arrays.asList("parent", "child"), resetBeanNames);
+	}
+
+	@Test
+	public void testBatchBeanDefinitionOverridingNotAllowed() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setAllowBeanDefinitionOverriding(false);
+		lbf.registerBeanDefinition("test", new RootBeanDefinition(TestBean.class));
+		Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<String, BeanDefinition>();
+		beanDefinitions.put("other", new RootBeanDefinition(TestBean.class));
+		beanDefinitions.put("test", new RootBeanDefinition(NestedTestBean.class));
+		try {
+			lbf.registerBeanDefinitions(beanDefinitions);
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			assertEquals("test", ex.getBeanName());
+		}
+		assertFalse(lbf.containsBeanDefinition("other"));
+		assertEquals(1, lbf.getBeanDefinitionCount());
+	}
+
+	@Test
+	public void testBatchBeanDefinitionRegistrationWithInvalidDefinition() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<String, BeanDefinition>();
+		beanDefinitions.put("valid", new RootBeanDefinition(TestBean.class));
+		RootBeanDefinition invalid = new RootBeanDefinition(TestBean.class);
+		invalid.setFactoryMethodName("create");
+		invalid.getMethodOverrides().addOverride(new LookupOverride("getName", "valid"));
+		beanDefinitions.put("invalid", invalid);
+		try {
+			lbf.registerBeanDefinitions(beanDefinitions);
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			assertEquals("invalid", ex.getBeanName());
+		}
+		assertEquals(0, lbf.getBeanDefinitionCount());
+	}
+
+	@Test
+	public void testBeanDefinitionOverridingResetsDescendantsOnly() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		RootBeanDefinition template = new RootBeanDefinition(TestBean.class);
+		template.setAbstract(true);
+		template.getPropertyValues().add("name", "template");
+		lbf.registerBeanDefinition("template", template);
+		lbf.registerBeanDefinition("child", new ChildBeanDefinition("template"));
+		lbf.registerBeanDefinition("grandchild", new ChildBeanDefinition("child"));
+		lbf.registerBeanDefinition("other", new RootBeanDefinition(TestBean.class));
+		lbf.freezeConfiguration();
+		BeanDefinition otherMbd = lbf.getMergedBeanDefinition("other");
+		assertSame(lbf.getMergedBeanDefinition("child"), lbf.getMergedBeanDefinition("child"));
+		assertEquals("template", lbf.getBean("grandchild", TestBean.class).getName());
+
+		RootBeanDefinition overridingTemplate = new RootBeanDefinition(TestBean.class);
+		overridingTemplate.setAbstract(true);
+		overridingTemplate.getPropertyValues().add("name", "overridden");
+		lbf.registerBeanDefinition("template", overridingTemplate);
+		assertEquals("overridden", lbf.getBean("child", TestBean.class).getName());
+		assertEquals("overridden", lbf.getBean("grandchild", TestBean.class).getName());
+		assertSame(otherMbd, lbf.getMergedBeanDefinition("other"));
+	}
+
+	@Test
+	public void testBeanDefinitionOverridingAfterInPlaceParentChange() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		RootBeanDefinition parent = new RootBeanDefinition(TestBean.class);
+		parent.getPropertyValues().add("name", "parent");
+		lbf.registerBeanDefinition("parent", parent);
+		lbf.registerBeanDefinition("otherParent", new RootBeanDefinition(TestBean.class));
+		GenericBeanDefinition child = new GenericBeanDefinition();
+		child.setParentName("otherParent");
+		lbf.registerBeanDefinition("child", child);
+		child.setParentName("parent");
+		assertEquals("parent", lbf.getBean("child", TestBean.class).getName());
+
+		RootBeanDefinition overridingParent = new RootBeanDefinition(TestBean.class);
+		overridingParent.getPropertyValues().add("name", "overridden");
+		lbf.registerBeanDefinition("parent", overridingParent);
+		assertEquals("overridden", lbf.getBean("child", TestBean.class).getName());
+	}
+
+	@Test
+	public void testBeanDefinitionOverridingAfterInPlaceParentChangeWithSharedDefinition() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		DefaultListableBeanFactory otherLbf = new DefaultListableBeanFactory();
+		GenericBeanDefinition child = new GenericBeanDefinition();
+		child.setParentName("otherParent");
+		for (DefaultListableBeanFactory factory : new DefaultListableBeanFactory[] {lbf, otherLbf}) {
+			RootBeanDefinition parent = new RootBeanDefinition(TestBean.class);
+			parent.getPropertyValues().add("name", "parent");
+			factory.registerBeanDefinition("parent", parent);
+			factory.registerBeanDefinition("otherParent", new RootBeanDefinition(TestBean.class));
+			factory.registerBeanDefinition("child", child);
+		}
+		child.setParentName("parent");
+		assertEquals("parent", lbf.getBean("child", TestBean.class).getName());
+		assertEquals("parent", otherLbf.getBean("child", TestBean.class).getName());
+
+		// Rebuilds the child bean name index of the other factory only.
+		otherLbf.registerBeanDefinition("parent", new RootBeanDefinition(TestBean.class));
+		RootBeanDefinition overridingParent = new RootBeanDefinition(TestBean.class);
+		overridingParent.getPropertyValues().add("name", "overridden");
+		lbf.registerBeanDefinition("parent", overridingParent);
+		assertEquals("overridden", lbf.getBean("child", TestBean.class).getName());
+	}
+
+	@Test
+	public void testMergedBeanDefinitionIsSameForConcurrentCallers() throws Exception {
+		final DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("parent", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("child", new ChildBeanDefinition("parent"));
+		lbf.freezeConfiguration();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<BeanDefinition>> futures = new ArrayList<Future<BeanDefinition>>();
+			for (int i = 0; i < 32; i++) {
+				futures.add(executor.submit(new Callable<BeanDefinition>() {
+					public BeanDefinition call() {
+						return lbf.getMergedBeanDefinition("child");
+					}
+				}));
+			}
+			for (Future<BeanDefinition> future : futures) {
+				assertSame(lbf.getMergedBeanDefinition("child"), future.get());
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
 	@Test
 	public void testAliasChaining() {
 		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
@@ -1919,6 +2115,82 @@ public class DefaultListableBeanFactoryTests {
 		assertTrue("Prototype creation took too long: " + sw.getTotalTimeMillis(), sw.getTotalTimeMillis() < 4000);
 	}
 
+	@Test
+	public void testPrototypeCreationWithExplicitConstructorArguments() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		RootBeanDefinition rbd = new RootBeanDefinition(TestBean.class);
+		rbd.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+		lbf.registerBeanDefinition("test", rbd);
+		for (int i = 0; i < 2; i++) {
+			TestBean tb = (TestBean) lbf.getBean("test", "juergen", 99);
+			assertEquals("juergen", tb.getName());
+			assertEquals(99, tb.getAge());
+			TestBean spouse = new TestBean();
+			assertSame(spouse, ((TestBean) lbf.getBean("test", spouse)).getSpouse());
+			assertEquals("juergen", ((TestBean) lbf.getBean("test", "juergen")).getName());
+			assertEquals(1, ((TestBean) lbf.getBean("test", Arrays.asList("a"))).getSomeList().size());
+		}
+	}
+
+	@Test
+	public void testPrototypeCreationWithOverloadedFactoryMethodAndExplicitArguments() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		RootBeanDefinition rbd = new RootBeanDefinition(OverloadedTestBeanFactory.class);
+		rbd.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+		rbd.setFactoryMethodName("create");
+		lbf.registerBeanDefinition("test", rbd);
+		RootBeanDefinition otherRbd = new RootBeanDefinition(OverloadedTestBeanFactory.class);
+		otherRbd.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+		otherRbd.setFactoryMethodName("create");
+		lbf.registerBeanDefinition("otherTest", otherRbd);
+		for (String beanName : new String[] {"test", "otherTest", "test"}) {
+			assertEquals("String", ((TestBean) lbf.getBean(beanName, "juergen")).getName());
+			assertEquals("Integer", ((TestBean) lbf.getBean(beanName, 99)).getName());
+			assertEquals("String,Integer", ((TestBean) lbf.getBean(beanName, "juergen", 99)).getName());
+			assertEquals("Object", ((TestBean) lbf.getBean(beanName, new Object())).getName());
+			assertEquals("Object,Object,Object", ((TestBean) lbf.getBean(beanName, 1L, 2L, 3L)).getName());
+		}
+	}
+
+	@Test
+	public void testPrototypeCreationWithAmbiguousFactoryMethodAndExplicitArguments() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		RootBeanDefinition rbd = new RootBeanDefinition(OverloadedTestBeanFactory.class);
+		rbd.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+		rbd.setFactoryMethodName("create");
+		rbd.setLenientConstructorResolution(false);
+		lbf.registerBeanDefinition("test", rbd);
+		for (int i = 0; i < 2; i++) {
+			try {
+				lbf.getBean("test", "juergen", null);
+				fail("Should have thrown BeanCreationException");
+			}
+			catch (BeanCreationException ex) {
+				assertTrue(ex.getMessage().contains("Ambiguous factory method matches"));
+			}
+		}
+	}
+
+	@Test
+	public void testPrototypeCreationWithOverloadedFactoryMethodIsFastEnough() {
+		Assume.group(TestGroup.PERFORMANCE);
+		Assume.notLogging(factoryLog);
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		RootBeanDefinition rbd = new RootBeanDefinition(OverloadedTestBeanFactory.class);
+		rbd.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+		rbd.setFactoryMethodName("create");
+		lbf.registerBeanDefinition("test", rbd);
+		StopWatch sw = new StopWatch();
+		sw.start("prototype");
+		for (int i = 0; i < 100000; i++) {
+			TestBean tb = (TestBean) lbf.getBean("test", "juergen", 99);
+			assertEquals("String,Integer", tb.getName());
+		}
+		sw.stop();
+		// System.out.println(sw.getTotalTimeMillis());
+		assertTrue("Prototype creation took too long: " + sw.getTotalTimeMillis(), sw.getTotalTimeMillis() < 3000);
+	}
+
 	@Test
 	public void testPrototypeCreationWithPropertiesIsFastEnough() {
 		Assume.group(TestGroup.PERFORMANCE);
@@ -1988,6 +2260,48 @@ public class DefaultListableBeanFactoryTests {
 		assertTrue("Prototype creation took too long: " + sw.getTotalTimeMillis(), sw.getTotalTimeMillis() < 4000);
 	}
 
+	@Test
+	public void testPrototypeCreationWithDependsOnAndPropertiesIsFastEnough() {
+		Assume.group(TestGroup.PERFORMANCE);
+		Assume.notLogging(factoryLog);
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		RootBeanDefinition rbd = new RootBeanDefinition(TestBean.class);
+		rbd.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+		rbd.setDependsOn(new String[] {"spouse"});
+		rbd.getPropertyValues().add("name", "juergen");
+		rbd.getPropertyValues().add("spouse", new RuntimeBeanReference("spouse"));
+		lbf.registerBeanDefinition("test", rbd);
+		lbf.registerBeanDefinition("spouse", new RootBeanDefinition(TestBean.class));
+		TestBean spouse = (TestBean) lbf.getBean("spouse");
+		StopWatch sw = new StopWatch();
+		sw.start("prototype");
+		for (int i = 0; i < 100000; i++) {
+			TestBean tb = (TestBean) lbf.getBean("test");
+			assertSame(spouse, tb.getSpouse());
+		}
+		sw.stop();
+		// System.out.println(sw.getTotalTimeMillis());
+		assertTrue("Prototype creation took too long: " + sw.getTotalTimeMillis(), sw.getTotalTimeMillis() < 3000);
+	}
+
+	@Test
+	public void testPrototypeCreationChecksMergedBeanDefinitionEveryTime() {
+		final List<String> checkedBeanNames = new ArrayList<String>();
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory() {
+			@Override
+			protected void checkMergedBeanDefinition(RootBeanDefinition mbd, String beanName, Object[] args) {
+				super.checkMergedBeanDefinition(mbd, beanName, args);
+				checkedBeanNames.add(beanName);
+			}
+		};
+		RootBeanDefinition rbd = new RootBeanDefinition(TestBean.class);
+		rbd.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+		lbf.registerBeanDefinition("test", rbd);
+		lbf.getBean("test");
+		lbf.getBean("test");
+		assertEquals(Arrays.asList("test", "test"), checkedBeanNames);
+	}
+
 	@Test
 	public void testBeanPostProcessorWithWrappedObjectAndDisposableBean() {
 		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
@@ -2525,6 +2839,66 @@ public class DefaultListableBeanFactoryTests {
 	}
 
 
+	public static class OverloadedTestBeanFactory {
+
+		public static TestBean create(Object arg) {
+			return new TestBean("Object");
+		}
+
+		public static TestBean create(String arg) {
+			return new TestBean("String");
+		}
+
+		public static TestBean create(Integer arg) {
+			return new TestBean("Integer");
+		}
+
+		public static TestBean create(Number arg) {
+			return new TestBean("Number");
+		}
+
+		public static TestBean create(String arg1, Integer arg2) {
+			return new TestBean("String,Integer");
+		}
+
+		public static TestBean create(String arg1, String arg2) {
+			return new TestBean("String,String");
+		}
+
+		public static TestBean create(Integer arg1, Integer arg2) {
+			return new TestBean("Integer,Integer");
+		}
+
+		public static TestBean create(String arg1, Number arg2) {
+			return new TestBean("String,Number");
+		}
+
+		public static TestBean create(Object arg1, Object arg2) {
+			return new TestBean("Object,Object");
+		}
+
+		public static TestBean create(String arg1, Integer arg2, String arg3) {
+			return new TestBean("String,Integer,String");
+		}
+
+		public static TestBean create(Integer arg1, Integer arg2, Integer arg3) {
+			return new TestBean("Integer,Integer,Integer");
+		}
+
+		public static TestBean create(Object arg1, Object arg2, Object arg3) {
+			return new TestBean("Object,Object,Object");
+		}
+
+		public static TestBean create(String arg1, String arg2, String arg3, String arg4) {
+			return new TestBean("String,String,String,String");
+		}
+
+		public static TestBean create(Object arg1, Object arg2, Object arg3, Object arg4) {
+			return new TestBean("Object,Object,Object,Object");
+		}
+	}
+
+
 	public static class ArrayBean {
 
 		private Integer[] integerArray;
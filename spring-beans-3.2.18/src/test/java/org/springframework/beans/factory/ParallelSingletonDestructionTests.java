@@ -0,0 +1,229 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import static org.junit.Assert.*;
+
+/**
+ * Multi-threaded tests for singleton destruction in a
+ * {@link DefaultListableBeanFactory} with a destruction parallelism,
+ * checking that independent singletons are destroyed in parallel while
+ * dependent beans keep getting destroyed first.
+ *
+ * @since 3.2.18
+ * @see ConcurrentSingletonCreationTests
+ */
+public final class ParallelSingletonDestructionTests {
+
+	private static final long TIMEOUT_SECONDS = 10;
+
+	private static CountDownLatch latch;
+
+	private static final List<String> destroyedBeanNames = Collections.synchronizedList(new ArrayList<String>());
+
+	private DefaultListableBeanFactory factory;
+
+
+	@Before
+	public void setUp() {
+		this.factory = new DefaultListableBeanFactory();
+		this.factory.setDestructionParallelism(4);
+		destroyedBeanNames.clear();
+	}
+
+	@Test
+	public void testIndependentSingletonsDestroyedInParallel() {
+		int beanCount = 4;
+		latch = new CountDownLatch(beanCount);
+		List<RendezvousBean> beans = new ArrayList<RendezvousBean>();
+		for (int i = 0; i < beanCount; i++) {
+			this.factory.registerBeanDefinition("bean" + i, new RootBeanDefinition(RendezvousBean.class));
+			beans.add(this.factory.getBean("bean" + i, RendezvousBean.class));
+		}
+		this.factory.destroySingletons();
+		for (RendezvousBean bean : beans) {
+			assertTrue("Singleton destruction was serialized", bean.metOthers);
+			assertFalse(bean.threadName.equals(Thread.currentThread().getName()));
+		}
+		assertEquals(0, this.factory.getSingletonCount());
+	}
+
+	@Test
+	public void testDependentBeansDestroyedFirst() {
+		this.factory.registerBeanDefinition("database", new RootBeanDefinition(RecordingBean.class));
+		RootBeanDefinition bd = new RootBeanDefinition(RecordingBean.class);
+		bd.getPropertyValues().add("dependency", new RuntimeBeanReference("database"));
+		this.factory.registerBeanDefinition("repository", bd);
+		bd = new RootBeanDefinition(RecordingBean.class);
+		bd.getPropertyValues().add("dependency", new RootBeanDefinition(RecordingBean.class));
+		bd.setDependsOn(new String[] {"repository", "cache"});
+		this.factory.registerBeanDefinition("service", bd);
+		this.factory.registerBeanDefinition("cache", new RootBeanDefinition(RecordingBean.class));
+		this.factory.registerBeanDefinition("unrelated", new RootBeanDefinition(RecordingBean.class));
+		this.factory.preInstantiateSingletons();
+
+		this.factory.destroySingletons();
+		assertEquals(6, destroyedBeanNames.size());
+		assertDestroyedBefore("service", "repository");
+		assertDestroyedBefore("service", "cache");
+		assertDestroyedBefore("repository", "database");
+		assertDestroyedBefore("service", "(inner bean)");
+		assertEquals(0, this.factory.getSingletonCount());
+	}
+
+	@Test
+	public void testCircularDependenciesDestroyedSequentially() {
+		RootBeanDefinition bd = new RootBeanDefinition(RecordingBean.class);
+		bd.getPropertyValues().add("dependency", new RuntimeBeanReference("right"));
+		this.factory.registerBeanDefinition("left", bd);
+		bd = new RootBeanDefinition(RecordingBean.class);
+		bd.getPropertyValues().add("dependency", new RuntimeBeanReference("left"));
+		this.factory.registerBeanDefinition("right", bd);
+		bd = new RootBeanDefinition(RecordingBean.class);
+		bd.getPropertyValues().add("dependency", new RuntimeBeanReference("left"));
+		this.factory.registerBeanDefinition("client", bd);
+		this.factory.registerBeanDefinition("unrelated", new RootBeanDefinition(RecordingBean.class));
+		this.factory.preInstantiateSingletons();
+
+		this.factory.destroySingletons();
+		assertEquals(4, destroyedBeanNames.size());
+		assertDestroyedBefore("client", "left");
+		assertDestroyedBefore("client", "right");
+		assertEquals(0, this.factory.getSingletonCount());
+	}
+
+	@Test
+	public void testTimedOutSingletonAbandoned() {
+		this.factory.setDestructionParallelism(2);
+		this.factory.setDestructionTimeout(200);
+		latch = new CountDownLatch(1);
+		this.factory.registerBeanDefinition("pool", new RootBeanDefinition(RecordingBean.class));
+		RootBeanDefinition bd = new RootBeanDefinition(HangingBean.class);
+		bd.setDependsOn(new String[] {"pool"});
+		this.factory.registerBeanDefinition("hanging", bd);
+		bd = new RootBeanDefinition(HangingBean.class);
+		bd.setDependsOn(new String[] {"pool"});
+		this.factory.registerBeanDefinition("otherHanging", bd);
+		this.factory.registerBeanDefinition("other", new RootBeanDefinition(RecordingBean.class));
+		this.factory.preInstantiateSingletons();
+		HangingBean hanging = this.factory.getBean("hanging", HangingBean.class);
+
+		long startTime = System.currentTimeMillis();
+		this.factory.destroySingletons();
+		assertTrue("Timed out singletons were waited for", System.currentTimeMillis() - startTime < 5000);
+		assertTrue(destroyedBeanNames.contains("pool"));
+		assertTrue(destroyedBeanNames.contains("other"));
+		assertTrue(hanging.interrupted);
+		assertEquals(0, this.factory.getSingletonCount());
+	}
+
+	@Test
+	public void testCopyConfiguration() {
+		this.factory.setDestructionTimeout(1000);
+		DefaultListableBeanFactory copy = new DefaultListableBeanFactory();
+		copy.copyConfigurationFrom(this.factory);
+		assertEquals(4, copy.getDestructionParallelism());
+		assertEquals(1000, copy.getDestructionTimeout());
+	}
+
+
+	private static void assertDestroyedBefore(String first, String second) {
+		int firstIndex = indexOf(first);
+		int secondIndex = indexOf(second);
+		assertTrue(first + " not destroyed", firstIndex >= 0);
+		assertTrue(second + " not destroyed", secondIndex >= 0);
+		assertTrue(first + " destroyed after " + second + ": " + destroyedBeanNames, firstIndex < secondIndex);
+	}
+
+	private static int indexOf(String beanNamePrefix) {
+		for (int i = 0; i < destroyedBeanNames.size(); i++) {
+			if (destroyedBeanNames.get(i).startsWith(beanNamePrefix)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+
+	public static class RendezvousBean implements DisposableBean {
+
+		private volatile boolean metOthers;
+
+		private volatile String threadName;
+
+		public void destroy() throws InterruptedException {
+			this.threadName = Thread.currentThread().getName();
+			latch.countDown();
+			this.metOthers = latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		}
+	}
+
+
+	public static class RecordingBean implements BeanNameAware, DisposableBean {
+
+		private String beanName;
+
+		private Object dependency;
+
+		public void setBeanName(String beanName) {
+			this.beanName = beanName;
+		}
+
+		public void setDependency(Object dependency) {
+			this.dependency = dependency;
+		}
+
+		public Object getDependency() {
+			return this.dependency;
+		}
+
+		public void destroy() throws InterruptedException {
+			// Give concurrently destroyed beans a chance to overtake this one.
+			Thread.sleep(10);
+			destroyedBeanNames.add(this.beanName);
+		}
+	}
+
+
+	public static class HangingBean implements DisposableBean {
+
+		private volatile boolean interrupted;
+
+		public void destroy() {
+			try {
+				latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				this.interrupted = true;
+			}
+		}
+	}
+
+}
@@ -89,6 +89,40 @@ public class AutowiredAnnotationBeanPostProcessorTests {
 		assertSame(tb, bean.getTestBean2());
 	}
 
+	@Test
+	public void testResourceInjectionWithReplacedSingleton() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		AutowiredAnnotationBeanPostProcessor bpp = new AutowiredAnnotationBeanPostProcessor();
+		bpp.setBeanFactory(bf);
+		bf.addBeanPostProcessor(bpp);
+		RootBeanDefinition bd = new RootBeanDefinition(ResourceInjectionBean.class);
+		bd.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+		bf.registerBeanDefinition("annotatedBean", bd);
+		bf.registerBeanDefinition("testBean", new RootBeanDefinition(TestBean.class));
+
+		ResourceInjectionBean bean = (ResourceInjectionBean) bf.getBean("annotatedBean");
+		TestBean tb = (TestBean) bf.getBean("testBean");
+		assertSame(tb, bean.getTestBean());
+		assertSame(tb, bean.getTestBean2());
+		bean = (ResourceInjectionBean) bf.getBean("annotatedBean");
+		assertSame(tb, bean.getTestBean());
+		assertSame(tb, bean.getTestBean2());
+
+		bf.destroySingletons();
+		bean = (ResourceInjectionBean) bf.getBean("annotatedBean");
+		TestBean tb2 = (TestBean) bf.getBean("testBean");
+		assertNotSame(tb, tb2);
+		assertSame(tb2, bean.getTestBean());
+		assertSame(tb2, bean.getTestBean2());
+
+		RootBeanDefinition tbd = new RootBeanDefinition(TestBean.class);
+		tbd.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+		bf.registerBeanDefinition("testBean", tbd);
+		bean = (ResourceInjectionBean) bf.getBean("annotatedBean");
+		assertNotSame(tb2, bean.getTestBean());
+		assertNotSame(bean.getTestBean(), bean.getTestBean2());
+	}
+
 	@Test
 	public void testExtendedResourceInjection() {
 		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
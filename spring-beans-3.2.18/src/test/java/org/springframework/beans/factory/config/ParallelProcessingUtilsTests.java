@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.config;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link ParallelProcessingUtils}.
+ *
+ * @since 3.2.18
+ */
+public final class ParallelProcessingUtilsTests {
+
+	@Test
+	public void testInvokeAllWaitsForRunningTasksAfterFailure() throws Exception {
+		final CountDownLatch started = new CountDownLatch(1);
+		final AtomicBoolean finished = new AtomicBoolean();
+		Runnable failingTask = new Runnable() {
+			public void run() {
+				try {
+					started.await();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				throw new IllegalStateException("failed");
+			}
+		};
+		Runnable slowTask = new Runnable() {
+			public void run() {
+				started.countDown();
+				try {
+					Thread.sleep(10000);
+				}
+				catch (InterruptedException ex) {
+					// Keep working for a while after the interruption
+					long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+					while (System.nanoTime() < end) {
+						Thread.yield();
+					}
+					finished.set(true);
+				}
+			}
+		};
+		try {
+			ParallelProcessingUtils.invokeAll(2, Arrays.asList(failingTask, slowTask), "testing");
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+		assertTrue(finished.get());
+	}
+
+}
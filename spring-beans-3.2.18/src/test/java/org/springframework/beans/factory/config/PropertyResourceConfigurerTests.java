@@ -42,6 +42,7 @@ import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.core.io.Resource;
 import org.springframework.tests.sample.beans.IndexedTestBean;
 import org.springframework.tests.sample.beans.TestBean;
+import org.springframework.util.StringValueResolver;
 
 import static org.junit.Assert.*;
 import static org.springframework.beans.factory.support.BeanDefinitionBuilder.*;
@@ -669,6 +670,145 @@ public class PropertyResourceConfigurerTests {
 		assertEquals("mytest", tb.getTouchy());
 	}
 
+	@Test
+	public void testPropertyPlaceholderConfigurerResolvesRepeatedStringsOnce() {
+		for (int i = 0; i < 100; i++) {
+			factory.registerBeanDefinition("tb" + i, genericBeanDefinition(TestBean.class)
+					.addPropertyValue("name", "${name}")
+					.addPropertyValue("touchy", "touchy" + i)
+					.addPropertyValue("sex", "NULL").getBeanDefinition());
+		}
+
+		final Map<String, Integer> resolutionCounts = new HashMap<String, Integer>();
+		PropertyPlaceholderConfigurer ppc = new PropertyPlaceholderConfigurer() {
+			@Override
+			protected String resolvePlaceholder(String placeholder, Properties props) {
+				Integer count = resolutionCounts.get(placeholder);
+				resolutionCounts.put(placeholder, (count != null ? count + 1 : 1));
+				return super.resolvePlaceholder(placeholder, props);
+			}
+			@Override
+			StringValueResolver getBeanDefinitionValueResolver(StringValueResolver valueResolver) {
+				return new CachingStringValueResolver(valueResolver, this.placeholderPrefix, this.nullValue);
+			}
+		};
+		Properties props = new Properties();
+		props.setProperty("name", "myname");
+		ppc.setProperties(props);
+		ppc.setNullValue("NULL");
+		ppc.postProcessBeanFactory(factory);
+
+		assertEquals(Collections.singletonMap("name", 1), resolutionCounts);
+		for (int i = 0; i < 100; i++) {
+			TestBean tb = (TestBean) factory.getBean("tb" + i);
+			assertEquals("myname", tb.getName());
+			assertEquals("touchy" + i, tb.getTouchy());
+			assertNull(tb.getSex());
+		}
+	}
+
+	@Test
+	public void testPropertyPlaceholderConfigurerSubclassResolvesEveryOccurrence() {
+		for (int i = 0; i < 3; i++) {
+			factory.registerBeanDefinition("tb" + i, genericBeanDefinition(TestBean.class)
+					.addPropertyValue("name", "${name}").getBeanDefinition());
+		}
+
+		PropertyPlaceholderConfigurer ppc = new PropertyPlaceholderConfigurer() {
+			private int counter;
+			@Override
+			protected String resolvePlaceholder(String placeholder, Properties props) {
+				return placeholder + this.counter++;
+			}
+		};
+		ppc.postProcessBeanFactory(factory);
+
+		for (int i = 0; i < 3; i++) {
+			assertEquals("name" + i, ((TestBean) factory.getBean("tb" + i)).getName());
+		}
+	}
+
+	@Test
+	public void testPropertyPlaceholderConfigurerWithProcessingParallelism() {
+		for (int i = 0; i < 200; i++) {
+			List<Object> friends = new ManagedList<Object>();
+			friends.add("${name}" + i);
+			friends.add(new TypedStringValue("${var:default}"));
+			factory.registerBeanDefinition("tb" + i, genericBeanDefinition(TestBean.class)
+					.addPropertyValue("name", "${name}")
+					.addPropertyValue("age", "${age}")
+					.addPropertyValue("friends", friends)
+					.addPropertyValue("spouse", new RuntimeBeanReference("${spouse}")).getBeanDefinition());
+		}
+		factory.registerBeanDefinition("spouse", new RootBeanDefinition(TestBean.class));
+
+		PropertyPlaceholderConfigurer ppc = new PropertyPlaceholderConfigurer();
+		Properties props = new Properties();
+		props.setProperty("name", "myname");
+		props.setProperty("age", "98");
+		props.setProperty("spouse", "spouse");
+		ppc.setProperties(props);
+		ppc.setProcessingParallelism(4);
+		ppc.postProcessBeanFactory(factory);
+
+		for (int i = 0; i < 200; i++) {
+			TestBean tb = (TestBean) factory.getBean("tb" + i);
+			assertEquals("myname", tb.getName());
+			assertEquals(98, tb.getAge());
+			assertEquals(2, tb.getFriends().size());
+			assertTrue(tb.getFriends().contains("myname" + i));
+			assertTrue(tb.getFriends().contains("default"));
+			assertSame(factory.getBean("spouse"), tb.getSpouse());
+		}
+	}
+
+	@Test
+	public void testPropertyPlaceholderConfigurerWithProcessingParallelismAndUnresolvablePlaceholder() {
+		for (int i = 0; i < 50; i++) {
+			factory.registerBeanDefinition("tb" + i, genericBeanDefinition(TestBean.class)
+					.addPropertyValue("name", (i % 10 == 7 ? "${missing" + i + "}" : "${name}")).getBeanDefinition());
+		}
+
+		PropertyPlaceholderConfigurer ppc = new PropertyPlaceholderConfigurer();
+		Properties props = new Properties();
+		props.setProperty("name", "myname");
+		ppc.setProperties(props);
+		ppc.setProcessingParallelism(4);
+		try {
+			ppc.postProcessBeanFactory(factory);
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			assertEquals("tb7", ex.getBeanName());
+			assertTrue(ex.getMessage().contains("missing7"));
+		}
+	}
+
+	@Test
+	public void testPlaceholderConfigurerSupportPassesAllStringsToCustomResolver() {
+		factory.registerBeanDefinition("tb", genericBeanDefinition(TestBean.class)
+				.addPropertyValue("name", "myname").addPropertyValue("touchy", "${touchy}").getBeanDefinition());
+
+		PlaceholderConfigurerSupport configurer = new PlaceholderConfigurerSupport() {
+			@Override
+			protected void processProperties(ConfigurableListableBeanFactory beanFactoryToProcess, Properties props) {
+				doProcessProperties(beanFactoryToProcess, new StringValueResolver() {
+					public String resolveStringValue(String strVal) {
+						if (strVal.equals("${touchy}")) {
+							return "mytouchy";
+						}
+						return (strVal.equals("myname") ? "MYNAME" : strVal);
+					}
+				});
+			}
+		};
+		configurer.postProcessBeanFactory(factory);
+
+		TestBean tb = (TestBean) factory.getBean("tb");
+		assertEquals("MYNAME", tb.getName());
+		assertEquals("mytouchy", tb.getTouchy());
+	}
+
 	@Test
 	public void testPreferencesPlaceholderConfigurer() {
 		factory.registerBeanDefinition("tb", genericBeanDefinition(TestBean.class)
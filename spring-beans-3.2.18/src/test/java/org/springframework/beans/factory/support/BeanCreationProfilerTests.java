@@ -0,0 +1,178 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BeanCreationProfiler}.
+ *
+ * @since 3.2.18
+ */
+public final class BeanCreationProfilerTests {
+
+	private final DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+
+	private final BeanCreationProfiler profiler = new BeanCreationProfiler();
+
+
+	@Before
+	public void setUp() {
+		RootBeanDefinition outer = new RootBeanDefinition(TestBean.class);
+		outer.getPropertyValues().add("spouse", new RuntimeBeanReference("inner"));
+		bf.registerBeanDefinition("outer", outer);
+		RootBeanDefinition inner = new RootBeanDefinition(TestBean.class);
+		inner.setInitMethodName("absquatulate");
+		bf.registerBeanDefinition("inner", inner);
+		bf.addBeanPostProcessor(new SlowBeanPostProcessor());
+		bf.setBeanCreationProfiler(profiler);
+	}
+
+	@Test
+	public void testPhasesAndNestedCreation() {
+		bf.getBean("outer");
+
+		List<BeanCreationProfiler.BeanStatistics> statistics = profiler.getBeanStatistics();
+		assertEquals(2, statistics.size());
+		BeanCreationProfiler.BeanStatistics innerStatistics = getStatistics(statistics, "inner");
+		BeanCreationProfiler.BeanStatistics outerStatistics = getStatistics(statistics, "outer");
+		assertTrue(statistics.get(0).getExclusiveTime() >= statistics.get(1).getExclusiveTime());
+		assertEquals(1, innerStatistics.getCreationCount());
+		assertTrue(innerStatistics.getExclusiveTime() >= 5000000);
+		assertTrue(outerStatistics.getTotalTime() >= innerStatistics.getTotalTime());
+		assertTrue(outerStatistics.getExclusiveTime() < outerStatistics.getTotalTime() - 5000000);
+
+		String processorPhase = BeanCreationProfiler.BEFORE_INITIALIZATION_PHASE_PREFIX +
+				SlowBeanPostProcessor.class.getName();
+		Map<String, Long> phaseTimes = innerStatistics.getPhaseTimes();
+		assertTrue(phaseTimes.containsKey(BeanCreationProfiler.INSTANTIATE_PHASE));
+		assertTrue(phaseTimes.containsKey(BeanCreationProfiler.POPULATE_PHASE));
+		assertTrue(phaseTimes.containsKey(BeanCreationProfiler.INIT_PHASE));
+		assertTrue(phaseTimes.get(processorPhase) >= 5000000);
+		assertTrue(outerStatistics.getPhaseTimes().get(BeanCreationProfiler.POPULATE_PHASE) <
+				innerStatistics.getTotalTime());
+	}
+
+	@Test
+	public void testTraceAndSummary() throws Exception {
+		bf.getBean("outer");
+
+		StringWriter writer = new StringWriter();
+		profiler.writeTrace(writer);
+		String trace = writer.toString();
+		String processorPhase = BeanCreationProfiler.BEFORE_INITIALIZATION_PHASE_PREFIX +
+				SlowBeanPostProcessor.class.getName();
+		assertTrue(trace, trace.contains("outer;populate;inner;" + processorPhase + " "));
+		for (String line : trace.split("\n")) {
+			assertTrue(line, line.matches("[^ ]+ \\d+"));
+		}
+
+		String summary = profiler.getSummary(1);
+		assertTrue(summary, summary.startsWith("Bean creation profile: 2 creations of 2 beans"));
+		assertEquals(summary, 2, summary.split("\n").length);
+		summary = profiler.getSummary(10);
+		assertTrue(summary, summary.contains("'inner' [init="));
+		assertTrue(summary, summary.contains("'outer' [init="));
+
+		profiler.reset();
+		assertTrue(profiler.getBeanStatistics().isEmpty());
+	}
+
+	@Test
+	public void testFactoryBeanObjectPostProcessingWithinBeanFrame() throws Exception {
+		bf.registerBeanDefinition("factory", new RootBeanDefinition(TestBeanFactoryBean.class));
+		bf.getBean("factory");
+
+		StringWriter writer = new StringWriter();
+		profiler.writeTrace(writer);
+		String trace = writer.toString();
+		assertTrue(trace, trace.contains("factory;"));
+		for (String line : trace.split("\n")) {
+			assertTrue(line, line.startsWith("factory;") || line.startsWith("factory "));
+		}
+	}
+
+	@Test
+	public void testNoProfilerByDefault() {
+		DefaultListableBeanFactory other = new DefaultListableBeanFactory();
+		assertNull(other.getBeanCreationProfiler());
+		other.copyConfigurationFrom(bf);
+		assertSame(profiler, other.getBeanCreationProfiler());
+	}
+
+
+	private static BeanCreationProfiler.BeanStatistics getStatistics(
+			List<BeanCreationProfiler.BeanStatistics> statistics, String beanName) {
+
+		for (BeanCreationProfiler.BeanStatistics beanStatistics : statistics) {
+			if (beanStatistics.getBeanName().equals(beanName)) {
+				return beanStatistics;
+			}
+		}
+		throw new AssertionError("No statistics for bean '" + beanName + "'");
+	}
+
+
+	private static class SlowBeanPostProcessor implements BeanPostProcessor {
+
+		public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+			if ("inner".equals(beanName)) {
+				try {
+					Thread.sleep(10);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return bean;
+		}
+
+		public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+			return bean;
+		}
+	}
+
+
+	public static class TestBeanFactoryBean implements FactoryBean<TestBean> {
+
+		public TestBean getObject() {
+			return new TestBean();
+		}
+
+		public Class<?> getObjectType() {
+			return TestBean.class;
+		}
+
+		public boolean isSingleton() {
+			return true;
+		}
+	}
+
+}
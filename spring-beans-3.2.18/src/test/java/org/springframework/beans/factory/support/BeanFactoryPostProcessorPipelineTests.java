@@ -0,0 +1,278 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.PartitionableBeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.PartitionableBeanFactoryPostProcessor.BeanDefinitionProcessing;
+import org.springframework.beans.factory.config.PropertyPlaceholderConfigurer;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BeanFactoryPostProcessorPipeline}.
+ *
+ * @since 3.2.18
+ */
+public final class BeanFactoryPostProcessorPipelineTests {
+
+	private final DefaultListableBeanFactory factory = new DefaultListableBeanFactory();
+
+
+	@Test
+	public void testPostProcessorsAppliedInOrder() {
+		registerTestBeans(50, "${name}");
+		final List<String> processedBeanNames = Collections.synchronizedList(new ArrayList<String>());
+		SuffixAppender appender = new SuffixAppender("!", null, processedBeanNames);
+		final List<String> namesSeenByBarrier = new ArrayList<String>();
+		BeanFactoryPostProcessor barrier = new BeanFactoryPostProcessor() {
+			public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+				namesSeenByBarrier.addAll(processedBeanNames);
+			}
+		};
+
+		new BeanFactoryPostProcessorPipeline(4).invokeBeanFactoryPostProcessors(Arrays.asList(
+				createPlaceholderConfigurer(), appender, barrier, new SuffixAppender("?", null, null)), factory);
+
+		assertEquals(50, namesSeenByBarrier.size());
+		assertEquals(1, appender.beginCount);
+		assertEquals(1, appender.endCount);
+		for (int i = 0; i < 50; i++) {
+			assertEquals("myname!?", factory.getBean("tb" + i, TestBean.class).getName());
+		}
+	}
+
+	@Test
+	public void testBeanDefinitionsProcessedConcurrently() {
+		registerTestBeans(8, "name");
+		final CountDownLatch latch = new CountDownLatch(2);
+		final List<Boolean> metOthers = Collections.synchronizedList(new ArrayList<Boolean>());
+		SuffixAppender rendezvous = new SuffixAppender("", null, null) {
+			@Override
+			public void postProcessBeanDefinition(String beanName, BeanDefinition beanDefinition) {
+				latch.countDown();
+				try {
+					metOthers.add(latch.await(10, TimeUnit.SECONDS));
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+
+		new BeanFactoryPostProcessorPipeline(4).invokeBeanFactoryPostProcessors(
+				Collections.singletonList(rendezvous), factory);
+		assertEquals(8, metOthers.size());
+		assertFalse("Bean definitions processed sequentially", metOthers.contains(Boolean.FALSE));
+	}
+
+	@Test
+	public void testPostProcessorForSubsetOfBeanDefinitions() {
+		registerTestBeans(10, "name");
+		List<String> processedBeanNames = Collections.synchronizedList(new ArrayList<String>());
+		SuffixAppender appender = new SuffixAppender("!", new String[] {"tb7", "tb3", "missing"}, processedBeanNames);
+
+		new BeanFactoryPostProcessorPipeline(4).invokeBeanFactoryPostProcessors(
+				Arrays.asList(appender, new SuffixAppender("?", null, null)), factory);
+
+		assertEquals(2, processedBeanNames.size());
+		assertEquals("name!?", factory.getBean("tb3", TestBean.class).getName());
+		assertEquals("name!?", factory.getBean("tb7", TestBean.class).getName());
+		assertEquals("name?", factory.getBean("tb5", TestBean.class).getName());
+	}
+
+	@Test
+	public void testFailureOfFirstBeanDefinition() {
+		registerTestBeans(100, "${name}");
+		factory.getBeanDefinition("tb40").getPropertyValues().add("name", "${missing40}");
+		factory.getBeanDefinition("tb80").getPropertyValues().add("name", "${missing80}");
+		SuffixAppender appender = new SuffixAppender("!", null, null);
+		try {
+			new BeanFactoryPostProcessorPipeline(4).invokeBeanFactoryPostProcessors(
+					Arrays.asList(createPlaceholderConfigurer(), appender), factory);
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			assertEquals("tb40", ex.getBeanName());
+			assertEquals(0, appender.endCount);
+		}
+	}
+
+	@Test
+	public void testSequentialWithParallelismOfOne() {
+		registerTestBeans(10, "${name}");
+		SuffixAppender appender = new SuffixAppender("!", null, null);
+
+		new BeanFactoryPostProcessorPipeline(1).invokeBeanFactoryPostProcessors(
+				Arrays.asList(createPlaceholderConfigurer(), appender), factory);
+
+		assertEquals(0, appender.beginCount);
+		assertEquals(1, appender.postProcessBeanFactoryCount);
+		assertEquals("myname!", factory.getBean("tb0", TestBean.class).getName());
+	}
+
+	@Test
+	public void testPlaceholderConfigurerWithCustomProcessing() {
+		registerTestBeans(10, "${na");
+		PropertyPlaceholderConfigurer ppc = new PropertyPlaceholderConfigurer() {
+			@Override
+			protected void processProperties(ConfigurableListableBeanFactory beanFactoryToProcess, Properties props) {
+				props.setProperty("name", "custom");
+				super.processProperties(beanFactoryToProcess, props);
+			}
+		};
+		ppc.setProperties(new Properties());
+		SuffixAppender appender = new SuffixAppender("me}", null, null);
+
+		new BeanFactoryPostProcessorPipeline(4).invokeBeanFactoryPostProcessors(
+				Arrays.asList(appender, ppc, new SuffixAppender("!", null, null)), factory);
+		assertEquals(1, appender.endCount);
+		assertEquals("custom!", factory.getBean("tb0", TestBean.class).getName());
+	}
+
+	@Test
+	public void testPlaceholderConfigurerSubclassOptingIn() {
+		registerTestBeans(10, "${name}");
+		final List<String> resolvedPlaceholders = Collections.synchronizedList(new ArrayList<String>());
+		PropertyPlaceholderConfigurer ppc = new PropertyPlaceholderConfigurer() {
+			@Override
+			public boolean isPartitionable() {
+				return true;
+			}
+			@Override
+			public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+				throw new AssertionError("Should have been processed by bean definition");
+			}
+			@Override
+			protected String resolvePlaceholder(String placeholder, Properties props) {
+				resolvedPlaceholders.add(placeholder);
+				return "custom";
+			}
+		};
+
+		new BeanFactoryPostProcessorPipeline(4).invokeBeanFactoryPostProcessors(
+				Collections.singletonList(ppc), factory);
+		assertEquals("custom", factory.getBean("tb0", TestBean.class).getName());
+		assertTrue(resolvedPlaceholders.contains("name"));
+	}
+
+	@Test
+	public void testPlaceholderConfigurerResolvesAliases() {
+		registerTestBeans(2, "${name}");
+		factory.registerAlias("tb0", "${alias}");
+
+		new BeanFactoryPostProcessorPipeline(4).invokeBeanFactoryPostProcessors(
+				Collections.singletonList(createPlaceholderConfigurer()), factory);
+		assertEquals("myname", factory.getBean("myalias", TestBean.class).getName());
+		assertEquals("myname", factory.resolveEmbeddedValue("${name}"));
+	}
+
+
+	private void registerTestBeans(int count, String name) {
+		for (int i = 0; i < count; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+			bd.getPropertyValues().add("name", name);
+			factory.registerBeanDefinition("tb" + i, bd);
+		}
+	}
+
+	private static PropertyPlaceholderConfigurer createPlaceholderConfigurer() {
+		PropertyPlaceholderConfigurer ppc = new PropertyPlaceholderConfigurer();
+		Properties props = new Properties();
+		props.setProperty("name", "myname");
+		props.setProperty("alias", "myalias");
+		ppc.setProperties(props);
+		return ppc;
+	}
+
+
+	/**
+	 * Appends a suffix to the "name" property of the bean definitions it processes.
+	 */
+	private static class SuffixAppender implements PartitionableBeanFactoryPostProcessor {
+
+		private final String suffix;
+
+		private final String[] beanNames;
+
+		private final List<String> processedBeanNames;
+
+		private int postProcessBeanFactoryCount;
+
+		private int beginCount;
+
+		private int endCount;
+
+		public SuffixAppender(String suffix, String[] beanNames, List<String> processedBeanNames) {
+			this.suffix = suffix;
+			this.beanNames = beanNames;
+			this.processedBeanNames = processedBeanNames;
+		}
+
+		public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+			this.postProcessBeanFactoryCount++;
+			for (String beanName : beanFactory.getBeanDefinitionNames()) {
+				postProcessBeanDefinition(beanName, beanFactory.getBeanDefinition(beanName));
+			}
+		}
+
+		public boolean isPartitionable() {
+			return true;
+		}
+
+		public BeanDefinitionProcessing beginBeanDefinitionProcessing(ConfigurableListableBeanFactory beanFactory) {
+			this.beginCount++;
+			return new BeanDefinitionProcessing() {
+				public String[] getBeanNamesToProcess() {
+					return beanNames;
+				}
+				public void postProcessBeanDefinition(String beanName, BeanDefinition beanDefinition) {
+					SuffixAppender.this.postProcessBeanDefinition(beanName, beanDefinition);
+				}
+				public void endBeanDefinitionProcessing(ConfigurableListableBeanFactory beanFactory) {
+					endCount++;
+				}
+			};
+		}
+
+		public void postProcessBeanDefinition(String beanName, BeanDefinition beanDefinition) {
+			Object value = beanDefinition.getPropertyValues().getPropertyValue("name").getValue();
+			String name = (value instanceof TypedStringValue ? ((TypedStringValue) value).getValue() : (String) value);
+			beanDefinition.getPropertyValues().add("name", name + this.suffix);
+			if (this.processedBeanNames != null) {
+				this.processedBeanNames.add(beanName);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.junit.Test;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.tests.sample.beans.DerivedTestBean;
+import org.springframework.tests.sample.beans.DummyFactory;
+import org.springframework.tests.sample.beans.INestedTestBean;
+import org.springframework.tests.sample.beans.ITestBean;
+import org.springframework.tests.sample.beans.NestedTestBean;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for by-type lookups in {@link DefaultListableBeanFactory}
+ * as narrowed down by its {@link BeanTypeIndex}.
+ *
+ * @since 3.2.18
+ */
+public final class BeanTypeIndexTests {
+
+	private final DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+
+
+	@Test
+	public void testBeanNamesForTypeInRegistrationOrder() {
+		bf.registerBeanDefinition("tb1", new RootBeanDefinition(TestBean.class));
+		bf.registerBeanDefinition("nested", new RootBeanDefinition(NestedTestBean.class));
+		bf.registerBeanDefinition("derived", new RootBeanDefinition(DerivedTestBean.class));
+		bf.registerBeanDefinition("tb2", new RootBeanDefinition(TestBean.class));
+
+		assertArrayEquals(new String[] {"tb1", "derived", "tb2"}, bf.getBeanNamesForType(ITestBean.class));
+		assertArrayEquals(new String[] {"tb1", "derived", "tb2"}, bf.getBeanNamesForType(TestBean.class));
+		assertArrayEquals(new String[] {"derived"}, bf.getBeanNamesForType(Serializable.class));
+		assertArrayEquals(new String[] {"nested"}, bf.getBeanNamesForType(INestedTestBean.class));
+		assertArrayEquals(new String[] {"tb1", "nested", "derived", "tb2"}, bf.getBeanNamesForType(Object.class));
+		assertEquals(0, bf.getBeanNamesForType(Runnable.class).length);
+	}
+
+	@Test
+	public void testBeanNamesForTypeAfterOverridingAndRemoval() {
+		bf.registerBeanDefinition("bean", new RootBeanDefinition(TestBean.class));
+		bf.registerBeanDefinition("other", new RootBeanDefinition(TestBean.class));
+		assertArrayEquals(new String[] {"bean", "other"}, bf.getBeanNamesForType(ITestBean.class));
+
+		bf.registerBeanDefinition("bean", new RootBeanDefinition(NestedTestBean.class));
+		assertArrayEquals(new String[] {"other"}, bf.getBeanNamesForType(ITestBean.class));
+		assertArrayEquals(new String[] {"bean"}, bf.getBeanNamesForType(INestedTestBean.class));
+
+		bf.registerBeanDefinition("bean", new RootBeanDefinition(DerivedTestBean.class));
+		assertArrayEquals(new String[] {"bean", "other"}, bf.getBeanNamesForType(ITestBean.class));
+
+		bf.removeBeanDefinition("bean");
+		assertArrayEquals(new String[] {"other"}, bf.getBeanNamesForType(ITestBean.class));
+		bf.registerBeanDefinition("bean", new RootBeanDefinition(TestBean.class));
+		assertArrayEquals(new String[] {"other", "bean"}, bf.getBeanNamesForType(ITestBean.class));
+	}
+
+	@Test
+	public void testBeanNamesForTypeAfterInPlaceModification() {
+		GenericBeanDefinition bd = new GenericBeanDefinition();
+		bd.setBeanClassName(TestBean.class.getName());
+		bf.registerBeanDefinition("bean", bd);
+		assertArrayEquals(new String[] {"bean"}, bf.getBeanNamesForType(ITestBean.class));
+
+		// As done by a BeanFactoryPostProcessor, e.g. for resolving placeholders
+		bd.setBeanClassName(NestedTestBean.class.getName());
+		assertEquals(0, bf.getBeanNamesForType(ITestBean.class).length);
+		assertArrayEquals(new String[] {"bean"}, bf.getBeanNamesForType(INestedTestBean.class));
+	}
+
+	@Test
+	public void testInPlaceModificationCountedPerFactory() {
+		DefaultListableBeanFactory otherFactory = new DefaultListableBeanFactory();
+		GenericBeanDefinition bd = new GenericBeanDefinition();
+		bd.setBeanClassName(TestBean.class.getName());
+		bf.registerBeanDefinition("bean", bd);
+		otherFactory.registerBeanDefinition("bean", bd);
+		long otherCount = otherFactory.getBeanDefinitionModificationCount();
+
+		bd.setBeanClassName(NestedTestBean.class.getName());
+		assertEquals(1, bf.getBeanDefinitionModificationCount());
+		assertEquals(otherCount + 1, otherFactory.getBeanDefinitionModificationCount());
+
+		otherFactory.removeBeanDefinition("bean");
+		bd.setBeanClassName(TestBean.class.getName());
+		assertEquals(2, bf.getBeanDefinitionModificationCount());
+		assertEquals(otherCount + 1, otherFactory.getBeanDefinitionModificationCount());
+		new GenericBeanDefinition().setBeanClassName(TestBean.class.getName());
+		assertEquals(2, bf.getBeanDefinitionModificationCount());
+	}
+
+	@Test
+	public void testBeanClassResolutionNotCountedAsModification() throws Exception {
+		GenericBeanDefinition bd = new GenericBeanDefinition();
+		bd.setBeanClassName(TestBean.class.getName());
+		bf.registerBeanDefinition("bean", bd);
+		assertArrayEquals(new String[] {"bean"}, bf.getBeanNamesForType(ITestBean.class));
+		long count = bf.getBeanDefinitionModificationCount();
+
+		bd.resolveBeanClass(getClass().getClassLoader());
+		assertEquals(count, bf.getBeanDefinitionModificationCount());
+		assertArrayEquals(new String[] {"bean"}, bf.getBeanNamesForType(ITestBean.class));
+	}
+
+	@Test
+	public void testBeanNamesForTypeWithChildBeanDefinition() {
+		RootBeanDefinition parent = new RootBeanDefinition(TestBean.class);
+		parent.setAbstract(true);
+		bf.registerBeanDefinition("parent", parent);
+		bf.registerBeanDefinition("child", new ChildBeanDefinition("parent"));
+		assertArrayEquals(new String[] {"child"}, bf.getBeanNamesForType(ITestBean.class));
+
+		bf.registerBeanDefinition("parent", new RootBeanDefinition(NestedTestBean.class));
+		assertArrayEquals(new String[] {"parent", "child"}, bf.getBeanNamesForType(INestedTestBean.class));
+		assertEquals(0, bf.getBeanNamesForType(ITestBean.class).length);
+
+		DefaultListableBeanFactory childFactory = new DefaultListableBeanFactory(bf);
+		childFactory.registerBeanDefinition("child", new ChildBeanDefinition("parent"));
+		assertArrayEquals(new String[] {"child"}, childFactory.getBeanNamesForType(INestedTestBean.class));
+	}
+
+	@Test
+	public void testBeanNamesForTypeWithManualSingletons() {
+		bf.registerSingleton("singleton1", new TestBean());
+		bf.registerBeanDefinition("bean", new RootBeanDefinition(TestBean.class));
+		bf.registerSingleton("singleton2", new NestedTestBean());
+		bf.registerSingleton("singleton3", new DerivedTestBean());
+		assertArrayEquals(new String[] {"bean", "singleton1", "singleton3"}, bf.getBeanNamesForType(ITestBean.class));
+
+		bf.destroySingleton("singleton1");
+		assertArrayEquals(new String[] {"bean", "singleton3"}, bf.getBeanNamesForType(ITestBean.class));
+		assertArrayEquals(new String[] {"singleton2"}, bf.getBeanNamesForType(INestedTestBean.class));
+
+		bf.destroySingletons();
+		assertArrayEquals(new String[] {"bean"}, bf.getBeanNamesForType(ITestBean.class));
+	}
+
+	@Test
+	public void testBeanNamesForTypeWithFactoryBean() {
+		bf.registerBeanDefinition("bean", new RootBeanDefinition(TestBean.class));
+		bf.registerBeanDefinition("factory", new RootBeanDefinition(DummyFactory.class));
+		assertArrayEquals(new String[] {"bean", "factory"}, bf.getBeanNamesForType(ITestBean.class));
+		assertArrayEquals(new String[] {"&factory"}, bf.getBeanNamesForType(DummyFactory.class));
+	}
+
+	@Test
+	public void testBeanNamesForTypeWithProxiedSingleton() {
+		bf.registerBeanDefinition("bean", new RootBeanDefinition(TestBean.class));
+		bf.registerBeanDefinition("other", new RootBeanDefinition(TestBean.class));
+		assertEquals(0, bf.getBeanNamesForType(Runnable.class).length);
+
+		bf.addBeanPostProcessor(new RunnableProxyingBeanPostProcessor("bean"));
+		assertTrue(bf.getBean("bean") instanceof Runnable);
+		assertArrayEquals(new String[] {"bean"}, bf.getBeanNamesForType(Runnable.class));
+		assertArrayEquals(new String[] {"other"}, bf.getBeanNamesForType(TestBean.class));
+		assertArrayEquals(new String[] {"bean", "other"}, bf.getBeanNamesForType(ITestBean.class));
+
+		bf.destroySingleton("bean");
+		assertEquals(0, bf.getBeanNamesForType(Runnable.class).length);
+		assertArrayEquals(new String[] {"bean", "other"}, bf.getBeanNamesForType(TestBean.class));
+	}
+
+	@Test
+	public void testBeanNamesForTypeWithPredictedType() {
+		bf.registerBeanDefinition("bean", new RootBeanDefinition(TestBean.class));
+		bf.registerBeanDefinition("other", new RootBeanDefinition(NestedTestBean.class));
+		assertEquals(0, bf.getBeanNamesForType(Runnable.class).length);
+
+		bf.addBeanPostProcessor(new InstantiationAwareBeanPostProcessorAdapter() {
+			@Override
+			public Class<?> predictBeanType(Class<?> beanClass, String beanName) {
+				return ("other".equals(beanName) ? Runnable.class : null);
+			}
+		});
+		assertArrayEquals(new String[] {"other"}, bf.getBeanNamesForType(Runnable.class));
+		assertArrayEquals(new String[] {"bean"}, bf.getBeanNamesForType(ITestBean.class));
+	}
+
+
+	private static class RunnableProxyingBeanPostProcessor implements BeanPostProcessor {
+
+		private final String beanNameToProxy;
+
+		public RunnableProxyingBeanPostProcessor(String beanNameToProxy) {
+			this.beanNameToProxy = beanNameToProxy;
+		}
+
+		public Object postProcessBeforeInitialization(Object bean, String beanName) {
+			return bean;
+		}
+
+		public Object postProcessAfterInitialization(final Object bean, String beanName) throws BeansException {
+			if (!this.beanNameToProxy.equals(beanName)) {
+				return bean;
+			}
+			return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {ITestBean.class, Runnable.class},
+					new InvocationHandler() {
+						public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+							return (method.getDeclaringClass() == Runnable.class ? null : method.invoke(bean, args));
+						}
+					});
+		}
+	}
+
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.lang.reflect.Method;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.cglib.proxy.Enhancer;
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
+import org.springframework.tests.sample.beans.TestBean;
+import org.springframework.util.StopWatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link GeneratedFactoryInstantiationStrategy}.
+ *
+ * @since 3.2.18
+ */
+public final class GeneratedFactoryInstantiationStrategyTests {
+
+	private final DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+
+
+	@Before
+	public void setUp() {
+		bf.setInstantiationStrategy(new GeneratedFactoryInstantiationStrategy());
+	}
+
+
+	@Test
+	public void testDefaultConstructor() {
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		bd.getPropertyValues().add("name", "juergen");
+		bf.registerBeanDefinition("tb", bd);
+
+		TestBean tb = bf.getBean("tb", TestBean.class);
+		assertEquals(TestBean.class, tb.getClass());
+		assertEquals("juergen", tb.getName());
+		assertNotSame(tb, bf.getBean("tb"));
+	}
+
+	@Test
+	public void testConstructorArguments() {
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		bd.getConstructorArgumentValues().addGenericArgumentValue("juergen");
+		bd.getConstructorArgumentValues().addGenericArgumentValue("99");
+		bf.registerBeanDefinition("tb", bd);
+
+		TestBean tb = bf.getBean("tb", TestBean.class);
+		assertEquals("juergen", tb.getName());
+		assertEquals(99, tb.getAge());
+
+		tb = (TestBean) bf.getBean("tb", "rod", 42);
+		assertEquals("rod", tb.getName());
+		assertEquals(42, tb.getAge());
+	}
+
+	@Test
+	public void testPrivateConstructorFallsBackToReflection() {
+		bf.registerBeanDefinition("bean", new RootBeanDefinition(PrivateConstructorBean.class));
+		RootBeanDefinition bd = new RootBeanDefinition(PrivateConstructorBean.class);
+		bd.getConstructorArgumentValues().addGenericArgumentValue("value");
+		bf.registerBeanDefinition("beanWithArgument", bd);
+
+		assertNull(bf.getBean("bean", PrivateConstructorBean.class).value);
+		assertEquals("value", bf.getBean("beanWithArgument", PrivateConstructorBean.class).value);
+	}
+
+	@Test
+	public void testConstructorExceptionIsTranslated() {
+		bf.registerBeanDefinition("bean", new RootBeanDefinition(FailingConstructorBean.class));
+		try {
+			bf.getBean("bean");
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			assertTrue(ex.getMostSpecificCause() instanceof IllegalStateException);
+			assertEquals("Constructor failure", ex.getMostSpecificCause().getMessage());
+		}
+	}
+
+	@Test
+	public void testLookupMethodSubclassSharedAcrossBeanDefinitions() {
+		assumeSubclassGenerationSupported();
+		bf.registerBeanDefinition("jenny", createTestBeanDefinition("jenny"));
+		bf.registerBeanDefinition("kerry", createTestBeanDefinition("kerry"));
+		bf.registerBeanDefinition("jennyLookup", createLookupBeanDefinition("jenny"));
+		bf.registerBeanDefinition("kerryLookup", createLookupBeanDefinition("kerry"));
+
+		LookupBean jennyLookup = bf.getBean("jennyLookup", LookupBean.class);
+		LookupBean kerryLookup = bf.getBean("kerryLookup", LookupBean.class);
+		assertEquals("jenny", jennyLookup.getTestBean().getName());
+		assertEquals("kerry", kerryLookup.getTestBean().getName());
+		assertNotSame(jennyLookup.getTestBean(), jennyLookup.getTestBean());
+		assertSame(jennyLookup.getClass(), kerryLookup.getClass());
+		assertEquals("constructed", jennyLookup.getState());
+	}
+
+	@Test
+	public void testLookupMethodWithConstructorArguments() {
+		assumeSubclassGenerationSupported();
+		bf.registerBeanDefinition("jenny", createTestBeanDefinition("jenny"));
+		RootBeanDefinition bd = createLookupBeanDefinition("jenny");
+		bd.getConstructorArgumentValues().addGenericArgumentValue("custom");
+		bf.registerBeanDefinition("lookup", bd);
+
+		LookupBean lookup = bf.getBean("lookup", LookupBean.class);
+		assertEquals("custom", lookup.getState());
+		assertEquals("jenny", lookup.getTestBean().getName());
+	}
+
+	@Test
+	public void testReplacedMethod() {
+		assumeSubclassGenerationSupported();
+		bf.registerBeanDefinition("replacer", new RootBeanDefinition(ReverseArgumentReplacer.class));
+		RootBeanDefinition bd = new RootBeanDefinition(LookupBean.class);
+		ReplaceOverride override = new ReplaceOverride("echo", "replacer");
+		override.addTypeIdentifier("String");
+		bd.getMethodOverrides().addOverride(override);
+		bd.getMethodOverrides().addOverride(new LookupOverride("getTestBean", "jenny"));
+		bf.registerBeanDefinition("replaced", bd);
+		bf.registerBeanDefinition("jenny", createTestBeanDefinition("jenny"));
+
+		LookupBean replaced = bf.getBean("replaced", LookupBean.class);
+		assertEquals("ynnej", replaced.echo("jenny"));
+		assertEquals("jenny", replaced.getTestBean().getName());
+	}
+
+	@Test
+	public void testPrototypeCreationIsFastEnough() {
+		Assume.group(TestGroup.PERFORMANCE);
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		bd.getConstructorArgumentValues().addGenericArgumentValue("juergen");
+		bd.getConstructorArgumentValues().addGenericArgumentValue("99");
+		bf.registerBeanDefinition("tb", bd);
+		StopWatch sw = new StopWatch();
+		sw.start("prototype");
+		for (int i = 0; i < 100000; i++) {
+			TestBean tb = bf.getBean("tb", TestBean.class);
+			assertEquals(99, tb.getAge());
+		}
+		sw.stop();
+		assertTrue("Prototype creation took too long: " + sw.getTotalTimeMillis(), sw.getTotalTimeMillis() < 3000);
+	}
+
+
+	/**
+	 * Method injection requires CGLIB to define classes at runtime,
+	 * which may not be permitted on the current JVM.
+	 */
+	private static void assumeSubclassGenerationSupported() {
+		try {
+			new Enhancer();
+		}
+		catch (Throwable ex) {
+			org.junit.Assume.assumeNoException(ex);
+		}
+	}
+
+	private static RootBeanDefinition createTestBeanDefinition(String name) {
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		bd.getPropertyValues().add("name", name);
+		return bd;
+	}
+
+	private static RootBeanDefinition createLookupBeanDefinition(String lookupBeanName) {
+		RootBeanDefinition bd = new RootBeanDefinition(LookupBean.class);
+		bd.getMethodOverrides().addOverride(new LookupOverride("getTestBean", lookupBeanName));
+		return bd;
+	}
+
+
+	public static class PrivateConstructorBean {
+
+		private final String value;
+
+		private PrivateConstructorBean() {
+			this.value = null;
+		}
+
+		private PrivateConstructorBean(String value) {
+			this.value = value;
+		}
+	}
+
+
+	public static class FailingConstructorBean {
+
+		public FailingConstructorBean() {
+			throw new IllegalStateException("Constructor failure");
+		}
+	}
+
+
+	public static abstract class LookupBean {
+
+		private final String state;
+
+		public LookupBean() {
+			this("constructed");
+		}
+
+		public LookupBean(String state) {
+			this.state = state;
+		}
+
+		public String getState() {
+			return this.state;
+		}
+
+		public abstract TestBean getTestBean();
+
+		public String echo(String value) {
+			return value;
+		}
+	}
+
+
+	public static class ReverseArgumentReplacer implements MethodReplacer {
+
+		public Object reimplement(Object obj, Method method, Object[] args) {
+			return new StringBuilder((String) args[0]).reverse().toString();
+		}
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link CachingDocumentLoader} and {@link DocumentLoadListener}.
+ *
+ * @since 3.2.18
+ */
+public final class CachingDocumentLoaderTests {
+
+	private final CachingDocumentLoader documentLoader = new CachingDocumentLoader();
+
+
+	@Test
+	public void testSchemaCompiledOnceAndDefaultsApplied() {
+		String[] resourceNames = new String[] {
+				"NestedBeansElementAttributeRecursionTests-lazy-context.xml",
+				"NestedBeansElementAttributeRecursionTests-merge-context.xml",
+				"NestedBeansElementAttributeRecursionTests-autowire-context.xml",
+				"NestedBeansElementAttributeRecursionTests-init-destroy-context.xml"};
+		for (int run = 0; run < 2; run++) {
+			for (String resourceName : resourceNames) {
+				assertSameBeanDefinitions(new ClassPathResource(resourceName, getClass()));
+			}
+		}
+		assertEquals(1, this.documentLoader.getSchemaCompilationCount());
+
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(bf);
+		reader.setDocumentLoader(this.documentLoader);
+		reader.loadBeanDefinitions(new ClassPathResource("testUtilNamespace.xml", getClass()));
+		assertEquals(2, this.documentLoader.getSchemaCompilationCount());
+		assertEquals(Integer.MIN_VALUE, bf.getBean("min"));
+	}
+
+	@Test
+	public void testUnresolvableSchemaFallsBackToStandardValidation() {
+		assertSameBeanDefinitions(new ClassPathResource("simplePropertyNamespaceHandlerTests.xml", getClass()));
+		assertEquals(0, this.documentLoader.getSchemaCompilationCount());
+	}
+
+	@Test
+	public void testSchemaNotResolvableLocallyNotCompiled() {
+		String schemaUrl = getClass().getResource("spring-beans-3.2.xsd").toString();
+		Resource resource = new ByteArrayResource(("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+				"<beans xmlns=\"http://www.springframework.org/schema/beans\"\n" +
+				"\txmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
+				"\txsi:schemaLocation=\"http://www.springframework.org/schema/beans " + schemaUrl + "\">\n" +
+				"<bean id=\"test\" class=\"" + TestBean.class.getName() + "\"/>\n</beans>\n").getBytes());
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(bf);
+		reader.setDocumentLoader(this.documentLoader);
+		reader.setEntityResolver(new PluggableSchemaResolver(getClass().getClassLoader()));
+		reader.loadBeanDefinitions(resource);
+		assertTrue(bf.containsBeanDefinition("test"));
+		assertEquals(0, this.documentLoader.getSchemaCompilationCount());
+	}
+
+	@Test
+	public void testDtdDocument() {
+		assertSameBeanDefinitions(new ClassPathResource("autowire-with-exclusion.xml", getClass()));
+		assertSameBeanDefinitions(new ClassPathResource("autowire-with-exclusion.xml", getClass()));
+		assertEquals(0, this.documentLoader.getSchemaCompilationCount());
+	}
+
+	@Test
+	public void testInvalidDocumentReportedAsWithoutCaching() {
+		Resource resource = new ClassPathResource("invalidPerSchema.xml", getClass());
+		String expectedMessage = null;
+		try {
+			new XmlBeanDefinitionReader(new DefaultListableBeanFactory()).loadBeanDefinitions(resource);
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			expectedMessage = ex.getMessage();
+		}
+		XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(new DefaultListableBeanFactory());
+		reader.setDocumentLoader(this.documentLoader);
+		try {
+			reader.loadBeanDefinitions(resource);
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			assertEquals(expectedMessage, ex.getMessage());
+		}
+	}
+
+	@Test
+	public void testDocumentLoadListener() {
+		final List<String> events = new ArrayList<String>();
+		XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(new DefaultListableBeanFactory());
+		reader.setDocumentLoader(this.documentLoader);
+		reader.setDocumentLoadListener(new DocumentLoadListener() {
+			public void documentLoaded(Resource resource, int validationMode, long loadTime) {
+				assertTrue(loadTime > 0);
+				events.add(resource.getFilename() + ":" + validationMode);
+			}
+		});
+		reader.loadBeanDefinitions(new ClassPathResource("beanEvents.xml", getClass()));
+		reader.loadBeanDefinitions(new ClassPathResource("collections.xml", getClass()));
+		assertEquals(Arrays.asList("beanEvents.xml:" + XmlBeanDefinitionReader.VALIDATION_DTD,
+				"beanEventsImported.xml:" + XmlBeanDefinitionReader.VALIDATION_DTD,
+				"collections.xml:" + XmlBeanDefinitionReader.VALIDATION_XSD), events);
+	}
+
+
+	private void assertSameBeanDefinitions(Resource resource) {
+		DefaultListableBeanFactory expected = new DefaultListableBeanFactory();
+		new XmlBeanDefinitionReader(expected).loadBeanDefinitions(resource);
+
+		DefaultListableBeanFactory actual = new DefaultListableBeanFactory();
+		XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(actual);
+		reader.setDocumentLoader(this.documentLoader);
+		reader.loadBeanDefinitions(resource);
+
+		assertEquals(Arrays.asList(expected.getBeanDefinitionNames()), Arrays.asList(actual.getBeanDefinitionNames()));
+		for (String beanName : expected.getBeanDefinitionNames()) {
+			assertEquals(beanName, expected.getBeanDefinition(beanName), actual.getBeanDefinition(beanName));
+		}
+	}
+
+}
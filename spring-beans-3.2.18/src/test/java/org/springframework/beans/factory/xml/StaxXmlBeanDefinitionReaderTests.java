@@ -0,0 +1,345 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.LogFactory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
+import org.springframework.tests.beans.CollectingReaderEventListener;
+import org.springframework.tests.sample.beans.ITestBean;
+import org.springframework.tests.sample.beans.TestBean;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StopWatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link StaxXmlBeanDefinitionReader}, verifying that it registers
+ * the same bean definitions as {@link XmlBeanDefinitionReader}.
+ *
+ * @since 3.2.18
+ */
+public final class StaxXmlBeanDefinitionReaderTests {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+
+	@Test
+	public void testBeansNamespace() {
+		assertEquivalent("collections.xml");
+		assertEquivalent("collectionsWithDefaultTypes.xml");
+		assertEquivalent("factory-methods.xml");
+		assertEquivalent("withMeta.xml");
+		assertEquivalent("defaultLifecycleMethods.xml");
+		assertEquivalent("beanNameGeneration.xml");
+	}
+
+	@Test
+	public void testNestedBeansElementsAndDefaults() {
+		assertEquivalent("NestedBeansElementTests-context.xml");
+		assertEquivalent("NestedBeansElementAttributeRecursionTests-lazy-context.xml");
+		assertEquivalent("NestedBeansElementAttributeRecursionTests-merge-context.xml");
+		assertEquivalent("NestedBeansElementAttributeRecursionTests-autowire-context.xml");
+		assertEquivalent("NestedBeansElementAttributeRecursionTests-autowire-candidates-context.xml");
+		assertEquivalent("NestedBeansElementAttributeRecursionTests-init-destroy-context.xml");
+	}
+
+	@Test
+	public void testUtilPropertyAndConstructorNamespaces() {
+		assertEquivalent("testUtilNamespace.xml");
+		assertEquivalent("simplePropertyNamespaceHandlerTests.xml");
+		assertEquivalent("simpleConstructorNamespaceHandlerTests.xml");
+	}
+
+	@Test
+	public void testDtdDefaultsImportsAndEvents() {
+		CollectingReaderEventListener domListener = new CollectingReaderEventListener();
+		CollectingReaderEventListener staxListener = new CollectingReaderEventListener();
+		assertEquivalent("beanEvents.xml", domListener, staxListener);
+		assertEquals(domListener.getComponentDefinitions().length, staxListener.getComponentDefinitions().length);
+		assertEquals(domListener.getImports().size(), staxListener.getImports().size());
+		assertEquals(domListener.getAliases("testBean").size(), staxListener.getAliases("testBean").size());
+	}
+
+	@Test
+	public void testBeansRegisteredAreUsable() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		new StaxXmlBeanDefinitionReader(bf).loadBeanDefinitions(new ClassPathResource("testUtilNamespace.xml", getClass()));
+		assertEquals(Integer.MIN_VALUE, bf.getBean("min"));
+		assertEquals("Rob Harrop", bf.getBean("name"));
+		TestBean testBean = (TestBean) bf.getBean("testBean");
+		assertEquals("Rob Harrop", testBean.getName());
+		assertEquals("bar", testBean.getSomeProperties().getProperty("foo"));
+		assertEquals("bar", ((Map<?, ?>) bf.getBean("simpleMap")).get("foo"));
+	}
+
+	@Test
+	public void testUnsupportedNamespaceIsRejected() {
+		String content = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+				"<beans xmlns=\"http://www.springframework.org/schema/beans\" " +
+				"xmlns:lang=\"http://www.springframework.org/schema/lang\">\n" +
+				"<bean id=\"tb\" class=\"" + TestBean.class.getName() + "\"/>\n" +
+				"<lang:defaults/>\n</beans>";
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		try {
+			new StaxXmlBeanDefinitionReader(bf).loadBeanDefinitions(new ByteArrayResource(content.getBytes()));
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			assertTrue(ex.getMessage(), ex.getMessage().contains("lang:defaults"));
+		}
+	}
+
+	@Test
+	public void testMalformedDocument() {
+		String content = "<beans xmlns=\"http://www.springframework.org/schema/beans\"><bean id=\"tb\"></beans>";
+		try {
+			new StaxXmlBeanDefinitionReader(new DefaultListableBeanFactory()).loadBeanDefinitions(
+					new ByteArrayResource(content.getBytes()));
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			assertTrue(ex.getMessage(), ex.getMessage().startsWith("Line 1 in XML document"));
+		}
+	}
+
+	@Test
+	public void testLargeDocumentVersusXmlBeanDefinitionReader() throws Exception {
+		Assume.group(TestGroup.PERFORMANCE);
+		Assume.notLogging(LogFactory.getLog(StaxXmlBeanDefinitionReaderTests.class));
+
+		int beanCount = 50000;
+		File file = folder.newFile("large.xml");
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+					"<beans xmlns=\"http://www.springframework.org/schema/beans\"\n" +
+					"\txmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
+					"\txmlns:p=\"http://www.springframework.org/schema/p\"\n" +
+					"\txsi:schemaLocation=\"http://www.springframework.org/schema/beans " +
+					"http://www.springframework.org/schema/beans/spring-beans-3.2.xsd\">\n");
+			for (int i = 0; i < beanCount; i++) {
+				writer.write("\t<bean id=\"bean" + i + "\" class=\"" + TestBean.class.getName() +
+						"\" p:age=\"" + i + "\">\n\t\t<property name=\"name\" value=\"name" + i + "\"/>\n" +
+						"\t\t<property name=\"spouse\"><bean class=\"" + TestBean.class.getName() +
+						"\"/></property>\n\t\t<property name=\"friends\"><list><ref bean=\"bean" + (i / 2) +
+						"\"/><value>friend</value></list></property>\n\t</bean>\n");
+			}
+			writer.write("</beans>\n");
+		}
+		finally {
+			writer.close();
+		}
+		Resource resource = new FileSystemResource(file);
+
+		StopWatch sw = new StopWatch();
+		for (int run = 0; run < 2; run++) {
+			DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+			long heap = resetPeakHeap();
+			sw.start("XmlBeanDefinitionReader");
+			new XmlBeanDefinitionReader(bf).loadBeanDefinitions(resource);
+			sw.stop();
+			LogFactory.getLog(StaxXmlBeanDefinitionReaderTests.class).info(
+					"XmlBeanDefinitionReader peak heap growth: " + (getPeakHeap() - heap) / 1024 / 1024 + " MB");
+			assertEquals(beanCount, bf.getBeanDefinitionCount());
+
+			bf = new DefaultListableBeanFactory();
+			heap = resetPeakHeap();
+			sw.start("StaxXmlBeanDefinitionReader");
+			new StaxXmlBeanDefinitionReader(bf).loadBeanDefinitions(resource);
+			sw.stop();
+			LogFactory.getLog(StaxXmlBeanDefinitionReaderTests.class).info(
+					"StaxXmlBeanDefinitionReader peak heap growth: " + (getPeakHeap() - heap) / 1024 / 1024 + " MB");
+			assertEquals(beanCount, bf.getBeanDefinitionCount());
+			assertEquals("name7", ((ITestBean) bf.getBean("bean7")).getName());
+		}
+		LogFactory.getLog(StaxXmlBeanDefinitionReaderTests.class).info(sw.prettyPrint());
+	}
+
+
+	private void assertEquivalent(String resourceName) {
+		assertEquivalent(resourceName, null, null);
+	}
+
+	private void assertEquivalent(String resourceName, CollectingReaderEventListener domListener,
+			CollectingReaderEventListener staxListener) {
+
+		Resource resource = new ClassPathResource(resourceName, getClass());
+		DefaultListableBeanFactory expected = new DefaultListableBeanFactory();
+		XmlBeanDefinitionReader xmlReader = new XmlBeanDefinitionReader(expected);
+		xmlReader.setEventListener(domListener);
+		int expectedCount = xmlReader.loadBeanDefinitions(resource);
+
+		DefaultListableBeanFactory actual = new DefaultListableBeanFactory();
+		StaxXmlBeanDefinitionReader staxReader = new StaxXmlBeanDefinitionReader(actual);
+		staxReader.setEventListener(staxListener);
+		assertEquals(resourceName, expectedCount, staxReader.loadBeanDefinitions(resource));
+
+		assertEquals(resourceName, Arrays.asList(expected.getBeanDefinitionNames()),
+				Arrays.asList(actual.getBeanDefinitionNames()));
+		for (String beanName : expected.getBeanDefinitionNames()) {
+			String description = resourceName + ": " + beanName;
+			assertBeanDefinitionEquals(description, expected.getBeanDefinition(beanName), actual.getBeanDefinition(beanName));
+			assertEquals(description, Arrays.asList(expected.getAliases(beanName)), Arrays.asList(actual.getAliases(beanName)));
+		}
+	}
+
+	/**
+	 * Compare two bean definitions, ignoring the generated names of inner beans.
+	 */
+	private static void assertBeanDefinitionEquals(String description, BeanDefinition expected, BeanDefinition actual) {
+		AbstractBeanDefinition expectedAttributes = ((AbstractBeanDefinition) expected).cloneBeanDefinition();
+		expectedAttributes.getPropertyValues().getPropertyValueList().clear();
+		expectedAttributes.setConstructorArgumentValues(null);
+		AbstractBeanDefinition actualAttributes = ((AbstractBeanDefinition) actual).cloneBeanDefinition();
+		actualAttributes.getPropertyValues().getPropertyValueList().clear();
+		actualAttributes.setConstructorArgumentValues(null);
+		assertEquals(description, expectedAttributes, actualAttributes);
+		assertEquals(description, expected.getDescription(), actual.getDescription());
+		assertEquals(description, expected.isLazyInit(), actual.isLazyInit());
+
+		List<PropertyValue> expectedProperties = expected.getPropertyValues().getPropertyValueList();
+		List<PropertyValue> actualProperties = actual.getPropertyValues().getPropertyValueList();
+		assertEquals(description, expectedProperties.size(), actualProperties.size());
+		for (int i = 0; i < expectedProperties.size(); i++) {
+			PropertyValue expectedProperty = expectedProperties.get(i);
+			String propertyDescription = description + "." + expectedProperty.getName();
+			assertEquals(propertyDescription, expectedProperty.getName(), actualProperties.get(i).getName());
+			assertValueEquals(propertyDescription, expectedProperty.getValue(), actualProperties.get(i).getValue());
+		}
+
+		ConstructorArgumentValues expectedArgs = expected.getConstructorArgumentValues();
+		ConstructorArgumentValues actualArgs = actual.getConstructorArgumentValues();
+		assertEquals(description, expectedArgs.getIndexedArgumentValues().keySet(),
+				actualArgs.getIndexedArgumentValues().keySet());
+		for (Map.Entry<Integer, ConstructorArgumentValues.ValueHolder> entry :
+				expectedArgs.getIndexedArgumentValues().entrySet()) {
+			assertValueHolderEquals(description + "[" + entry.getKey() + "]", entry.getValue(),
+					actualArgs.getIndexedArgumentValues().get(entry.getKey()));
+		}
+		assertEquals(description, expectedArgs.getGenericArgumentValues().size(),
+				actualArgs.getGenericArgumentValues().size());
+		for (int i = 0; i < expectedArgs.getGenericArgumentValues().size(); i++) {
+			assertValueHolderEquals(description + "[generic " + i + "]", expectedArgs.getGenericArgumentValues().get(i),
+					actualArgs.getGenericArgumentValues().get(i));
+		}
+	}
+
+	private static void assertValueHolderEquals(String description, ConstructorArgumentValues.ValueHolder expected,
+			ConstructorArgumentValues.ValueHolder actual) {
+
+		assertEquals(description, expected.getName(), actual.getName());
+		assertEquals(description, expected.getType(), actual.getType());
+		assertValueEquals(description, expected.getValue(), actual.getValue());
+	}
+
+	private static void assertValueEquals(String description, Object expected, Object actual) {
+		if (expected instanceof BeanDefinitionHolder) {
+			assertTrue(description, actual instanceof BeanDefinitionHolder);
+			BeanDefinitionHolder expectedHolder = (BeanDefinitionHolder) expected;
+			BeanDefinitionHolder actualHolder = (BeanDefinitionHolder) actual;
+			String expectedName = expectedHolder.getBeanName();
+			if (expectedName.contains("#")) {
+				assertEquals(description, expectedName.substring(0, expectedName.indexOf('#')),
+						actualHolder.getBeanName().substring(0, actualHolder.getBeanName().indexOf('#')));
+			}
+			else {
+				assertEquals(description, expectedName, actualHolder.getBeanName());
+			}
+			assertEquals(description, ObjectUtils.nullSafeToString(expectedHolder.getAliases()),
+					ObjectUtils.nullSafeToString(actualHolder.getAliases()));
+			assertBeanDefinitionEquals(description, expectedHolder.getBeanDefinition(), actualHolder.getBeanDefinition());
+		}
+		else if (expected instanceof Map) {
+			assertEquals(description, expected.getClass(), actual.getClass());
+			Iterator<?> actualEntries = ((Map<?, ?>) actual).entrySet().iterator();
+			assertEquals(description, ((Map<?, ?>) expected).size(), ((Map<?, ?>) actual).size());
+			for (Map.Entry<?, ?> expectedEntry : ((Map<?, ?>) expected).entrySet()) {
+				Map.Entry<?, ?> actualEntry = (Map.Entry<?, ?>) actualEntries.next();
+				assertValueEquals(description, expectedEntry.getKey(), actualEntry.getKey());
+				assertValueEquals(description, expectedEntry.getValue(), actualEntry.getValue());
+			}
+		}
+		else if (expected instanceof Collection) {
+			assertEquals(description, expected.getClass(), actual.getClass());
+			assertEquals(description, ((Collection<?>) expected).size(), ((Collection<?>) actual).size());
+			Iterator<?> actualElements = ((Collection<?>) actual).iterator();
+			for (Object expectedElement : (Collection<?>) expected) {
+				assertValueEquals(description, expectedElement, actualElements.next());
+			}
+		}
+		else {
+			assertEquals(description, expected, actual);
+		}
+	}
+
+	/**
+	 * Collect garbage and reset the peak usage of all heap memory pools.
+	 * @return the heap currently in use
+	 */
+	private static long resetPeakHeap() {
+		System.gc();
+		long used = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+				used += pool.getUsage().getUsed();
+			}
+		}
+		return used;
+	}
+
+	private static long getPeakHeap() {
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		return peak;
+	}
+
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.parsing.ComponentDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.tests.beans.CollectingReaderEventListener;
+import org.springframework.tests.sample.beans.TestBean;
+import org.springframework.util.FileCopyUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for parallel document loading in {@link XmlBeanDefinitionReader}.
+ *
+ * @since 3.2.18
+ */
+public final class XmlBeanDefinitionParallelLoadingTests {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private ExecutorService executor;
+
+
+	@Before
+	public void setUp() throws Exception {
+		this.executor = Executors.newFixedThreadPool(4);
+		writeBeans("main.xml", "<import resource=\"a.xml\"/><import resource=\"b.xml\"/>" +
+				"<bean id=\"shared\" class=\"" + TestBean.class.getName() + "\"><property name=\"name\" value=\"main\"/></bean>" +
+				"<beans profile=\"inactive\"><import resource=\"missing.xml\"/></beans>");
+		writeBeans("a.xml", "<bean id=\"a\" class=\"" + TestBean.class.getName() + "\"/>" +
+				"<bean class=\"" + TestBean.class.getName() + "\"/><alias name=\"a\" alias=\"alpha\"/>");
+		writeBeans("b.xml", "<import resource=\"c.xml\"/>" +
+				"<bean id=\"shared\" class=\"" + TestBean.class.getName() + "\"><property name=\"name\" value=\"b\"/></bean>" +
+				"<bean class=\"" + TestBean.class.getName() + "\"/>");
+		writeBeans("c.xml", "<bean id=\"shared\" class=\"" + TestBean.class.getName() + "\"/><bean id=\"c\" class=\"" +
+				TestBean.class.getName() + "\"/>");
+		writeBeans("other.xml", "<bean id=\"other\" class=\"" + TestBean.class.getName() + "\"/>");
+	}
+
+	@After
+	public void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+
+	@Test
+	public void testImportsLoadedInParallelAndRegisteredInOrder() throws Exception {
+		DefaultListableBeanFactory sequential = new DefaultListableBeanFactory();
+		CollectingReaderEventListener sequentialListener = new CollectingReaderEventListener();
+		RecordingDocumentLoader sequentialLoader = new RecordingDocumentLoader();
+		XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(sequential);
+		reader.setEventListener(sequentialListener);
+		reader.setDocumentLoader(sequentialLoader);
+		int sequentialCount = reader.loadBeanDefinitions(new FileSystemResource(new File(folder.getRoot(), "main.xml")));
+
+		DefaultListableBeanFactory parallel = new DefaultListableBeanFactory();
+		CollectingReaderEventListener parallelListener = new CollectingReaderEventListener();
+		RecordingDocumentLoader parallelLoader = new RecordingDocumentLoader();
+		reader = new XmlBeanDefinitionReader(parallel);
+		reader.setEventListener(parallelListener);
+		reader.setDocumentLoader(parallelLoader);
+		reader.setParallelLoadingExecutor(this.executor);
+		assertEquals(sequentialCount, reader.loadBeanDefinitions(new FileSystemResource(new File(folder.getRoot(), "main.xml"))));
+
+		assertBeanDefinitionsEqual(sequential, parallel);
+		assertEquals("main", parallel.getBean("shared", TestBean.class).getName());
+		assertSame(parallel.getBean("a"), parallel.getBean("alpha"));
+		assertEquals(getComponentNames(sequentialListener), getComponentNames(parallelListener));
+		assertEquals(sequentialListener.getImports().size(), parallelListener.getImports().size());
+
+		assertEquals(4, sequentialLoader.getThreadNames().size());
+		assertEquals(4, parallelLoader.getThreadNames().size());
+		assertTrue(parallelLoader.getThreadNames().contains(Thread.currentThread().getName()));
+		int poolThreadCount = 0;
+		for (String threadName : parallelLoader.getThreadNames()) {
+			if (!threadName.equals(Thread.currentThread().getName())) {
+				poolThreadCount++;
+			}
+		}
+		assertEquals(3, poolThreadCount);
+	}
+
+	@Test
+	public void testMultipleLocationsLoadedInParallel() throws Exception {
+		String[] locations = new String[] {fileLocation("other.xml"), fileLocation("main.xml")};
+
+		DefaultListableBeanFactory sequential = new DefaultListableBeanFactory();
+		new XmlBeanDefinitionReader(sequential).loadBeanDefinitions(locations);
+
+		DefaultListableBeanFactory parallel = new DefaultListableBeanFactory();
+		RecordingDocumentLoader parallelLoader = new RecordingDocumentLoader();
+		XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(parallel);
+		reader.setDocumentLoader(parallelLoader);
+		reader.setParallelLoadingExecutor(this.executor);
+		reader.loadBeanDefinitions(locations);
+
+		assertBeanDefinitionsEqual(sequential, parallel);
+		assertEquals(5, parallelLoader.getThreadNames().size());
+		assertFalse(parallelLoader.getThreadNames().contains(Thread.currentThread().getName()));
+	}
+
+	@Test
+	public void testInvalidImportReportedAsWithoutExecutor() throws Exception {
+		writeBeans("c.xml", "<bean id=\"c\" class=\"" + TestBean.class.getName() + "\"><unknown/></bean>");
+		String sequentialMessage = null;
+		try {
+			new XmlBeanDefinitionReader(new DefaultListableBeanFactory()).loadBeanDefinitions(fileLocation("main.xml"));
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			sequentialMessage = ex.getMessage();
+		}
+		XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(new DefaultListableBeanFactory());
+		reader.setParallelLoadingExecutor(this.executor);
+		try {
+			reader.loadBeanDefinitions(fileLocation("main.xml"));
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			assertEquals(sequentialMessage, ex.getMessage());
+		}
+	}
+
+	@Test
+	public void testShutDownExecutorFallsBackToSequentialLoading() throws Exception {
+		DefaultListableBeanFactory sequential = new DefaultListableBeanFactory();
+		new XmlBeanDefinitionReader(sequential).loadBeanDefinitions(fileLocation("main.xml"));
+
+		this.executor.shutdown();
+		DefaultListableBeanFactory parallel = new DefaultListableBeanFactory();
+		RecordingDocumentLoader parallelLoader = new RecordingDocumentLoader();
+		XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(parallel);
+		reader.setDocumentLoader(parallelLoader);
+		reader.setParallelLoadingExecutor(this.executor);
+		reader.loadBeanDefinitions(fileLocation("main.xml"));
+
+		assertBeanDefinitionsEqual(sequential, parallel);
+		assertEquals(Collections.nCopies(4, Thread.currentThread().getName()), parallelLoader.getThreadNames());
+	}
+
+	@Test
+	public void testSaturatedExecutorFallsBackToSequentialLoading() throws Exception {
+		DefaultListableBeanFactory sequential = new DefaultListableBeanFactory();
+		new XmlBeanDefinitionReader(sequential).loadBeanDefinitions(fileLocation("main.xml"));
+
+		ThreadPoolExecutor saturatedExecutor = new ThreadPoolExecutor(
+				1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<Runnable>());
+		final CountDownLatch release = new CountDownLatch(1);
+		saturatedExecutor.execute(new Runnable() {
+			public void run() {
+				try {
+					release.await();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		try {
+			DefaultListableBeanFactory parallel = new DefaultListableBeanFactory();
+			RecordingDocumentLoader parallelLoader = new RecordingDocumentLoader();
+			XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(parallel);
+			reader.setDocumentLoader(parallelLoader);
+			reader.setParallelLoadingExecutor(saturatedExecutor);
+			reader.loadBeanDefinitions(fileLocation("main.xml"));
+
+			assertBeanDefinitionsEqual(sequential, parallel);
+			assertEquals(Collections.nCopies(4, Thread.currentThread().getName()), parallelLoader.getThreadNames());
+		}
+		finally {
+			release.countDown();
+			saturatedExecutor.shutdown();
+		}
+	}
+
+
+	private String fileLocation(String fileName) throws Exception {
+		return new File(folder.getRoot(), fileName).toURI().toURL().toString();
+	}
+
+	private void writeBeans(String fileName, String content) throws Exception {
+		FileCopyUtils.copy("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+				"<beans xmlns=\"http://www.springframework.org/schema/beans\"\n" +
+				"\txmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
+				"\txsi:schemaLocation=\"http://www.springframework.org/schema/beans " +
+				"http://www.springframework.org/schema/beans/spring-beans-3.2.xsd\">\n" +
+				content + "\n</beans>\n", new FileWriter(new File(folder.getRoot(), fileName)));
+	}
+
+	@Test
+	public void testNoPrefetchingAfterFailedLoading() throws Exception {
+		writeBeans("main.xml", "<bean name=\"main\" class=\"" + TestBean.class.getName() + "\"/>" +
+				"<bean name=\"main\" class=\"" + TestBean.class.getName() + "\"/>" +
+				"<import resource=\"a.xml\"/><import resource=\"b.xml\"/>");
+		SlowDocumentLoader loader = new SlowDocumentLoader();
+		XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(new DefaultListableBeanFactory());
+		reader.setDocumentLoader(loader);
+		reader.setParallelLoadingExecutor(this.executor);
+		try {
+			reader.loadBeanDefinitions(fileLocation("main.xml"));
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			// expected
+		}
+		assertEquals(0, loader.getActiveCount());
+	}
+
+
+	private static List<String> getComponentNames(CollectingReaderEventListener listener) {
+		List<String> names = new ArrayList<String>();
+		for (ComponentDefinition componentDefinition : listener.getComponentDefinitions()) {
+			names.add(componentDefinition.getName());
+		}
+		return names;
+	}
+
+	private static void assertBeanDefinitionsEqual(DefaultListableBeanFactory expected,
+			DefaultListableBeanFactory actual) {
+
+		assertEquals(Arrays.asList(expected.getBeanDefinitionNames()), Arrays.asList(actual.getBeanDefinitionNames()));
+		for (String beanName : expected.getBeanDefinitionNames()) {
+			assertEquals(beanName, expected.getBeanDefinition(beanName), actual.getBeanDefinition(beanName));
+			assertEquals(beanName, expected.getBeanDefinition(beanName).getResourceDescription(),
+					actual.getBeanDefinition(beanName).getResourceDescription());
+			assertEquals(beanName, Arrays.asList(expected.getAliases(beanName)), Arrays.asList(actual.getAliases(beanName)));
+		}
+	}
+
+
+	private static class RecordingDocumentLoader extends DefaultDocumentLoader {
+
+		private final List<String> threadNames = new ArrayList<String>();
+
+		@Override
+		public Document loadDocument(InputSource inputSource, EntityResolver entityResolver,
+				ErrorHandler errorHandler, int validationMode, boolean namespaceAware) throws Exception {
+
+			synchronized (this.threadNames) {
+				this.threadNames.add(Thread.currentThread().getName());
+			}
+			return super.loadDocument(inputSource, entityResolver, errorHandler, validationMode, namespaceAware);
+		}
+
+		public List<String> getThreadNames() {
+			synchronized (this.threadNames) {
+				return new ArrayList<String>(this.threadNames);
+			}
+		}
+	}
+
+
+	private static class SlowDocumentLoader extends DefaultDocumentLoader {
+
+		private final AtomicInteger activeCount = new AtomicInteger();
+
+		@Override
+		public Document loadDocument(InputSource inputSource, EntityResolver entityResolver,
+				ErrorHandler errorHandler, int validationMode, boolean namespaceAware) throws Exception {
+
+			this.activeCount.incrementAndGet();
+			try {
+				Thread.sleep(100);
+				return super.loadDocument(inputSource, entityResolver, errorHandler, validationMode, namespaceAware);
+			}
+			finally {
+				this.activeCount.decrementAndGet();
+			}
+		}
+
+		public int getActiveCount() {
+			return this.activeCount.get();
+		}
+	}
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.beans.factory.parsing.PassThroughSourceExtractor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.tests.beans.CollectingReaderEventListener;
+import org.springframework.tests.sample.beans.TestBean;
+import org.springframework.util.FileCopyUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for bean definition snapshots in {@link XmlBeanDefinitionReader}.
+ *
+ * @since 3.2.18
+ */
+public final class XmlBeanDefinitionSnapshotTests {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+
+	@Test
+	public void testCollectionsAndInnerBeansFromSnapshot() throws Exception {
+		Resource resource = new ClassPathResource("collections.xml", getClass());
+		File snapshotDirectory = folder.newFolder("snapshots");
+
+		DefaultListableBeanFactory parsed = new DefaultListableBeanFactory();
+		int count = loadBeanDefinitions(parsed, resource, snapshotDirectory, null);
+		assertEquals(1, snapshotDirectory.listFiles().length);
+
+		DefaultListableBeanFactory restored = new DefaultListableBeanFactory();
+		assertEquals(count, loadBeanDefinitions(restored, resource, snapshotDirectory, null));
+		assertBeanDefinitionsEqual(parsed, restored);
+		assertEquals(parsed.getBean("rod").toString(), restored.getBean("rod").toString());
+		TestBean jenny = (TestBean) restored.getBean("jenny");
+		assertSame(restored.getBean("david"), jenny.getSpouse());
+	}
+
+	@Test
+	public void testImportsAndAliasesFromSnapshot() throws Exception {
+		Resource resource = new ClassPathResource("beanEvents.xml", getClass());
+		File snapshotDirectory = folder.newFolder("snapshots");
+
+		DefaultListableBeanFactory parsed = new DefaultListableBeanFactory();
+		CollectingReaderEventListener listener = new CollectingReaderEventListener();
+		loadBeanDefinitions(parsed, resource, snapshotDirectory, listener);
+		assertEquals(2, listener.getAliases("testBean").size());
+
+		DefaultListableBeanFactory restored = new DefaultListableBeanFactory();
+		listener = new CollectingReaderEventListener();
+		loadBeanDefinitions(restored, resource, snapshotDirectory, listener);
+		assertNull(listener.getAliases("testBean"));
+		assertBeanDefinitionsEqual(parsed, restored);
+		assertTrue(restored.isAlias("testBeanAlias2"));
+		assertEquals(2, restored.getAliases("testBean").length);
+	}
+
+	@Test
+	public void testChangedResourcesAreParsedAgain() throws Exception {
+		File snapshotDirectory = folder.newFolder("snapshots");
+		File mainFile = folder.newFile("main.xml");
+		File importedFile = folder.newFile("imported.xml");
+		writeBeans(mainFile, "<import resource=\"imported.xml\"/><bean id=\"main\" class=\"" +
+				TestBean.class.getName() + "\"><property name=\"name\" value=\"main\"/></bean>");
+		writeBeans(importedFile, "<bean id=\"imported\" class=\"" + TestBean.class.getName() + "\"/>");
+		Resource resource = new FileSystemResource(mainFile);
+
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		assertEquals(2, loadBeanDefinitions(bf, resource, snapshotDirectory, null));
+		bf = new DefaultListableBeanFactory();
+		assertEquals(2, loadBeanDefinitions(bf, resource, snapshotDirectory, null));
+
+		writeBeans(importedFile, "<bean id=\"imported\" class=\"" + TestBean.class.getName() + "\"/>" +
+				"<alias name=\"main\" alias=\"other\"/>");
+		bf = new DefaultListableBeanFactory();
+		assertEquals(2, loadBeanDefinitions(bf, resource, snapshotDirectory, null));
+		assertEquals("main", ((TestBean) bf.getBean("other")).getName());
+		bf = new DefaultListableBeanFactory();
+		assertEquals(2, loadBeanDefinitions(bf, resource, snapshotDirectory, null));
+		assertEquals("main", ((TestBean) bf.getBean("other")).getName());
+
+		writeBeans(mainFile, "<import resource=\"imported.xml\"/><bean id=\"main\" class=\"" +
+				TestBean.class.getName() + "\"><property name=\"name\" value=\"changed\"/></bean>");
+		bf = new DefaultListableBeanFactory();
+		assertEquals(2, loadBeanDefinitions(bf, resource, snapshotDirectory, null));
+		assertEquals("changed", ((TestBean) bf.getBean("other")).getName());
+	}
+
+	@Test
+	public void testImportsWithPlaceholdersOrPatternsAreAlwaysParsed() throws Exception {
+		File snapshotDirectory = folder.newFolder("snapshots");
+		File mainFile = folder.newFile("main.xml");
+		writeBeans(folder.newFile("imported1.xml"), "<bean id=\"one\" class=\"" + TestBean.class.getName() + "\"/>");
+		writeBeans(folder.newFile("imported2.xml"), "<bean id=\"two\" class=\"" + TestBean.class.getName() + "\"/>");
+		writeBeans(mainFile, "<import resource=\"${importedFile}\"/>");
+		Resource resource = new FileSystemResource(mainFile);
+
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(bf);
+		reader.setSnapshotDirectory(snapshotDirectory);
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.getPropertySources().addFirst(new MapPropertySource("test",
+				Collections.<String, Object>singletonMap("importedFile", "imported1.xml")));
+		reader.setEnvironment(environment);
+		reader.loadBeanDefinitions(resource);
+		assertTrue(bf.containsBeanDefinition("one"));
+
+		bf = new DefaultListableBeanFactory();
+		reader = new XmlBeanDefinitionReader(bf);
+		reader.setSnapshotDirectory(snapshotDirectory);
+		environment = new StandardEnvironment();
+		environment.getPropertySources().addFirst(new MapPropertySource("test",
+				Collections.<String, Object>singletonMap("importedFile", "imported2.xml")));
+		reader.setEnvironment(environment);
+		reader.loadBeanDefinitions(resource);
+		assertTrue(bf.containsBeanDefinition("two"));
+		assertFalse(bf.containsBeanDefinition("one"));
+
+		writeBeans(mainFile, "<import resource=\"" + folder.getRoot().toURI() + "imported*.xml\"/>");
+		bf = new DefaultListableBeanFactory();
+		loadBeanDefinitions(bf, resource, snapshotDirectory, null);
+		assertTrue(bf.containsBeanDefinition("one"));
+		assertTrue(bf.containsBeanDefinition("two"));
+
+		writeBeans(folder.newFile("imported3.xml"), "<bean id=\"three\" class=\"" + TestBean.class.getName() + "\"/>");
+		bf = new DefaultListableBeanFactory();
+		loadBeanDefinitions(bf, resource, snapshotDirectory, null);
+		assertTrue(bf.containsBeanDefinition("three"));
+	}
+
+	@Test
+	public void testUnsupportedContentIsAlwaysParsed() throws Exception {
+		Resource resource = new ClassPathResource("collections.xml", getClass());
+		File snapshotDirectory = folder.newFolder("snapshots");
+
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(bf);
+		reader.setSourceExtractor(new PassThroughSourceExtractor());
+		reader.setSnapshotDirectory(snapshotDirectory);
+		reader.loadBeanDefinitions(resource);
+		assertEquals(0, snapshotDirectory.listFiles().length);
+		assertNotNull(bf.getBeanDefinition("rod").getSource());
+	}
+
+
+	private static int loadBeanDefinitions(DefaultListableBeanFactory bf, Resource resource,
+			File snapshotDirectory, CollectingReaderEventListener listener) {
+
+		XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(bf);
+		reader.setSnapshotDirectory(snapshotDirectory);
+		if (listener != null) {
+			reader.setEventListener(listener);
+		}
+		return reader.loadBeanDefinitions(resource);
+	}
+
+	private static void assertBeanDefinitionsEqual(DefaultListableBeanFactory expected,
+			DefaultListableBeanFactory actual) {
+
+		assertEquals(Arrays.asList(expected.getBeanDefinitionNames()), Arrays.asList(actual.getBeanDefinitionNames()));
+		for (String beanName : expected.getBeanDefinitionNames()) {
+			assertEquals(beanName, expected.getBeanDefinition(beanName), actual.getBeanDefinition(beanName));
+			assertEquals(beanName, Arrays.asList(expected.getAliases(beanName)), Arrays.asList(actual.getAliases(beanName)));
+		}
+	}
+
+	private static void writeBeans(File file, String content) throws Exception {
+		FileCopyUtils.copy("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+				"<beans xmlns=\"http://www.springframework.org/schema/beans\"\n" +
+				"\txmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
+				"\txsi:schemaLocation=\"http://www.springframework.org/schema/beans " +
+				"http://www.springframework.org/schema/beans/spring-beans-3.2.xsd\">\n" +
+				content + "\n</beans>\n", new FileWriter(file));
+	}
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.propertyeditors;
+
+import java.beans.PropertyEditor;
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import org.springframework.beans.SimpleTypeConverter;
+import org.springframework.core.convert.converter.Converter;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link DefaultEditorConverters}, verifying equivalence
+ * with the corresponding default property editors.
+ *
+ * @since 3.2.18
+ */
+public final class DefaultEditorConvertersTests {
+
+	private final SimpleTypeConverter registry = new SimpleTypeConverter();
+
+
+	@Test
+	public void sameResultAsDefaultEditors() {
+		assertSameResult(Charset.class, "UTF-8");
+		assertSameResult(Class.class, " java.lang.String ");
+		assertSameResult(Class.class, "java.lang.String[]");
+		assertSameResult(Currency.class, "EUR");
+		assertSameResult(Locale.class, "de_AT");
+		assertSameResult(TimeZone.class, "Europe/Vienna");
+		assertSameResult(UUID.class, UUID.randomUUID().toString());
+		assertSameResult(char.class, "c");
+		assertSameResult(Character.class, "\\u0041");
+		assertSameResult(boolean.class, " yes ");
+		assertSameResult(Boolean.class, "0");
+		assertSameResult(byte.class, "0x1F");
+		assertSameResult(short.class, "-12");
+		assertSameResult(int.class, " 42 ");
+		assertSameResult(Long.class, "#FF");
+		assertSameResult(float.class, "1.5");
+		assertSameResult(Double.class, "2.5e3");
+		assertSameResult(BigDecimal.class, "12345678901234567890.5");
+		assertSameResult(BigInteger.class, "12345678901234567890");
+
+		Pattern pattern = (Pattern) DefaultEditorConverters.getConverter(Pattern.class).convert("a.*b");
+		assertEquals("a.*b", pattern.pattern());
+		assertEquals(0, pattern.flags());
+	}
+
+	@Test
+	public void emptyText() {
+		assertNull(DefaultEditorConverters.getConverter(int.class).convert(" "));
+		assertNull(DefaultEditorConverters.getConverter(Boolean.class).convert(""));
+		assertNull(DefaultEditorConverters.getConverter(Class.class).convert(""));
+		assertNull(DefaultEditorConverters.getConverter(Pattern.class).convert(""));
+		assertNull(DefaultEditorConverters.getConverter(TimeZone.class).convert(""));
+	}
+
+	@Test
+	public void invalidText() {
+		assertInvalid(int.class, "x");
+		assertInvalid(Boolean.class, "maybe");
+		assertInvalid(char.class, "ab");
+		assertInvalid(Class.class, "com.example.Missing");
+		assertInvalid(UUID.class, "not-a-uuid");
+	}
+
+	@Test
+	public void typesWithoutConverter() {
+		assertNull(DefaultEditorConverters.getConverter(String.class));
+		assertNull(DefaultEditorConverters.getConverter(File.class));
+		assertNull(DefaultEditorConverters.getConverter(List.class));
+		assertNull(DefaultEditorConverters.getConverter(byte[].class));
+	}
+
+	@Test
+	public void sharedConverterUsedConcurrently() throws Exception {
+		final Converter<String, ?> converter = DefaultEditorConverters.getConverter(int.class);
+		final boolean[] failed = new boolean[1];
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			final int offset = i * 10000;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					for (int j = offset; j < offset + 10000; j++) {
+						if (!Integer.valueOf(j).equals(converter.convert(String.valueOf(j)))) {
+							failed[0] = true;
+						}
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertFalse(failed[0]);
+	}
+
+
+	private void assertSameResult(Class<?> type, String text) {
+		PropertyEditor editor = this.registry.getDefaultEditor(type);
+		editor.setAsText(text);
+		Converter<String, ?> converter = DefaultEditorConverters.getConverter(type);
+		assertNotNull("No converter for " + type, converter);
+		assertEquals(editor.getValue(), converter.convert(text));
+	}
+
+	private void assertInvalid(Class<?> type, String text) {
+		try {
+			DefaultEditorConverters.getConverter(type).convert(text);
+			fail("Should have thrown IllegalArgumentException for [" + text + "]");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.support;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.util.SerializationTestUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link LazyPagedListHolder}.
+ *
+ * @since 3.2.18
+ */
+public final class LazyPagedListHolderTests {
+
+	@Test
+	public void testNavigationWithCountProvider() {
+		ListPageProvider provider = new ListPageProvider(95);
+		LazyPagedListHolder<Integer> holder = new LazyPagedListHolder<Integer>(provider, provider);
+		assertEquals(95, holder.getNrOfElements());
+		assertEquals(10, holder.getPageCount());
+		assertEquals(0, provider.loads.get());
+
+		assertEquals(provider.elements.subList(0, 10), holder.getPageList());
+		holder.setPage(9);
+		assertEquals(provider.elements.subList(90, 95), holder.getPageList());
+		assertEquals(94, holder.getLastElementOnPage());
+		assertTrue(holder.isLastPage());
+		holder.setPage(20);
+		assertEquals(9, holder.getPage());
+		holder.previousPage();
+		assertEquals(provider.elements.subList(80, 90), holder.getPageList());
+		assertEquals(3, provider.loads.get());
+		assertEquals(1, provider.counts.get());
+	}
+
+	@Test
+	public void testNavigationWithoutCountProvider() {
+		ListPageProvider provider = new ListPageProvider(25);
+		LazyPagedListHolder<Integer> holder = new LazyPagedListHolder<Integer>(provider);
+		assertEquals(1, holder.getPageCount());
+		assertEquals(provider.elements.subList(0, 10), holder.getPageList());
+		assertEquals(2, holder.getPageCount());
+		assertFalse(holder.isLastPage());
+
+		holder.setPage(5);
+		assertEquals(1, holder.getPage());
+		assertEquals(provider.elements.subList(10, 20), holder.getPageList());
+		holder.nextPage();
+		assertEquals(24, holder.getLastElementOnPage());
+		assertEquals(provider.elements.subList(20, 25), holder.getPageList());
+		assertEquals(25, holder.getNrOfElements());
+		assertTrue(holder.isLastPage());
+		holder.nextPage();
+		assertEquals(2, holder.getPage());
+	}
+
+	@Test
+	public void testLastPageBeyondEndWithoutCountProvider() {
+		ListPageProvider provider = new ListPageProvider(20);
+		LazyPagedListHolder<Integer> holder = new LazyPagedListHolder<Integer>(provider);
+		holder.getPageList();
+		holder.nextPage();
+		holder.getPageList();
+		holder.nextPage();
+		assertEquals(2, holder.getPage());
+		assertEquals(provider.elements.subList(10, 20), holder.getPageList());
+		assertEquals(1, holder.getPage());
+		assertEquals(20, holder.getNrOfElements());
+		assertTrue(holder.isLastPage());
+	}
+
+	@Test
+	public void testEmptySource() {
+		ListPageProvider provider = new ListPageProvider(0);
+		LazyPagedListHolder<Integer> holder = new LazyPagedListHolder<Integer>(provider);
+		assertTrue(holder.getPageList().isEmpty());
+		assertEquals(0, holder.getNrOfElements());
+		assertEquals(1, holder.getPageCount());
+		assertTrue(holder.isLastPage());
+	}
+
+	@Test
+	public void testResortPassesSortToProvider() {
+		ListPageProvider provider = new ListPageProvider(50);
+		LazyPagedListHolder<Integer> holder = new LazyPagedListHolder<Integer>(provider, provider);
+		holder.getPageList();
+		assertNull(provider.lastSort);
+
+		((MutableSortDefinition) holder.getSort()).setProperty("value");
+		holder.setPage(3);
+		holder.resort();
+		assertEquals(0, holder.getPage());
+		assertEquals(provider.elements.subList(0, 10), holder.getPageList());
+		assertEquals("value", provider.lastSort.getProperty());
+		assertTrue(provider.lastSort.isAscending());
+
+		// Toggles to descending order
+		((MutableSortDefinition) holder.getSort()).setProperty("value");
+		holder.resort();
+		assertEquals(Integer.valueOf(49), holder.getPageList().get(0));
+		assertFalse(provider.lastSort.isAscending());
+		holder.resort();
+		assertEquals(3, provider.loads.get());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedPagesEvicted() {
+		ListPageProvider provider = new ListPageProvider(100);
+		LazyPagedListHolder<Integer> holder = new LazyPagedListHolder<Integer>(provider, provider);
+		holder.setMaxCachedPages(2);
+		for (int page : new int[] {0, 1, 0, 2, 0, 1}) {
+			holder.setPage(page);
+			assertEquals(provider.elements.subList(page * 10, page * 10 + 10), holder.getPageList());
+		}
+		assertEquals(4, provider.loads.get());
+	}
+
+	@Test
+	public void testPageSizeChangeDiscardsPages() {
+		ListPageProvider provider = new ListPageProvider(100);
+		LazyPagedListHolder<Integer> holder = new LazyPagedListHolder<Integer>(provider, provider);
+		holder.getPageList();
+		holder.setPageSize(20);
+		assertEquals(provider.elements.subList(0, 20), holder.getPageList());
+		assertEquals(2, provider.loads.get());
+		holder.refresh();
+		holder.getPageList();
+		assertEquals(3, provider.loads.get());
+		assertEquals(2, provider.counts.get());
+	}
+
+	@Test
+	public void testNextPagePrefetched() {
+		ListPageProvider provider = new ListPageProvider(30);
+		LazyPagedListHolder<Integer> holder = new LazyPagedListHolder<Integer>(provider, provider);
+		holder.setPrefetchExecutor(new SyncTaskExecutor());
+		holder.getPageList();
+		assertEquals(2, provider.loads.get());
+		holder.nextPage();
+		assertEquals(provider.elements.subList(10, 20), holder.getPageList());
+		holder.nextPage();
+		assertEquals(provider.elements.subList(20, 30), holder.getPageList());
+		assertEquals(3, provider.loads.get());
+	}
+
+	@Test
+	public void testNextPagePrefetchedAsynchronously() {
+		ListPageProvider provider = new ListPageProvider(1000);
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor();
+		executor.setConcurrencyLimit(1);
+		LazyPagedListHolder<Integer> holder = new LazyPagedListHolder<Integer>(provider, null, executor);
+		for (int page = 0; page < 100; page++) {
+			assertEquals(page, holder.getPage());
+			assertEquals(provider.elements.subList(page * 10, page * 10 + 10), holder.getPageList());
+			holder.nextPage();
+		}
+		assertTrue(holder.isLastPage());
+		assertTrue(provider.loads.get() <= 101);
+	}
+
+	@Test
+	public void testNoPrefetchingByDefault() {
+		ListPageProvider provider = new ListPageProvider(30);
+		LazyPagedListHolder<Integer> holder = new LazyPagedListHolder<Integer>(provider, provider);
+		assertNull(holder.getPrefetchExecutor());
+		assertEquals(provider.elements.subList(0, 10), holder.getPageList());
+		assertEquals(1, provider.loads.get());
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		ListPageProvider provider = new ListPageProvider(50);
+		LazyPagedListHolder<Integer> holder = new LazyPagedListHolder<Integer>(provider);
+		holder.getPageList();
+		holder.nextPage();
+		holder.getPageList();
+
+		@SuppressWarnings("unchecked")
+		LazyPagedListHolder<Integer> copy = (LazyPagedListHolder<Integer>) SerializationTestUtils.serializeAndDeserialize(holder);
+		assertEquals(1, copy.getPage());
+		assertEquals(provider.elements.subList(10, 20), copy.getPageList());
+		copy.nextPage();
+		assertEquals(provider.elements.subList(20, 30), copy.getPageList());
+	}
+
+
+	@SuppressWarnings("serial")
+	private static class ListPageProvider implements PageProvider<Integer>, ElementCountProvider, Serializable {
+
+		private final List<Integer> elements = new ArrayList<Integer>();
+
+		private final AtomicInteger loads = new AtomicInteger();
+
+		private final AtomicInteger counts = new AtomicInteger();
+
+		private volatile SortDefinition lastSort;
+
+		public ListPageProvider(int count) {
+			for (int i = 0; i < count; i++) {
+				this.elements.add(i);
+			}
+		}
+
+		public List<Integer> loadPage(int firstElement, int maxElements, SortDefinition sort) {
+			this.loads.incrementAndGet();
+			this.lastSort = sort;
+			List<Integer> sorted = new ArrayList<Integer>(this.elements);
+			if (sort != null && !sort.isAscending()) {
+				Collections.reverse(sorted);
+			}
+			int fromIndex = Math.min(firstElement, sorted.size());
+			return new ArrayList<Integer>(sorted.subList(fromIndex, Math.min(fromIndex + maxElements, sorted.size())));
+		}
+
+		public int countElements() {
+			this.counts.incrementAndGet();
+			return this.elements.size();
+		}
+	}
+
+}
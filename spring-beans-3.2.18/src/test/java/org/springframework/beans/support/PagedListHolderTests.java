@@ -16,8 +16,10 @@
 
 package org.springframework.beans.support;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -25,6 +27,7 @@ import org.springframework.tests.Assume;
 import org.springframework.tests.TestGroup;
 
 import org.springframework.tests.sample.beans.TestBean;
+import org.springframework.util.SerializationTestUtils;
 
 import static org.junit.Assert.*;
 
@@ -165,6 +168,82 @@ public class PagedListHolderTests {
 		assertEquals(0, holder.getPage());
 	}
 
+	@Test
+	public void testIncrementalSort() {
+		List<Item> items = createItems(1005);
+		List<Item> expected = new ArrayList<Item>(items);
+		PropertyComparator.sort(expected, new MutableSortDefinition("rank", false, true));
+
+		PagedListHolder<Item> holder = new PagedListHolder<Item>(items);
+		holder.setIncrementalSort(true);
+		((MutableSortDefinition) holder.getSort()).setProperty("rank");
+		holder.resort();
+		assertEquals(expected.subList(0, 10), holder.getPageList());
+		holder.setPage(5);
+		assertEquals(expected.subList(50, 60), holder.getPageList());
+		holder.setPage(2);
+		assertEquals(expected.subList(20, 30), holder.getPageList());
+		assertEquals(expected.subList(0, 60), items.subList(0, 60));
+		holder.setPage(100);
+		assertEquals(expected.subList(1000, 1005), holder.getPageList());
+		assertEquals(expected, items);
+
+		// Toggles to descending order
+		((MutableSortDefinition) holder.getSort()).setProperty("rank");
+		holder.resort();
+		assertEquals(0, holder.getPage());
+		assertEquals(1005, holder.getNrOfElements());
+		for (int i = 0; i < 10; i++) {
+			assertEquals(expected.get(1004 - i).getRank(), holder.getPageList().get(i).getRank());
+		}
+	}
+
+	@Test
+	public void testIncrementalSortAfterSerialization() throws Exception {
+		List<Item> items = createItems(100);
+		PagedListHolder<Item> holder = new PagedListHolder<Item>(items);
+		holder.setIncrementalSort(true);
+		((MutableSortDefinition) holder.getSort()).setProperty("rank");
+		holder.resort();
+		assertEquals(10, holder.getPageList().size());
+
+		@SuppressWarnings("unchecked")
+		PagedListHolder<Item> copy = (PagedListHolder<Item>) SerializationTestUtils.serializeAndDeserialize(holder);
+		assertTrue(copy.isIncrementalSort());
+		copy.setPage(7);
+		assertEquals(10, copy.getPageList().size());
+		List<Item> expected = new ArrayList<Item>(copy.getSource());
+		PropertyComparator.sort(expected, new MutableSortDefinition("rank", false, true));
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getRank(), copy.getSource().get(i).getRank());
+		}
+	}
+
+
+	private static List<Item> createItems(int count) {
+		Random random = new Random(42);
+		List<Item> items = new ArrayList<Item>(count);
+		for (int i = 0; i < count; i++) {
+			items.add(new Item(random.nextInt(count / 2)));
+		}
+		return items;
+	}
+
+
+	@SuppressWarnings("serial")
+	public static class Item implements Serializable {
+
+		private final int rank;
+
+		public Item(int rank) {
+			this.rank = rank;
+		}
+
+		public int getRank() {
+			return rank;
+		}
+	}
+
 
 
 	public static class MockFilter {
@@ -16,9 +16,17 @@
 
 package org.springframework.beans.support;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
 import org.junit.Test;
+import org.springframework.tests.sample.beans.TestBean;
 import org.springframework.util.comparator.CompoundComparator;
 
 /**
@@ -96,6 +104,86 @@ public class PropertyComparatorTests {
 	}
 
 
+	@Test
+	public void testSortMatchesComparator() {
+		Random random = new Random(42);
+		String[] names = {"mace", "Mace", "biscy", "Biscy", "rex", null};
+		List<Dog> dogs = new ArrayList<Dog>();
+		for (int i = 0; i < 200; i++) {
+			Dog dog = new Dog();
+			dog.setNickName(names[random.nextInt(names.length)]);
+			dogs.add(dog);
+		}
+		assertSortMatchesComparator(dogs, "nickName");
+	}
+
+	@Test
+	public void testSortByIntegerProperty() {
+		Random random = new Random(42);
+		List<TestBean> beans = new ArrayList<TestBean>();
+		for (int i = 0; i < 200; i++) {
+			beans.add(new TestBean("tb" + i, random.nextInt(20) - 10));
+		}
+		beans.get(0).setAge(Integer.MIN_VALUE);
+		beans.get(1).setAge(Integer.MAX_VALUE);
+		assertSortMatchesComparator(beans, "age");
+	}
+
+	@Test
+	public void testSortByNestedProperty() {
+		Random random = new Random(42);
+		List<TestBean> beans = new ArrayList<TestBean>();
+		for (int i = 0; i < 200; i++) {
+			TestBean tb = new TestBean("tb" + i);
+			if (random.nextInt(4) > 0) {
+				tb.setSpouse(new TestBean("spouse" + random.nextInt(20)));
+			}
+			beans.add(tb);
+		}
+		assertSortMatchesComparator(beans, "spouse.name");
+	}
+
+	@Test
+	public void testSortByMissingProperty() {
+		List<TestBean> beans = new ArrayList<TestBean>();
+		for (int i = 0; i < 10; i++) {
+			beans.add(new TestBean("tb" + i));
+		}
+		assertSortMatchesComparator(beans, "missing");
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testSortLargeArray() {
+		Random random = new Random(42);
+		TestBean[] beans = new TestBean[20000];
+		for (int i = 0; i < beans.length; i++) {
+			beans[i] = new TestBean("tb" + random.nextInt(5000), random.nextInt(5000));
+		}
+		for (String property : new String[] {"name", "age"}) {
+			TestBean[] expected = beans.clone();
+			Arrays.sort(expected, new PropertyComparator(property, false, false));
+			TestBean[] actual = beans.clone();
+			PropertyComparator.sort(actual, new MutableSortDefinition(property, false, false));
+			assertArrayEquals(expected, actual);
+		}
+	}
+
+
+	@SuppressWarnings("unchecked")
+	private static void assertSortMatchesComparator(List<?> source, String property) {
+		for (boolean ignoreCase : new boolean[] {false, true}) {
+			for (boolean ascending : new boolean[] {true, false}) {
+				List<Object> expected = new ArrayList<Object>(source);
+				Collections.sort(expected, new PropertyComparator(property, ignoreCase, ascending));
+				List<Object> actual = new ArrayList<Object>(source);
+				PropertyComparator.sort(actual, new MutableSortDefinition(property, ignoreCase, ascending));
+				assertArrayEquals(expected.toArray(), actual.toArray());
+			}
+		}
+	}
+
+
 	@SuppressWarnings("unused")
 	private static class Dog implements Comparable<Object> {
 